@@ -0,0 +1,73 @@
+package com.socialmediatraining.authenticationcommons;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+//Reading the sub and preferred_username claims of one header, like createContent does.
+//Run with -prof gc to compare the allocations per operation.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtClaimsBenchmark {
+
+    //Payload shaped like a Keycloak access token, the claims are after the realm and resource accesses
+    private static final String PAYLOAD = "{\"exp\":1735689600,\"iat\":1735686000,\"jti\":\"6f1c3c1e-4a8e-4b51-9f4e-3c2f5c8b2a10\"," +
+            "\"iss\":\"http://localhost:8080/realms/social-media\",\"aud\":\"account\",\"typ\":\"Bearer\",\"azp\":\"social-media-client\"," +
+            "\"realm_access\":{\"roles\":[\"offline_access\",\"uma_authorization\",\"USER\"]}," +
+            "\"resource_access\":{\"account\":{\"roles\":[\"manage-account\",\"view-profile\"]}},\"scope\":\"openid email profile\"," +
+            "\"sub\":\"550e8400-e29b-41d4-a716-446655440000\",\"email_verified\":true,\"name\":\"Test User\"," +
+            "\"preferred_username\":\"testuser\",\"given_name\":\"Test\",\"family_name\":\"User\",\"email\":\"test@example.com\"}";
+
+    private String authHeader;
+
+    @Setup
+    public void setUp() {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        authHeader = "Bearer " + encoder.encodeToString("{\"alg\":\"RS256\",\"typ\":\"JWT\"}".getBytes()) + "."
+                + encoder.encodeToString(PAYLOAD.getBytes()) + ".c2lnbmF0dXJl";
+    }
+
+    @Benchmark
+    public void treeParsing(Blackhole blackhole) {
+        blackhole.consume(legacyPayload(authHeader).get("sub").asText());
+        blackhole.consume(legacyPayload(authHeader).get("preferred_username").asText());
+    }
+
+    @Benchmark
+    public void streamingParsing(Blackhole blackhole) {
+        JwtClaims claims = JwtUtils.parseClaims(authHeader);
+        blackhole.consume(claims.subject());
+        blackhole.consume(claims.preferredUsername());
+    }
+
+    //Previous JwtUtils implementation, one ObjectMapper and one JSON tree per claim
+    private static JsonNode legacyPayload(String authHeader) {
+        String token = authHeader.replace("Bearer ", "");
+        String[] chunks = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(chunks[1]));
+        try {
+            return new ObjectMapper().readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON: " + e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        JmhClasspath.export();
+        new Runner(new OptionsBuilder()
+                .include(JwtClaimsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,8 @@
+package com.socialmediatraining.authenticationcommons;
+
+//Claims of the access token used by the services, the token signature is checked by the resource server
+public record JwtClaims(String subject, String preferredUsername) {
+    public static JwtClaims create(String subject, String preferredUsername) {
+        return new JwtClaims(subject, preferredUsername);
+    }
+}
@@ -1,33 +1,87 @@
 package com.socialmediatraining.authenticationcommons;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import java.io.IOException;
 import java.util.Base64;
 
 public class JwtUtils {
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String SUBJECT_CLAIM = "sub";
+    private static final String USERNAME_CLAIM = "preferred_username";
+    private static final String CLAIMS_ATTRIBUTE = JwtClaims.class.getName();
+    //Thread safe, parsers created from it share the symbol tables
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private record RequestClaims(String authHeader, JwtClaims claims) {}
+
     public static String getSubIdFromAuthHeader(String authHeader){
-        return GetDecodedPayload(authHeader).get("sub").asText();
+        return getClaimsFromAuthHeader(authHeader).subject();
     }
 
     public static String getUsernameFromAuthHeader(String authHeader){
-        return GetDecodedPayload(authHeader).get("preferred_username").asText();
+        return getClaimsFromAuthHeader(authHeader).preferredUsername();
+    }
+
+    //Parsed once per MVC request, the claims are kept in a request attribute
+    public static JwtClaims getClaimsFromAuthHeader(String authHeader){
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if(requestAttributes == null){
+            return parseClaims(authHeader);
+        }
+
+        if(requestAttributes.getAttribute(CLAIMS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof RequestClaims requestClaims
+                && requestClaims.authHeader().equals(authHeader)){
+            return requestClaims.claims();
+        }
+        JwtClaims claims = parseClaims(authHeader);
+        requestAttributes.setAttribute(CLAIMS_ATTRIBUTE, new RequestClaims(authHeader, claims), RequestAttributes.SCOPE_REQUEST);
+        return claims;
     }
 
-    private static JsonNode GetDecodedPayload(String authHeader){
-        if(authHeader == null || !authHeader.startsWith("Bearer ")){
+    //Decodes only the payload segment and streams its top level fields until both claims are found.
+    //Both claims are required: a token without preferred_username is rejected even when only its sub is read, as the
+    //claims are parsed together (the sub used to be readable from such a token)
+    public static JwtClaims parseClaims(String authHeader){
+        if(authHeader == null || !authHeader.startsWith(BEARER_PREFIX)){
+            throw new IllegalArgumentException("Invalid Authorization header format");
+        }
+
+        int payloadStart = authHeader.indexOf('.', BEARER_PREFIX.length()) + 1;
+        int payloadEnd = authHeader.indexOf('.', payloadStart);
+        if(payloadStart == 0 || payloadEnd < 0){
             throw new IllegalArgumentException("Invalid Authorization header format");
         }
 
-        String token = authHeader.replace("Bearer ", "");
-        String[] chunks = token.split("\\.");
-        Base64.Decoder decoder = Base64.getUrlDecoder();
-        String payload = new String(decoder.decode(chunks[1]));
-        try {
-            return new ObjectMapper().readTree(payload);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Error processing JSON: " + e.getMessage());
+        byte[] payload = Base64.getUrlDecoder().decode(authHeader.substring(payloadStart, payloadEnd));
+        String subject = null;
+        String username = null;
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            if(parser.nextToken() != JsonToken.START_OBJECT){
+                throw new IllegalArgumentException("Invalid token payload");
+            }
+            while ((subject == null || username == null) && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                parser.nextToken();
+                if(SUBJECT_CLAIM.equals(fieldName)){
+                    subject = parser.getValueAsString();
+                } else if(USERNAME_CLAIM.equals(fieldName)){
+                    username = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Error processing JSON: " + e.getMessage());
+        }
+
+        if(subject == null || username == null){
+            throw new IllegalArgumentException("Token is missing the sub or preferred_username claim");
         }
+        return JwtClaims.create(subject, username);
     }
 }
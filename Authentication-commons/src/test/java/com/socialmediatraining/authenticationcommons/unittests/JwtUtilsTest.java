@@ -0,0 +1,84 @@
+package com.socialmediatraining.authenticationcommons.unittests;
+
+import com.socialmediatraining.authenticationcommons.JwtClaims;
+import com.socialmediatraining.authenticationcommons.JwtUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtUtilsTest {
+
+    private static final String HEADER = "{\"alg\":\"RS256\",\"typ\":\"JWT\"}";
+
+    private static String authHeader(String payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return "Bearer " + encoder.encodeToString(HEADER.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".c2lnbmF0dXJl";
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void parseClaims_ShouldReadSubAndUsernameAfterNestedClaims() {
+        String header = authHeader("{\"realm_access\":{\"roles\":[\"USER\"],\"sub\":\"nested\"},\"sub\":\"user-id\"," +
+                "\"aud\":[\"account\"],\"preferred_username\":\"testuser\"}");
+
+        JwtClaims claims = JwtUtils.parseClaims(header);
+
+        assertThat(claims).isEqualTo(JwtClaims.create("user-id", "testuser"));
+        assertThat(JwtUtils.getSubIdFromAuthHeader(header)).isEqualTo("user-id");
+        assertThat(JwtUtils.getUsernameFromAuthHeader(header)).isEqualTo("testuser");
+    }
+
+    @Test
+    void parseClaims_WithMalformedHeader_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> JwtUtils.parseClaims(null));
+        assertThrows(IllegalArgumentException.class, () -> JwtUtils.parseClaims("Basic dXNlcjpwYXNz"));
+        assertThrows(IllegalArgumentException.class, () -> JwtUtils.parseClaims("Bearer no-dots"));
+        assertThrows(IllegalArgumentException.class, () -> JwtUtils.parseClaims("Bearer header.not*base64.signature"));
+        assertThrows(IllegalArgumentException.class, () -> JwtUtils.parseClaims(authHeader("[\"not an object\"]")));
+        assertThrows(IllegalArgumentException.class, () -> JwtUtils.parseClaims(authHeader("{\"sub\":\"user-id\",")));
+    }
+
+    @Test
+    void parseClaims_WithMissingClaim_ShouldThrow() {
+        String withoutUsername = authHeader("{\"sub\":\"user-id\"}");
+
+        assertThrows(IllegalArgumentException.class, () -> JwtUtils.parseClaims(withoutUsername));
+        //Rejected even when only the sub is read
+        assertThrows(IllegalArgumentException.class, () -> JwtUtils.getSubIdFromAuthHeader(withoutUsername));
+        assertThrows(IllegalArgumentException.class, () -> JwtUtils.parseClaims(authHeader("{\"preferred_username\":\"testuser\"}")));
+    }
+
+    @Test
+    void getClaimsFromAuthHeader_InRequest_ShouldParseEachHeaderOnce() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        String header = authHeader("{\"sub\":\"user-id\",\"preferred_username\":\"testuser\"}");
+        String otherHeader = authHeader("{\"sub\":\"other-id\",\"preferred_username\":\"other\"}");
+
+        JwtClaims first = JwtUtils.getClaimsFromAuthHeader(header);
+
+        assertThat(JwtUtils.getClaimsFromAuthHeader(header)).isSameAs(first);
+        assertThat(JwtUtils.getClaimsFromAuthHeader(otherHeader)).isEqualTo(JwtClaims.create("other-id", "other"));
+    }
+
+    @Test
+    void getClaimsFromAuthHeader_OutsideRequest_ShouldParseEveryCall() {
+        String header = authHeader("{\"sub\":\"user-id\",\"preferred_username\":\"testuser\"}");
+
+        JwtClaims first = JwtUtils.getClaimsFromAuthHeader(header);
+
+        assertThat(JwtUtils.getClaimsFromAuthHeader(header)).isEqualTo(first).isNotSameAs(first);
+    }
+}
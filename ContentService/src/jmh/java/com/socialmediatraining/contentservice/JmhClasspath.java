@@ -0,0 +1,33 @@
+package com.socialmediatraining.contentservice;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+//exec:java runs the benchmark in the Maven JVM with the test classpath in a class loader of its own, JMH starts its
+//forks with java.class.path, which is Maven's. Copies the class loader's classpath over before the runner starts.
+//Shared by the benchmarks of every package
+public final class JmhClasspath {
+
+    private JmhClasspath() {
+    }
+
+    public static void export() {
+        if (!(Thread.currentThread().getContextClassLoader() instanceof URLClassLoader classLoader)) {
+            return;
+        }
+        List<String> entries = new ArrayList<>();
+        for (URL url : classLoader.getURLs()) {
+            try {
+                entries.add(Path.of(url.toURI()).toString());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                entries.add(url.getPath());
+            }
+        }
+        System.setProperty("java.class.path", String.join(File.pathSeparator, entries));
+    }
+}
@@ -0,0 +1,150 @@
+package com.socialmediatraining.contentservice.config;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Blocking requests on the current Tomcat pool (server.tomcat.threads.max platform threads) against virtual threads
+//(spring.threads.virtual.enabled=true). A request is `depth` nested frames, like a controller -> service -> driver stack,
+//blocked for `latency` ms like a database or Redis round trip.
+//Throughput: `requests` requests submitted at once, reports requests/s and the most requests in flight together.
+//Memory: `inFlight` requests held blocked together, reports heap and resident memory (Linux VmRSS) per request in flight.
+//mvn -Pjmh test-compile exec:java -Djmh.benchmark=com.socialmediatraining.contentservice.config.RequestThreadingBenchmark
+//  -Dexec.args="[requests] [inFlight] [latency ms] [depth] [pool size]"
+public class RequestThreadingBenchmark {
+
+    private record Result(String name, double requestsPerSecond, int maxInFlight, int heldInFlight, long heapPerRequest, long rssPerRequest) {
+        @Override
+        public String toString() {
+            return "%-8s %8.0f req/s  max in flight %6d  |  %6d held: %7d B heap, %7d B resident per request".formatted(
+                    name, requestsPerSecond, maxInFlight, heldInFlight, heapPerRequest, rssPerRequest);
+        }
+    }
+
+    private final int requests;
+    private final int inFlight;
+    private final long latencyMs;
+    private final int depth;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    private RequestThreadingBenchmark(int requests, int inFlight, long latencyMs, int depth) {
+        this.requests = requests;
+        this.inFlight = inFlight;
+        this.latencyMs = latencyMs;
+        this.depth = depth;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        long latencyMs = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        int poolSize = args.length > 4 ? Integer.parseInt(args[4]) : 200;
+        RequestThreadingBenchmark benchmark = new RequestThreadingBenchmark(requests, inFlight, latencyMs, depth);
+
+        //Fresh executors for each measure so the memory one starts without threads. Warmed up once first
+        try (ExecutorService platform = Executors.newFixedThreadPool(poolSize);
+             ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor()) {
+            benchmark.throughput(platform);
+            benchmark.throughput(virtual);
+        }
+
+        System.out.println(benchmark.measure("platform", () -> Executors.newFixedThreadPool(poolSize)));
+        System.out.println(benchmark.measure("virtual", Executors::newVirtualThreadPerTaskExecutor));
+    }
+
+    private Result measure(String name, Callable<ExecutorService> executors) throws Exception {
+        double requestsPerSecond;
+        int maxInFlight;
+        try (ExecutorService executor = executors.call()) {
+            maxRunning.set(0);
+            requestsPerSecond = throughput(executor);
+            maxInFlight = maxRunning.get();
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        long rssBefore = residentMemory();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger held = new AtomicInteger();
+        ExecutorService executor = executors.call();
+        try {
+            for (int i = 0; i < inFlight; i++) {
+                executor.execute(() -> nested(depth, () -> {
+                    held.incrementAndGet();
+                    release.await();
+                }));
+            }
+            //A bounded pool holds its size at most, the other requests wait in its queue
+            awaitStable(held);
+            System.gc();
+            long heapPerRequest = (memory.getHeapMemoryUsage().getUsed() - heapBefore) / Math.max(1, held.get());
+            long rssPerRequest = (residentMemory() - rssBefore) / Math.max(1, held.get());
+            return new Result(name, requestsPerSecond, maxInFlight, held.get(), heapPerRequest, rssPerRequest);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private double throughput(ExecutorService executor) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            executor.execute(() -> {
+                try {
+                    nested(depth, () -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        Thread.sleep(latencyMs);
+                        running.decrementAndGet();
+                    });
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return requests / (Duration.ofNanos(System.nanoTime() - start).toMillis() / 1000.0);
+    }
+
+    private interface Blocking {
+        void run() throws InterruptedException;
+    }
+
+    private static void nested(int depth, Blocking blocking) {
+        if (depth > 0) {
+            nested(depth - 1, blocking);
+            return;
+        }
+        try {
+            blocking.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitStable(AtomicInteger held) throws InterruptedException {
+        int previous = -1;
+        while (held.get() != previous) {
+            previous = held.get();
+            Thread.sleep(500);
+        }
+    }
+
+    private static long residentMemory() throws IOException {
+        for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.socialmediatraining.contentservice.entity;
+
+import com.socialmediatraining.contentservice.JmhClasspath;
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.*;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Insert throughput into a table keyed by UUID, random (v4) against time-ordered (v7) ids. The table is filled with
+//existingRows first so the primary key index no longer fits in a few pages, each operation then commits one batch.
+//Runs on in-memory H2 by default, pass -p jdbcUrl=jdbc:postgresql://host/db?user=...&password=... for Postgres.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"v4", "v7"})
+    private String version;
+
+    @Param({"1000000"})
+    private int existingRows;
+
+    @Param({"jdbc:h2:mem:uuid_insert;MODE=PostgreSQL"})
+    private String jdbcUrl;
+
+    private Connection connection;
+    private PreparedStatement insert;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(jdbcUrl);
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS uuid_insert_benchmark");
+            statement.execute("CREATE TABLE uuid_insert_benchmark (id UUID PRIMARY KEY, created_at TIMESTAMP NOT NULL)");
+        }
+        connection.commit();
+        insert = connection.prepareStatement("INSERT INTO uuid_insert_benchmark (id, created_at) VALUES (?, ?)");
+        for (int i = 0; i < existingRows; i += BATCH_SIZE) {
+            insertBatch();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE uuid_insert_benchmark");
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setObject(1, "v7".equals(version) ? UuidV7Generator.next() : UUID.randomUUID());
+            insert.setTimestamp(2, now);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        JmhClasspath.export();
+        new Runner(new OptionsBuilder()
+                .include(UuidInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,163 @@
+package com.socialmediatraining.contentservice.repository;
+
+import com.socialmediatraining.contentservice.JmhClasspath;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Latency of the home feed query (contents of followed creators, newest first, bounded by the feed horizon) on a plain
+//table against the same rows range partitioned by month on created_at. PostgreSQL only.
+//The data generator fills `rows` contents spread over `months` months and `creators` creators, once per schema: later
+//runs with the same parameters reuse the tables, pass -p regenerate=true to rebuild them.
+//mvn -Pjmh test-compile exec:java -Djmh.benchmark=com.socialmediatraining.contentservice.repository.FeedPartitionBenchmark
+//with -p jdbcUrl=jdbc:postgresql://host/db?user=...&password=... to point to another database.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeedPartitionBenchmark {
+
+    private static final String FEED_QUERY = "SELECT id, creator_id, created_at, text FROM %s.content " +
+            "WHERE creator_id = ANY (?) AND deleted_at IS NULL AND created_at >= ? " +
+            "ORDER BY created_at DESC, id DESC LIMIT 20";
+
+    @Param({"heap", "partitioned"})
+    private String layout;
+
+    @Param({"100000000"})
+    private long rows;
+
+    @Param({"100000"})
+    private int creators;
+
+    @Param({"36"})
+    private int months;
+
+    @Param({"200"})
+    private int followed;
+
+    @Param({"180"})
+    private int horizonDays;
+
+    @Param({"false"})
+    private boolean regenerate;
+
+    @Param({"jdbc:postgresql://localhost:5432/sm_content_service_db?user=username&password=password"})
+    private String jdbcUrl;
+
+    private Connection connection;
+    private PreparedStatement feed;
+    private UUID[] creatorIds;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(jdbcUrl);
+        String schema = "feed_benchmark_" + layout;
+        if (regenerate || !isGenerated(schema)) {
+            generate(schema);
+        }
+        creatorIds = new UUID[creators];
+        for (int i = 0; i < creators; i++) {
+            creatorIds[i] = creatorId(i);
+        }
+        feed = connection.prepareStatement(FEED_QUERY.formatted(schema));
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void homeFeed(Blackhole blackhole) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UUID[] followedIds = new UUID[followed];
+        for (int i = 0; i < followed; i++) {
+            followedIds[i] = creatorIds[random.nextInt(creators)];
+        }
+        feed.setArray(1, connection.createArrayOf("uuid", followedIds));
+        feed.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now().minusDays(horizonDays)));
+        try (ResultSet resultSet = feed.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getObject(1));
+            }
+        }
+    }
+
+    private boolean isGenerated(String schema) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT obj_description(to_regclass(? || '.content'), 'pg_class')")) {
+            statement.setString(1, schema);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && generatedComment().equals(resultSet.getString(1));
+            }
+        }
+    }
+
+    //Same layout as docker/postgres/init.sql, creator ids are derived from their number so both schemas share them
+    private void generate(String schema) throws SQLException {
+        boolean partitioned = "partitioned".equals(layout);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+            statement.execute("CREATE SCHEMA " + schema);
+            statement.execute("CREATE TABLE " + schema + ".content(" +
+                    "id UUID NOT NULL, creator_id UUID NOT NULL, parent_id UUID, root_id UUID, " +
+                    "created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP, text VARCHAR(255) NOT NULL, media_urls JSONB, " +
+                    "deleted_at TIMESTAMP, like_count BIGINT NOT NULL DEFAULT 0, reply_count BIGINT NOT NULL DEFAULT 0, " +
+                    (partitioned ? "PRIMARY KEY (id, created_at)) PARTITION BY RANGE (created_at)" : "PRIMARY KEY (id))"));
+            if (partitioned) {
+                statement.execute("DO $$ DECLARE month DATE; BEGIN " +
+                        "FOR i IN -" + months + "..1 LOOP " +
+                        "month := date_trunc('month', NOW())::DATE + make_interval(months => i); " +
+                        "EXECUTE format('CREATE TABLE %I.%I PARTITION OF %I.content FOR VALUES FROM (%L) TO (%L)', '" +
+                        schema + "', 'content_p' || to_char(month, 'YYYY_MM'), '" + schema + "', month, month + INTERVAL '1 month'); " +
+                        "END LOOP; END $$");
+            }
+            //Loaded before indexing, uniformly spread over the creators and the last `months` months
+            statement.execute("INSERT INTO " + schema + ".content (id, creator_id, created_at, updated_at, text) " +
+                    "SELECT gen_random_uuid(), " +
+                    "md5('creator-' || (n % " + creators + "))::uuid, " +
+                    "NOW() - random() * INTERVAL '" + months + " months', NOW(), 'generated content ' || n " +
+                    "FROM generate_series(1, " + rows + ") AS n");
+            statement.execute("CREATE INDEX ON " + schema + ".content(creator_id, created_at DESC, id DESC)");
+            statement.execute("ANALYZE " + schema + ".content");
+            statement.execute("COMMENT ON TABLE " + schema + ".content IS '" + generatedComment() + "'");
+        }
+    }
+
+    private String generatedComment() {
+        return rows + " rows, " + creators + " creators, " + months + " months";
+    }
+
+    private static UUID creatorId(int creator) {
+        try {
+            byte[] md5 = MessageDigest.getInstance("MD5").digest(("creator-" + creator).getBytes(StandardCharsets.UTF_8));
+            long mostSignificantBits = ByteBuffer.wrap(md5, 0, 8).getLong();
+            long leastSignificantBits = ByteBuffer.wrap(md5, 8, 8).getLong();
+            return new UUID(mostSignificantBits, leastSignificantBits);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        JmhClasspath.export();
+        new Runner(new OptionsBuilder()
+                .include(FeedPartitionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,141 @@
+package com.socialmediatraining.contentservice.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+//Throughput and thread count of the keyset feed query under concurrent feed requests: blocking JDBC on boundedElastic
+//(how the feed read before R2dbcFeedReadRepository) against R2dbcFeedReadRepository. Both legs use pools of the same size on the same
+//database, the creators to follow are read from the content table. PostgreSQL only.
+//mvn -Pjmh test-compile exec:java -Djmh.benchmark=com.socialmediatraining.contentservice.repository.FeedReadLoadRunner
+//  -Dexec.args="<jdbc url> <r2dbc url> <user> <password> [requests] [concurrency] [pool size]"
+public class FeedReadLoadRunner {
+
+    private static final String FEED_PAGE_AFTER = "SELECT c.id, c.creator_id, c.parent_id, c.root_id, c.created_at, " +
+            "c.updated_at, c.text, c.media_urls, c.deleted_at, c.like_count, c.reply_count FROM content c " +
+            "WHERE c.creator_id = ANY(?) AND c.deleted_at IS NULL AND c.created_at >= ? " +
+            "AND (c.created_at < ? OR (c.created_at = ? AND c.id < ?)) " +
+            "ORDER BY c.created_at DESC, c.id DESC LIMIT ?";
+    private static final int FOLLOWED = 200;
+    private static final int PAGE_SIZE = 21;
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    private record Result(String name, int requests, Duration elapsed, int peakThreads, long elasticThreads) {
+        @Override
+        public String toString() {
+            return "%-9s %8.0f req/s  %6d ms  peak threads %4d  boundedElastic threads %4d".formatted(
+                    name, requests * 1000.0 / Math.max(1, elapsed.toMillis()), elapsed.toMillis(), peakThreads, elasticThreads);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String jdbcUrl = args[0];
+        String r2dbcUrl = args[1];
+        String user = args[2];
+        String password = args[3];
+        int requests = args.length > 4 ? Integer.parseInt(args[4]) : 20_000;
+        int concurrency = args.length > 5 ? Integer.parseInt(args[5]) : 500;
+        int poolSize = args.length > 6 ? Integer.parseInt(args[6]) : 20;
+
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(jdbcUrl);
+            dataSource.setUsername(user);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            ConnectionPool connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                    .builder(ConnectionFactories.get(r2dbcUrl.replaceFirst("://", "://" + user + ":" + password + "@")))
+                    .maxSize(poolSize)
+                    .build());
+            try {
+                List<UUID> creators = creators(dataSource);
+                R2dbcFeedReadRepository r2dbc = new R2dbcFeedReadRepository(DatabaseClient.create(connectionPool), new ObjectMapper());
+                LocalDateTime since = LocalDateTime.now().minusDays(180);
+
+                //Warm both sides up before measuring
+                run("jdbc", 1_000, concurrency, () -> blockingPage(dataSource, followed(creators), since));
+                run("r2dbc", 1_000, concurrency, () -> r2dbc.findFeedPageAfter(followed(creators), since, LocalDateTime.now(), MAX_ID, PAGE_SIZE));
+
+                System.out.println(run("jdbc", requests, concurrency, () -> blockingPage(dataSource, followed(creators), since)));
+                System.out.println(run("r2dbc", requests, concurrency, () -> r2dbc.findFeedPageAfter(followed(creators), since, LocalDateTime.now(), MAX_ID, PAGE_SIZE)));
+            } finally {
+                connectionPool.dispose();
+            }
+        }
+    }
+
+    private static Result run(String name, int requests, int concurrency, Supplier<Mono<?>> request) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> request.get(), concurrency)
+                .blockLast();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        long elasticThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("boundedElastic"))
+                .count();
+        return new Result(name, requests, elapsed, threads.getPeakThreadCount(), elasticThreads);
+    }
+
+    private static Mono<Integer> blockingPage(HikariDataSource dataSource, List<UUID> creatorIds, LocalDateTime since) {
+        return Mono.fromCallable(() -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    try (Connection connection = dataSource.getConnection();
+                         PreparedStatement statement = connection.prepareStatement(FEED_PAGE_AFTER)) {
+                        statement.setArray(1, connection.createArrayOf("uuid", creatorIds.toArray()));
+                        statement.setTimestamp(2, Timestamp.valueOf(since));
+                        statement.setTimestamp(3, Timestamp.valueOf(now));
+                        statement.setTimestamp(4, Timestamp.valueOf(now));
+                        statement.setObject(5, MAX_ID);
+                        statement.setInt(6, PAGE_SIZE);
+                        int rows = 0;
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            while (resultSet.next()) {
+                                rows++;
+                            }
+                        }
+                        return rows;
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static List<UUID> creators(HikariDataSource dataSource) throws SQLException {
+        List<UUID> creators = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT DISTINCT creator_id FROM content LIMIT 10000")) {
+            while (resultSet.next()) {
+                creators.add(resultSet.getObject(1, UUID.class));
+            }
+        }
+        if (creators.isEmpty()) {
+            throw new IllegalStateException("No content to read, load some with the admin import first");
+        }
+        return creators;
+    }
+
+    private static List<UUID> followed(List<UUID> creators) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<UUID> followed = new ArrayList<>(FOLLOWED);
+        for (int i = 0; i < FOLLOWED; i++) {
+            followed.add(creators.get(random.nextInt(creators.size())));
+        }
+        return followed;
+    }
+}
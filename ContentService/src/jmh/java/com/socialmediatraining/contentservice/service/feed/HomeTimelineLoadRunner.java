@@ -0,0 +1,149 @@
+package com.socialmediatraining.contentservice.service.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialmediatraining.contentservice.entity.Content;
+import com.socialmediatraining.dtoutils.dto.UserFollowerCount;
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Write amplification and read latency of the home timelines in push and hybrid mode, with HomeTimelineService and
+//FeedPageCache on a real Redis. One author has `followers` followers, above timeline.celebrity.follower-threshold.
+//Every follower has a warm home timeline of `entries` posts of other authors.
+//Writes: the author publishes `posts` posts, reports the timeline writes per post (timeline.fanout.writes) and the
+//fan-out time. Reads: `reads` first pages of random followers, `concurrency` at a time, reports p50 and p99.
+//The Redis database is flushed before each mode.
+//mvn -Pjmh test-compile exec:java -Djmh.benchmark=com.socialmediatraining.contentservice.service.feed.HomeTimelineLoadRunner
+//  -Dexec.args="<redis host> <redis port> [followers] [entries] [posts] [reads] [concurrency]"
+public class HomeTimelineLoadRunner {
+
+    private static final int MAX_SIZE = 800;
+    private static final long CELEBRITY_THRESHOLD = 10_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int SETUP_BATCH_SIZE = 1_000;
+
+    private record Result(String mode, double writesPerPost, double fanOutMsPerPost, double readsPerSecond, double p50Ms, double p99Ms) {
+        @Override
+        public String toString() {
+            return "%-6s %9.0f writes/post  %8.2f ms fan-out/post  |  %7.0f reads/s  p50 %6.2f ms  p99 %6.2f ms".formatted(
+                    mode, writesPerPost, fanOutMsPerPost, readsPerSecond, p50Ms, p99Ms);
+        }
+    }
+
+    public static void main(String[] args) {
+        String host = args[0];
+        int port = Integer.parseInt(args[1]);
+        int followers = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int entries = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        int posts = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+        int reads = args.length > 5 ? Integer.parseInt(args[5]) : 20_000;
+        int concurrency = args.length > 6 ? Integer.parseInt(args[6]) : 64;
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        try {
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+            ReactiveStringRedisTemplate reactiveRedisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+            for (HomeTimelineService.TimelineMode mode : HomeTimelineService.TimelineMode.values()) {
+                System.out.println(run(mode, redisTemplate, reactiveRedisTemplate, followers, entries, posts, reads, concurrency));
+            }
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    private static Result run(HomeTimelineService.TimelineMode mode, StringRedisTemplate redisTemplate,
+                              ReactiveStringRedisTemplate reactiveRedisTemplate,
+                              int followers, int entries, int posts, int reads, int concurrency) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FeedPageCache feedPageCache = new FeedPageCache(reactiveRedisTemplate, redisTemplate, new ObjectMapper(), meterRegistry, 60);
+        //The feed repository is only read for cold timelines, every timeline of the run is warm
+        HomeTimelineService service = new HomeTimelineService(redisTemplate, reactiveRedisTemplate, null, feedPageCache,
+                null, meterRegistry, MAX_SIZE, 86_400, mode.name(), CELEBRITY_THRESHOLD);
+
+        UUID authorId = UUID.randomUUID();
+        List<UUID> followerIds = setUp(redisTemplate, authorId, followers, entries);
+        service.onFollowerCountChanged(UserFollowerCount.create(authorId.toString(), "author", followers));
+
+        long writeStart = System.nanoTime();
+        for (int i = 0; i < posts; i++) {
+            Content content = new Content();
+            content.setId(UuidV7Generator.next());
+            content.setCreatorId(authorId);
+            content.setCreatedAt(LocalDateTime.now());
+            service.fanOut(content);
+        }
+        double fanOutMsPerPost = (System.nanoTime() - writeStart) / 1e6 / posts;
+        DistributionSummary writes = meterRegistry.get("timeline.fanout.writes").summary();
+
+        //Warm up the connections and the merge before measuring
+        read(service, followerIds, Math.min(reads, 2_000), concurrency);
+        long readStart = System.nanoTime();
+        long[] latencies = read(service, followerIds, reads, concurrency);
+        double readSeconds = (System.nanoTime() - readStart) / 1e9;
+        Arrays.sort(latencies);
+
+        return new Result(mode.name().toLowerCase(), writes.mean(), fanOutMsPerPost, reads / readSeconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99));
+    }
+
+    //Followers of the author, each with a materialized home timeline of posts of other authors
+    private static List<UUID> setUp(StringRedisTemplate redisTemplate, UUID authorId, int followers, int entries) {
+        List<UUID> followerIds = new ArrayList<>(followers);
+        for (int i = 0; i < followers; i++) {
+            followerIds.add(UUID.randomUUID());
+        }
+        double now = HomeTimelineService.toScore(LocalDateTime.now());
+        for (int from = 0; from < followers; from += SETUP_BATCH_SIZE) {
+            List<UUID> batch = followerIds.subList(from, Math.min(from + SETUP_BATCH_SIZE, followers));
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (UUID followerId : batch) {
+                    stringConnection.sAdd(HomeTimelineService.FOLLOWERS_KEY + authorId, followerId.toString());
+                    String homeKey = HomeTimelineService.HOME_TIMELINE_KEY + followerId;
+                    for (int i = 0; i < entries; i++) {
+                        stringConnection.zAdd(homeKey, now - random.nextLong(7L * 24 * 3_600_000), UUID.randomUUID().toString());
+                    }
+                }
+                return null;
+            });
+        }
+        return followerIds;
+    }
+
+    private static long[] read(HomeTimelineService service, List<UUID> followerIds, int reads, int concurrency) {
+        return Flux.range(0, reads)
+                .flatMap(i -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return service.readHomeTimeline(followerIds.get(ThreadLocalRandom.current().nextInt(followerIds.size())),
+                                    PageRequest.of(0, PAGE_SIZE))
+                            .map(slice -> System.nanoTime() - start);
+                }), concurrency)
+                .collectList()
+                .map(latencies -> latencies.stream().mapToLong(Long::longValue).toArray())
+                .block();
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        return sortedNanos[(int) Math.min(sortedNanos.length - 1, Math.ceil(percentile * sortedNanos.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,59 @@
+package com.socialmediatraining.contentservice.service.trending;
+
+import com.socialmediatraining.contentservice.JmhClasspath;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Cost of one event in TrendingEngine.record, with the default sketch and window: a skewed stream where a few
+//posts get most of the events, so the top K keeps changing. The clock moves 1ms per event, a bucket rotation
+//(rebuild of the window sum) happens every bucket length.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrendingEngineBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int distinctContents;
+
+    private TrendingEngine engine;
+    private UUID[] events;
+    private int next;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        engine = new TrendingEngine(3_600_000, 12, 0.9, 50, 4, 2048);
+        UUID[] contents = new UUID[distinctContents];
+        for (int i = 0; i < contents.length; i++) {
+            contents[i] = UUID.randomUUID();
+        }
+        Random random = new Random(42);
+        events = new UUID[1 << 16];
+        for (int i = 0; i < events.length; i++) {
+            //Square of a uniform draw, low indexes come up far more often
+            double draw = random.nextDouble();
+            events[i] = contents[(int) (draw * draw * contents.length)];
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        engine.record(events[next++ & (events.length - 1)], 1, now++);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        JmhClasspath.export();
+        new Runner(new OptionsBuilder()
+                .include(TrendingEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
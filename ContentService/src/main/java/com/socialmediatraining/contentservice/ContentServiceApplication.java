@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {
         "com.socialmediatraining.contentservice",
@@ -11,6 +12,7 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
         "com.socialmediatraining.authenticationcommons"})
 @EnableDiscoveryClient
 @EnableCaching
+@EnableScheduling
 public class ContentServiceApplication {
 
     public static void main(String[] args) {
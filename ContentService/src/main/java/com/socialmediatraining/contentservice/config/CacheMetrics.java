@@ -0,0 +1,48 @@
+package com.socialmediatraining.contentservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+//Hit and miss counters of a cache, or of one level of a two level cache, as cache.gets{cache, [level,] result}
+public final class CacheMetrics {
+
+    private final Counter hits;
+    private final Counter misses;
+
+    private CacheMetrics(Counter hits, Counter misses) {
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    public static CacheMetrics create(MeterRegistry meterRegistry, String cacheName) {
+        return new CacheMetrics(counter(meterRegistry, cacheName, null, "hit"), counter(meterRegistry, cacheName, null, "miss"));
+    }
+
+    public static CacheMetrics create(MeterRegistry meterRegistry, String cacheName, String level) {
+        return new CacheMetrics(counter(meterRegistry, cacheName, level, "hit"), counter(meterRegistry, cacheName, level, "miss"));
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String cacheName, String level, String result) {
+        Counter.Builder builder = Counter.builder("cache.gets").tag("cache", cacheName);
+        if (level != null) {
+            builder.tag("level", level);
+        }
+        return builder.tag("result", result).register(meterRegistry);
+    }
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public void hits(long count) {
+        hits.increment(count);
+    }
+
+    public void misses(long count) {
+        misses.increment(count);
+    }
+}
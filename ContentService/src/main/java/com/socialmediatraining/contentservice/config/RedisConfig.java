@@ -1,17 +1,27 @@
 package com.socialmediatraining.contentservice.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.contentservice.service.post.PostCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.CacheManager;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -19,6 +29,7 @@ import java.time.Duration;
 
 @Configuration
 @EnableCaching
+@Slf4j
 public class RedisConfig {
 
     @Value("${spring.data.redis.host}")
@@ -33,6 +44,15 @@ public class RedisConfig {
     @Value("${spring.data.redis.password}")
     private String redisPassword;
 
+    @Value("${spring.cache.local.max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${spring.cache.local.time-to-live:60}")
+    private long localTimeToLive;
+
+    @Value("${content.cache.time-to-live:60}")
+    private long postTimeToLive;
+
     @Bean
     public LettuceConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
@@ -54,14 +74,50 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        return RedisCacheManager.builder(connectionFactory)
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate stringRedisTemplate,
+                                             MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(RedisCacheConfiguration
                         .defaultCacheConfig()
                         .entryTtl(Duration.ofSeconds(entityTimeToLive))
                         .disableCachingNullValues()
                         .serializeValuesWith(RedisSerializationContext.SerializationPair
                                 .fromSerializer(new GenericJackson2JsonRedisSerializer())))
+                //Posts carry counters and dates: short time to live, typed JSON with the application mapper
+                .withCacheConfiguration(PostCache.POSTS_CACHE, RedisCacheConfiguration
+                        .defaultCacheConfig()
+                        .entryTtl(Duration.ofSeconds(postTimeToLive))
+                        .disableCachingNullValues()
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair
+                                .fromSerializer(new Jackson2JsonRedisSerializer<>(objectMapper, ContentResponse.class))))
                 .build();
+        redisCacheManager.afterPropertiesSet();
+        return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, meterRegistry,
+                localMaxSize, Duration.ofSeconds(localTimeToLive));
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        return container;
+    }
+
+    //Started once the application is up so an unavailable Redis does not prevent startup,
+    //without the subscription L1 entries only expire with their time to live
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeToCacheInvalidations(ApplicationReadyEvent event) {
+        try {
+            event.getApplicationContext().getBean(RedisMessageListenerContainer.class).start();
+        } catch (Exception e) {
+            log.error("Error while subscribing to cache invalidations", e);
+        }
     }
 }
@@ -0,0 +1,253 @@
+package com.socialmediatraining.contentservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+//In-process Caffeine cache (L1) in front of a Redis cache (L2). Writes go to both levels and are broadcast so the
+//other instances drop their L1 entry, reads only reach Redis on an L1 miss.
+//L1 keys are the string form of the key, like the keys of the Redis cache. Batch reads and writes go around the
+//Redis cache but use its configuration: key prefix, value serializer and time to live.
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+    private final RedisCache redisCache;
+    private final RedisCacheConfiguration redisConfiguration;
+    private final StringRedisTemplate redisTemplate;
+    private final BiConsumer<String, String> invalidationPublisher;
+    private final CacheMetrics localMetrics;
+    private final CacheMetrics redisMetrics;
+
+    //The template only provides raw connections, its serializers are not used
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> localCache, RedisCache redisCache,
+                         StringRedisTemplate redisTemplate, BiConsumer<String, String> invalidationPublisher,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.localCache = localCache;
+        this.redisCache = redisCache;
+        this.redisConfiguration = redisCache.getCacheConfiguration();
+        this.redisTemplate = redisTemplate;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localMetrics = CacheMetrics.create(meterRegistry, name, "l1");
+        this.redisMetrics = CacheMetrics.create(meterRegistry, name, "l2");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = key.toString();
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null) {
+            localMetrics.hit();
+            return new SimpleValueWrapper(value);
+        }
+        localMetrics.miss();
+
+        ValueWrapper wrapper = redisCache.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            redisMetrics.miss();
+            return null;
+        }
+        redisMetrics.hit();
+        localCache.put(localKey, wrapper.get());
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    //Concurrent loads of the same key on this instance wait for a single Redis read, and a single value loader call
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = key.toString();
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null) {
+            localMetrics.hit();
+            return (T) value;
+        }
+        localMetrics.miss();
+
+        return (T) localCache.get(localKey, k -> {
+            AtomicBoolean loaded = new AtomicBoolean(false);
+            T loadedValue = redisCache.get(key, () -> {
+                loaded.set(true);
+                return valueLoader.call();
+            });
+            if (loaded.get()) {
+                redisMetrics.miss();
+            } else {
+                redisMetrics.hit();
+            }
+            return loadedValue;
+        });
+    }
+
+    //Batch read: L1 first, then a single MGET for the L1 misses and a single loader call for the keys missing in Redis.
+    //Loaded values are written back to Redis in one pipeline, keys unknown to the loader are absent from the result.
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAll(Collection<String> keys, Function<Set<String>, Map<String, T>> missingValuesLoader) {
+        Map<String, T> values = new HashMap<>();
+        Set<String> missingKeys = new HashSet<>(keys);
+
+        localCache.getAllPresent(missingKeys).forEach((key, value) -> values.put(key, (T) value));
+        localMetrics.hits(values.size());
+        missingKeys.removeAll(values.keySet());
+        localMetrics.misses(missingKeys.size());
+        if (missingKeys.isEmpty()) {
+            return values;
+        }
+
+        List<String> redisKeys = new ArrayList<>(missingKeys);
+        List<Object> redisValues = multiGet(redisKeys);
+        for (int i = 0; i < redisKeys.size(); i++) {
+            Object value = redisValues.get(i);
+            if (value != null) {
+                values.put(redisKeys.get(i), (T) value);
+                localCache.put(redisKeys.get(i), value);
+                missingKeys.remove(redisKeys.get(i));
+            }
+        }
+        redisMetrics.hits(redisKeys.size() - missingKeys.size());
+        redisMetrics.misses(missingKeys.size());
+        if (missingKeys.isEmpty()) {
+            return values;
+        }
+
+        Map<String, T> loadedValues = missingValuesLoader.apply(missingKeys);
+        values.putAll(loadedValues);
+        localCache.putAll(loadedValues);
+        multiSet(loadedValues);
+        return values;
+    }
+
+    //Redis errors are treated as misses, the values are then loaded from the database
+    private List<Object> multiGet(List<String> keys) {
+        try {
+            byte[][] redisKeys = keys.stream().map(this::redisKey).toArray(byte[][]::new);
+            List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(redisKeys));
+            if (values != null && values.size() == keys.size()) {
+                return values.stream().map(value -> value == null ? null : readValue(value)).toList();
+            }
+        } catch (Exception e) {
+            log.error("Error while reading {} entries of cache {}", keys.size(), name, e);
+        }
+        return Collections.nCopies(keys.size(), null);
+    }
+
+    private void multiSet(Map<String, ?> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                values.forEach((key, value) -> connection.stringCommands().set(redisKey(key), writeValue(value),
+                        expiration(key, value), RedisStringCommands.SetOption.upsert()));
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Error while writing {} entries of cache {}", values.size(), name, e);
+        }
+    }
+
+    private byte[] redisKey(String key) {
+        String redisKey = redisConfiguration.usePrefix() ? redisConfiguration.getKeyPrefixFor(name) + key : key;
+        return ByteUtils.getBytes(redisConfiguration.getKeySerializationPair().write(redisKey));
+    }
+
+    private Object readValue(byte[] value) {
+        return redisConfiguration.getValueSerializationPair().read(ByteBuffer.wrap(value));
+    }
+
+    private byte[] writeValue(Object value) {
+        return ByteUtils.getBytes(redisConfiguration.getValueSerializationPair().write(value));
+    }
+
+    //A zero time to live means no expiration, like in the Redis cache
+    private Expiration expiration(String key, Object value) {
+        Duration timeToLive = redisConfiguration.getTtlFunction().getTimeToLive(key, value);
+        return timeToLive == null || timeToLive.isZero() || timeToLive.isNegative()
+                ? Expiration.persistent()
+                : Expiration.from(timeToLive);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        if (value == null) {
+            localCache.invalidate(key.toString());
+        } else {
+            localCache.put(key.toString(), value);
+        }
+        invalidationPublisher.accept(name, key.toString());
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        localCache.invalidate(key.toString());
+        invalidationPublisher.accept(name, key.toString());
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        localCache.invalidateAll();
+        invalidationPublisher.accept(name, null);
+    }
+
+    //L1 only, for reactive callers that cannot wait for Redis. A value put here must come from the source of truth
+    public Object getLocal(String key) {
+        return localCache.getIfPresent(key);
+    }
+
+    public void putLocal(String key, Object value) {
+        localCache.put(key, value);
+    }
+
+    //Called for invalidations broadcast by the other instances, Redis already holds the new state
+    public void invalidateLocal(String key) {
+        if (key == null) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidate(key);
+        }
+    }
+}
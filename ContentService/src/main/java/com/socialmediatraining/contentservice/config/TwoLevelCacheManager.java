@@ -0,0 +1,88 @@
+package com.socialmediatraining.contentservice.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Wraps every cache of the Redis cache manager with a bounded Caffeine L1.
+//Invalidations are published as "{instanceId}|{cacheName}|{key}" ("{instanceId}|{cacheName}" clears the cache)
+//and applied by the other instances, the sender ignores its own messages.
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidation";
+    private static final String SEPARATOR = "|";
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long localMaxSize;
+    private final Duration localTimeToLive;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager, StringRedisTemplate stringRedisTemplate,
+                                MeterRegistry meterRegistry, long localMaxSize, Duration localTimeToLive) {
+        this.redisCacheManager = redisCacheManager;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.localMaxSize = localMaxSize;
+        this.localTimeToLive = localTimeToLive;
+    }
+
+    @Override
+    public TwoLevelCache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            if (!(redisCacheManager.getCache(cacheName) instanceof RedisCache redisCache)) {
+                return null;
+            }
+            return new TwoLevelCache(cacheName,
+                    Caffeine.newBuilder()
+                            .maximumSize(localMaxSize)
+                            .expireAfterWrite(localTimeToLive)
+                            .build(),
+                    redisCache, stringRedisTemplate, this::publishInvalidation, meterRegistry);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    private void publishInvalidation(String cacheName, String key) {
+        String message = instanceId + SEPARATOR + cacheName + (key == null ? "" : SEPARATOR + key);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            //The L1 entries of the other instances expire with their time to live
+            log.error("Error while publishing invalidation of {} in cache {}", key, cacheName, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 3);
+        if (parts.length < 2 || instanceId.equals(parts[0])) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocal(parts.length == 3 ? parts[2] : null);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.socialmediatraining.contentservice.controller.like;
 
+import com.socialmediatraining.contentservice.dto.like.LikeResult;
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
 import com.socialmediatraining.contentservice.dto.post.ContentResponse;
 import com.socialmediatraining.contentservice.service.like.LikeService;
 import com.socialmediatraining.dtoutils.dto.PageResponse;
@@ -9,6 +11,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -16,11 +19,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
+@Validated
 @RequestMapping("/api/v1/like")
 @Tag(name = "Content Service - Like controller", description = "API for like operations")
 @PreAuthorize("@roleUtils.hasAnyUserRole(authentication)")
@@ -36,21 +43,37 @@ public class LikeController {
     @Operation(summary = "Create a like between authenticated user and given content (post or comment) id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Content liked"),
+            @ApiResponse(responseCode = "200", description = "Content was already liked"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Missing or invalid Authorization header"),
     })
     @PostMapping("/{postId}")
     public ResponseEntity<String> likePost(
             @RequestHeader(value = "Authorization",required = true) String authHeader,
             @PathVariable("postId") UUID postId) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(likeService.likeContent(authHeader, postId));
+        LikeResult likeResult = likeService.likeContent(authHeader, postId);
+        return ResponseEntity.status(likeResult.changed() ? HttpStatus.CREATED : HttpStatus.OK).body(likeResult.message());
     }
 
-    @Operation(summary = "Get all content (post or comment) liked by given user, in form of PageResponse")
+    @Operation(summary = "Tell for each given content (post or comment) id whether the authenticated user liked it")
+    @GetMapping("/status")
+    public ResponseEntity<Map<UUID, Boolean>> getLikeStatus(
+            @RequestHeader(value = "Authorization", required = true) String authHeader,
+            @RequestParam("ids") @Size(max = 100, message = "Cannot ask for more than 100 contents at once") List<UUID> ids) {
+        return ResponseEntity.status(HttpStatus.OK).body(likeService.getLikeStatus(authHeader, ids));
+    }
+
+    @Operation(summary = "Get all content (post or comment) liked by given user, newest like first, in form of PageResponse. " +
+            "Passing a cursor (empty for the first page) switches to keyset pagination, where the total is only counted with count=true")
     @GetMapping("/profile/{username}")
     public ResponseEntity<PageResponse<ContentResponse>> getAllLikedPosts(
             @PathVariable("username") String username,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "5") int size) {
+            @RequestParam(defaultValue = "5") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean count) {
+        if(cursor != null){
+            return ResponseEntity.status(HttpStatus.OK).body(likeService.getAllLikedContentsByUser(username, ContentCursor.decode(cursor), size, count));
+        }
         Pageable pageable = PageRequest.of(page, size);
         return ResponseEntity.status(HttpStatus.OK).body(likeService.getAllLikedContentsByUser(username,pageable));
     }
@@ -60,6 +83,6 @@ public class LikeController {
     public ResponseEntity<String> deleteLike(
             @RequestHeader(value = "Authorization", required = true) String authHeader,
             @PathVariable("postId") UUID postId) {
-        return ResponseEntity.status(HttpStatus.OK).body(likeService.deleteLike(authHeader, postId));
+        return ResponseEntity.status(HttpStatus.OK).body(likeService.deleteLike(authHeader, postId).message());
     }
 }
@@ -1,7 +1,9 @@
 package com.socialmediatraining.contentservice.controller.post;
 
+import com.socialmediatraining.contentservice.dto.post.ContentImportReport;
 import com.socialmediatraining.contentservice.dto.post.ContentResponse;
 import com.socialmediatraining.contentservice.dto.post.ContentResponseAdmin;
+import com.socialmediatraining.contentservice.service.post.ContentImportService;
 import com.socialmediatraining.contentservice.service.post.ContentService;
 import com.socialmediatraining.dtoutils.dto.PageResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,10 +18,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -29,13 +33,15 @@ import java.util.UUID;
 @PreAuthorize("@roleUtils.hasAnyAdminRole(authentication)")
 public class AdminPostController {
     private final ContentService contentService;
+    private final ContentImportService contentImportService;
 
     @Autowired
-    public AdminPostController(ContentService contentService) {
+    public AdminPostController(ContentService contentService, ContentImportService contentImportService) {
         this.contentService = contentService;
+        this.contentImportService = contentImportService;
     }
 
-    @Operation(summary = "Get list of posts from a user, including deleted posts")
+    @Operation(summary = "Get list of posts from a user, including deleted posts. count=false skips the totals and only tells whether another page follows")
     @GetMapping("/profile/{username}")
     public ResponseEntity<PageResponse<ContentResponseAdmin>> getAllPostsFromUsername(
             @PathVariable("username") String username,
@@ -43,9 +49,10 @@ public class AdminPostController {
                     message = "Invalid content type. Must be one of: all, post, comment")
             String type,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "5") int size) {
+            @RequestParam(defaultValue = "5") int size,
+            @RequestParam(defaultValue = "true") boolean count) {
         Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.status(HttpStatus.OK).body(contentService.getAllContentFromUser(username,pageable,type));
+        return ResponseEntity.status(HttpStatus.OK).body(contentService.getAllContentFromUser(username,pageable,type,count));
     }
 
     @Operation(summary = "Get a post information, including deleted ones")
@@ -53,4 +60,17 @@ public class AdminPostController {
     public ResponseEntity<ContentResponseAdmin> getPostById(@PathVariable("postId") UUID postId) {
         return ResponseEntity.status(HttpStatus.OK).body(contentService.getContentByIdWithDeleted(postId));
     }
+
+    @Operation(summary = "Import posts and comments from NDJSON, sending the same import id again resumes after the last imported line")
+    @PostMapping(value = "/import/{importId}", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ContentImportReport> importContents(@PathVariable("importId") String importId,
+                                                              InputStream body) {
+        return ResponseEntity.status(HttpStatus.OK).body(contentImportService.importContents(importId, body));
+    }
+
+    @Operation(summary = "Get the progress of an import")
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<ContentImportReport> getImportProgress(@PathVariable("importId") String importId) {
+        return ResponseEntity.status(HttpStatus.OK).body(contentImportService.getProgress(importId));
+    }
 }
@@ -1,6 +1,7 @@
 package com.socialmediatraining.contentservice.controller.post;
 
 import com.socialmediatraining.authenticationcommons.JwtUtils;
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
 import com.socialmediatraining.contentservice.dto.post.ContentRequest;
 import com.socialmediatraining.contentservice.dto.post.ContentResponse;
 import com.socialmediatraining.contentservice.service.post.ContentService;
@@ -15,12 +16,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.UUID;
 
 @RestController
@@ -74,7 +78,7 @@ public class ContentController {
         return ResponseEntity.status(HttpStatus.OK).body(contentService.getVisibleContentById(postId));
     }
 
-    @Operation(summary = "Get all posts made by a user, in form of PageResponse")
+    @Operation(summary = "Get all posts made by a user, in form of PageResponse. Passing a cursor (empty for the first page) switches to keyset pagination, count=false skips the totals and only tells whether another page follows")
     @GetMapping("/profile/{username}/posts")
     public ResponseEntity<PageResponse<ContentResponse>> getAllPostsFromUsername(
             @PathVariable("username") String username,
@@ -83,20 +87,54 @@ public class ContentController {
                     message = "Invalid content type. Must be one of: all, post, comment")
             String type,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "5") int size
+            @RequestParam(defaultValue = "5") int size,
+            @RequestParam(defaultValue = "true") boolean count,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = "Authorization", required = false) String authHeader
             ) {
+        if(cursor != null){
+            return ResponseEntity.status(HttpStatus.OK).body(contentService.getAllVisibleContentFromUser(username,ContentCursor.decode(cursor),size,type,authHeader));
+        }
         Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.status(HttpStatus.OK).body(contentService.getAllVisibleContentFromUser(username,pageable,type));
+        return ResponseEntity.status(HttpStatus.OK).body(contentService.getAllVisibleContentFromUser(username,pageable,type,count,authHeader));
     }
 
-    @Operation(summary = "Get the authenticated user's feed")
+    @Operation(summary = "Get the authenticated user's feed. Passing a cursor (empty for the first page) switches to keyset pagination")
     @GetMapping("/feed")
     public ResponseEntity<Flux<PageResponse<ContentResponse>>> getUserFeed(
             @RequestHeader(value = "Authorization") String authHeader,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor
     ){
+        if(cursor != null){
+            return ResponseEntity.status(HttpStatus.OK).body(contentService.getUserFeed(JwtUtils.getUsernameFromAuthHeader(authHeader),authHeader,ContentCursor.decode(cursor),size));
+        }
         Pageable pageable = PageRequest.of(page, size);
         return ResponseEntity.status(HttpStatus.OK).body(contentService.getUserFeed(JwtUtils.getUsernameFromAuthHeader(authHeader),authHeader,pageable));
     }
+
+    @Operation(summary = "Stream the authenticated user's feed as server-sent events, then push new posts of followed users")
+    @GetMapping(value = "/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ContentResponse>> streamUserFeed(
+            @RequestHeader(value = "Authorization") String authHeader,
+            @RequestParam(defaultValue = "10") int size
+    ){
+        //Streamed responses never time out (no global spring.mvc.async.request-timeout needed).
+        //Comments keep idle connections open through proxies
+        Flux<ServerSentEvent<ContentResponse>> heartbeat = Flux.interval(Duration.ofSeconds(15))
+                .map(tick -> ServerSentEvent.<ContentResponse>builder().comment("heartbeat").build());
+        return contentService.streamUserFeed(JwtUtils.getUsernameFromAuthHeader(authHeader),authHeader,size)
+                .map(content -> ServerSentEvent.builder(content).id(content.id().toString()).event("content").build())
+                .mergeWith(heartbeat);
+    }
+
+    @Operation(summary = "Stream the authenticated user's feed as NDJSON, then push new posts of followed users")
+    @GetMapping(value = "/feed/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ContentResponse> streamUserFeedAsNdjson(
+            @RequestHeader(value = "Authorization") String authHeader,
+            @RequestParam(defaultValue = "10") int size
+    ){
+        return contentService.streamUserFeed(JwtUtils.getUsernameFromAuthHeader(authHeader),authHeader,size);
+    }
 }
@@ -0,0 +1,43 @@
+package com.socialmediatraining.contentservice.controller.thread;
+
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
+import com.socialmediatraining.contentservice.dto.thread.ContentThread;
+import com.socialmediatraining.contentservice.service.thread.ThreadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@Validated
+@RequestMapping("/api/v1/posts")
+@Tag(name = "Content Service - Thread controller", description = "API for reply threads")
+@PreAuthorize("@roleUtils.hasAnyUserRole(authentication)")
+public class ThreadController {
+
+    private final ThreadService threadService;
+
+    @Autowired
+    public ThreadController(ThreadService threadService) {
+        this.threadService = threadService;
+    }
+
+    @Operation(summary = "Get a post (or comment) with a cursor page of its direct replies, newest first, each expanded " +
+            "with its nested replies down to the given depth. Omit the cursor (or leave it empty) for the first page")
+    @GetMapping("/{postId}/thread")
+    public ResponseEntity<ContentThread> getThread(
+            @PathVariable("postId") UUID postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(value = 50, message = "Cannot ask for more than 50 replies at once") int size,
+            @RequestParam(defaultValue = "2") @Min(1) int depth) {
+        return ResponseEntity.status(HttpStatus.OK).body(threadService.getThread(postId, ContentCursor.decode(cursor), size, depth));
+    }
+}
@@ -0,0 +1,42 @@
+package com.socialmediatraining.contentservice.controller.trending;
+
+import com.socialmediatraining.contentservice.dto.trending.TrendingContent;
+import com.socialmediatraining.contentservice.service.trending.TrendingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Validated
+@RequestMapping("/api/v1/trending")
+@Tag(name = "Content Service - Trending controller", description = "API for trending contents")
+@PreAuthorize("@roleUtils.hasAnyUserRole(authentication)")
+public class TrendingController {
+
+    private final TrendingService trendingService;
+
+    @Autowired
+    public TrendingController(TrendingService trendingService) {
+        this.trendingService = trendingService;
+    }
+
+    @Operation(summary = "Get the posts with the most recent activity (likes, comments), highest score first. " +
+            "Scores are approximate and refreshed every few seconds")
+    @GetMapping
+    public ResponseEntity<List<TrendingContent>> getTrending(
+            @RequestParam(defaultValue = "20") @Min(1) @Max(value = 100, message = "Cannot ask for more than 100 trending contents") int limit) {
+        return ResponseEntity.status(HttpStatus.OK).body(trendingService.getTrending(limit));
+    }
+}
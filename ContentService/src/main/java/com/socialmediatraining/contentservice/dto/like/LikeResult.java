@@ -0,0 +1,8 @@
+package com.socialmediatraining.contentservice.dto.like;
+
+//changed is false when the content was already in the requested state (liked twice, unliked while not liked)
+public record LikeResult(boolean changed, String message) {
+    public static LikeResult create(boolean changed, String message) {
+        return new LikeResult(changed, message);
+    }
+}
@@ -0,0 +1,40 @@
+package com.socialmediatraining.contentservice.dto.like;
+
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+//Row of the liked contents join: the like keys the pagination, the content columns build the response
+public record LikedContent(
+        UUID likeId,
+        LocalDateTime likedAt,
+        UUID id,
+        UUID creatorId,
+        UUID parentId,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        String text,
+        Map<String, String> mediaUrls,
+        long likeCount,
+        long replyCount,
+        UUID rootId
+) {
+
+    //Used by the JPQL constructor expression, which only knows the json column as an Object
+    @SuppressWarnings("unchecked")
+    public LikedContent(UUID likeId, LocalDateTime likedAt, UUID id, UUID creatorId, UUID parentId, LocalDateTime createdAt,
+                        LocalDateTime updatedAt, String text, Object mediaUrls, long likeCount, long replyCount, UUID rootId){
+        this(likeId, likedAt, id, creatorId, parentId, createdAt, updatedAt, text, (Map<String, String>) mediaUrls, likeCount, replyCount, rootId);
+    }
+
+    public ContentResponse toContentResponse(){
+        return ContentResponse.create(id, creatorId, parentId, createdAt, updatedAt, text, mediaUrls, likeCount, replyCount, rootId);
+    }
+
+    public ContentCursor toCursor(){
+        return ContentCursor.create(likedAt, likeId);
+    }
+}
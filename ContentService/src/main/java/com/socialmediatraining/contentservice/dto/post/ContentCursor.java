@@ -0,0 +1,51 @@
+package com.socialmediatraining.contentservice.dto.post;
+
+import com.socialmediatraining.contentservice.entity.Content;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+//Opaque keyset position (created_at, id) of the last content of a page, newest first
+public record ContentCursor(
+        LocalDateTime createdAt,
+        UUID id
+) {
+    //Sorts before any real content, used for the first page so the same keyset query serves every page
+    public static final ContentCursor START = new ContentCursor(
+            LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+            new UUID(-1L, -1L));
+
+    public static ContentCursor create(LocalDateTime createdAt, UUID id){
+        return new ContentCursor(createdAt, id);
+    }
+
+    public static ContentCursor fromContent(Content content){
+        return ContentCursor.create(content.getCreatedAt(), content.getId());
+    }
+
+    public String encode(){
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //A blank cursor asks for the first page
+    public static ContentCursor decode(String cursor){
+        if(cursor == null || cursor.isBlank()){
+            return START;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return ContentCursor.create(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor " + cursor);
+        }
+    }
+}
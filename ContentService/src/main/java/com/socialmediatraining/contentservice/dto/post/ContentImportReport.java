@@ -0,0 +1,19 @@
+package com.socialmediatraining.contentservice.dto.post;
+
+import java.util.List;
+
+//last_line is the last line committed, a resumed import starts after it. Only the first errors are listed
+public record ContentImportReport(
+        String import_id,
+        String status,
+        long last_line,
+        long inserted,
+        long duplicates,
+        long rejected,
+        List<String> errors
+) {
+    public static ContentImportReport create(String import_id, String status, long last_line, long inserted,
+                                             long duplicates, long rejected, List<String> errors){
+        return new ContentImportReport(import_id, status, last_line, inserted, duplicates, rejected, errors);
+    }
+}
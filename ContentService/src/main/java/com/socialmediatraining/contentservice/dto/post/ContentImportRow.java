@@ -0,0 +1,21 @@
+package com.socialmediatraining.contentservice.dto.post;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+//One NDJSON line of a bulk import. Without an id, the content gets one derived from the import id and line number
+//so a resumed import inserts the same rows again and the duplicates are skipped.
+public record ContentImportRow(
+        UUID id,
+        UUID creator_id,
+        UUID parent_id,
+        LocalDateTime created_at,
+        String text,
+        Map<String, String> media_urls
+) {
+    public static ContentImportRow create(UUID id, UUID creator_id, UUID parent_id, LocalDateTime created_at,
+                                          String text, Map<String, String> media_urls){
+        return new ContentImportRow(id, creator_id, parent_id, created_at, text, media_urls);
+    }
+}
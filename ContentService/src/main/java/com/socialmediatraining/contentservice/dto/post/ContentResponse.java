@@ -16,11 +16,29 @@ public record ContentResponse(
         LocalDateTime created_at,
         LocalDateTime updated_at,
         String text,
-        Map<String, String> media_urls
+        Map<String, String> media_urls,
+        long like_count,
+        long reply_count,
+        //Top-level post of a reply, null for posts
+        UUID root_id,
+        //Null unless the response was hydrated for an authenticated viewer
+        Boolean liked_by_viewer
 ) {
 
     public static ContentResponse create(UUID id, UUID creator_id, UUID parentId, LocalDateTime created_at,
                                          LocalDateTime updated_at, String text, Map<String, String> media_urls){
+        return create(id, creator_id, parentId, created_at, updated_at, text, media_urls, 0);
+    }
+
+    public static ContentResponse create(UUID id, UUID creator_id, UUID parentId, LocalDateTime created_at,
+                                         LocalDateTime updated_at, String text, Map<String, String> media_urls,
+                                         long like_count){
+        return create(id, creator_id, parentId, created_at, updated_at, text, media_urls, like_count, 0, null);
+    }
+
+    public static ContentResponse create(UUID id, UUID creator_id, UUID parentId, LocalDateTime created_at,
+                                         LocalDateTime updated_at, String text, Map<String, String> media_urls,
+                                         long like_count, long reply_count, UUID root_id){
         return new ContentResponse(
                 id,
                 creator_id,
@@ -28,7 +46,15 @@ public record ContentResponse(
                 created_at,
                 updated_at,
                 text,
-                media_urls == null ? new HashMap<>() : media_urls);
+                media_urls == null ? new HashMap<>() : media_urls,
+                like_count,
+                reply_count,
+                root_id,
+                null);
+    }
+
+    public ContentResponse withLikedByViewer(boolean likedByViewer){
+        return new ContentResponse(id, creator_id, parentId, created_at, updated_at, text, media_urls, like_count, reply_count, root_id, likedByViewer);
     }
 
     public static ContentResponse fromEntity(Content content){
@@ -39,6 +65,9 @@ public record ContentResponse(
                 content.getCreatedAt(),
                 content.getUpdatedAt(),
                 content.getText(),
-                content.getMediaUrls() == null ? new HashMap<>() : content.getMediaUrls());
+                content.getMediaUrls() == null ? new HashMap<>() : content.getMediaUrls(),
+                content.getLikeCount(),
+                content.getReplyCount(),
+                content.getRootId());
     }
 }
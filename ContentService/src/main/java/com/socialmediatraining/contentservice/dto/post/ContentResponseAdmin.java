@@ -19,6 +19,15 @@ public record ContentResponseAdmin(
                 ,deletedAt);
     }
 
+    //Projection of the ContentRepository profile queries, the json media_urls column reaches constructors as an Object
+    @SuppressWarnings("unchecked")
+    public ContentResponseAdmin(UUID id, UUID creator_id, UUID parentId, LocalDateTime created_at,
+                                LocalDateTime updated_at, String text, Object media_urls,
+                                long like_count, long reply_count, UUID root_id, LocalDateTime deletedAt) {
+        this(ContentResponse.create(id, creator_id, parentId, created_at, updated_at, text, (Map<String, String>) media_urls,
+                like_count, reply_count, root_id), deletedAt);
+    }
+
     public static ContentResponseAdmin fromEntity(Content content){
         return ContentResponseAdmin.create(
                 content.getId(),
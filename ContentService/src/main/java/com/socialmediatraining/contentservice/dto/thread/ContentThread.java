@@ -0,0 +1,14 @@
+package com.socialmediatraining.contentservice.dto.thread;
+
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.dtoutils.dto.PageResponse;
+
+//A content with one cursor page of its direct replies, each expanded with its nested replies
+public record ContentThread(
+        ContentResponse content,
+        PageResponse<ThreadReply> replies
+) {
+    public static ContentThread create(ContentResponse content, PageResponse<ThreadReply> replies){
+        return new ContentThread(content, replies);
+    }
+}
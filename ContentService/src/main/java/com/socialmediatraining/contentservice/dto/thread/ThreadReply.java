@@ -0,0 +1,15 @@
+package com.socialmediatraining.contentservice.dto.thread;
+
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+
+import java.util.List;
+
+//A reply and its own replies, empty below the requested depth
+public record ThreadReply(
+        ContentResponse content,
+        List<ThreadReply> replies
+) {
+    public static ThreadReply create(ContentResponse content, List<ThreadReply> replies){
+        return new ThreadReply(content, replies);
+    }
+}
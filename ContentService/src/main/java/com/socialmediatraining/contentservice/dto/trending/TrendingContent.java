@@ -0,0 +1,12 @@
+package com.socialmediatraining.contentservice.dto.trending;
+
+import java.util.UUID;
+
+public record TrendingContent(
+        UUID id,
+        double score
+) {
+    public static TrendingContent create(UUID id, double score){
+        return new TrendingContent(id, score);
+    }
+}
@@ -1,5 +1,6 @@
 package com.socialmediatraining.contentservice.entity;
 
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
 import com.vladmihalcea.hibernate.type.json.JsonType;
 import jakarta.persistence.*;
 import jakarta.persistence.CascadeType;
@@ -23,7 +24,7 @@ import java.util.*;
 @DynamicUpdate
 public class Content {
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private UUID id;
 
@@ -34,6 +35,10 @@ public class Content {
     @Column(name = "parent_id")
     private UUID parentId;
 
+    //Top-level post of a reply, null for posts. Set once at creation, a reply never moves
+    @Column(name = "root_id", updatable = false)
+    private UUID rootId;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime  createdAt;
 
@@ -51,6 +56,14 @@ public class Content {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
 
+    //Maintained by LikeCounterService, never written by entity updates
+    @Column(name = "like_count", nullable = false, updatable = false)
+    private long likeCount;
+
+    //Visible direct replies, maintained by ContentRepository counter updates and ThreadRepairJob, never written by entity updates
+    @Column(name = "reply_count", nullable = false, updatable = false)
+    private long replyCount;
+
     @OneToMany(mappedBy = "content",fetch = FetchType.LAZY,cascade = CascadeType.ALL, orphanRemoval = true)
     @Setter(AccessLevel.PRIVATE)
     private Set<UserContentLike> likes = new LinkedHashSet<>() {};
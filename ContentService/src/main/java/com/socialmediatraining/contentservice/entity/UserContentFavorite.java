@@ -1,5 +1,6 @@
 package com.socialmediatraining.contentservice.entity;
 
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,7 +15,7 @@ import java.util.UUID;
 @Entity
 @Table(name = "user_content_favorite",
         uniqueConstraints = @UniqueConstraint(
-                name = "uc_user_content_like",
+                name = "uc_user_content_favorite",
                 columnNames = {"user_id", "content_id"}
         )
 )
@@ -24,7 +25,7 @@ import java.util.UUID;
 @Builder
 public class UserContentFavorite {
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @GeneratedValue
     private UUID id;
 
@@ -1,5 +1,6 @@
 package com.socialmediatraining.contentservice.entity;
 
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -22,7 +23,7 @@ import java.util.UUID;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class UserContentLike {
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @GeneratedValue
     private UUID id;
 
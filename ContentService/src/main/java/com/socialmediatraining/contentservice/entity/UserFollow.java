@@ -0,0 +1,40 @@
+package com.socialmediatraining.contentservice.entity;
+
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+//Local replica of the user-service follow graph, filled from the follow/unfollow topics.
+//No foreign keys on purpose: follow events can arrive before the created-new-user event of either user.
+@Entity
+@Table(name = "user_follow",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uc_user_follow",
+                columnNames = {"follower_id", "followed_id"}
+        )
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserFollow {
+    @Id
+    @UuidGenerator(algorithm = UuidV7Generator.class)
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "follower_id", nullable = false)
+    private UUID followerId;
+
+    @Column(name = "followed_id", nullable = false)
+    private UUID followedId;
+
+    @Column(name = "created_at")
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
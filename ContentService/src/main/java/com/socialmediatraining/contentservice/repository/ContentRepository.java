@@ -1,33 +1,185 @@
 package com.socialmediatraining.contentservice.repository;
 
+import com.socialmediatraining.contentservice.dto.post.ContentResponseAdmin;
 import com.socialmediatraining.contentservice.entity.Content;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+//content is range partitioned on created_at: lookups take the created_at range of their ids (CreatedAtRange) and the
+//profile pages stop at now, so PostgreSQL only reads the partitions that can hold the rows. The default methods compute
+//the bounds, callers keep passing ids only
 public interface ContentRepository extends JpaRepository<Content, UUID> {
 
+    String PROFILE_FILTER = "FROM Content c " +
+            "WHERE c.creatorId = :creatorId " +
+            "AND (:includeDeleted = true OR c.deletedAt IS NULL) " +
+            "AND ((:includePosts = true AND c.parentId IS NULL) OR (:includeComments = true AND c.parentId IS NOT NULL)) " +
+            "AND c.createdAt < :before ";
+    String PROFILE_QUERY = "SELECT new com.socialmediatraining.contentservice.dto.post.ContentResponseAdmin(" +
+            "c.id, c.creatorId, c.parentId, c.createdAt, c.updatedAt, c.text, c.mediaUrls, " +
+            "c.likeCount, c.replyCount, c.rootId, c.deletedAt) " +
+            PROFILE_FILTER +
+            "ORDER BY c.createdAt DESC, c.id DESC";
+
     Optional<Page<Content>> findAllByCreatorIdAndDeletedAtIsNull(UUID creatorId, Pageable pageable);
-    Optional<Page<Content>> findAllByCreatorId(UUID creatorId, Pageable pageable);
-    Optional<Page<Content>> findAllByCreatorIdAndParentIdIsNullAndDeletedAtIsNull(UUID creatorId, Pageable pageable);
-    Optional<Page<Content>> findAllByCreatorIdAndParentIdIsNotNullAndDeletedAtIsNull(UUID creatorId, Pageable pageable);
-    Optional<Page<Content>> findAllByCreatorIdAndParentIdIsNull(UUID creatorId, Pageable pageable);
-    Optional<Page<Content>> findAllByCreatorIdAndParentIdIsNotNull(UUID creatorId, Pageable pageable);
-    Optional<Content> findByIdAndDeletedAtIsNull(UUID id);
+
+    //Profile pages of every post type, with or without deleted contents, projected straight into responses so
+    //likes and favorites are never loaded. The slice reads one row more than the page instead of counting them
+    default Slice<ContentResponseAdmin> findProfileSlice(UUID creatorId, boolean includePosts, boolean includeComments,
+                                                         boolean includeDeleted, Pageable pageable) {
+        return findProfileSlice(creatorId, includePosts, includeComments, includeDeleted, CreatedAtRange.upToNow(), pageable);
+    }
+
+    @Query(PROFILE_QUERY)
+    Slice<ContentResponseAdmin> findProfileSlice(UUID creatorId, boolean includePosts, boolean includeComments,
+                                                 boolean includeDeleted, LocalDateTime before, Pageable pageable);
+
+    default Page<ContentResponseAdmin> findProfilePage(UUID creatorId, boolean includePosts, boolean includeComments,
+                                                       boolean includeDeleted, Pageable pageable) {
+        return findProfilePage(creatorId, includePosts, includeComments, includeDeleted, CreatedAtRange.upToNow(), pageable);
+    }
+
+    @Query(value = PROFILE_QUERY, countQuery = "SELECT COUNT(c) " + PROFILE_FILTER)
+    Page<ContentResponseAdmin> findProfilePage(UUID creatorId, boolean includePosts, boolean includeComments,
+                                               boolean includeDeleted, LocalDateTime before, Pageable pageable);
+
+    default Optional<Content> findByIdAndDeletedAtIsNull(UUID id) {
+        CreatedAtRange range = CreatedAtRange.of(id);
+        return findByIdAndDeletedAtIsNullAndCreatedAtBetween(id, range.from(), range.to());
+    }
+
+    Optional<Content> findByIdAndDeletedAtIsNullAndCreatedAtBetween(UUID id, LocalDateTime from, LocalDateTime to);
+
+    //Deleted contents included, for the admin views
+    default Optional<Content> findAnyById(UUID id) {
+        CreatedAtRange range = CreatedAtRange.of(id);
+        return findByIdAndCreatedAtBetween(id, range.from(), range.to());
+    }
+
+    Optional<Content> findByIdAndCreatedAtBetween(UUID id, LocalDateTime from, LocalDateTime to);
+
+    //Read-only so it can be served by a read replica when called outside of a service transaction
+    @Transactional(readOnly = true)
+    default List<Content> findAllByIdInAndDeletedAtIsNull(Collection<UUID> ids) {
+        CreatedAtRange range = CreatedAtRange.of(ids);
+        return findAllByIdInAndDeletedAtIsNullAndCreatedAtBetween(ids, range.from(), range.to());
+    }
+
+    @Transactional(readOnly = true)
+    List<Content> findAllByIdInAndDeletedAtIsNullAndCreatedAtBetween(Collection<UUID> ids, LocalDateTime from, LocalDateTime to);
+
+    default List<UUID> findExistingIds(Collection<UUID> ids) {
+        CreatedAtRange range = CreatedAtRange.of(ids);
+        return findExistingIds(ids, range.from(), range.to());
+    }
+
+    @Query("SELECT c.id FROM Content c WHERE c.id IN :ids AND c.createdAt BETWEEN :from AND :to")
+    List<UUID> findExistingIds(Collection<UUID> ids, LocalDateTime from, LocalDateTime to);
 
     @Query( "SELECT c " +
             "FROM Content c " +
-            "INNER JOIN ExternalUser u ON c.creatorId = u.id " +
-            "WHERE u.id IN :ids " +
+            "WHERE c.creatorId = :creatorId " +
             "AND c.deletedAt IS NULL " +
-            "ORDER BY c.createdAt DESC")
-    Optional<Page<Content>> findAllByCreatorIdInAndDeletedAtIsNull(List<String> ids, Pageable pageable);
+            "AND ((:includePosts = true AND c.parentId IS NULL) OR (:includeComments = true AND c.parentId IS NOT NULL)) " +
+            "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Content> findAllByCreatorIdAndDeletedAtIsNullAfter(UUID creatorId, boolean includePosts, boolean includeComments,
+                                                           LocalDateTime createdAt, UUID id, Pageable pageable);
+
+
+    default boolean existsByIdAndDeletedAtIsNull(UUID id) {
+        CreatedAtRange range = CreatedAtRange.of(id);
+        return existsByIdAndDeletedAtIsNullAndCreatedAtBetween(id, range.from(), range.to());
+    }
+
+    boolean existsByIdAndDeletedAtIsNullAndCreatedAtBetween(UUID id, LocalDateTime from, LocalDateTime to);
+
+    //Single statement counter updates, concurrent replies never lose an increment
+    default int incrementReplyCount(UUID id) {
+        CreatedAtRange range = CreatedAtRange.of(id);
+        return incrementReplyCount(id, range.from(), range.to());
+    }
+
+    @Modifying
+    @Query("UPDATE Content c SET c.replyCount = c.replyCount + 1 WHERE c.id = :id AND c.createdAt BETWEEN :from AND :to")
+    int incrementReplyCount(UUID id, LocalDateTime from, LocalDateTime to);
+
+    default int decrementReplyCount(UUID id) {
+        CreatedAtRange range = CreatedAtRange.of(id);
+        return decrementReplyCount(id, range.from(), range.to());
+    }
+
+    @Modifying
+    @Query("UPDATE Content c SET c.replyCount = c.replyCount - 1 " +
+            "WHERE c.id = :id AND c.createdAt BETWEEN :from AND :to AND c.replyCount > 0")
+    int decrementReplyCount(UUID id, LocalDateTime from, LocalDateTime to);
+
+    default Optional<UUID> findCreatorIdById(UUID id) {
+        CreatedAtRange range = CreatedAtRange.of(id);
+        return findCreatorIdById(id, range.from(), range.to());
+    }
+
+    @Query("SELECT c.creatorId FROM Content c WHERE c.id = :id AND c.createdAt BETWEEN :from AND :to")
+    Optional<UUID> findCreatorIdById(UUID id, LocalDateTime from, LocalDateTime to);
+
+    //Direct replies of a content, same keyset order as the other cursor pages.
+    //A reply is never older than its parent, ContentImportService rejects the ones that would be
+    default List<Content> findRepliesByParentIdAfter(UUID parentId, LocalDateTime createdAt, UUID id, Pageable pageable) {
+        return findRepliesByParentIdAfter(parentId, CreatedAtRange.of(parentId).from(), createdAt, id, pageable);
+    }
+
+    @Query( "SELECT c " +
+            "FROM Content c " +
+            "WHERE c.parentId = :parentId " +
+            "AND c.deletedAt IS NULL " +
+            "AND c.createdAt >= :since " +
+            "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Content> findRepliesByParentIdAfter(UUID parentId, LocalDateTime since, LocalDateTime createdAt, UUID id,
+                                             Pageable pageable);
+
+    default List<Content> findNestedReplies(Collection<UUID> parentIds, int maxDepth, int limit) {
+        return findNestedReplies(parentIds, CreatedAtRange.of(parentIds).from(), maxDepth, limit);
+    }
+
+    //Replies of the given contents down to maxDepth levels (1 being their direct replies), level by level.
+    //Each level is one idx_comments lookup, a deleted reply hides its subtree.
+    @Query(value = "WITH RECURSIVE thread(id, created_at, depth) AS ( " +
+            "SELECT c.id, c.created_at, 1 FROM content c " +
+            "WHERE c.parent_id IN (:parentIds) AND c.created_at >= :since AND c.deleted_at IS NULL " +
+            "UNION ALL " +
+            "SELECT c.id, c.created_at, t.depth + 1 FROM content c JOIN thread t ON c.parent_id = t.id " +
+            "WHERE t.depth < :maxDepth AND c.created_at >= :since AND c.deleted_at IS NULL) " +
+            "SELECT c.* FROM content c JOIN thread t ON c.id = t.id AND c.created_at = t.created_at " +
+            "ORDER BY t.depth, c.created_at DESC, c.id DESC " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Content> findNestedReplies(Collection<UUID> parentIds, LocalDateTime since, int maxDepth, int limit);
 
+    default List<Content> findAncestors(UUID id, int maxDepth) {
+        CreatedAtRange range = CreatedAtRange.of(id);
+        return findAncestors(id, range.from(), range.to(), maxDepth);
+    }
 
-    boolean existsByIdAndDeletedAtIsNull(UUID id);
+    //The content and its ancestors, at most maxDepth of them counting the content itself. Ancestors are older than
+    //the content, only the partitions up to its own are read.
+    //Rows rather than ids, a native uuid column is not read back as a UUID on every driver
+    @Query(value = "WITH RECURSIVE ancestors(id, parent_id, created_at, depth) AS ( " +
+            "SELECT c.id, c.parent_id, c.created_at, 1 FROM content c " +
+            "WHERE c.id = :id AND c.created_at BETWEEN :from AND :to " +
+            "UNION ALL " +
+            "SELECT c.id, c.parent_id, c.created_at, a.depth + 1 FROM content c JOIN ancestors a ON c.id = a.parent_id " +
+            "WHERE a.depth < :maxDepth AND c.created_at <= :to) " +
+            "SELECT c.* FROM content c JOIN ancestors a ON c.id = a.id AND c.created_at = a.created_at", nativeQuery = true)
+    List<Content> findAncestors(UUID id, LocalDateTime from, LocalDateTime to, int maxDepth);
 }
@@ -0,0 +1,55 @@
+package com.socialmediatraining.contentservice.repository;
+
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.UUID;
+
+//created_at bounds of contents looked up by id, so PostgreSQL prunes the monthly content partitions instead of probing
+//the primary key index of each one. A version 7 id carries its creation time: created_at is set when the row is
+//persisted, a few ms after the id, and imports keep both within SLACK of each other (ContentImportService.validate).
+//SLACK also absorbs the offset between the UTC id time and the local created_at.
+//Ids of another version (contents created before the v7 ids) have no bound and still scan every partition.
+public record CreatedAtRange(LocalDateTime from, LocalDateTime to) {
+
+    public static final Duration SLACK = Duration.ofDays(1);
+    public static final CreatedAtRange ANY = new CreatedAtRange(
+            LocalDateTime.of(1900, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 0, 0));
+
+    public static CreatedAtRange of(UUID id) {
+        if (id == null || id.version() != 7) {
+            return ANY;
+        }
+        LocalDateTime createdAt = createdAtOf(id);
+        return new CreatedAtRange(createdAt.minus(SLACK), createdAt.plus(SLACK));
+    }
+
+    public static CreatedAtRange of(Collection<UUID> ids) {
+        CreatedAtRange range = null;
+        for (UUID id : ids) {
+            CreatedAtRange idRange = of(id);
+            if (idRange == ANY) {
+                return ANY;
+            }
+            range = range == null ? idRange : range.union(idRange);
+        }
+        return range == null ? ANY : range;
+    }
+
+    //Creation time of a version 7 id in the zone created_at is written in
+    public static LocalDateTime createdAtOf(UUID id) {
+        return LocalDateTime.ofInstant(UuidV7Generator.timestampOf(id), ZoneId.systemDefault());
+    }
+
+    //Contents created up to now, leaves out the partitions created ahead for the next months
+    public static LocalDateTime upToNow() {
+        return LocalDateTime.now().plus(SLACK);
+    }
+
+    private CreatedAtRange union(CreatedAtRange other) {
+        return new CreatedAtRange(from.isBefore(other.from) ? from : other.from, to.isAfter(other.to) ? to : other.to);
+    }
+}
@@ -0,0 +1,36 @@
+package com.socialmediatraining.contentservice.repository;
+
+import com.socialmediatraining.contentservice.entity.Content;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+//Read side of the feeds, every query of a feed request (reader, followees, contents, liked flags) goes through it
+//so no thread waits for the database. Returned contents are detached, their likes and favorites are not loaded
+public interface FeedReadRepository {
+
+    //Visible contents of the creators created since the feed horizon, newest first
+    Mono<Page<Content>> findFeedPage(Collection<UUID> creatorIds, LocalDateTime since, Pageable pageable);
+
+    //Keyset page: contents strictly after (createdAt, id) in (created_at DESC, id DESC) order
+    Mono<List<Content>> findFeedPageAfter(Collection<UUID> creatorIds, LocalDateTime since, LocalDateTime createdAt, UUID id, int limit);
+
+    //Visible contents among the ids, in no particular order
+    Mono<List<Content>> findVisibleByIds(Collection<UUID> ids);
+
+    //Empty when the user is unknown
+    Mono<UUID> findUserIdByUsername(String username);
+
+    Mono<List<UUID>> findFollowedIds(UUID followerId);
+
+    //Up to limit liked content ids, in no particular order
+    Mono<List<UUID>> findLikedContentIds(UUID userId, int limit);
+
+    //The liked ones among the content ids
+    Mono<List<UUID>> findLikedContentIds(UUID userId, Collection<UUID> contentIds);
+}
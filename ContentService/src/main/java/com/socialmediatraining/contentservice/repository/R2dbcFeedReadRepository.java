@@ -0,0 +1,184 @@
+package com.socialmediatraining.contentservice.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialmediatraining.contentservice.entity.Content;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+//Non-blocking feed queries on the r2dbc driver, the rows are read on the driver event loop and no thread waits for the
+//database. Same queries as the ContentRepository ones, collections are expanded to IN lists.
+//The JPA side (writes, profile pages, transactions) keeps its JDBC pool, these reads run outside of any transaction
+@Repository
+public class R2dbcFeedReadRepository implements FeedReadRepository {
+
+    private static final String COLUMNS = "c.id, c.creator_id, c.parent_id, c.root_id, c.created_at, c.updated_at, " +
+            "c.text, c.media_urls, c.deleted_at, c.like_count, c.reply_count";
+    //Feed queries over many creators cannot use the creator index order, the since bound (feed horizon) keeps
+    //their scan, and the count, to the recent created_at partitions
+    private static final String FEED_FILTER = "FROM content c " +
+            "INNER JOIN external_user u ON c.creator_id = u.id " +
+            "WHERE u.id IN (:creatorIds) " +
+            "AND c.deleted_at IS NULL " +
+            "AND c.created_at >= :since ";
+    private static final String FEED_PAGE = "SELECT " + COLUMNS + " " + FEED_FILTER +
+            "ORDER BY c.created_at DESC, c.id DESC LIMIT :limit OFFSET :offset";
+    private static final String FEED_COUNT = "SELECT COUNT(*) " + FEED_FILTER;
+    private static final String FEED_PAGE_AFTER = "SELECT " + COLUMNS + " FROM content c " +
+            "WHERE c.creator_id IN (:creatorIds) " +
+            "AND c.deleted_at IS NULL " +
+            "AND c.created_at >= :since " +
+            "AND (c.created_at < :createdAt OR (c.created_at = :createdAt AND c.id < :id)) " +
+            "ORDER BY c.created_at DESC, c.id DESC LIMIT :limit";
+    private static final String VISIBLE_BY_IDS = "SELECT " + COLUMNS + " FROM content c " +
+            "WHERE c.id IN (:ids) AND c.created_at BETWEEN :from AND :to AND c.deleted_at IS NULL";
+    private static final String USER_ID_BY_USERNAME = "SELECT u.id FROM external_user u WHERE u.username = :username";
+    private static final String FOLLOWED_IDS = "SELECT f.followed_id FROM user_follow f WHERE f.follower_id = :followerId";
+    private static final String LIKED_IDS = "SELECT l.content_id FROM user_content_like l WHERE l.user_id = :userId LIMIT :limit";
+    private static final String LIKED_IDS_IN = "SELECT l.content_id FROM user_content_like l " +
+            "WHERE l.user_id = :userId AND l.content_id IN (:contentIds)";
+    private static final TypeReference<HashMap<String, String>> MEDIA_URLS = new TypeReference<>() {};
+
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public R2dbcFeedReadRepository(DatabaseClient databaseClient, ObjectMapper objectMapper) {
+        this.databaseClient = databaseClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Page<Content>> findFeedPage(Collection<UUID> creatorIds, LocalDateTime since, Pageable pageable) {
+        if (creatorIds.isEmpty()) {
+            return Mono.just(Page.empty(pageable));
+        }
+        List<UUID> ids = List.copyOf(creatorIds);
+        Mono<List<Content>> contents = databaseClient.sql(FEED_PAGE)
+                .bind("creatorIds", ids)
+                .bind("since", since)
+                .bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset())
+                .map(this::toContent)
+                .all()
+                .collectList();
+        Mono<Long> total = databaseClient.sql(FEED_COUNT)
+                .bind("creatorIds", ids)
+                .bind("since", since)
+                .map(row -> row.get(0, Long.class))
+                .one();
+        return Mono.zip(contents, total, (page, count) -> new PageImpl<>(page, pageable, count));
+    }
+
+    @Override
+    public Mono<List<Content>> findFeedPageAfter(Collection<UUID> creatorIds, LocalDateTime since, LocalDateTime createdAt, UUID id, int limit) {
+        if (creatorIds.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return databaseClient.sql(FEED_PAGE_AFTER)
+                .bind("creatorIds", List.copyOf(creatorIds))
+                .bind("since", since)
+                .bind("createdAt", createdAt)
+                .bind("id", id)
+                .bind("limit", limit)
+                .map(this::toContent)
+                .all()
+                .collectList();
+    }
+
+    @Override
+    public Mono<List<Content>> findVisibleByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        CreatedAtRange range = CreatedAtRange.of(ids);
+        return databaseClient.sql(VISIBLE_BY_IDS)
+                .bind("ids", List.copyOf(ids))
+                .bind("from", range.from())
+                .bind("to", range.to())
+                .map(this::toContent)
+                .all()
+                .collectList();
+    }
+
+    @Override
+    public Mono<UUID> findUserIdByUsername(String username) {
+        return databaseClient.sql(USER_ID_BY_USERNAME)
+                .bind("username", username)
+                .map(row -> row.get("id", UUID.class))
+                .first();
+    }
+
+    @Override
+    public Mono<List<UUID>> findFollowedIds(UUID followerId) {
+        return databaseClient.sql(FOLLOWED_IDS)
+                .bind("followerId", followerId)
+                .map(row -> row.get("followed_id", UUID.class))
+                .all()
+                .collectList();
+    }
+
+    @Override
+    public Mono<List<UUID>> findLikedContentIds(UUID userId, int limit) {
+        return databaseClient.sql(LIKED_IDS)
+                .bind("userId", userId)
+                .bind("limit", limit)
+                .map(row -> row.get("content_id", UUID.class))
+                .all()
+                .collectList();
+    }
+
+    @Override
+    public Mono<List<UUID>> findLikedContentIds(UUID userId, Collection<UUID> contentIds) {
+        if (contentIds.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return databaseClient.sql(LIKED_IDS_IN)
+                .bind("userId", userId)
+                .bind("contentIds", List.copyOf(contentIds))
+                .map(row -> row.get("content_id", UUID.class))
+                .all()
+                .collectList();
+    }
+
+    private Content toContent(Readable row) {
+        Long likeCount = row.get("like_count", Long.class);
+        Long replyCount = row.get("reply_count", Long.class);
+        return Content.builder()
+                .id(row.get("id", UUID.class))
+                .creatorId(row.get("creator_id", UUID.class))
+                .parentId(row.get("parent_id", UUID.class))
+                .rootId(row.get("root_id", UUID.class))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .updatedAt(row.get("updated_at", LocalDateTime.class))
+                .text(row.get("text", String.class))
+                .mediaUrls(readMediaUrls(row.get("media_urls", String.class)))
+                .deletedAt(row.get("deleted_at", LocalDateTime.class))
+                .likeCount(likeCount == null ? 0 : likeCount)
+                .replyCount(replyCount == null ? 0 : replyCount)
+                .likes(new LinkedHashSet<>())
+                .favorites(new LinkedHashSet<>())
+                .build();
+    }
+
+    private Map<String, String> readMediaUrls(String json) {
+        if (json == null) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, MEDIA_URLS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid media_urls in content row", e);
+        }
+    }
+}
@@ -1,21 +1,70 @@
 package com.socialmediatraining.contentservice.repository;
 
+import com.socialmediatraining.contentservice.dto.like.LikedContent;
 import com.socialmediatraining.contentservice.entity.Content;
 import com.socialmediatraining.contentservice.entity.ExternalUser;
 import com.socialmediatraining.contentservice.entity.UserContentLike;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserContentLikeRepository extends JpaRepository<UserContentLike, UUID> {
 
-    Optional<Page<UserContentLike>> findAllByUser_Id(UUID userId, Pageable pageable);
-
     Optional<UserContentLike> findByContentAndUser_Id(Content content,UUID userId);
 
     boolean existsByUserIdAndContentId(UUID userId, UUID contentId);
 
+    //Single statement like: inserts nothing when the content doesn't exist, is deleted or is already liked by the user
+    @Transactional
+    default int insertIfAbsent(UUID id, UUID userId, UUID contentId) {
+        CreatedAtRange range = CreatedAtRange.of(contentId);
+        return insertIfAbsent(id, userId, contentId, range.from(), range.to());
+    }
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_content_like (id, user_id, content_id, created_at) " +
+            "SELECT :id, :userId, c.id, CURRENT_TIMESTAMP FROM content c " +
+            "WHERE c.id = :contentId AND c.created_at BETWEEN :from AND :to AND c.deleted_at IS NULL " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(UUID id, UUID userId, UUID contentId, LocalDateTime from, LocalDateTime to);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM user_content_like WHERE user_id = :userId AND content_id = :contentId", nativeQuery = true)
+    int deleteByUserIdAndContentId(UUID userId, UUID contentId);
+
+    String LIKED_CONTENT_SELECT = "SELECT new com.socialmediatraining.contentservice.dto.like.LikedContent(" +
+            "l.id, l.createdAt, c.id, c.creatorId, c.parentId, c.createdAt, c.updatedAt, c.text, c.mediaUrls, c.likeCount, c.replyCount, c.rootId) " +
+            "FROM UserContentLike l JOIN l.content c " +
+            "WHERE l.user.id = :userId AND c.deletedAt IS NULL ";
+
+    @Query(value = LIKED_CONTENT_SELECT + "ORDER BY l.createdAt DESC, l.id DESC",
+            countQuery = "SELECT COUNT(l) FROM UserContentLike l JOIN l.content c WHERE l.user.id = :userId AND c.deletedAt IS NULL")
+    Page<LikedContent> findLikedContentsByUserId(UUID userId, Pageable pageable);
+
+    @Query(LIKED_CONTENT_SELECT +
+            "AND (l.createdAt < :likedAt OR (l.createdAt = :likedAt AND l.id < :likeId)) " +
+            "ORDER BY l.createdAt DESC, l.id DESC")
+    List<LikedContent> findLikedContentsByUserIdAfter(UUID userId, LocalDateTime likedAt, UUID likeId, Pageable pageable);
+
+    @Query("SELECT COUNT(l) FROM UserContentLike l JOIN l.content c WHERE l.user.id = :userId AND c.deletedAt IS NULL")
+    long countLikedContentsByUserId(UUID userId);
+
+    @Query("SELECT l.content.id FROM UserContentLike l WHERE l.user.id = :userId")
+    List<UUID> findContentIdsByUserId(UUID userId, Limit limit);
+
+    @Query("SELECT l.content.id FROM UserContentLike l WHERE l.user.id = :userId AND l.content.id IN :contentIds")
+    List<UUID> findContentIdsByUserIdAndContentIdIn(UUID userId, Collection<UUID> contentIds);
+
 }
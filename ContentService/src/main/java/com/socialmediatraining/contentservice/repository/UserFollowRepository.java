@@ -0,0 +1,23 @@
+package com.socialmediatraining.contentservice.repository;
+
+import com.socialmediatraining.contentservice.entity.UserFollow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface UserFollowRepository extends JpaRepository<UserFollow, UUID> {
+
+    @Query("SELECT f.followedId FROM UserFollow f WHERE f.followerId = :followerId")
+    List<UUID> findFollowedIdsByFollowerId(UUID followerId);
+
+    boolean existsByFollowerIdAndFollowedId(UUID followerId, UUID followedId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserFollow f WHERE f.followerId = :followerId AND f.followedId = :followedId")
+    int deleteByFollowerIdAndFollowedId(UUID followerId, UUID followedId);
+}
@@ -0,0 +1,121 @@
+package com.socialmediatraining.contentservice.service.feed;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialmediatraining.contentservice.config.CacheMetrics;
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.contentservice.service.transaction.AfterCommit;
+import com.socialmediatraining.dtoutils.dto.PageResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+//Materialized feed pages, one Redis hash per reader so every page of a reader is evicted with a single DEL.
+//Fields are "page:{number}:{size}" or "cursor:{cursor}:{size}", values are the PageResponse as JSON.
+//Pages are evicted when a pushed post or a follow changes them. Posts of celebrities are merged at read time and evict
+//nothing (it would be the fan-out hybrid mode avoids), they show up in cached pages time-to-live seconds late at most.
+@Service
+@Slf4j
+public class FeedPageCache {
+
+    static final String FEED_PAGES_KEY = "feed:pages:";
+    private static final String CACHE_NAME = "feedPages";
+    private static final int EVICT_BATCH_SIZE = 500;
+    private static final TypeReference<PageResponse<ContentResponse>> PAGE_TYPE = new TypeReference<>() {};
+
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration timeToLive;
+    private final CacheMetrics metrics;
+
+    @Autowired
+    public FeedPageCache(ReactiveStringRedisTemplate reactiveRedisTemplate, StringRedisTemplate redisTemplate,
+                         ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         @Value("${feed.cache.time-to-live:60}") long timeToLiveSeconds) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.timeToLive = Duration.ofSeconds(timeToLiveSeconds);
+        this.metrics = CacheMetrics.create(meterRegistry, CACHE_NAME);
+    }
+
+    public static String pageKey(Pageable pageable) {
+        return "page:" + pageable.getPageNumber() + ":" + pageable.getPageSize();
+    }
+
+    public static String cursorKey(ContentCursor cursor, int size) {
+        return "cursor:" + cursor.encode() + ":" + size;
+    }
+
+    //Cache errors are treated as misses, the feed must keep working without Redis
+    public Flux<PageResponse<ContentResponse>> getOrLoad(UUID userId, String pageKey,
+                                                         Supplier<Flux<PageResponse<ContentResponse>>> loader) {
+        return get(userId, pageKey)
+                .doOnNext(page -> metrics.hit())
+                .flux()
+                .switchIfEmpty(Flux.defer(() -> {
+                    metrics.miss();
+                    return loader.get().concatMap(page -> put(userId, pageKey, page).thenReturn(page));
+                }));
+    }
+
+    private Mono<PageResponse<ContentResponse>> get(UUID userId, String pageKey) {
+        return reactiveRedisTemplate.<String, String>opsForHash().get(FEED_PAGES_KEY + userId, pageKey)
+                .map(json -> {
+                    try {
+                        return objectMapper.readValue(json, PAGE_TYPE);
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Cannot read cached feed page", e);
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.error("Error while reading feed page {} of user {} from cache", pageKey, userId, e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Boolean> put(UUID userId, String pageKey, PageResponse<ContentResponse> page) {
+        String key = FEED_PAGES_KEY + userId;
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(page))
+                .flatMap(json -> reactiveRedisTemplate.<String, String>opsForHash().put(key, pageKey, json))
+                .flatMap(added -> reactiveRedisTemplate.expire(key, timeToLive))
+                .onErrorResume(e -> {
+                    log.error("Error while caching feed page {} of user {}", pageKey, userId, e);
+                    return Mono.just(false);
+                });
+    }
+
+    public void evict(Collection<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+
+        AfterCommit.evict(() -> evictNow(userIds));
+    }
+
+    private void evictNow(Collection<String> userIds) {
+        List<String> keys = userIds.stream().map(userId -> FEED_PAGES_KEY + userId).toList();
+        try {
+            for (int i = 0; i < keys.size(); i += EVICT_BATCH_SIZE) {
+                redisTemplate.delete(keys.subList(i, Math.min(i + EVICT_BATCH_SIZE, keys.size())));
+            }
+        } catch (Exception e) {
+            log.error("Error while evicting cached feed pages of {} users", keys.size(), e);
+        }
+    }
+}
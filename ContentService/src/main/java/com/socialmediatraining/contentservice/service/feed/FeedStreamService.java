@@ -0,0 +1,109 @@
+package com.socialmediatraining.contentservice.service.feed;
+
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.contentservice.repository.ContentRepository;
+import com.socialmediatraining.contentservice.service.follow.FollowGraphService;
+import com.socialmediatraining.dtoutils.dto.NewContentNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.ConnectableFlux;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Live feed: every instance consumes all published contents (one consumer group per instance, named after its Eureka
+//instance id so a restart reuses it) and multicasts them
+//to its own stream subscribers. The sink never waits for a subscriber, each one has its own bounded buffer
+//dropping its oldest items, so a slow client only loses its own updates.
+//Events carry the content, nothing is read from the database per event. A restarted instance has no stream open, it
+//starts from the end of the topic instead of replaying what was published while it was down.
+@Service
+@Slf4j
+public class FeedStreamService implements ConsumerSeekAware {
+
+    private final ContentRepository contentRepository;
+    private final FollowGraphService followGraphService;
+    private final int subscriberBufferSize;
+    private final Sinks.Many<ContentResponse> newContentSink = Sinks.many().multicast().directBestEffort();
+
+    @Autowired
+    public FeedStreamService(ContentRepository contentRepository, FollowGraphService followGraphService,
+                             @Value("${feed.stream.subscriber-buffer-size:256}") int subscriberBufferSize) {
+        this.contentRepository = contentRepository;
+        this.followGraphService = followGraphService;
+        this.subscriberBufferSize = subscriberBufferSize;
+    }
+
+    @KafkaListener(topics = "content-published", groupId = "content-service-stream-${eureka.instance.instance-id}")
+    public void onContentPublished(NewContentNotification newContentNotification) {
+        if (newContentSink.currentSubscriberCount() == 0) {
+            return;
+        }
+
+        toContentResponse(newContentNotification).ifPresent(content -> {
+            Sinks.EmitResult result = newContentSink.tryEmitNext(content);
+            if (result.isFailure()) {
+                log.warn("Could not push content {} to feed streams: {}", content.id(), result);
+            }
+        });
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToEnd(assignments.keySet());
+    }
+
+    //Events published before they carried the content are read back once
+    private Optional<ContentResponse> toContentResponse(NewContentNotification notification) {
+        UUID contentId = UUID.fromString(notification.contentId());
+        if (notification.text() == null || notification.createdAt() == null) {
+            return contentRepository.findByIdAndDeletedAtIsNull(contentId).map(ContentResponse::fromEntity);
+        }
+        LocalDateTime createdAt = LocalDateTime.parse(notification.createdAt());
+        return Optional.of(ContentResponse.create(
+                contentId,
+                UUID.fromString(notification.creatorId()),
+                notification.parentId() != null ? UUID.fromString(notification.parentId()) : null,
+                createdAt,
+                createdAt,
+                notification.text(),
+                notification.mediaUrls(),
+                0,
+                0,
+                notification.rootId() != null ? UUID.fromString(notification.rootId()) : null));
+    }
+
+    //Live contents are collected while the current feed is sent, then replayed after it without the ones already sent.
+    //The followees are taken once when the stream opens, a follow made meanwhile shows up on the next stream
+    public Flux<ContentResponse> streamFeed(UUID userId, Flux<ContentResponse> currentFeed) {
+        return followGraphService.findFollowedUserIds(userId).flatMapMany(followees -> {
+            Set<UUID> followedIds = Set.copyOf(followees);
+            ConnectableFlux<ContentResponse> liveContents = newContentSink.asFlux()
+                    .filter(content -> followedIds.contains(content.creator_id()))
+                    .replay(subscriberBufferSize);
+            Disposable connection = liveContents.connect();
+            Set<UUID> sentIds = ConcurrentHashMap.newKeySet();
+
+            return currentFeed
+                    .doOnNext(content -> sentIds.add(content.id()))
+                    .concatWith(liveContents.filter(content -> !sentIds.contains(content.id())))
+                    .onBackpressureBuffer(subscriberBufferSize,
+                            dropped -> log.warn("Feed stream of {} is too slow, dropped content {}", userId, dropped.id()),
+                            BufferOverflowStrategy.DROP_OLDEST)
+                    .doFinally(signal -> connection.dispose());
+        });
+    }
+}
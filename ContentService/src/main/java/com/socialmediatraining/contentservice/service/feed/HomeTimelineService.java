@@ -0,0 +1,441 @@
+package com.socialmediatraining.contentservice.service.feed;
+
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
+import com.socialmediatraining.contentservice.entity.Content;
+import com.socialmediatraining.contentservice.repository.FeedReadRepository;
+import com.socialmediatraining.contentservice.service.partition.ContentPartitionService;
+import com.socialmediatraining.dtoutils.dto.UserFollowNotification;
+import com.socialmediatraining.dtoutils.dto.UserFollowerCount;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.ReactiveSetOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+//Home timelines are Redis sorted sets of content ids scored by creation time, filled on write.
+//Feed requests read and rebuild them with the reactive Redis client and FeedReadRepository, the Kafka listeners stay blocking.
+//A missing timeline is "cold": the feed falls back to the pull path and rebuilds it.
+//In hybrid mode, authors above the follower threshold are not fanned out, their author timeline is merged at read time.
+//Cached feed pages of the followers are evicted with the fan-out, posts of celebrities show up once the page cache expires.
+//Every write to a timeline or follower set renews its timeline.home.time-to-live, keys of inactive users expire.
+@Service
+@Slf4j
+public class HomeTimelineService {
+
+    static final String HOME_TIMELINE_KEY = "timeline:home:";
+    static final String AUTHOR_TIMELINE_KEY = "timeline:author:";
+    static final String FOLLOWERS_KEY = "timeline:followers:";
+    static final String FOLLOWED_CELEBRITIES_KEY = "timeline:followed-celebrities:";
+    static final String CELEBRITIES_KEY = "timeline:celebrities";
+    private static final int FAN_OUT_BATCH_SIZE = 500;
+
+    //Only push into timelines that are already materialized, a partial timeline would hide older posts
+    private static final RedisScript<Long> FAN_OUT_SCRIPT = new DefaultRedisScript<>(
+            "for _, key in ipairs(KEYS) do " +
+            "  if redis.call('EXISTS', key) == 1 then " +
+            "    redis.call('ZADD', key, ARGV[1], ARGV[2]) " +
+            "    redis.call('ZREMRANGEBYRANK', key, 0, -(tonumber(ARGV[3]) + 1)) " +
+            "  end " +
+            "end " +
+            "return 0", Long.class);
+
+    public enum TimelineMode {
+        PUSH, HYBRID
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final FeedReadRepository feedReadRepository;
+    private final FeedPageCache feedPageCache;
+    private final ContentPartitionService contentPartitionService;
+    private final int maxSize;
+    private final Duration timeToLive;
+    private final TimelineMode mode;
+    private final long celebrityFollowerThreshold;
+    private final DistributionSummary fanOutWrites;
+    private final Timer readTimer;
+
+    @Autowired
+    public HomeTimelineService(StringRedisTemplate redisTemplate, ReactiveStringRedisTemplate reactiveRedisTemplate,
+                               FeedReadRepository feedReadRepository, FeedPageCache feedPageCache, ContentPartitionService contentPartitionService, MeterRegistry meterRegistry,
+                               @Value("${timeline.home.max-size:800}") int maxSize,
+                               @Value("${timeline.home.time-to-live:86400}") long timeToLiveSeconds,
+                               @Value("${timeline.mode:hybrid}") String mode,
+                               @Value("${timeline.celebrity.follower-threshold:10000}") long celebrityFollowerThreshold) {
+        this.redisTemplate = redisTemplate;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.feedReadRepository = feedReadRepository;
+        this.feedPageCache = feedPageCache;
+        this.contentPartitionService = contentPartitionService;
+        this.maxSize = maxSize;
+        this.timeToLive = Duration.ofSeconds(timeToLiveSeconds);
+        this.mode = TimelineMode.valueOf(mode.toUpperCase());
+        this.celebrityFollowerThreshold = celebrityFollowerThreshold;
+        this.fanOutWrites = DistributionSummary.builder("timeline.fanout.writes")
+                .description("Timeline writes caused by a single new content (write amplification)")
+                .tag("mode", this.mode.name().toLowerCase())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.readTimer = Timer.builder("timeline.read")
+                .description("Home timeline range read, including celebrity merge")
+                .tag("mode", this.mode.name().toLowerCase())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    public record TimelineSlice(List<UUID> contentIds, long totalItems) {
+        public static TimelineSlice create(List<UUID> contentIds, long totalItems) {
+            return new TimelineSlice(contentIds, totalItems);
+        }
+    }
+
+    //Empty when the timeline is cold
+    public Mono<TimelineSlice> readHomeTimeline(UUID userId, Pageable pageable) {
+        String key = HOME_TIMELINE_KEY + userId;
+        return timed(reactiveRedisTemplate.opsForZSet().size(key)
+                .filter(total -> total > 0)
+                .flatMap(total -> getFollowedCelebrities(userId)
+                        .flatMap(followedCelebrities -> followedCelebrities.isEmpty() ?
+                                reactiveRedisTemplate.opsForZSet().reverseRange(key,
+                                                Range.closed(pageable.getOffset(), pageable.getOffset() + pageable.getPageSize() - 1))
+                                        .map(UUID::fromString)
+                                        .collectList()
+                                        .map(contentIds -> TimelineSlice.create(contentIds, total)) :
+                                mergeWithCelebrities(key, total, followedCelebrities, pageable))));
+    }
+
+    //Each source only needs its first offset + size entries for the merged page to be exact
+    private Mono<TimelineSlice> mergeWithCelebrities(String homeKey, long homeTotal, Set<String> followedCelebrities, Pageable pageable) {
+        Range<Long> range = Range.closed(0L, pageable.getOffset() + pageable.getPageSize() - 1);
+        ReactiveZSetOperations<String, String> zSet = reactiveRedisTemplate.opsForZSet();
+        Flux<Tuple2<List<ZSetOperations.TypedTuple<String>>, Long>> celebrityEntries = Flux.fromIterable(followedCelebrities)
+                .flatMap(celebrityId -> {
+                    String authorKey = AUTHOR_TIMELINE_KEY + celebrityId;
+                    return zSet.reverseRangeWithScores(authorKey, range)
+                            .collectList()
+                            .flatMap(entries -> entries.isEmpty() ? loadAuthorTimeline(UUID.fromString(celebrityId)) : Mono.just(entries))
+                            .flatMap(entries -> zSet.size(authorKey).map(authorTotal -> Tuples.of(entries, authorTotal)));
+                });
+
+        return zSet.reverseRangeWithScores(homeKey, range)
+                .collectList()
+                .map(homeEntries -> Tuples.of(homeEntries, homeTotal))
+                .concatWith(celebrityEntries)
+                .collectList()
+                .map(sources -> {
+                    Map<String, Double> merged = new HashMap<>();
+                    long total = 0;
+                    for (Tuple2<List<ZSetOperations.TypedTuple<String>>, Long> source : sources) {
+                        mergeEntries(merged, source.getT1());
+                        total += source.getT2();
+                    }
+                    List<UUID> contentIds = merged.entrySet().stream()
+                            .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                            .skip(pageable.getOffset())
+                            .limit(pageable.getPageSize())
+                            .map(entry -> UUID.fromString(entry.getKey()))
+                            .toList();
+                    return TimelineSlice.create(contentIds, total);
+                });
+    }
+
+    //Keyset read, returns up to limit ids strictly older than (createdAt, contentId), empty when the timeline is cold.
+    //Entries sharing the cursor score are ordered by member, like Redis orders ties.
+    public Mono<TimelineSlice> readHomeTimelineAfter(UUID userId, LocalDateTime createdAt, UUID contentId, int limit) {
+        String key = HOME_TIMELINE_KEY + userId;
+        ReactiveZSetOperations<String, String> zSet = reactiveRedisTemplate.opsForZSet();
+        double score = toScore(createdAt);
+        String member = contentId.toString();
+        return timed(zSet.size(key)
+                .filter(total -> total > 0)
+                .flatMap(total -> getFollowedCelebrities(userId)
+                        .flatMapMany(Flux::fromIterable)
+                        .flatMap(celebrityId -> {
+                            String authorKey = AUTHOR_TIMELINE_KEY + celebrityId;
+                            return zSet.size(authorKey)
+                                    .flatMap(authorTotal -> authorTotal > 0 ? Mono.just(authorTotal) :
+                                            loadAuthorTimeline(UUID.fromString(celebrityId)).map(entries -> (long) entries.size()))
+                                    .map(authorTotal -> Tuples.of(authorKey, authorTotal));
+                        })
+                        .startWith(Tuples.of(key, total))
+                        .collectList()
+                        .flatMap(timelines -> Flux.fromIterable(timelines)
+                                .flatMap(timeline -> Flux.concat(
+                                        zSet.reverseRangeByScoreWithScores(timeline.getT1(), Range.closed(score, score))
+                                                .filter(entry -> entry.getValue() != null && entry.getValue().compareTo(member) < 0),
+                                        zSet.reverseRangeByScoreWithScores(timeline.getT1(),
+                                                Range.leftUnbounded(Range.Bound.inclusive(Math.nextDown(score))), Limit.limit().count(limit))))
+                                .collectList()
+                                .map(entries -> {
+                                    Map<String, Double> merged = new HashMap<>();
+                                    mergeEntries(merged, entries);
+                                    List<UUID> contentIds = merged.entrySet().stream()
+                                            .sorted(Map.Entry.<String, Double>comparingByValue()
+                                                    .thenComparing(Map.Entry.comparingByKey())
+                                                    .reversed())
+                                            .limit(limit)
+                                            .map(entry -> UUID.fromString(entry.getKey()))
+                                            .toList();
+                                    return TimelineSlice.create(contentIds, timelines.stream().mapToLong(Tuple2::getT2).sum());
+                                }))));
+    }
+
+    private <T> Mono<T> timed(Mono<T> read) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return read.doFinally(signal -> readTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Mono<Set<String>> getFollowedCelebrities(UUID userId) {
+        return mode == TimelineMode.HYBRID ?
+                reactiveRedisTemplate.opsForSet().members(FOLLOWED_CELEBRITIES_KEY + userId).collect(Collectors.toSet()) :
+                Mono.just(Set.of());
+    }
+
+    //Recent posts of an author whose timeline expired, read through r2dbc and written back to Redis
+    private Mono<List<ZSetOperations.TypedTuple<String>>> loadAuthorTimeline(UUID authorId) {
+        return feedReadRepository.findFeedPageAfter(List.of(authorId), contentPartitionService.feedHorizon(),
+                        ContentCursor.START.createdAt(), ContentCursor.START.id(), maxSize)
+                .flatMap(contents -> {
+                    List<ZSetOperations.TypedTuple<String>> entries = contents.stream()
+                            .map(content -> ZSetOperations.TypedTuple.of(content.getId().toString(), toScore(content.getCreatedAt())))
+                            .toList();
+                    String key = AUTHOR_TIMELINE_KEY + authorId;
+                    return entries.isEmpty() ? Mono.just(entries) :
+                            reactiveRedisTemplate.opsForZSet().addAll(key, entries)
+                                    .then(reactiveRedisTemplate.expire(key, timeToLive))
+                                    .thenReturn(entries);
+                });
+    }
+
+    private void mergeEntries(Map<String, Double> merged, Collection<ZSetOperations.TypedTuple<String>> entries) {
+        if (entries != null) {
+            entries.forEach(entry -> merged.merge(entry.getValue(), entry.getScore() == null ? 0 : entry.getScore(), Math::max));
+        }
+    }
+
+    public void fanOut(Content content) {
+        if (content == null) {
+            return;
+        }
+
+        String member = content.getId().toString();
+        String score = String.valueOf(toScore(content.getCreatedAt()));
+        try {
+            String authorKey = AUTHOR_TIMELINE_KEY + content.getCreatorId();
+            redisTemplate.opsForZSet().add(authorKey, member, toScore(content.getCreatedAt()));
+            redisTemplate.opsForZSet().removeRange(authorKey, 0, -(maxSize + 1));
+            redisTemplate.expire(authorKey, timeToLive);
+
+            //Cached feed pages of the followers are not evicted, they expire within feed.cache.time-to-live
+            if (isCelebrity(content.getCreatorId().toString())) {
+                fanOutWrites.record(1);
+                return;
+            }
+
+            Set<String> followers = getFollowers(content.getCreatorId());
+            List<String> timelineKeys = followers.stream()
+                    .map(followerId -> HOME_TIMELINE_KEY + followerId)
+                    .toList();
+            for (int i = 0; i < timelineKeys.size(); i += FAN_OUT_BATCH_SIZE) {
+                redisTemplate.execute(FAN_OUT_SCRIPT,
+                        timelineKeys.subList(i, Math.min(i + FAN_OUT_BATCH_SIZE, timelineKeys.size())),
+                        score, member, String.valueOf(maxSize));
+            }
+            fanOutWrites.record(timelineKeys.size() + 1);
+            feedPageCache.evict(followers);
+        } catch (Exception e) {
+            log.error("Error while fanning out content {} to home timelines", content.getId(), e);
+        }
+    }
+
+    public void remove(Content content) {
+        if (content == null) {
+            return;
+        }
+
+        String member = content.getId().toString();
+        try {
+            List<String> keys = new ArrayList<>();
+            keys.add(AUTHOR_TIMELINE_KEY + content.getCreatorId());
+            Set<String> followers = isCelebrity(content.getCreatorId().toString()) ?
+                    Set.of() : getFollowers(content.getCreatorId());
+            followers.forEach(followerId -> keys.add(HOME_TIMELINE_KEY + followerId));
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                keys.forEach(key -> stringConnection.zRem(key, member));
+                return null;
+            });
+            feedPageCache.evict(followers);
+        } catch (Exception e) {
+            log.error("Error while removing content {} from home timelines", content.getId(), e);
+        }
+    }
+
+    public Mono<Void> rebuildHomeTimeline(UUID userId, List<String> followedUserIds) {
+        String key = HOME_TIMELINE_KEY + userId;
+        String celebritiesKey = FOLLOWED_CELEBRITIES_KEY + userId;
+        ReactiveSetOperations<String, String> sets = reactiveRedisTemplate.opsForSet();
+        Mono<Set<String>> followedCelebrities = mode == TimelineMode.HYBRID && !followedUserIds.isEmpty() ?
+                sets.isMember(CELEBRITIES_KEY, followedUserIds.toArray())
+                        .map(membership -> followedUserIds.stream()
+                                .filter(id -> Boolean.TRUE.equals(membership.get(id)))
+                                .collect(Collectors.toSet())) :
+                Mono.just(Set.of());
+
+        return followedCelebrities.flatMap(celebrities -> {
+            List<UUID> pushedAuthors = followedUserIds.stream()
+                    .filter(id -> !celebrities.contains(id))
+                    .map(UUID::fromString)
+                    .toList();
+            Mono<List<Content>> recentContent = pushedAuthors.isEmpty() ? Mono.just(List.of()) :
+                    feedReadRepository.findFeedPageAfter(pushedAuthors, contentPartitionService.feedHorizon(),
+                            ContentCursor.START.createdAt(), ContentCursor.START.id(), maxSize);
+
+            return recentContent.flatMap(contents -> Flux.fromIterable(followedUserIds)
+                    .flatMap(followedId -> sets.add(FOLLOWERS_KEY + followedId, userId.toString())
+                            .then(reactiveRedisTemplate.expire(FOLLOWERS_KEY + followedId, timeToLive)))
+                    .then(reactiveRedisTemplate.delete(key, celebritiesKey))
+                    .then(contents.isEmpty() ? Mono.<Long>empty() : reactiveRedisTemplate.opsForZSet().addAll(key, contents.stream()
+                            .map(content -> ZSetOperations.TypedTuple.of(content.getId().toString(), toScore(content.getCreatedAt())))
+                            .toList()))
+                    .then(reactiveRedisTemplate.expire(key, timeToLive))
+                    .then(celebrities.isEmpty() ? Mono.<Boolean>empty() :
+                            sets.add(celebritiesKey, celebrities.toArray(String[]::new))
+                                    .then(reactiveRedisTemplate.expire(celebritiesKey, timeToLive)))
+                    .doOnSuccess(done -> log.info("Home timeline of user {} rebuilt with {} entries and {} followed celebrities",
+                            userId, contents.size(), celebrities.size())));
+        }).then();
+    }
+
+    //Called by FollowGraphService once the follow graph replica is updated
+    public void onNewFollower(UserFollowNotification userFollowNotification) {
+        String followedId = userFollowNotification.userId();
+        String followerKey = HOME_TIMELINE_KEY + userFollowNotification.followerId();
+
+        redisTemplate.opsForSet().add(FOLLOWERS_KEY + followedId, userFollowNotification.followerId());
+        redisTemplate.expire(FOLLOWERS_KEY + followedId, timeToLive);
+        feedPageCache.evict(List.of(userFollowNotification.followerId()));
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(followerKey))) {
+            return;
+        }
+
+        if (isCelebrity(followedId)) {
+            redisTemplate.opsForSet().add(FOLLOWED_CELEBRITIES_KEY + userFollowNotification.followerId(), followedId);
+            log.info("Kafka topic caught -> celebrity {} will be merged into timeline of {}",
+                    userFollowNotification.userUsername(), userFollowNotification.followerUsername());
+            return;
+        }
+
+        Set<ZSetOperations.TypedTuple<String>> authorTimeline = getAuthorTimeline(UUID.fromString(followedId));
+        if (!authorTimeline.isEmpty()) {
+            redisTemplate.opsForZSet().add(followerKey, authorTimeline);
+            redisTemplate.opsForZSet().removeRange(followerKey, 0, -(maxSize + 1));
+        }
+        log.info("Kafka topic caught -> {} posts of {} merged into timeline of {}",
+                authorTimeline.size(), userFollowNotification.userUsername(), userFollowNotification.followerUsername());
+    }
+
+    public void onUnfollow(UserFollowNotification userFollowNotification) {
+        String followedId = userFollowNotification.userId();
+        String followerKey = HOME_TIMELINE_KEY + userFollowNotification.followerId();
+
+        redisTemplate.opsForSet().remove(FOLLOWERS_KEY + followedId, userFollowNotification.followerId());
+        redisTemplate.opsForSet().remove(FOLLOWED_CELEBRITIES_KEY + userFollowNotification.followerId(), followedId);
+        feedPageCache.evict(List.of(userFollowNotification.followerId()));
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(followerKey))) {
+            return;
+        }
+
+        Object[] members = getAuthorTimeline(UUID.fromString(followedId)).stream()
+                .map(ZSetOperations.TypedTuple::getValue)
+                .toArray();
+        if (members.length > 0) {
+            redisTemplate.opsForZSet().remove(followerKey, members);
+        }
+        log.info("Kafka topic caught -> posts of {} removed from timeline of {}",
+                userFollowNotification.userUsername(), userFollowNotification.followerUsername());
+    }
+
+    @KafkaListener(topics = "user-follower-count", groupId = "content-service")
+    public void onFollowerCountChanged(UserFollowerCount userFollowerCount) {
+        if (mode != TimelineMode.HYBRID) {
+            return;
+        }
+
+        String authorId = userFollowerCount.userId();
+        boolean wasCelebrity = isCelebrity(authorId);
+        boolean isCelebrity = userFollowerCount.followerCount() >= celebrityFollowerThreshold;
+        if (wasCelebrity == isCelebrity) {
+            return;
+        }
+
+        //Followers keep the posts already pushed to them, from now on the author is either merged at read or fanned out
+        Set<String> followers = getFollowers(UUID.fromString(authorId));
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            if (isCelebrity) {
+                stringConnection.sAdd(CELEBRITIES_KEY, authorId);
+                followers.forEach(followerId -> stringConnection.sAdd(FOLLOWED_CELEBRITIES_KEY + followerId, authorId));
+            } else {
+                stringConnection.sRem(CELEBRITIES_KEY, authorId);
+                followers.forEach(followerId -> stringConnection.sRem(FOLLOWED_CELEBRITIES_KEY + followerId, authorId));
+            }
+            return null;
+        });
+        log.info("Kafka topic caught -> {} has {} followers, celebrity: {}",
+                userFollowerCount.username(), userFollowerCount.followerCount(), isCelebrity);
+    }
+
+    private boolean isCelebrity(String authorId) {
+        return mode == TimelineMode.HYBRID && Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(CELEBRITIES_KEY, authorId));
+    }
+
+    private Set<String> getFollowers(UUID authorId) {
+        Set<String> followers = redisTemplate.opsForSet().members(FOLLOWERS_KEY + authorId);
+        return followers == null ? Set.of() : followers;
+    }
+
+    private Set<ZSetOperations.TypedTuple<String>> getAuthorTimeline(UUID authorId) {
+        String key = AUTHOR_TIMELINE_KEY + authorId;
+        Set<ZSetOperations.TypedTuple<String>> authorTimeline = redisTemplate.opsForZSet().rangeWithScores(key, 0, -1);
+        if (authorTimeline != null && !authorTimeline.isEmpty()) {
+            return authorTimeline;
+        }
+
+        //Same reload as the feed path, the Kafka listeners can wait for it
+        List<ZSetOperations.TypedTuple<String>> recentPosts = loadAuthorTimeline(authorId).block();
+        return recentPosts == null ? Set.of() : new HashSet<>(recentPosts);
+    }
+
+    static double toScore(LocalDateTime createdAt) {
+        return (createdAt == null ? LocalDateTime.now() : createdAt).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,136 @@
+package com.socialmediatraining.contentservice.service.follow;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.socialmediatraining.contentservice.entity.UserFollow;
+import com.socialmediatraining.contentservice.repository.FeedReadRepository;
+import com.socialmediatraining.contentservice.repository.UserFollowRepository;
+import com.socialmediatraining.contentservice.service.feed.HomeTimelineService;
+import com.socialmediatraining.dtoutils.dto.UserFollowNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+
+//Read replica of the follow graph: the user_follow table is the source of truth of this service,
+//followees of recently active readers are kept in memory as plain arrays, loaded from the table on first access
+//(through r2dbc on the feed path, concurrent loads of a reader share the same query).
+//The table and the home timelines are updated once by the shared consumer group, the in-memory followees of every instance
+//by its own group, named after its Eureka instance id. Followees are reloaded after time-to-live seconds, which bounds a follow missed by a concurrent load.
+@Service
+@Slf4j
+public class FollowGraphService {
+
+    private final UserFollowRepository userFollowRepository;
+    private final HomeTimelineService homeTimelineService;
+    private final FeedReadRepository feedReadRepository;
+    private final AsyncCache<UUID, UUID[]> followees;
+    private final Cache<UUID, Boolean> bootstrappedUsers;
+
+    @Autowired
+    public FollowGraphService(UserFollowRepository userFollowRepository, HomeTimelineService homeTimelineService,
+                              FeedReadRepository feedReadRepository,
+                              @Value("${follow-graph.cache.max-size:100000}") long maxSize,
+                              @Value("${follow-graph.cache.time-to-live:300}") long timeToLive) {
+        this.userFollowRepository = userFollowRepository;
+        this.homeTimelineService = homeTimelineService;
+        this.feedReadRepository = feedReadRepository;
+        this.followees = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(timeToLive))
+                .buildAsync();
+        this.bootstrappedUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(timeToLive))
+                .build();
+    }
+
+    public List<UUID> getFollowedUserIds(UUID followerId) {
+        return List.of(followees.synchronous().get(followerId,
+                id -> userFollowRepository.findFollowedIdsByFollowerId(id).toArray(UUID[]::new)));
+    }
+
+    public Mono<List<UUID>> findFollowedUserIds(UUID followerId) {
+        return Mono.fromFuture(() -> followees.get(followerId, (id, executor) -> feedReadRepository.findFollowedIds(id)
+                        .map(ids -> ids.toArray(UUID[]::new))
+                        .toFuture()))
+                .map(List::of);
+    }
+
+    //Follows made before the replica existed have no event, a reader without local followees is synced once per instance
+    //and time-to-live, bounded like the followees. Syncing a reader again only adds the follows that are missing
+    public boolean shouldBootstrap(UUID followerId) {
+        return bootstrappedUsers.asMap().putIfAbsent(followerId, Boolean.TRUE) == null;
+    }
+
+    public void addFollows(UUID followerId, Collection<UUID> followedIds) {
+        followedIds.forEach(followedId -> addFollow(followerId, followedId));
+    }
+
+    @KafkaListener(topics = "new-follower", groupId = "content-service")
+    public void onNewFollower(UserFollowNotification userFollowNotification) {
+        addFollow(UUID.fromString(userFollowNotification.followerId()), UUID.fromString(userFollowNotification.userId()));
+        homeTimelineService.onNewFollower(userFollowNotification);
+    }
+
+    @KafkaListener(topics = "user-unfollowed", groupId = "content-service")
+    public void onUnfollow(UserFollowNotification userFollowNotification) {
+        UUID followerId = UUID.fromString(userFollowNotification.followerId());
+        UUID followedId = UUID.fromString(userFollowNotification.userId());
+
+        userFollowRepository.deleteByFollowerIdAndFollowedId(followerId, followedId);
+        removeLocalFollow(followerId, followedId);
+        homeTimelineService.onUnfollow(userFollowNotification);
+    }
+
+    private void addFollow(UUID followerId, UUID followedId) {
+        if (!userFollowRepository.existsByFollowerIdAndFollowedId(followerId, followedId)) {
+            try {
+                userFollowRepository.save(UserFollow.builder()
+                        .followerId(followerId)
+                        .followedId(followedId)
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                log.info("Follow of {} by {} already replicated", followedId, followerId);
+            }
+        }
+        addLocalFollow(followerId, followedId);
+    }
+
+    //Every instance receives the follow changes for its own followees
+    @KafkaListener(topics = "new-follower", groupId = "content-service-follow-graph-${eureka.instance.instance-id}",
+            properties = "auto.offset.reset=latest")
+    public void onNewFollowerBroadcast(UserFollowNotification userFollowNotification) {
+        addLocalFollow(UUID.fromString(userFollowNotification.followerId()), UUID.fromString(userFollowNotification.userId()));
+    }
+
+    @KafkaListener(topics = "user-unfollowed", groupId = "content-service-follow-graph-${eureka.instance.instance-id}",
+            properties = "auto.offset.reset=latest")
+    public void onUnfollowBroadcast(UserFollowNotification userFollowNotification) {
+        removeLocalFollow(UUID.fromString(userFollowNotification.followerId()), UUID.fromString(userFollowNotification.userId()));
+    }
+
+    private void addLocalFollow(UUID followerId, UUID followedId) {
+        followees.synchronous().asMap().computeIfPresent(followerId, (id, current) -> {
+            if (Arrays.asList(current).contains(followedId)) {
+                return current;
+            }
+            UUID[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = followedId;
+            return updated;
+        });
+    }
+
+    private void removeLocalFollow(UUID followerId, UUID followedId) {
+        followees.synchronous().asMap().computeIfPresent(followerId, (id, current) -> Arrays.stream(current)
+                .filter(followed -> !followed.equals(followedId))
+                .toArray(UUID[]::new));
+    }
+}
@@ -0,0 +1,150 @@
+package com.socialmediatraining.contentservice.service.like;
+
+import com.socialmediatraining.contentservice.repository.CreatedAtRange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+//Write-behind like counters: likes and unlikes increment a Redis hash of pending deltas per content,
+//the flusher moves the hash aside and adds the deltas to content.like_count in JDBC batches.
+//A hash left aside by a failed flush is applied again by the next one. The hash carries a batch id recorded in
+//like_count_flush in the same transaction as the deltas, so a batch applied before the hash could be deleted is not
+//applied twice.
+@Service
+@Slf4j
+public class LikeCounterService {
+
+    static final String PENDING_KEY = "likes:pending";
+    static final String FLUSHING_KEY = "likes:flushing";
+    static final String FLUSH_LOCK_KEY = "likes:flush-lock";
+    static final String BATCH_ID_FIELD = "batch-id";
+    //Bounded by the created_at range of the id so only its partition is read
+    private static final String UPDATE_LIKE_COUNT = "UPDATE content SET like_count = like_count + ? " +
+            "WHERE id = ? AND created_at BETWEEN ? AND ?";
+    private static final String BATCH_APPLIED = "SELECT COUNT(*) FROM like_count_flush WHERE batch_id = ?";
+    private static final String INSERT_BATCH = "INSERT INTO like_count_flush (batch_id, applied_at) VALUES (?, ?)";
+    private static final String DELETE_OLD_BATCHES = "DELETE FROM like_count_flush WHERE applied_at < ?";
+    //A batch id is kept long after its hash is gone, a flush never stays aside that long
+    private static final Duration BATCH_RETENTION = Duration.ofDays(1);
+
+    //Only the holder of the lock releases it, a flush slower than the lock time to live leaves the new holder's lock
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('DEL', KEYS[1]) " +
+            "end " +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration flushLockTimeToLive;
+
+    @Autowired
+    public LikeCounterService(StringRedisTemplate redisTemplate, JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${likes.counter.flush-batch-size:500}") int batchSize,
+                              @Value("${likes.counter.flush-lock-time-to-live:30}") long flushLockTimeToLiveSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.flushLockTimeToLive = Duration.ofSeconds(flushLockTimeToLiveSeconds);
+    }
+
+    public void increment(UUID contentId) {
+        add(contentId, 1);
+    }
+
+    public void decrement(UUID contentId) {
+        add(contentId, -1);
+    }
+
+    //Without Redis the delta is written to Postgres right away
+    private void add(UUID contentId, long delta) {
+        try {
+            redisTemplate.opsForHash().increment(PENDING_KEY, contentId.toString(), delta);
+        } catch (Exception e) {
+            log.error("Error while counting like of content {} in Redis, updating the database directly", contentId, e);
+            applyDeltas(Map.of(contentId.toString(), delta));
+        }
+    }
+
+    //Only one instance flushes at a time, the others skip the run while the lock is held
+    @Scheduled(fixedDelayString = "${likes.counter.flush-interval:5000}")
+    public void flush() {
+        try {
+            String lockToken = UUID.randomUUID().toString();
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(FLUSH_LOCK_KEY, lockToken, flushLockTimeToLive))) {
+                return;
+            }
+
+            try {
+                if (!Boolean.TRUE.equals(redisTemplate.hasKey(FLUSHING_KEY))) {
+                    if (!Boolean.TRUE.equals(redisTemplate.hasKey(PENDING_KEY))) {
+                        return;
+                    }
+                    redisTemplate.rename(PENDING_KEY, FLUSHING_KEY);
+                }
+                //Kept by a retry of the same hash
+                redisTemplate.opsForHash().putIfAbsent(FLUSHING_KEY, BATCH_ID_FIELD, UUID.randomUUID().toString());
+
+                Map<Object, Object> deltas = new HashMap<>(redisTemplate.opsForHash().entries(FLUSHING_KEY));
+                UUID batchId = UUID.fromString(deltas.remove(BATCH_ID_FIELD).toString());
+                applyBatch(batchId, deltas);
+                redisTemplate.delete(FLUSHING_KEY);
+                log.debug("Flushed like counters of {} contents in batch {}", deltas.size(), batchId);
+            } finally {
+                redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(FLUSH_LOCK_KEY), lockToken);
+            }
+        } catch (Exception e) {
+            log.error("Error while flushing like counters", e);
+        }
+    }
+
+    private void applyBatch(UUID batchId, Map<?, ?> deltas) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Integer applied = jdbcTemplate.queryForObject(BATCH_APPLIED, Integer.class, batchId);
+            if (applied != null && applied > 0) {
+                log.info("Like counters batch {} already applied", batchId);
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            jdbcTemplate.update(INSERT_BATCH, batchId, now);
+            jdbcTemplate.update(DELETE_OLD_BATCHES, now.minus(BATCH_RETENTION));
+            applyDeltas(deltas);
+        });
+    }
+
+    private void applyDeltas(Map<?, ?> deltas) {
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        deltas.forEach((contentId, delta) -> {
+            long value = Long.parseLong(delta.toString());
+            if (value != 0) {
+                UUID id = UUID.fromString(contentId.toString());
+                CreatedAtRange range = CreatedAtRange.of(id);
+                updates.add(new Object[]{value, id, range.from(), range.to()});
+            }
+        });
+
+        for (int i = 0; i < updates.size(); i += batchSize) {
+            jdbcTemplate.batchUpdate(UPDATE_LIKE_COUNT, updates.subList(i, Math.min(i + batchSize, updates.size())));
+        }
+    }
+}
@@ -1,27 +1,27 @@
 package com.socialmediatraining.contentservice.service.like;
 
+import com.socialmediatraining.contentservice.dto.like.LikeResult;
+import com.socialmediatraining.contentservice.dto.like.LikedContent;
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
 import com.socialmediatraining.contentservice.dto.post.ContentResponse;
-import com.socialmediatraining.contentservice.entity.Content;
-import com.socialmediatraining.contentservice.entity.ExternalUser;
-import com.socialmediatraining.contentservice.entity.UserContentLike;
 import com.socialmediatraining.contentservice.repository.ContentRepository;
 import com.socialmediatraining.contentservice.repository.UserContentLikeRepository;
+import com.socialmediatraining.contentservice.service.post.PostCache;
 import com.socialmediatraining.contentservice.service.user.UserCacheService;
 import com.socialmediatraining.dtoutils.dto.PageResponse;
 import com.socialmediatraining.dtoutils.dto.SimpleUserDataObject;
+import com.socialmediatraining.dtoutils.dto.UserLikeNotification;
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
 import com.socialmediatraining.exceptioncommons.exception.PostNotFoundException;
-import com.socialmediatraining.exceptioncommons.exception.UserActionForbiddenException;
-import com.socialmediatraining.exceptioncommons.exception.UserDoesntExistsException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
-import static com.socialmediatraining.authenticationcommons.JwtUtils.getSubIdFromAuthHeader;
 import static com.socialmediatraining.authenticationcommons.JwtUtils.getUsernameFromAuthHeader;
 
 @Service
@@ -29,67 +29,97 @@ public class LikeService {
     private final ContentRepository contentRepository;
     private final UserContentLikeRepository userContentLikeRepository;
     private final UserCacheService userCacheService;
+    private final LikeCounterService likeCounterService;
+    private final LikedContentService likedContentService;
+    private final KafkaTemplate<String, UserLikeNotification> userLikeKafkaTemplate;
+    private final PostCache postCache;
 
-    public LikeService(ContentRepository contentRepository, UserContentLikeRepository userContentLikeRepository, UserCacheService userCacheService) {
+    public LikeService(ContentRepository contentRepository, UserContentLikeRepository userContentLikeRepository, UserCacheService userCacheService, LikeCounterService likeCounterService, LikedContentService likedContentService, KafkaTemplate<String, UserLikeNotification> userLikeKafkaTemplate, PostCache postCache) {
         this.contentRepository = contentRepository;
         this.userContentLikeRepository = userContentLikeRepository;
         this.userCacheService = userCacheService;
+        this.likeCounterService = likeCounterService;
+        this.likedContentService = likedContentService;
+        this.userLikeKafkaTemplate = userLikeKafkaTemplate;
+        this.postCache = postCache;
     }
 
-    public String likeContent(String authHeader, UUID contentId){
-        String subId = getSubIdFromAuthHeader(authHeader);
-        ExternalUser externalUser = userCacheService.getExternalUserByUsername(getUsernameFromAuthHeader(authHeader));
+    //One insert on the hot path, the content is only looked up when nothing was inserted to tell a missing post from a repeated like
+    public LikeResult likeContent(String authHeader, UUID contentId){
+        SimpleUserDataObject user = userCacheService.getUserDataByUsername(getUsernameFromAuthHeader(authHeader));
 
-        Content post = contentRepository.findByIdAndDeletedAtIsNull(contentId)
-                .orElseThrow(() -> new PostNotFoundException("Post with userId " + contentId + " doesn't exists"));
-
-        if (userContentLikeRepository.existsByUserIdAndContentId(externalUser.getId(), contentId)) {
-            throw new UserActionForbiddenException("User " + externalUser.getUsername() + " already liked post with id " + contentId);
+        boolean liked = userContentLikeRepository.insertIfAbsent(UuidV7Generator.next(), UUID.fromString(user.userId()), contentId) > 0;
+        if(!liked){
+            if(!contentRepository.existsByIdAndDeletedAtIsNull(contentId)){
+                throw new PostNotFoundException("Post with userId " + contentId + " doesn't exists");
+            }
+            return LikeResult.create(false, String.format("User %s already liked post with userId %s", user.username(), contentId));
         }
 
-        UserContentLike userContentLike = externalUser.addContentLike(post);
-        userContentLikeRepository.save(userContentLike);
-
-        return String.format("User %s liked post with userId %s",subId,contentId);
+        likeCounterService.increment(contentId);
+        likedContentService.onLiked(UUID.fromString(user.userId()), contentId);
+        publishLike(user, contentId);
+        return LikeResult.create(true, String.format("User %s liked post with userId %s", user.userId(), contentId));
     }
 
-    public String deleteLike(String authHeader, UUID contentId){
-        String username = getUsernameFromAuthHeader(authHeader);
-        ExternalUser externalUser = userCacheService.getExternalUserByUsername(username);
+    //Keyed by content so every like of a post reaches the same notification consumer, which coalesces them.
+    //The creator comes from the post this instance cached when it was viewed, the database is only read on a miss
+    private void publishLike(SimpleUserDataObject liker, UUID contentId){
+        postCache.getLocal(contentId).map(ContentResponse::creator_id)
+                .or(() -> contentRepository.findCreatorIdById(contentId))
+                .filter(creatorId -> !creatorId.toString().equals(liker.userId()))
+                .ifPresent(creatorId -> userLikeKafkaTemplate.send("new-like", contentId.toString(),
+                        UserLikeNotification.create(creatorId.toString(), contentId.toString(), liker.userId(), liker.username())));
+    }
 
-        Content post = contentRepository.findByIdAndDeletedAtIsNull(contentId)
-                .orElse(null);
-        if(post == null){
-            throw new PostNotFoundException("Post with userId " + contentId + " doesn't exists");
-        }
+    public LikeResult deleteLike(String authHeader, UUID contentId){
+        SimpleUserDataObject user = userCacheService.getUserDataByUsername(getUsernameFromAuthHeader(authHeader));
 
-        UserContentLike userContentLike = userContentLikeRepository.findByContentAndUser_Id(post,externalUser.getId())
-                .orElse(null);
-        if(userContentLike == null){
-            throw new UserActionForbiddenException("Post with userId " + contentId + " isn't liked by user " + externalUser.getUsername());
+        boolean unliked = userContentLikeRepository.deleteByUserIdAndContentId(UUID.fromString(user.userId()), contentId) > 0;
+        if(!unliked){
+            if(!contentRepository.existsByIdAndDeletedAtIsNull(contentId)){
+                throw new PostNotFoundException("Post with userId " + contentId + " doesn't exists");
+            }
+            return LikeResult.create(false, String.format("User %s didn't like post with userId %s", user.username(), contentId));
         }
 
-        externalUser.removeContentLike(post);
-        userCacheService.saveExternalUser(externalUser);
+        likeCounterService.decrement(contentId);
+        likedContentService.onUnliked(UUID.fromString(user.userId()), contentId);
+        return LikeResult.create(true, String.format("User %s unliked post with userId %s", user.username(), contentId));
+    }
 
-        return String.format("User %s unliked post with userId %s",username,contentId);
+    public Map<UUID, Boolean> getLikeStatus(String authHeader, Collection<UUID> contentIds){
+        SimpleUserDataObject user = userCacheService.getUserDataByUsername(getUsernameFromAuthHeader(authHeader));
+        return likedContentService.hasLiked(UUID.fromString(user.userId()), contentIds);
     }
 
+    //Contents and like time come from one join, the page count is a second query
+    @Transactional(readOnly = true)
     public PageResponse<ContentResponse> getAllLikedContentsByUser(String username, Pageable pageable) {
-        SimpleUserDataObject externalUser = userCacheService.getUserDataByUsername(username);
+        SimpleUserDataObject user = userCacheService.getUserDataByUsername(username);
 
-        Page<UserContentLike> userContentLikeList = userContentLikeRepository
-                .findAllByUser_Id(UUID.fromString(externalUser.userId()),pageable)
-                .orElse(null);
+        return PageResponse.from(userContentLikeRepository
+                .findLikedContentsByUserId(UUID.fromString(user.userId()), pageable)
+                .map(LikedContent::toContentResponse));
+    }
 
-        if(userContentLikeList == null || userContentLikeList.getContent().isEmpty()){
-            return PageResponse.from(new PageImpl<>(new ArrayList<>(),pageable,0));
+    //Keyset on the like (created_at, id), newest like first. The total is only counted when asked for
+    @Transactional(readOnly = true)
+    public PageResponse<ContentResponse> getAllLikedContentsByUser(String username, ContentCursor cursor, int size, boolean withCount) {
+        SimpleUserDataObject user = userCacheService.getUserDataByUsername(username);
+        UUID userId = UUID.fromString(user.userId());
+
+        List<LikedContent> likedContents = userContentLikeRepository.findLikedContentsByUserIdAfter(
+                userId, cursor.createdAt(), cursor.id(), PageRequest.of(0, size + 1));
+        boolean hasNext = likedContents.size() > size;
+        List<LikedContent> pageContents = hasNext ? likedContents.subList(0, size) : likedContents;
+        String nextCursor = hasNext ? pageContents.getLast().toCursor().encode() : null;
+        List<ContentResponse> responses = pageContents.stream().map(LikedContent::toContentResponse).toList();
+
+        if(!withCount){
+            return PageResponse.from(new SliceImpl<>(responses, PageRequest.of(0, size), hasNext), nextCursor);
         }
-
-        List<ContentResponse> userContentLikes = userContentLikeList.getContent().stream().map(userContentLike ->
-                ContentResponse.fromEntity(userContentLike.getContent())
-        ).toList();
-
-        return PageResponse.from(new PageImpl<>(userContentLikes,pageable,userContentLikes.size()));
+        long totalItems = userContentLikeRepository.countLikedContentsByUserId(userId);
+        return new PageResponse<>(responses, 0, (int) Math.ceilDiv(totalItems, size), totalItems, size, nextCursor);
     }
 }
@@ -0,0 +1,274 @@
+package com.socialmediatraining.contentservice.service.like;
+
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.contentservice.repository.FeedReadRepository;
+import com.socialmediatraining.contentservice.repository.UserContentLikeRepository;
+import com.socialmediatraining.dtoutils.dto.PageResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//One Redis set of liked content ids per viewer, so "which of these posts did I like" is a single SMISMEMBER for a whole page.
+//Sets are loaded lazily from user_content_like and hold a marker member once complete, a set without the marker
+//(never loaded, or only written by likes since it expired) is loaded again before being trusted.
+//Users with more likes than max-set-size get a too-large marker instead, checked by the same SMISMEMBER, so they go
+//straight to the IN query until the set expires rather than reading max-set-size + 1 ids on every call.
+//Feed requests use the reactive variants, on the reactive Redis client and FeedReadRepository.
+//A load is built under a temporary key and only published if no like or unlike of the user happened meanwhile (per user
+//version), otherwise an unlike applied to the set before the load wrote it would be lost until the set expires.
+@Service
+@Slf4j
+public class LikedContentService {
+
+    static final String LIKED_KEY = "likes:user:";
+    static final String LOADED_MARKER = "loaded";
+    static final String TOO_LARGE_MARKER = "too-large";
+    static final String VERSION_SUFFIX = ":version";
+    private static final Duration LOAD_TIME_TO_LIVE = Duration.ofSeconds(60);
+
+    //KEYS: loaded set, published set, version. ARGV: version read before the load, time to live of the published set
+    private static final RedisScript<Long> PUBLISH_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[3]) or '') ~= ARGV[1] or redis.call('EXISTS', KEYS[1]) == 0 then " +
+            "  redis.call('DEL', KEYS[1]) " +
+            "  return 0 " +
+            "end " +
+            "redis.call('RENAME', KEYS[1], KEYS[2]) " +
+            "redis.call('EXPIRE', KEYS[2], ARGV[2]) " +
+            "return 1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final UserContentLikeRepository userContentLikeRepository;
+    private final FeedReadRepository feedReadRepository;
+    private final Duration timeToLive;
+    private final int maxSetSize;
+
+    @Autowired
+    public LikedContentService(StringRedisTemplate redisTemplate, ReactiveStringRedisTemplate reactiveRedisTemplate,
+                               UserContentLikeRepository userContentLikeRepository, FeedReadRepository feedReadRepository,
+                               @Value("${likes.viewer.time-to-live:86400}") long timeToLiveSeconds,
+                               @Value("${likes.viewer.max-set-size:10000}") int maxSetSize) {
+        this.redisTemplate = redisTemplate;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.userContentLikeRepository = userContentLikeRepository;
+        this.feedReadRepository = feedReadRepository;
+        this.timeToLive = Duration.ofSeconds(timeToLiveSeconds);
+        this.maxSetSize = maxSetSize;
+    }
+
+    //Answers in the order of the given ids, Redis errors fall back to a single IN query
+    public Map<UUID, Boolean> hasLiked(UUID userId, Collection<UUID> contentIds) {
+        if (contentIds == null || contentIds.isEmpty()) {
+            return Map.of();
+        }
+
+        List<UUID> ids = List.copyOf(new LinkedHashSet<>(contentIds));
+        Set<UUID> liked = null;
+        try {
+            liked = readLiked(userId, ids);
+        } catch (Exception e) {
+            log.error("Error while reading liked contents of user {} from Redis, falling back to the database", userId, e);
+        }
+        if (liked == null) {
+            liked = new HashSet<>(userContentLikeRepository.findContentIdsByUserIdAndContentIdIn(userId, ids));
+        }
+
+        Map<UUID, Boolean> result = new LinkedHashMap<>();
+        for (UUID id : ids) {
+            result.put(id, liked.contains(id));
+        }
+        return result;
+    }
+
+    public PageResponse<ContentResponse> withLikedByViewer(UUID viewerId, PageResponse<ContentResponse> page) {
+        if (page == null || page.content() == null || page.content().isEmpty()) {
+            return page;
+        }
+
+        return withLikedByViewer(page, hasLiked(viewerId, page.content().stream().map(ContentResponse::id).toList()));
+    }
+
+    public Mono<PageResponse<ContentResponse>> withLikedByViewerReactive(UUID viewerId, PageResponse<ContentResponse> page) {
+        if (page == null || page.content() == null || page.content().isEmpty()) {
+            return Mono.justOrEmpty(page);
+        }
+
+        return hasLikedReactive(viewerId, page.content().stream().map(ContentResponse::id).toList())
+                .map(liked -> withLikedByViewer(page, liked));
+    }
+
+    private PageResponse<ContentResponse> withLikedByViewer(PageResponse<ContentResponse> page, Map<UUID, Boolean> liked) {
+        List<ContentResponse> content = page.content().stream()
+                .map(response -> response.withLikedByViewer(liked.getOrDefault(response.id(), false)))
+                .toList();
+        return new PageResponse<>(content, page.currentPage(), page.totalPages(), page.totalItems(), page.size(), page.next_cursor(), page.has_next());
+    }
+
+    //Same as hasLiked without blocking, Redis errors fall back to a single IN query through r2dbc
+    public Mono<Map<UUID, Boolean>> hasLikedReactive(UUID userId, Collection<UUID> contentIds) {
+        if (contentIds == null || contentIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        List<UUID> ids = List.copyOf(new LinkedHashSet<>(contentIds));
+        return readLikedReactive(userId, ids)
+                .onErrorResume(e -> {
+                    log.error("Error while reading liked contents of user {} from Redis, falling back to the database", userId, e);
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> feedReadRepository.findLikedContentIds(userId, ids).map(HashSet::new)))
+                .map(liked -> {
+                    Map<UUID, Boolean> result = new LinkedHashMap<>();
+                    for (UUID id : ids) {
+                        result.put(id, liked.contains(id));
+                    }
+                    return result;
+                });
+    }
+
+    //Written even if the set isn't loaded, the missing marker keeps a partial set from being trusted
+    public void onLiked(UUID userId, UUID contentId) {
+        String key = LIKED_KEY + userId;
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                stringConnection.sAdd(key, contentId.toString());
+                stringConnection.expire(key, timeToLive.getSeconds());
+                bumpVersion(stringConnection, key);
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Error while adding content {} to liked contents of user {}", contentId, userId, e);
+            forget(key);
+        }
+    }
+
+    public void onUnliked(UUID userId, UUID contentId) {
+        String key = LIKED_KEY + userId;
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                stringConnection.sRem(key, contentId.toString());
+                bumpVersion(stringConnection, key);
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Error while removing content {} from liked contents of user {}", contentId, userId, e);
+            forget(key);
+        }
+    }
+
+    //Null when the user has too many likes to keep them in a set
+    private Set<UUID> readLiked(UUID userId, List<UUID> ids) {
+        String key = LIKED_KEY + userId;
+        Map<Object, Boolean> membership = redisTemplate.opsForSet().isMember(key, members(ids));
+        if (membership != null && Boolean.TRUE.equals(membership.get(TOO_LARGE_MARKER))) {
+            return null;
+        }
+        if (membership != null && Boolean.TRUE.equals(membership.get(LOADED_MARKER))) {
+            return ids.stream()
+                    .filter(id -> Boolean.TRUE.equals(membership.get(id.toString())))
+                    .collect(Collectors.toSet());
+        }
+
+        String version = Objects.requireNonNullElse(redisTemplate.opsForValue().get(key + VERSION_SUFFIX), "");
+        List<UUID> likedIds = userContentLikeRepository.findContentIdsByUserId(userId, Limit.of(maxSetSize + 1));
+        if (likedIds.size() > maxSetSize) {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                stringConnection.sAdd(key, TOO_LARGE_MARKER);
+                stringConnection.expire(key, timeToLive.getSeconds());
+                return null;
+            });
+            return null;
+        }
+
+        String loadKey = loadKey(key);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.sAdd(loadKey, loadedMembers(likedIds));
+            stringConnection.expire(loadKey, LOAD_TIME_TO_LIVE.getSeconds());
+            return null;
+        });
+        redisTemplate.execute(PUBLISH_SCRIPT, List.of(loadKey, key, key + VERSION_SUFFIX),
+                version, String.valueOf(timeToLive.getSeconds()));
+        Set<UUID> likedSet = new HashSet<>(likedIds);
+        return ids.stream().filter(likedSet::contains).collect(Collectors.toSet());
+    }
+
+    //Empty when the user has too many likes to keep them in a set
+    private Mono<Set<UUID>> readLikedReactive(UUID userId, List<UUID> ids) {
+        String key = LIKED_KEY + userId;
+        return reactiveRedisTemplate.opsForSet().isMember(key, members(ids))
+                .flatMap(membership -> {
+                    if (Boolean.TRUE.equals(membership.get(TOO_LARGE_MARKER))) {
+                        return Mono.empty();
+                    }
+                    if (Boolean.TRUE.equals(membership.get(LOADED_MARKER))) {
+                        return Mono.just(ids.stream()
+                                .filter(id -> Boolean.TRUE.equals(membership.get(id.toString())))
+                                .collect(Collectors.toSet()));
+                    }
+                    return reactiveRedisTemplate.opsForValue().get(key + VERSION_SUFFIX)
+                            .defaultIfEmpty("")
+                            .flatMap(version -> feedReadRepository.findLikedContentIds(userId, maxSetSize + 1)
+                                    .flatMap(likedIds -> storeLoaded(key, version, likedIds, ids)));
+                });
+    }
+
+    //Empty when the user has too many likes to keep them in a set
+    private Mono<Set<UUID>> storeLoaded(String key, String version, List<UUID> likedIds, List<UUID> ids) {
+        if (likedIds.size() > maxSetSize) {
+            return reactiveRedisTemplate.opsForSet().add(key, TOO_LARGE_MARKER)
+                    .then(reactiveRedisTemplate.expire(key, timeToLive))
+                    .then(Mono.empty());
+        }
+        String loadKey = loadKey(key);
+        Set<UUID> likedSet = new HashSet<>(likedIds);
+        return reactiveRedisTemplate.opsForSet().add(loadKey, loadedMembers(likedIds))
+                .then(reactiveRedisTemplate.expire(loadKey, LOAD_TIME_TO_LIVE))
+                .then(reactiveRedisTemplate.execute(PUBLISH_SCRIPT, List.of(loadKey, key, key + VERSION_SUFFIX),
+                        List.of(version, String.valueOf(timeToLive.getSeconds()))).then())
+                .thenReturn(ids.stream().filter(likedSet::contains).collect(Collectors.toSet()));
+    }
+
+    private void bumpVersion(StringRedisConnection connection, String key) {
+        connection.incr(key + VERSION_SUFFIX);
+        connection.expire(key + VERSION_SUFFIX, timeToLive.getSeconds());
+    }
+
+    private static String loadKey(String key) {
+        return key + ":load:" + UUID.randomUUID();
+    }
+
+    private static String[] loadedMembers(List<UUID> likedIds) {
+        return Stream.concat(Stream.of(LOADED_MARKER), likedIds.stream().map(UUID::toString)).toArray(String[]::new);
+    }
+
+    private static Object[] members(List<UUID> ids) {
+        return Stream.concat(Stream.of(LOADED_MARKER, TOO_LARGE_MARKER), ids.stream().map(UUID::toString)).toArray();
+    }
+
+    //A set that missed a write would keep answering wrong until it expires, dropping it forces a reload
+    private void forget(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (Exception e) {
+            log.error("Error while deleting liked contents set {}", key, e);
+        }
+    }
+}
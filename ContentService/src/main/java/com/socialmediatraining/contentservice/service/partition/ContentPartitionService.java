@@ -0,0 +1,172 @@
+package com.socialmediatraining.contentservice.service.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Monthly range partitions of content on created_at (see docker/postgres/init.sql), named content_pYYYY_MM.
+//Partitions are created months-ahead in advance at startup and by a daily job, imports create the months of their
+//rows before inserting. With a retention, partitions older than retention-months are detached and renamed
+//archived_content_pYYYY_MM, left in the database for archival. Detaching fires no delete trigger, the likes and
+//favorites of the archived contents are deleted with it (init.sql cascades them on deletes only).
+//Feed queries carry a lower created_at bound (the feed horizon) so the planner only scans the recent partitions.
+//Does nothing on databases other than PostgreSQL or when content is not partitioned.
+@Service
+@Slf4j
+public class ContentPartitionService implements InitializingBean {
+
+    static final String MAINTENANCE_LOCK_KEY = "content:partition-lock";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String PARTITION_PREFIX = "content_p";
+    private static final List<String> ARCHIVED_REFERENCES = List.of("user_content_like", "user_content_favorite");
+    private static final String IS_PARTITIONED = "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt " +
+            "JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = 'content' AND c.relnamespace = current_schema()::regnamespace)";
+    private static final String LIST_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'content' AND p.relnamespace = current_schema()::regnamespace";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final int feedHorizonDays;
+    private final Duration lockTimeToLive;
+    private final Set<YearMonth> knownPartitions = ConcurrentHashMap.newKeySet();
+    private volatile Boolean partitioned;
+
+    @Autowired
+    public ContentPartitionService(JdbcTemplate jdbcTemplate, StringRedisTemplate redisTemplate,
+                                   @Value("${content.partition.months-ahead:3}") int monthsAhead,
+                                   @Value("${content.partition.retention-months:0}") int retentionMonths,
+                                   @Value("${feed.horizon-days:180}") int feedHorizonDays,
+                                   @Value("${content.partition.lock-time-to-live:600}") long lockTimeToLiveSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.feedHorizonDays = feedHorizonDays;
+        this.lockTimeToLive = Duration.ofSeconds(lockTimeToLiveSeconds);
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    //Oldest created_at shown in feeds, every feed query is bounded by it
+    public LocalDateTime feedHorizon() {
+        return LocalDateTime.now().minusDays(feedHorizonDays);
+    }
+
+    //Runs before the application serves requests so the current month can always be written
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            createUpcomingPartitions();
+        } catch (Exception e) {
+            log.error("Error while creating content partitions at startup", e);
+        }
+    }
+
+    //Only one instance runs the maintenance, creating partitions is idempotent but detaching is not
+    @Scheduled(cron = "${content.partition.cron:0 0 4 * * *}")
+    public void scheduledMaintenance() {
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(MAINTENANCE_LOCK_KEY, "1", lockTimeToLive))) {
+                return;
+            }
+            try {
+                createUpcomingPartitions();
+                detachExpiredPartitions();
+            } finally {
+                redisTemplate.delete(MAINTENANCE_LOCK_KEY);
+            }
+        } catch (Exception e) {
+            log.error("Error while maintaining content partitions", e);
+        }
+    }
+
+    public void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now();
+        ensurePartitions(List.of(current.minusMonths(1), current.plusMonths(monthsAhead)));
+    }
+
+    //Creates the partitions of every month between the earliest and the latest of the given months
+    public void ensurePartitions(Collection<YearMonth> months) {
+        if (months.isEmpty() || !isPartitioned()) {
+            return;
+        }
+
+        YearMonth last = Collections.max(months);
+        for (YearMonth month = Collections.min(months); !month.isAfter(last); month = month.plusMonths(1)) {
+            if (knownPartitions.contains(month)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF content " +
+                        "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+                knownPartitions.add(month);
+            } catch (Exception e) {
+                //Another instance may have created it in the meantime, the next insert tells if it is really missing
+                log.error("Error while creating content partition {}", partitionName(month), e);
+            }
+        }
+    }
+
+    //Detached without blocking inserts and reads (CONCURRENTLY, outside of any transaction)
+    public List<String> detachExpiredPartitions() {
+        if (retentionMonths <= 0 || !isPartitioned()) {
+            return List.of();
+        }
+
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        List<String> detached = new ArrayList<>();
+        for (String partition : jdbcTemplate.queryForList(LIST_PARTITIONS, String.class)) {
+            YearMonth month = monthOf(partition);
+            if (month == null || !month.isBefore(oldestKept)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE content DETACH PARTITION " + partition + " CONCURRENTLY");
+            jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO archived_" + partition);
+            for (String table : ARCHIVED_REFERENCES) {
+                jdbcTemplate.execute("DELETE FROM " + table + " r USING archived_" + partition + " a WHERE r.content_id = a.id");
+            }
+            knownPartitions.remove(month);
+            detached.add(partition);
+            log.info("Detached content partition {} for archival", partition);
+        }
+        return detached;
+    }
+
+    private static YearMonth monthOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private boolean isPartitioned() {
+        if (partitioned == null) {
+            partitioned = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()))
+                    && Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED, Boolean.class));
+        }
+        return partitioned;
+    }
+}
@@ -0,0 +1,543 @@
+package com.socialmediatraining.contentservice.service.post;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialmediatraining.contentservice.dto.post.ContentImportReport;
+import com.socialmediatraining.contentservice.dto.post.ContentImportRow;
+import com.socialmediatraining.contentservice.entity.Content;
+import com.socialmediatraining.contentservice.repository.ContentRepository;
+import com.socialmediatraining.contentservice.repository.CreatedAtRange;
+import com.socialmediatraining.contentservice.service.partition.ContentPartitionService;
+import com.socialmediatraining.contentservice.service.thread.ThreadPageCache;
+import com.socialmediatraining.contentservice.service.user.UserCacheService;
+import com.socialmediatraining.dtoutils.dto.ContentImportedNotification;
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+//Bulk import of historic contents from NDJSON, bypassing createContent: rows are validated, then inserted in JDBC
+//batches of one transaction each with their reply counts. Per-post side effects (feeds, trending, notifications)
+//are skipped, authors get one summary event per import run.
+//Progress is kept in a Redis hash per import id. Sending the same file again with the same id resumes after the last
+//committed line, and rows already present (same id) are skipped, so a lost progress hash only costs time.
+//The lock of a run has a short time to live renewed by every batch, the lock of a dead instance is soon released.
+//Replies must come after their parent in the file.
+@Service
+@Slf4j
+public class ContentImportService {
+
+    static final String IMPORT_KEY = "content:import:";
+    private static final String LOCK_SUFFIX = ":lock";
+    private static final Pattern IMPORT_ID = Pattern.compile("^[A-Za-z0-9_-]{1,64}$");
+    private static final String INSERT_CONTENT = "INSERT INTO content (id, creator_id, parent_id, root_id, created_at, updated_at, text, media_urls, like_count, reply_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, 0) ON CONFLICT DO NOTHING";
+    private static final String ADD_REPLY_COUNT = "UPDATE content SET reply_count = reply_count + ? " +
+            "WHERE id = ? AND created_at BETWEEN ? AND ?";
+    //Only the holder of the lock renews or releases it, a run slower than the lock time to live leaves the new holder's lock
+    private static final RedisScript<Long> RENEW_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "end " +
+            "return 0", Long.class);
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('DEL', KEYS[1]) " +
+            "end " +
+            "return 0", Long.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ContentRepository contentRepository;
+    private final UserCacheService userCacheService;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final KafkaTemplate<String, ContentImportedNotification> contentImportedKafkaTemplate;
+    private final ContentPartitionService contentPartitionService;
+    private final PostCache postCache;
+    private final ThreadPageCache threadPageCache;
+    private final int batchSize;
+    private final Duration progressTimeToLive;
+    private final Duration lockTimeToLive;
+    private final int maxReportedErrors;
+    private volatile Boolean postgres;
+
+    @Autowired
+    public ContentImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                ContentRepository contentRepository, UserCacheService userCacheService,
+                                StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                                KafkaTemplate<String, ContentImportedNotification> contentImportedKafkaTemplate,
+                                ContentPartitionService contentPartitionService, PostCache postCache,
+                                ThreadPageCache threadPageCache,
+                                @Value("${content.import.batch-size:1000}") int batchSize,
+                                @Value("${content.import.progress-time-to-live:604800}") long progressTimeToLiveSeconds,
+                                @Value("${content.import.lock-time-to-live:120}") long lockTimeToLiveSeconds,
+                                @Value("${content.import.max-reported-errors:100}") int maxReportedErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.contentRepository = contentRepository;
+        this.userCacheService = userCacheService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.contentImportedKafkaTemplate = contentImportedKafkaTemplate;
+        this.contentPartitionService = contentPartitionService;
+        this.postCache = postCache;
+        this.threadPageCache = threadPageCache;
+        this.batchSize = batchSize;
+        this.progressTimeToLive = Duration.ofSeconds(progressTimeToLiveSeconds);
+        this.lockTimeToLive = Duration.ofSeconds(lockTimeToLiveSeconds);
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ContentImportReport importContents(String importId, InputStream ndjson) {
+        checkImportId(importId);
+        String lockKey = IMPORT_KEY + importId + LOCK_SUFFIX;
+        String lockToken = UUID.randomUUID().toString();
+        if (!lock(lockKey, lockToken)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Import " + importId + " is already running");
+        }
+
+        ImportRun run = new ImportRun(importId, lockKey, lockToken, readProgress(importId));
+        String status = "FAILED";
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= run.lastLine || line.isBlank()) {
+                    continue;
+                }
+                parse(run, lineNumber, line);
+                if (run.batch.size() >= batchSize) {
+                    flush(run, lineNumber);
+                }
+            }
+            flush(run, lineNumber);
+            status = "COMPLETED";
+        } catch (IOException e) {
+            log.error("Error while reading import {}", importId, e);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Error while reading import " + importId);
+        } finally {
+            saveProgress(run, status);
+            publishAuthorSummaries(run);
+            unlock(lockKey, lockToken);
+        }
+        log.info("Import {} completed: {} inserted, {} duplicates, {} rejected", importId, run.inserted, run.duplicates, run.rejected);
+        return run.report(status);
+    }
+
+    public ContentImportReport getProgress(String importId) {
+        checkImportId(importId);
+        ContentImportReport progress = readProgress(importId);
+        if (progress == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cannot find import " + importId);
+        }
+        return progress;
+    }
+
+    private void parse(ImportRun run, long lineNumber, String line) {
+        ContentImportRow row;
+        try {
+            row = objectMapper.readValue(line, ContentImportRow.class);
+        } catch (JsonProcessingException e) {
+            run.reject(lineNumber, "invalid JSON");
+            return;
+        }
+
+        String error = validate(row);
+        if (error != null) {
+            run.reject(lineNumber, error);
+            return;
+        }
+        UUID id = row.id() != null ? row.id() : importedId(run.importId, lineNumber, row.created_at());
+        run.batch.add(new PendingRow(lineNumber, id, row, createdAtOf(row)));
+    }
+
+    //A version 7 id without created_at is dated by its id, lookups expect created_at close to the id time
+    private static LocalDateTime createdAtOf(ContentImportRow row) {
+        if (row.created_at() != null) {
+            return row.created_at();
+        }
+        return row.id() != null && row.id().version() == 7 ? CreatedAtRange.createdAtOf(row.id()) : LocalDateTime.now();
+    }
+
+    //Same id for the same line of an import, time-ordered like the generated ids when created_at is given
+    private static UUID importedId(String importId, long lineNumber, LocalDateTime createdAt) {
+        byte[] name = (importId + ":" + lineNumber).getBytes(StandardCharsets.UTF_8);
+        return createdAt == null ? UUID.nameUUIDFromBytes(name)
+                : UuidV7Generator.fromName(createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), name);
+    }
+
+    private String validate(ContentImportRow row) {
+        if (row.creator_id() == null) {
+            return "creator_id is required";
+        }
+        if (row.text() == null || row.text().isBlank()) {
+            return "text is required";
+        }
+        if (row.text().length() > 255) {
+            return "text is longer than 255 characters";
+        }
+        if (row.created_at() != null && row.created_at().isAfter(LocalDateTime.now())) {
+            return "created_at is in the future";
+        }
+        //Id lookups only read the partitions around the time of a version 7 id (CreatedAtRange)
+        if (row.id() != null && row.id().version() == 7) {
+            LocalDateTime idTime = CreatedAtRange.createdAtOf(row.id());
+            if (idTime.isAfter(LocalDateTime.now().plus(CreatedAtRange.SLACK))) {
+                return "id is dated in the future";
+            }
+            if (row.created_at() != null
+                    && Duration.between(idTime, row.created_at()).abs().compareTo(CreatedAtRange.SLACK) > 0) {
+                return "created_at does not match the time of the id";
+            }
+        }
+        return null;
+    }
+
+    //Checks authors and parents of the batch with one query each, then inserts it in one transaction
+    private void flush(ImportRun run, long lastLine) {
+        renewLock(run);
+        List<PendingRow> batch = run.batch;
+        run.batch = new ArrayList<>();
+        if (batch.isEmpty()) {
+            run.commit(lastLine, List.of(), 0);
+            saveProgress(run, "RUNNING");
+            return;
+        }
+
+        Set<UUID> batchIds = batch.stream().map(PendingRow::id).collect(Collectors.toSet());
+        //Thread root and creation time of every content a row may reply to, a post is its own root
+        Map<UUID, UUID> rootByContent = new HashMap<>();
+        Map<UUID, LocalDateTime> createdAtByContent = new HashMap<>();
+        //Read-write so both lookups run on the primary, a lagging replica would miss the rows of the previous batches
+        Set<UUID> existingIds = transactionTemplate.execute(status -> {
+            contentRepository.findAllByIdInAndDeletedAtIsNull(batch.stream()
+                            .map(row -> row.row().parent_id())
+                            .filter(parentId -> parentId != null && !batchIds.contains(parentId))
+                            .collect(Collectors.toSet()))
+                    .forEach(parent -> {
+                        rootByContent.put(parent.getId(), rootOf(parent));
+                        createdAtByContent.put(parent.getId(), parent.getCreatedAt());
+                    });
+            return new HashSet<>(contentRepository.findExistingIds(batchIds));
+        });
+        Set<UUID> creatorIds = userCacheService.getUserDataByIds(batch.stream().map(row -> row.row().creator_id()).collect(Collectors.toSet()))
+                .keySet();
+
+        List<PendingRow> accepted = new ArrayList<>();
+        int duplicates = 0;
+        for (PendingRow pending : batch) {
+            UUID parentId = pending.row().parent_id();
+            if (!creatorIds.contains(pending.row().creator_id())) {
+                run.reject(pending.lineNumber(), "unknown creator " + pending.row().creator_id());
+            } else if (parentId != null && !rootByContent.containsKey(parentId)) {
+                run.reject(pending.lineNumber(), "unknown parent " + parentId);
+            } else if (parentId != null && pending.createdAt().isBefore(createdAtByContent.get(parentId))) {
+                //Thread pages only look for replies created after their parent
+                run.reject(pending.lineNumber(), "created_at is before the parent " + parentId);
+            } else {
+                UUID rootId = parentId == null ? null : rootByContent.get(parentId);
+                rootByContent.put(pending.id(), rootId == null ? pending.id() : rootId);
+                createdAtByContent.put(pending.id(), pending.createdAt());
+                if (existingIds.contains(pending.id())) {
+                    duplicates++;
+                } else {
+                    accepted.add(pending.withRootId(rootId));
+                }
+            }
+        }
+
+        List<PendingRow> inserted = insert(accepted);
+        //Rows inserted meanwhile by a concurrent run of the same file are duplicates too
+        run.commit(lastLine, inserted, duplicates + accepted.size() - inserted.size());
+        saveProgress(run, "RUNNING");
+    }
+
+    //Returns the rows actually inserted, reply counts are only added for those
+    private List<PendingRow> insert(List<PendingRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        boolean jsonAsText = isPostgres();
+        //Imported rows can be years old, their monthly partitions are created before the insert needs them
+        contentPartitionService.ensurePartitions(rows.stream().map(row -> YearMonth.from(row.createdAt())).collect(Collectors.toSet()));
+        List<PendingRow> inserted = transactionTemplate.execute(status -> {
+            int[][] counts = jdbcTemplate.batchUpdate(INSERT_CONTENT, rows, rows.size(), (ps, pending) -> {
+                ps.setObject(1, pending.id());
+                ps.setObject(2, pending.row().creator_id());
+                setNullable(ps, 3, pending.row().parent_id());
+                setNullable(ps, 4, pending.rootId());
+                ps.setTimestamp(5, Timestamp.valueOf(pending.createdAt()));
+                ps.setTimestamp(6, Timestamp.valueOf(pending.createdAt()));
+                ps.setString(7, pending.row().text());
+                setJson(ps, 8, pending.row().media_urls(), jsonAsText);
+            });
+            List<PendingRow> insertedRows = insertedRows(rows, counts);
+            Map<UUID, Long> repliesByParent = insertedRows.stream()
+                    .filter(row -> row.row().parent_id() != null)
+                    .collect(Collectors.groupingBy(row -> row.row().parent_id(), Collectors.counting()));
+            jdbcTemplate.batchUpdate(ADD_REPLY_COUNT, repliesByParent.entrySet(), repliesByParent.size(), (ps, entry) -> {
+                CreatedAtRange range = CreatedAtRange.of(entry.getKey());
+                ps.setLong(1, entry.getValue());
+                ps.setObject(2, entry.getKey());
+                ps.setObject(3, range.from());
+                ps.setObject(4, range.to());
+            });
+            return insertedRows;
+        });
+        evictBumpedParents(inserted);
+        return inserted;
+    }
+
+    //ON CONFLICT DO NOTHING reports 0 for a row that already exists. A driver rewriting the batch into one statement
+    //(reWriteBatchedInserts) only reports SUCCESS_NO_INFO, its rows are taken as inserted
+    private static List<PendingRow> insertedRows(List<PendingRow> rows, int[][] counts) {
+        List<PendingRow> inserted = new ArrayList<>();
+        int index = 0;
+        for (int[] batchCounts : counts) {
+            for (int count : batchCounts) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    inserted.add(rows.get(index));
+                }
+                index++;
+            }
+        }
+        return inserted;
+    }
+
+    //The reply counts of the parents changed, so did the thread pages of the parents and their roots. The pages of the
+    //ancestors in between expire with the short thread cache time to live
+    private void evictBumpedParents(List<PendingRow> inserted) {
+        List<UUID> parentIds = inserted.stream().map(row -> row.row().parent_id()).filter(Objects::nonNull).distinct().toList();
+        if (parentIds.isEmpty()) {
+            return;
+        }
+        postCache.evict(parentIds);
+        Set<UUID> threadIds = new HashSet<>(parentIds);
+        inserted.stream().map(PendingRow::rootId).filter(Objects::nonNull).forEach(threadIds::add);
+        threadPageCache.evict(threadIds);
+    }
+
+    private void setNullable(PreparedStatement ps, int index, UUID value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.OTHER);
+        } else {
+            ps.setObject(index, value);
+        }
+    }
+
+    //Postgres infers jsonb from an untyped string parameter, H2 only parses JSON given as bytes
+    private void setJson(PreparedStatement ps, int index, Map<String, String> value, boolean jsonAsText) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.OTHER);
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot write media urls", e);
+        }
+        if (jsonAsText) {
+            ps.setObject(index, json, Types.OTHER);
+        } else {
+            ps.setBytes(index, json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+
+    private static UUID rootOf(Content content) {
+        return content.getRootId() != null ? content.getRootId() : (content.getParentId() == null ? content.getId() : null);
+    }
+
+    private void publishAuthorSummaries(ImportRun run) {
+        run.authors.forEach((creatorId, summary) -> {
+            try {
+                contentImportedKafkaTemplate.send("content-imported", creatorId.toString(), ContentImportedNotification.create(
+                        creatorId.toString(), summary.count, summary.lastCreatedAt.toString()));
+            } catch (Exception e) {
+                log.error("Error while publishing imported contents of user {}", creatorId, e);
+            }
+        });
+    }
+
+    private void checkImportId(String importId) {
+        if (importId == null || !IMPORT_ID.matcher(importId).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Import id must be 1 to 64 letters, digits, '-' or '_'");
+        }
+    }
+
+    //Without Redis imports are not locked, concurrent runs of one import only insert each row once
+    private boolean lock(String lockKey, String lockToken) {
+        try {
+            return !Boolean.FALSE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, lockToken, lockTimeToLive));
+        } catch (Exception e) {
+            log.error("Error while locking import {}, importing without lock", lockKey, e);
+            return true;
+        }
+    }
+
+    //A lost lock is only logged: rows and reply counts stay right under concurrent runs, only their progress interleaves
+    private void renewLock(ImportRun run) {
+        try {
+            Long renewed = redisTemplate.execute(RENEW_LOCK_SCRIPT, List.of(run.lockKey), run.lockToken,
+                    Long.toString(lockTimeToLive.toMillis()));
+            if (renewed != null && renewed == 0) {
+                log.warn("Import {} lost its lock, another run of it may be importing the same file", run.importId);
+            }
+        } catch (Exception e) {
+            log.error("Error while renewing lock of import {}", run.importId, e);
+        }
+    }
+
+    private void unlock(String lockKey, String lockToken) {
+        try {
+            redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), lockToken);
+        } catch (Exception e) {
+            log.error("Error while unlocking import {}", lockKey, e);
+        }
+    }
+
+    private ContentImportReport readProgress(String importId) {
+        try {
+            Map<Object, Object> progress = redisTemplate.opsForHash().entries(IMPORT_KEY + importId);
+            if (progress == null || progress.isEmpty()) {
+                return null;
+            }
+            return ContentImportReport.create(importId,
+                    (String) progress.get("status"),
+                    Long.parseLong((String) progress.get("last_line")),
+                    Long.parseLong((String) progress.get("inserted")),
+                    Long.parseLong((String) progress.get("duplicates")),
+                    Long.parseLong((String) progress.get("rejected")),
+                    List.of());
+        } catch (Exception e) {
+            log.error("Error while reading progress of import {}, starting from the first line", importId, e);
+            return null;
+        }
+    }
+
+    private void saveProgress(ImportRun run, String status) {
+        String key = IMPORT_KEY + run.importId;
+        try {
+            redisTemplate.opsForHash().putAll(key, Map.of(
+                    "status", status,
+                    "last_line", Long.toString(run.lastLine),
+                    "inserted", Long.toString(run.inserted),
+                    "duplicates", Long.toString(run.duplicates),
+                    "rejected", Long.toString(run.rejected)));
+            redisTemplate.expire(key, progressTimeToLive);
+        } catch (Exception e) {
+            log.error("Error while saving progress of import {}", run.importId, e);
+        }
+    }
+
+    private record PendingRow(long lineNumber, UUID id, ContentImportRow row, LocalDateTime createdAt, UUID rootId) {
+        private PendingRow(long lineNumber, UUID id, ContentImportRow row, LocalDateTime createdAt) {
+            this(lineNumber, id, row, createdAt, null);
+        }
+
+        private PendingRow withRootId(UUID rootId) {
+            return new PendingRow(lineNumber, id, row, createdAt, rootId);
+        }
+    }
+
+    private static class AuthorSummary {
+        private long count;
+        private LocalDateTime lastCreatedAt;
+    }
+
+    //State of one import request, counters continue those of the previous runs.
+    //Rejections of the lines after lastLine are pending until their batch commits: a resumed run reads those lines again
+    private class ImportRun {
+        private final String importId;
+        private final String lockKey;
+        private final String lockToken;
+        private long lastLine;
+        private long inserted;
+        private long duplicates;
+        private long rejected;
+        private long pendingRejected;
+        private final List<String> errors = new ArrayList<>();
+        private List<PendingRow> batch = new ArrayList<>();
+        private final Map<UUID, AuthorSummary> authors = new HashMap<>();
+
+        private ImportRun(String importId, String lockKey, String lockToken, ContentImportReport previous) {
+            this.importId = importId;
+            this.lockKey = lockKey;
+            this.lockToken = lockToken;
+            if (previous != null) {
+                lastLine = previous.last_line();
+                inserted = previous.inserted();
+                duplicates = previous.duplicates();
+                rejected = previous.rejected();
+            }
+        }
+
+        private void reject(long lineNumber, String reason) {
+            pendingRejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add("line " + lineNumber + ": " + reason);
+            }
+        }
+
+        private void commit(long lastLine, List<PendingRow> insertedRows, long duplicateRows) {
+            this.lastLine = lastLine;
+            inserted += insertedRows.size();
+            duplicates += duplicateRows;
+            rejected += pendingRejected;
+            pendingRejected = 0;
+            insertedRows.forEach(this::countAuthor);
+        }
+
+        private void countAuthor(PendingRow pending) {
+            AuthorSummary summary = authors.computeIfAbsent(pending.row().creator_id(), creatorId -> new AuthorSummary());
+            summary.count++;
+            if (summary.lastCreatedAt == null || summary.lastCreatedAt.isBefore(pending.createdAt())) {
+                summary.lastCreatedAt = pending.createdAt();
+            }
+        }
+
+        private ContentImportReport report(String status) {
+            return ContentImportReport.create(importId, status, lastLine, inserted, duplicates, rejected, List.copyOf(errors));
+        }
+    }
+}
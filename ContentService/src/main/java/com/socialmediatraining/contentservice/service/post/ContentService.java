@@ -1,24 +1,38 @@
 package com.socialmediatraining.contentservice.service.post;
 
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
 import com.socialmediatraining.contentservice.dto.post.ContentRequest;
 import com.socialmediatraining.contentservice.dto.post.ContentResponse;
 import com.socialmediatraining.contentservice.dto.post.ContentResponseAdmin;
 import com.socialmediatraining.contentservice.entity.Content;
 import com.socialmediatraining.contentservice.repository.ContentRepository;
+import com.socialmediatraining.contentservice.repository.FeedReadRepository;
+import com.socialmediatraining.contentservice.service.feed.FeedPageCache;
+import com.socialmediatraining.contentservice.service.feed.FeedStreamService;
+import com.socialmediatraining.contentservice.service.feed.HomeTimelineService;
+import com.socialmediatraining.contentservice.service.follow.FollowGraphService;
+import com.socialmediatraining.contentservice.service.like.LikedContentService;
+import com.socialmediatraining.contentservice.service.partition.ContentPartitionService;
+import com.socialmediatraining.contentservice.service.thread.ThreadService;
+import com.socialmediatraining.contentservice.service.transaction.AfterCommit;
 import com.socialmediatraining.contentservice.service.user.UserCacheService;
+import com.socialmediatraining.dtoutils.datasource.ReadYourWritesUser;
+import com.socialmediatraining.dtoutils.dto.NewContentNotification;
 import com.socialmediatraining.dtoutils.dto.PageResponse;
 import com.socialmediatraining.dtoutils.dto.SimpleUserDataObject;
 import com.socialmediatraining.dtoutils.dto.UserCommentNotification;
 import com.socialmediatraining.exceptioncommons.exception.PostNotFoundException;
 import com.socialmediatraining.exceptioncommons.exception.UserActionForbiddenException;
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import jakarta.ws.rs.core.HttpHeaders;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -32,6 +46,7 @@ import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.socialmediatraining.authenticationcommons.JwtUtils.getUsernameFromAuthHeader;
@@ -47,14 +62,34 @@ public class ContentService {
     private final KafkaTemplate<String, UserCommentNotification> userCommentKafkaTemplate;
     private final WebClient.Builder webClientBuilder;
     private final UserCacheService userCacheService;
+    private final HomeTimelineService homeTimelineService;
+    private final FeedPageCache feedPageCache;
+    private final FollowGraphService followGraphService;
+    private final FeedStreamService feedStreamService;
+    private final KafkaTemplate<String, NewContentNotification> newContentKafkaTemplate;
+    private final LikedContentService likedContentService;
+    private final ThreadService threadService;
+    private final PostCache postCache;
+    private final ContentPartitionService contentPartitionService;
+    private final FeedReadRepository feedReadRepository;
 
     @Autowired
-    public ContentService(ContentRepository contentRepository, KafkaTemplate<String, SimpleUserDataObject> userDataKafkaTemplate, KafkaTemplate<String, UserCommentNotification> userCommentKafkaTemplate, WebClient.Builder webClientBuilder, UserCacheService userCacheService) {
+    public ContentService(ContentRepository contentRepository, KafkaTemplate<String, SimpleUserDataObject> userDataKafkaTemplate, KafkaTemplate<String, UserCommentNotification> userCommentKafkaTemplate, WebClient.Builder webClientBuilder, UserCacheService userCacheService, HomeTimelineService homeTimelineService, FeedPageCache feedPageCache, FollowGraphService followGraphService, FeedStreamService feedStreamService, KafkaTemplate<String, NewContentNotification> newContentKafkaTemplate, LikedContentService likedContentService, ThreadService threadService, PostCache postCache, ContentPartitionService contentPartitionService, FeedReadRepository feedReadRepository) {
         this.contentRepository = contentRepository;
         this.userDataKafkaTemplate = userDataKafkaTemplate;
         this.userCommentKafkaTemplate = userCommentKafkaTemplate;
         this.webClientBuilder = webClientBuilder;
         this.userCacheService = userCacheService;
+        this.homeTimelineService = homeTimelineService;
+        this.feedPageCache = feedPageCache;
+        this.followGraphService = followGraphService;
+        this.feedStreamService = feedStreamService;
+        this.newContentKafkaTemplate = newContentKafkaTemplate;
+        this.likedContentService = likedContentService;
+        this.threadService = threadService;
+        this.postCache = postCache;
+        this.contentPartitionService = contentPartitionService;
+        this.feedReadRepository = feedReadRepository;
     }
 
     public ContentResponse createContent(String authHeader, ContentRequest post){
@@ -67,16 +102,16 @@ public class ContentService {
                 getUsernameFromAuthHeader(authHeader));
 
 
+        Content parentPost = null;
         if(post.parentId() != null){
-            boolean parentExists = contentRepository.existsByIdAndDeletedAtIsNull(post.parentId());
-            if(!parentExists){
-                throw new PostNotFoundException("Parent post with userId " + post.parentId() + " doesn't exists");
-            }
+            parentPost = contentRepository.findByIdAndDeletedAtIsNull(post.parentId()).orElseThrow(
+                    () -> new PostNotFoundException("Parent post with userId " + post.parentId() + " doesn't exists"));
         }
 
         Content newPost = Content.builder()
                 .creatorId(UUID.fromString(userData.userId()))
                 .parentId(post.parentId())
+                .rootId(parentPost == null ? null : (parentPost.getRootId() != null ? parentPost.getRootId() : parentPost.getId()))
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .text(post.text())
@@ -84,18 +119,32 @@ public class ContentService {
                 .build();
 
         Content contentReturn = contentRepository.save(newPost);
+        if(parentPost != null){
+            contentRepository.incrementReplyCount(parentPost.getId());
+        }
         userDataKafkaTemplate.send("created-new-content", userData);
-
-        if(contentReturn.getParentId() != null){
-            contentRepository.findByIdAndDeletedAtIsNull(post.parentId()).ifPresent(
-                    parentPost -> userCommentKafkaTemplate.send("new-comment",
-                            UserCommentNotification.create(
-                                    parentPost.getCreatorId().toString(),
-                                    userData.userId(),
-                                    userData.username(),
-                                    newPost.getId().toString(),
-                                    parentPost.getText().substring(0, Math.min(parentPost.getText().length(), 20))
-                            )
+        //Keyed by the post a comment belongs to, so all the activity of a post lands on the same partition
+        UUID activityContentId = contentReturn.getParentId() != null ? contentReturn.getParentId() : contentReturn.getId();
+        newContentKafkaTemplate.send("content-published", activityContentId.toString(), NewContentNotification.create(
+                contentReturn.getId().toString(),
+                contentReturn.getParentId() != null ? contentReturn.getParentId().toString() : null,
+                userData.userId(), userData.username(),
+                contentReturn.getRootId() != null ? contentReturn.getRootId().toString() : null,
+                contentReturn.getCreatedAt().toString(), contentReturn.getText(), contentReturn.getMediaUrls()));
+        //After the commit: a rolled back post must not reach the timelines, and a follower reading them before the commit
+        //would not find it
+        AfterCommit.run(() -> homeTimelineService.fanOut(contentReturn));
+
+        if(parentPost != null){
+            threadService.evictThreadsOf(contentReturn.getId());
+            postCache.evict(List.of(parentPost.getId()));
+            userCommentKafkaTemplate.send("new-comment",
+                    UserCommentNotification.create(
+                            parentPost.getCreatorId().toString(),
+                            userData.userId(),
+                            userData.username(),
+                            contentReturn.getId().toString(),
+                            parentPost.getText().substring(0, Math.min(parentPost.getText().length(), 20))
                     )
             );
         }
@@ -121,6 +170,8 @@ public class ContentService {
         content.setUpdatedAt(LocalDateTime.now());
 
         Content contentReturn = contentRepository.save(content);
+        threadService.evictThreadsOf(contentReturn.getId());
+        postCache.evict(List.of(contentReturn.getId()));
 
         return ContentResponse.fromEntity(contentReturn);
     }
@@ -142,22 +193,30 @@ public class ContentService {
         content.setDeletedAt(LocalDateTime.now());
         content.setText("Deleted");
         contentRepository.save(content);
+        if(content.getParentId() != null){
+            contentRepository.decrementReplyCount(content.getParentId());
+        }
+        AfterCommit.run(() -> homeTimelineService.remove(content));
+        threadService.evictThreadsOf(content.getId());
+        //The parent's reply count changed too
+        postCache.evict(content.getParentId() != null ? List.of(content.getId(), content.getParentId()) : List.of(content.getId()));
 
         return String.format("Post %s deleted successfully",postId);
     }
 
+    @Transactional(readOnly = true)
     public ContentResponse getVisibleContentById(UUID contentId) {
-        ContentResponseAdmin responseAdmin = getContentById(contentId,false);
-        return responseAdmin.postResponse();
+        return postCache.getOrLoad(contentId, () -> getContentById(contentId,false).postResponse());
     }
 
+    @Transactional(readOnly = true)
     public ContentResponseAdmin getContentByIdWithDeleted(UUID contentId) {
         return getContentById(contentId,true);
     }
 
     private ContentResponseAdmin getContentById(UUID contentId, boolean getDeletedContent) {
         Content content = (getDeletedContent ?
-                contentRepository.findById(contentId)
+                contentRepository.findAnyById(contentId)
                 : contentRepository.findByIdAndDeletedAtIsNull(contentId))
                 .orElseThrow(() ->
                         new PostNotFoundException("Cannot find post with userId "+ contentId));
@@ -165,38 +224,67 @@ public class ContentService {
         return ContentResponseAdmin.fromEntity(content);
     }
 
-    public PageResponse<ContentResponse> getAllVisibleContentFromUser(String username, Pageable pageable,String postType){
-        List<ContentResponseAdmin> posts = getAllContentFromUser(username,pageable,false,postType);
-        List<ContentResponse> contentResponses = posts.stream().map(ContentResponseAdmin::postResponse).collect(Collectors.toList());
-        return PageResponse.from(new PageImpl<>(contentResponses,pageable,contentResponses.size()));
+    //Without count the page is a slice: totals are not counted, has_next tells whether another page follows
+    @Transactional(readOnly = true)
+    public PageResponse<ContentResponse> getAllVisibleContentFromUser(String username, Pageable pageable, String postType, boolean count, String viewerAuthHeader){
+        Slice<ContentResponse> contents = getAllContentFromUser(username, pageable, false, postType, count)
+                .map(ContentResponseAdmin::postResponse);
+        return withLikedByViewer(viewerAuthHeader, toPageResponse(contents));
     }
 
-    public PageResponse<ContentResponseAdmin> getAllContentFromUser(String username, Pageable pageable, String postType){
-        List<ContentResponseAdmin> content = getAllContentFromUser(username,pageable,true,postType);
-        return PageResponse.from(new PageImpl<>(content,pageable,content.size()));
+    @Transactional(readOnly = true)
+    public PageResponse<ContentResponseAdmin> getAllContentFromUser(String username, Pageable pageable, String postType, boolean count){
+        return toPageResponse(getAllContentFromUser(username, pageable, true, postType, count));
     }
 
-    private List<ContentResponseAdmin> getAllContentFromUser(String username, Pageable pageable, boolean getDeletedContents,String postType){
+    @Transactional(readOnly = true)
+    public PageResponse<ContentResponse> getAllVisibleContentFromUser(String username, ContentCursor cursor, int size, String postType, String viewerAuthHeader){
         SimpleUserDataObject userData = userCacheService.getUserDataByUsername(username);
 
-        Page<Content> contentList = switch (postType) {
-            case "all" -> (getDeletedContents ?
-                    contentRepository.findAllByCreatorId(UUID.fromString(userData.userId()), pageable) :
-                    contentRepository.findAllByCreatorIdAndDeletedAtIsNull(UUID.fromString(userData.userId()), pageable))
-                    .orElse(new PageImpl<>(new ArrayList<>()));
-            case "post" -> (getDeletedContents ?
-                    contentRepository.findAllByCreatorIdAndParentIdIsNull(UUID.fromString(userData.userId()), pageable) :
-                    contentRepository.findAllByCreatorIdAndParentIdIsNullAndDeletedAtIsNull(UUID.fromString(userData.userId()), pageable))
-                    .orElse(new PageImpl<>(new ArrayList<>()));
-            case "comment" -> (getDeletedContents ?
-                    contentRepository.findAllByCreatorIdAndParentIdIsNotNull(UUID.fromString(userData.userId()), pageable) :
-                    contentRepository.findAllByCreatorIdAndParentIdIsNotNullAndDeletedAtIsNull(UUID.fromString(userData.userId()), pageable))
-                    .orElse(new PageImpl<>(new ArrayList<>()));
+        boolean includePosts = includesPosts(postType);
+        boolean includeComments = !postType.equals("post");
+
+        List<Content> contents = contentRepository.findAllByCreatorIdAndDeletedAtIsNullAfter(
+                UUID.fromString(userData.userId()), includePosts, includeComments,
+                cursor.createdAt(), cursor.id(), PageRequest.of(0, size + 1));
+        return withLikedByViewer(viewerAuthHeader, toCursorPage(contents, size));
+    }
+
+    //Anonymous profile views are returned as is
+    private PageResponse<ContentResponse> withLikedByViewer(String viewerAuthHeader, PageResponse<ContentResponse> page){
+        if(viewerAuthHeader == null){
+            return page;
+        }
+        SimpleUserDataObject viewer = userCacheService.getUserDataByUsername(getUsernameFromAuthHeader(viewerAuthHeader));
+        return likedContentService.withLikedByViewer(UUID.fromString(viewer.userId()), page);
+    }
+
+    //Cached feed pages are shared by every request of the reader, the liked flags are added after the cache so likes show up right away
+    private Flux<PageResponse<ContentResponse>> withLikedByViewer(UUID userId, Flux<PageResponse<ContentResponse>> pages){
+        return pages.concatMap(page -> likedContentService.withLikedByViewerReactive(userId, page));
+    }
+
+    private Slice<ContentResponseAdmin> getAllContentFromUser(String username, Pageable pageable, boolean getDeletedContents, String postType, boolean count){
+        SimpleUserDataObject userData = userCacheService.getUserDataByUsername(username);
+
+        UUID creatorId = UUID.fromString(userData.userId());
+        boolean includePosts = includesPosts(postType);
+        boolean includeComments = !postType.equals("post");
+        return count ?
+                contentRepository.findProfilePage(creatorId, includePosts, includeComments, getDeletedContents, pageable) :
+                contentRepository.findProfileSlice(creatorId, includePosts, includeComments, getDeletedContents, pageable);
+    }
+
+    private static boolean includesPosts(String postType) {
+        return switch (postType) {
+            case "all", "post" -> true;
+            case "comment" -> false;
             default -> throw new RuntimeException("Invalid post type");
         };
+    }
 
-        return contentList.getContent().stream().map(ContentResponseAdmin::fromEntity)
-                .collect(Collectors.toList());
+    private static <T> PageResponse<T> toPageResponse(Slice<T> contents) {
+        return contents instanceof Page<T> page ? PageResponse.from(page) : PageResponse.from(contents);
     }
 
     public Flux<SimpleUserDataObject> getListOfFollowedUser(String username, String authHeader){
@@ -204,7 +292,7 @@ public class ContentService {
                 .get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/api/v1/follow/follows/{username}")
-                        .queryParam("limit", 50)
+                        .queryParam("limit", 100)
                         .queryParam("orderBy", "activity")
                         .build(username)
                 )
@@ -230,10 +318,7 @@ public class ContentService {
     }
 
     private Mono<Page<ContentResponse>> getContentPage(List<String> userIds, Pageable pageable) {
-        return Mono.fromCallable(() ->
-                        contentRepository.findAllByCreatorIdInAndDeletedAtIsNull(userIds, pageable)
-                                .orElse(Page.empty(pageable)))
-                .subscribeOn(Schedulers.boundedElastic())
+        return feedReadRepository.findFeedPage(userIds.stream().map(UUID::fromString).toList(), contentPartitionService.feedHorizon(), pageable)
                 .onErrorResume(e -> {
                     log.error("Error while fetching content for user feed", e);
                     return Mono.error(new ResponseStatusException(
@@ -244,24 +329,164 @@ public class ContentService {
                 ));
     }
 
-    @Cacheable(value = "userFeed", key = "#username+':'+pageable.pageNumber", condition = "#result != null")
-    public Flux<PageResponse<ContentResponse>> getUserFeed(String username, String authHeader, Pageable pageable){
-        return getListOfFollowedUser(username,authHeader)
-                 .collectList()
-                 .flatMapMany( users -> {
-                     if (users.isEmpty()) {
-                         return Flux.just(PageResponse.from(Page.<ContentResponse>empty(pageable)));
+    private Mono<Page<ContentResponse>> getTimelinePage(HomeTimelineService.TimelineSlice slice, Pageable pageable) {
+        return feedReadRepository.findVisibleByIds(slice.contentIds())
+                .<Page<ContentResponse>>map(contents -> {
+                    Map<UUID, Content> contentById = contents.stream()
+                            .collect(Collectors.toMap(Content::getId, content -> content));
+                    List<ContentResponse> responses = slice.contentIds().stream()
+                            .map(contentById::get)
+                            .filter(Objects::nonNull)
+                            .map(ContentResponse::fromEntity)
+                            .toList();
+                    return new PageImpl<>(responses, pageable, slice.totalItems());
+                })
+                .onErrorResume(e -> {
+                    log.error("Error while hydrating home timeline", e);
+                    return Mono.error(new ResponseStatusException(
+                            HttpStatus.INTERNAL_SERVER_ERROR, "Error processing your feed"
+                    ));
+                });
+    }
+
+    //Contents are fetched with one extra row, its presence tells there is a next page
+    private PageResponse<ContentResponse> toCursorPage(List<Content> contents, int size) {
+        boolean hasNext = contents.size() > size;
+        List<Content> pageContents = hasNext ? contents.subList(0, size) : contents;
+        String nextCursor = hasNext ? ContentCursor.fromContent(pageContents.getLast()).encode() : null;
+        List<ContentResponse> responses = pageContents.stream().map(ContentResponse::fromEntity).toList();
+        return PageResponse.from(new SliceImpl<>(responses, PageRequest.of(0, size), hasNext), nextCursor);
+    }
+
+    private Mono<PageResponse<ContentResponse>> getContentCursorPage(List<String> userIds, ContentCursor cursor, int size) {
+        return feedReadRepository.findFeedPageAfter(userIds.stream().map(UUID::fromString).toList(), contentPartitionService.feedHorizon(),
+                        cursor.createdAt(), cursor.id(), size + 1)
+                .map(contents -> toCursorPage(contents, size))
+                .onErrorResume(e -> {
+                    log.error("Error while fetching content for user feed", e);
+                    return Mono.error(new ResponseStatusException(
+                            HttpStatus.INTERNAL_SERVER_ERROR, "Error processing your feed"
+                    ));
+                });
+    }
+
+    private Mono<PageResponse<ContentResponse>> getTimelineCursorPage(HomeTimelineService.TimelineSlice slice, int size) {
+        List<UUID> pageIds = slice.contentIds().subList(0, Math.min(size, slice.contentIds().size()));
+        return feedReadRepository.findVisibleByIds(pageIds)
+                .map(pageContents -> {
+                    Map<UUID, Content> contentById = pageContents.stream()
+                            .collect(Collectors.toMap(Content::getId, content -> content));
+                    List<Content> contents = pageIds.stream()
+                            .map(contentById::get)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toCollection(ArrayList::new));
+                    boolean hasNext = slice.contentIds().size() > size && !contents.isEmpty();
+                    String nextCursor = hasNext ? ContentCursor.fromContent(contents.getLast()).encode() : null;
+                    List<ContentResponse> responses = contents.stream().map(ContentResponse::fromEntity).toList();
+                    return PageResponse.from(new SliceImpl<>(responses, PageRequest.of(0, size), hasNext), nextCursor);
+                })
+                .onErrorResume(e -> {
+                    log.error("Error while hydrating home timeline", e);
+                    return Mono.error(new ResponseStatusException(
+                            HttpStatus.INTERNAL_SERVER_ERROR, "Error processing your feed"
+                    ));
+                });
+    }
+
+    //Followees come from the local follow graph replica, user-service is only called once to bootstrap a reader without local follows.
+    //The bootstrap stores the follows through JPA, the only blocking call of the feed, once per reader and instance.
+    //It runs with the user captured in the Reactor context so the replica routing tracks the write
+    private Mono<List<String>> getFollowedUserIds(UUID userId, String username, String authHeader){
+        return followGraphService.findFollowedUserIds(userId)
+                .flatMap(followedIds -> {
+                    if (!followedIds.isEmpty() || !followGraphService.shouldBootstrap(userId)) {
+                        return Mono.just(followedIds);
+                    }
+                    return getListOfFollowedUser(username, authHeader)
+                            .map(user -> UUID.fromString(user.userId()))
+                            .collectList()
+                            .flatMap(remoteIds -> ReadYourWritesUser.fromCallable(() -> {
+                                        followGraphService.addFollows(userId, remoteIds);
+                                        return remoteIds;
+                                    })
+                                    .subscribeOn(Schedulers.boundedElastic()))
+                            .onErrorResume(e -> {
+                                log.error("Error while bootstrapping follow graph of {}", username, e);
+                                return Mono.just(List.of());
+                            });
+                })
+                .map(followedIds -> followedIds.stream().map(UUID::toString).toList());
+    }
+
+    private Flux<PageResponse<ContentResponse>> getPulledFeed(UUID userId, String username, String authHeader,
+                                                              PageResponse<ContentResponse> emptyPage,
+                                                              Function<List<String>, Mono<PageResponse<ContentResponse>>> pageLoader){
+        return getFollowedUserIds(userId, username, authHeader)
+                 .flatMapMany( ids -> {
+                     if (ids.isEmpty()) {
+                         return Flux.just(emptyPage);
                      }
-                     List<String> ids = users.stream()
-                             .map(SimpleUserDataObject::userId)
-                             .collect(Collectors.toList()
-                     );
-                     return getContentPage(ids, pageable)
-                             .map(PageResponse::from);
-                 })
+                     homeTimelineService.rebuildHomeTimeline(userId, ids)
+                             .subscribe(null, e -> log.error("Error while rebuilding home timeline of {}", username, e));
+                     return pageLoader.apply(ids);
+                 });
+    }
+
+    public Flux<PageResponse<ContentResponse>> getUserFeed(String username, String authHeader, Pageable pageable){
+        return userCacheService.findUserId(username)
+                .flatMapMany(userId -> withLikedByViewer(userId, feedPageCache.getOrLoad(userId, FeedPageCache.pageKey(pageable),
+                        () -> loadUserFeed(userId, username, authHeader, pageable))))
                 .onErrorResume(ResponseStatusException.class, e -> {
                     log.error("Error while fetching user feed", e);
                     return Mono.error(e);
-                });
+                })
+                .contextWrite(ReadYourWritesUser.capture());
+    }
+
+    private Flux<PageResponse<ContentResponse>> loadUserFeed(UUID userId, String username, String authHeader, Pageable pageable){
+        return homeTimelineService.readHomeTimeline(userId, pageable)
+                .onErrorResume(e -> {
+                    log.error("Error while reading home timeline, falling back to pull feed", e);
+                    return Mono.empty();
+                })
+                .flatMap(slice -> getTimelinePage(slice, pageable))
+                .map(PageResponse::from)
+                .flux()
+                .switchIfEmpty(Flux.defer(() -> getPulledFeed(userId, username, authHeader,
+                        PageResponse.from(Page.<ContentResponse>empty(pageable)),
+                        ids -> getContentPage(ids, pageable).map(PageResponse::from))));
+    }
+
+    public Flux<PageResponse<ContentResponse>> getUserFeed(String username, String authHeader, ContentCursor cursor, int size){
+        return userCacheService.findUserId(username)
+                .flatMapMany(userId -> withLikedByViewer(userId, feedPageCache.getOrLoad(userId, FeedPageCache.cursorKey(cursor, size),
+                        () -> loadUserFeed(userId, username, authHeader, cursor, size))))
+                .onErrorResume(ResponseStatusException.class, e -> {
+                    log.error("Error while fetching user feed", e);
+                    return Mono.error(e);
+                })
+                .contextWrite(ReadYourWritesUser.capture());
+    }
+
+    private Flux<PageResponse<ContentResponse>> loadUserFeed(UUID userId, String username, String authHeader, ContentCursor cursor, int size){
+        return homeTimelineService.readHomeTimelineAfter(userId, cursor.createdAt(), cursor.id(), size + 1)
+                .onErrorResume(e -> {
+                    log.error("Error while reading home timeline, falling back to pull feed", e);
+                    return Mono.empty();
+                })
+                .flatMap(slice -> getTimelineCursorPage(slice, size))
+                .flux()
+                .switchIfEmpty(Flux.defer(() -> getPulledFeed(userId, username, authHeader,
+                        PageResponse.from(new SliceImpl<ContentResponse>(List.of(), PageRequest.of(0, size), false), null),
+                        ids -> getContentCursorPage(ids, cursor, size))));
+    }
+
+    //First page of the feed, then the new contents of followed users as they are published
+    public Flux<ContentResponse> streamUserFeed(String username, String authHeader, int size){
+        return userCacheService.findUserId(username)
+                .flatMapMany(userId -> feedStreamService.streamFeed(userId,
+                        getUserFeed(username, authHeader, ContentCursor.START, size)
+                                .flatMapIterable(PageResponse::content)))
+                .contextWrite(ReadYourWritesUser.capture());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package com.socialmediatraining.contentservice.service.post;
+
+import com.socialmediatraining.contentservice.config.TwoLevelCache;
+import com.socialmediatraining.contentservice.config.TwoLevelCacheManager;
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.contentservice.service.transaction.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+//Single posts by id, in the two level "posts" cache (Caffeine L1, Redis L2 holding the ContentResponse as JSON).
+//Concurrent misses of one id on an instance wait for a single load. Like and reply counts are refreshed by the
+//time to live only, edits and deletions evict the entry once their transaction commits.
+@Service
+@Slf4j
+public class PostCache {
+
+    public static final String POSTS_CACHE = "posts";
+
+    private final TwoLevelCacheManager cacheManager;
+
+    @Autowired
+    public PostCache(TwoLevelCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    //Loader exceptions (a missing post) are rethrown as is, Redis errors fall back to the loader
+    public ContentResponse getOrLoad(UUID contentId, Supplier<ContentResponse> loader) {
+        TwoLevelCache cache = cacheManager.getCache(POSTS_CACHE);
+        if (cache == null) {
+            return loader.get();
+        }
+
+        try {
+            return cache.get(contentId, loader::get);
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (Exception e) {
+            log.error("Error while reading post {} from cache", contentId, e);
+            return loader.get();
+        }
+    }
+
+    //This instance's copy only, never a Redis round trip
+    public Optional<ContentResponse> getLocal(UUID contentId) {
+        TwoLevelCache cache = cacheManager.getCache(POSTS_CACHE);
+        if (cache == null) {
+            return Optional.empty();
+        }
+        return cache.getLocal(contentId.toString()) instanceof ContentResponse post ? Optional.of(post) : Optional.empty();
+    }
+
+    public void evict(List<UUID> contentIds) {
+        AfterCommit.evict(() -> evictNow(contentIds));
+    }
+
+    private void evictNow(List<UUID> contentIds) {
+        TwoLevelCache cache = cacheManager.getCache(POSTS_CACHE);
+        if (cache == null) {
+            return;
+        }
+
+        for (UUID contentId : contentIds) {
+            try {
+                cache.evict(contentId);
+            } catch (Exception e) {
+                log.error("Error while evicting post {} from cache", contentId, e);
+            }
+        }
+    }
+}
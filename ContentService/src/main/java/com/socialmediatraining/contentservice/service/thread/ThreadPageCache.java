@@ -0,0 +1,97 @@
+package com.socialmediatraining.contentservice.service.thread;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialmediatraining.contentservice.config.CacheMetrics;
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
+import com.socialmediatraining.contentservice.dto.thread.ContentThread;
+import com.socialmediatraining.contentservice.service.transaction.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+//Thread pages, one Redis hash per content so every page of a thread is evicted with a single DEL.
+//Fields are "{cursor}:{size}:{depth}", values are the ContentThread as JSON. The time to live is short,
+//only threads read again soon after (the hot ones) stay cached.
+@Service
+@Slf4j
+public class ThreadPageCache {
+
+    static final String THREAD_PAGES_KEY = "thread:pages:";
+    private static final String CACHE_NAME = "threadPages";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration timeToLive;
+    private final CacheMetrics metrics;
+
+    @Autowired
+    public ThreadPageCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           @Value("${thread.cache.time-to-live:30}") long timeToLiveSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.timeToLive = Duration.ofSeconds(timeToLiveSeconds);
+        this.metrics = CacheMetrics.create(meterRegistry, CACHE_NAME);
+    }
+
+    public static String pageKey(ContentCursor cursor, int size, int depth) {
+        return cursor.encode() + ":" + size + ":" + depth;
+    }
+
+    //Cache errors are treated as misses, threads must keep working without Redis
+    public ContentThread getOrLoad(UUID contentId, String pageKey, Supplier<ContentThread> loader) {
+        ContentThread cached = get(contentId, pageKey);
+        if (cached != null) {
+            metrics.hit();
+            return cached;
+        }
+
+        metrics.miss();
+        ContentThread thread = loader.get();
+        put(contentId, pageKey, thread);
+        return thread;
+    }
+
+    private ContentThread get(UUID contentId, String pageKey) {
+        try {
+            String json = redisTemplate.<String, String>opsForHash().get(THREAD_PAGES_KEY + contentId, pageKey);
+            return json == null ? null : objectMapper.readValue(json, ContentThread.class);
+        } catch (Exception e) {
+            log.error("Error while reading thread page {} of content {} from cache", pageKey, contentId, e);
+            return null;
+        }
+    }
+
+    private void put(UUID contentId, String pageKey, ContentThread thread) {
+        String key = THREAD_PAGES_KEY + contentId;
+        try {
+            redisTemplate.opsForHash().put(key, pageKey, objectMapper.writeValueAsString(thread));
+            redisTemplate.expire(key, timeToLive);
+        } catch (Exception e) {
+            log.error("Error while caching thread page {} of content {}", pageKey, contentId, e);
+        }
+    }
+
+    public void evict(Collection<UUID> contentIds) {
+        if (contentIds == null || contentIds.isEmpty()) {
+            return;
+        }
+
+        AfterCommit.evict(() -> evictNow(contentIds));
+    }
+
+    private void evictNow(Collection<UUID> contentIds) {
+        try {
+            redisTemplate.delete(contentIds.stream().map(contentId -> THREAD_PAGES_KEY + contentId).toList());
+        } catch (Exception e) {
+            log.error("Error while evicting cached thread pages of {} contents", contentIds.size(), e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.socialmediatraining.contentservice.service.thread;
+
+import com.socialmediatraining.contentservice.service.post.PostCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.BiFunction;
+
+//Recomputes the denormalized thread columns that ContentService maintains incrementally, month by month in id ranges:
+//reply_count is recounted and only rewritten where it drifted, root_id is filled level by level for replies whose
+//parent already knows its root (rows created before the column existed).
+//A reply is never older than its parent, the created_at bounds keep each lookup to the partitions that can hold it.
+//Posts with a fixed count are evicted with the thread pages of their parents, deeper ancestors expire with the thread cache.
+@Service
+@Slf4j
+public class ThreadRepairJob {
+
+    static final String REPAIR_LOCK_KEY = "threads:repair-lock";
+    private static final String OLDEST_CONTENT = "SELECT MIN(created_at) FROM content";
+    private static final String SELECT_ID_RANGE = "SELECT id FROM content " +
+            "WHERE created_at >= ? AND created_at < ? AND id > ? ORDER BY id LIMIT ?";
+    private static final String REPLY_COUNT = "(SELECT COUNT(*) FROM content r " +
+            "WHERE r.parent_id = c.id AND r.created_at >= c.created_at AND r.deleted_at IS NULL)";
+    private static final String SELECT_DRIFTED_REPLY_COUNTS = "SELECT c.id, c.parent_id FROM content c " +
+            "WHERE c.created_at >= ? AND c.created_at < ? AND c.id >= ? AND c.id <= ? AND c.reply_count <> " + REPLY_COUNT;
+    private static final String REPAIR_REPLY_COUNT = "UPDATE content c SET reply_count = " + REPLY_COUNT +
+            " WHERE c.id = ? AND c.created_at >= ? AND c.created_at < ?";
+    private static final String SELECT_MISSING_ROOT_ID_RANGE = "SELECT id FROM content " +
+            "WHERE created_at >= ? AND created_at < ? AND id > ? AND root_id IS NULL AND parent_id IS NOT NULL ORDER BY id LIMIT ?";
+    private static final String FILL_ROOT_IDS = "UPDATE content c " +
+            "SET root_id = (SELECT COALESCE(p.root_id, p.id) FROM content p " +
+            "WHERE p.id = c.parent_id AND p.created_at <= c.created_at) " +
+            "WHERE c.created_at >= ? AND c.created_at < ? AND c.id >= ? AND c.id <= ? " +
+            "AND c.root_id IS NULL AND c.parent_id IS NOT NULL " +
+            "AND EXISTS (SELECT 1 FROM content p WHERE p.id = c.parent_id AND p.created_at <= c.created_at " +
+            "AND (p.parent_id IS NULL OR p.root_id IS NOT NULL))";
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final PostCache postCache;
+    private final ThreadPageCache threadPageCache;
+    private final int batchSize;
+    private final Duration lockTimeToLive;
+
+    @Autowired
+    public ThreadRepairJob(JdbcTemplate jdbcTemplate, StringRedisTemplate redisTemplate, PostCache postCache,
+                           ThreadPageCache threadPageCache,
+                           @Value("${thread.repair.batch-size:1000}") int batchSize,
+                           @Value("${thread.repair.lock-time-to-live:3600}") long lockTimeToLiveSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.postCache = postCache;
+        this.threadPageCache = threadPageCache;
+        this.batchSize = batchSize;
+        this.lockTimeToLive = Duration.ofSeconds(lockTimeToLiveSeconds);
+    }
+
+    //Only one instance repairs at a time, the others skip the run while the lock is held
+    @Scheduled(cron = "${thread.repair.cron:0 30 3 * * *}")
+    public void scheduledRepair() {
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(REPAIR_LOCK_KEY, "1", lockTimeToLive))) {
+                return;
+            }
+            try {
+                repair();
+            } finally {
+                redisTemplate.delete(REPAIR_LOCK_KEY);
+            }
+        } catch (Exception e) {
+            log.error("Error while repairing thread columns", e);
+        }
+    }
+
+    public void repair() {
+        LocalDateTime oldest = jdbcTemplate.queryForObject(OLDEST_CONTENT, LocalDateTime.class);
+        if (oldest == null) {
+            return;
+        }
+        int rootIds = fillRootIds(oldest);
+        int replyCounts = byMonth(oldest, this::repairReplyCounts);
+        log.info("Thread repair done: {} root ids filled, {} reply counts fixed", rootIds, replyCounts);
+    }
+
+    //Each pass resolves at least one more level of replies, the last one updates nothing
+    private int fillRootIds(LocalDateTime oldest) {
+        int total = 0;
+        int updated;
+        do {
+            updated = byMonth(oldest, this::fillRootIds);
+            total += updated;
+        } while (updated > 0);
+        return total;
+    }
+
+    //One monthly partition at a time, in short transactions over id ranges instead of one statement locking every row
+    private int byMonth(LocalDateTime oldest, BiFunction<LocalDateTime, LocalDateTime, Integer> repair) {
+        int total = 0;
+        for (YearMonth month = YearMonth.from(oldest); !month.isAfter(YearMonth.now()); month = month.plusMonths(1)) {
+            total += repair.apply(month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+        }
+        return total;
+    }
+
+    private int fillRootIds(LocalDateTime from, LocalDateTime to) {
+        int total = 0;
+        UUID lastId = MIN_ID;
+        List<UUID> ids;
+        do {
+            ids = jdbcTemplate.queryForList(SELECT_MISSING_ROOT_ID_RANGE, UUID.class, from, to, lastId, batchSize);
+            if (!ids.isEmpty()) {
+                total += jdbcTemplate.update(FILL_ROOT_IDS, from, to, ids.getFirst(), ids.getLast());
+                lastId = ids.getLast();
+            }
+        } while (ids.size() == batchSize);
+        return total;
+    }
+
+    //The drifted rows of a range are read first, so only those are rewritten and evicted
+    private int repairReplyCounts(LocalDateTime from, LocalDateTime to) {
+        int total = 0;
+        UUID lastId = MIN_ID;
+        List<UUID> ids;
+        do {
+            ids = jdbcTemplate.queryForList(SELECT_ID_RANGE, UUID.class, from, to, lastId, batchSize);
+            if (!ids.isEmpty()) {
+                Map<UUID, UUID> parentByContent = new HashMap<>();
+                jdbcTemplate.query(SELECT_DRIFTED_REPLY_COUNTS, (RowCallbackHandler) row -> parentByContent.put(
+                        row.getObject("id", UUID.class), row.getObject("parent_id", UUID.class)), from, to, ids.getFirst(), ids.getLast());
+                total += repairReplyCounts(parentByContent, from, to);
+                lastId = ids.getLast();
+            }
+        } while (ids.size() == batchSize);
+        return total;
+    }
+
+    private int repairReplyCounts(Map<UUID, UUID> parentByContent, LocalDateTime from, LocalDateTime to) {
+        if (parentByContent.isEmpty()) {
+            return 0;
+        }
+        List<UUID> contentIds = List.copyOf(parentByContent.keySet());
+        int[][] counts = jdbcTemplate.batchUpdate(REPAIR_REPLY_COUNT, contentIds, contentIds.size(), (ps, contentId) -> {
+            ps.setObject(1, contentId);
+            ps.setObject(2, from);
+            ps.setObject(3, to);
+        });
+
+        postCache.evict(contentIds);
+        Set<UUID> threadIds = new HashSet<>(contentIds);
+        parentByContent.values().stream().filter(Objects::nonNull).forEach(threadIds::add);
+        threadPageCache.evict(threadIds);
+        //SUCCESS_NO_INFO from a rewritten batch is one fixed row
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).map(count -> count == Statement.SUCCESS_NO_INFO ? 1 : count).sum();
+    }
+}
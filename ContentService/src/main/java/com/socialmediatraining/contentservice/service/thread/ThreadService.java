@@ -0,0 +1,89 @@
+package com.socialmediatraining.contentservice.service.thread;
+
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.contentservice.dto.thread.ContentThread;
+import com.socialmediatraining.contentservice.dto.thread.ThreadReply;
+import com.socialmediatraining.contentservice.entity.Content;
+import com.socialmediatraining.contentservice.repository.ContentRepository;
+import com.socialmediatraining.dtoutils.dto.PageResponse;
+import com.socialmediatraining.exceptioncommons.exception.PostNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+//Reply threads: direct replies are paged by cursor, their replies are expanded with one recursive query per page.
+//Pages are cached per content and evicted for the content and its ancestors whenever a reply below them changes.
+@Service
+@Slf4j
+public class ThreadService {
+
+    private final ContentRepository contentRepository;
+    private final ThreadPageCache threadPageCache;
+    private final int maxDepth;
+    private final int maxNestedReplies;
+
+    @Autowired
+    public ThreadService(ContentRepository contentRepository, ThreadPageCache threadPageCache,
+                         @Value("${thread.max-depth:5}") int maxDepth,
+                         @Value("${thread.max-nested-replies:200}") int maxNestedReplies) {
+        this.contentRepository = contentRepository;
+        this.threadPageCache = threadPageCache;
+        this.maxDepth = maxDepth;
+        this.maxNestedReplies = maxNestedReplies;
+    }
+
+    //depth 1 only returns the direct replies, larger depths are capped to thread.max-depth
+    public ContentThread getThread(UUID contentId, ContentCursor cursor, int size, int depth) {
+        int threadDepth = Math.clamp(depth, 1, maxDepth);
+        return threadPageCache.getOrLoad(contentId, ThreadPageCache.pageKey(cursor, size, threadDepth),
+                () -> loadThread(contentId, cursor, size, threadDepth));
+    }
+
+    //A content changed: its own thread and the threads of the ancestors deep enough to show it are stale.
+    //The ancestors are read in the caller's transaction, their pages are evicted once it commits
+    public void evictThreadsOf(UUID contentId) {
+        try {
+            threadPageCache.evict(contentRepository.findAncestors(contentId, maxDepth + 1).stream().map(Content::getId).toList());
+        } catch (Exception e) {
+            log.error("Error while evicting threads of content {}", contentId, e);
+        }
+    }
+
+    private ContentThread loadThread(UUID contentId, ContentCursor cursor, int size, int depth) {
+        Content content = contentRepository.findByIdAndDeletedAtIsNull(contentId)
+                .orElseThrow(() -> new PostNotFoundException("Cannot find post with id " + contentId));
+
+        //Fetched with one extra row, its presence tells there is a next page
+        List<Content> replies = contentRepository.findRepliesByParentIdAfter(
+                contentId, cursor.createdAt(), cursor.id(), PageRequest.of(0, size + 1));
+        boolean hasNext = replies.size() > size;
+        List<Content> pageReplies = hasNext ? replies.subList(0, size) : replies;
+        String nextCursor = hasNext ? ContentCursor.fromContent(pageReplies.getLast()).encode() : null;
+
+        Map<UUID, List<Content>> childrenByParent = new HashMap<>();
+        if (depth > 1 && !pageReplies.isEmpty()) {
+            contentRepository.findNestedReplies(pageReplies.stream().map(Content::getId).toList(), depth - 1, maxNestedReplies)
+                    .forEach(reply -> childrenByParent.computeIfAbsent(reply.getParentId(), parentId -> new ArrayList<>()).add(reply));
+        }
+
+        List<ThreadReply> threadReplies = pageReplies.stream()
+                .map(reply -> toThreadReply(reply, childrenByParent))
+                .toList();
+        return ContentThread.create(ContentResponse.fromEntity(content),
+                PageResponse.from(new SliceImpl<>(threadReplies, PageRequest.of(0, size), hasNext), nextCursor));
+    }
+
+    //Nested replies come level by level, newest first within a level, so each children list is already ordered
+    private ThreadReply toThreadReply(Content reply, Map<UUID, List<Content>> childrenByParent) {
+        List<ThreadReply> children = childrenByParent.getOrDefault(reply.getId(), List.of()).stream()
+                .map(child -> toThreadReply(child, childrenByParent))
+                .toList();
+        return ThreadReply.create(ContentResponse.fromEntity(reply), children);
+    }
+}
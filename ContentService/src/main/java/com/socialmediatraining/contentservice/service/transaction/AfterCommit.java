@@ -0,0 +1,30 @@
+package com.socialmediatraining.contentservice.service.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//Runs an action once the current transaction committed, right away when there is none. Nothing runs on a rollback
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    //Cache evictions of the current transaction's changes. Evicting before the commit would let a concurrent read load
+    //the rows of before the change and cache them again, until the time to live
+    public static void evict(Runnable eviction) {
+        run(eviction);
+    }
+}
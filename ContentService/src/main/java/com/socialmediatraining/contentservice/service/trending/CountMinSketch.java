@@ -0,0 +1,66 @@
+package com.socialmediatraining.contentservice.service.trending;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+//Approximate counts in depth x width cells: an estimate is never below the real count and exceeds it by at most
+//about 2/width of the total, except with probability 1/2^depth. Counts are doubles so decayed buckets can be summed.
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final double[] counts;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("Count-min sketch depth and width must be positive");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counts = new double[depth * width];
+    }
+
+    //Spreads the UUID bits, one 64 bit hash gives every row its own index
+    public static long hash(UUID id) {
+        long hash = id.getMostSignificantBits() ^ Long.rotateLeft(id.getLeastSignificantBits(), 32);
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public void add(long hash, double count) {
+        for (int row = 0; row < depth; row++) {
+            counts[cell(hash, row)] += count;
+        }
+    }
+
+    public double estimate(long hash) {
+        double estimate = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[cell(hash, row)]);
+        }
+        return estimate;
+    }
+
+    //Sketches of the same shape add up cell by cell, the result estimates the weighted sum of both streams
+    public void merge(CountMinSketch other, double weight) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge count-min sketches of different shapes");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i] * weight;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    private int cell(long hash, int row) {
+        int combined = (int) hash + row * (int) (hash >>> 32);
+        return row * width + (combined & Integer.MAX_VALUE) % width;
+    }
+}
@@ -0,0 +1,110 @@
+package com.socialmediatraining.contentservice.service.trending;
+
+import com.socialmediatraining.contentservice.dto.trending.TrendingContent;
+
+import java.util.*;
+
+//Sliding-window heavy hitters: the window is a ring of count-min sketches, one per bucket, and a decayed sum of
+//the ring answers estimates in depth lookups. The top K candidates are kept ordered by score, a content only
+//enters by beating the lowest one. Buckets rotate lazily with the time passed by the caller, a rotation rebuilds
+//the sum and rescores the candidates.
+//Not thread safe, TrendingService serializes the calls.
+public class TrendingEngine {
+
+    private static final Comparator<TrendingContent> BY_SCORE =
+            Comparator.comparingDouble(TrendingContent::score).thenComparing(TrendingContent::id);
+
+    private final CountMinSketch[] buckets;
+    private final CountMinSketch window;
+    private final long bucketMillis;
+    private final double[] bucketWeights;
+    private final int topK;
+    private final Map<UUID, Double> scores = new HashMap<>();
+    private final TreeSet<TrendingContent> ranking = new TreeSet<>(BY_SCORE);
+    private long currentBucket = Long.MIN_VALUE;
+
+    //decay is the weight of a bucket relative to the next newer one, 1 counts the whole window equally
+    public TrendingEngine(long windowMillis, int bucketCount, double decay, int topK, int depth, int width) {
+        if (bucketCount <= 0 || windowMillis < bucketCount || topK <= 0 || decay <= 0 || decay > 1) {
+            throw new IllegalArgumentException("Invalid trending window configuration");
+        }
+        this.buckets = new CountMinSketch[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(depth, width);
+        }
+        this.window = new CountMinSketch(depth, width);
+        this.bucketMillis = windowMillis / bucketCount;
+        this.bucketWeights = new double[bucketCount];
+        for (int age = 0; age < bucketCount; age++) {
+            bucketWeights[age] = Math.pow(decay, age);
+        }
+        this.topK = topK;
+    }
+
+    public void record(UUID contentId, double weight, long nowMillis) {
+        advance(nowMillis);
+        long hash = CountMinSketch.hash(contentId);
+        buckets[slot(currentBucket)].add(hash, weight);
+        window.add(hash, weight);
+        offer(contentId, window.estimate(hash));
+    }
+
+    //Highest score first
+    public List<TrendingContent> top(long nowMillis) {
+        advance(nowMillis);
+        return List.copyOf(ranking.descendingSet());
+    }
+
+    private void offer(UUID contentId, double score) {
+        Double previous = scores.get(contentId);
+        if (previous != null) {
+            ranking.remove(TrendingContent.create(contentId, previous));
+        } else if (scores.size() >= topK) {
+            TrendingContent lowest = ranking.first();
+            if (lowest.score() >= score) {
+                return;
+            }
+            ranking.pollFirst();
+            scores.remove(lowest.id());
+        }
+        scores.put(contentId, score);
+        ranking.add(TrendingContent.create(contentId, score));
+    }
+
+    private void advance(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        if (currentBucket == Long.MIN_VALUE) {
+            currentBucket = bucket;
+            return;
+        }
+        if (bucket <= currentBucket) {
+            return;
+        }
+
+        long expired = Math.min(bucket - currentBucket, buckets.length);
+        for (long i = 1; i <= expired; i++) {
+            buckets[slot(currentBucket + i)].clear();
+        }
+        currentBucket = bucket;
+
+        window.clear();
+        for (int age = 0; age < buckets.length; age++) {
+            window.merge(buckets[slot(currentBucket - age)], bucketWeights[age]);
+        }
+
+        List<UUID> candidates = List.copyOf(scores.keySet());
+        scores.clear();
+        ranking.clear();
+        for (UUID candidate : candidates) {
+            double score = window.estimate(CountMinSketch.hash(candidate));
+            if (score > 0) {
+                scores.put(candidate, score);
+                ranking.add(TrendingContent.create(candidate, score));
+            }
+        }
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) buckets.length);
+    }
+}
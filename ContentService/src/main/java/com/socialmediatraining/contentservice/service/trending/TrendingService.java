@@ -0,0 +1,169 @@
+package com.socialmediatraining.contentservice.service.trending;
+
+import com.socialmediatraining.contentservice.dto.trending.TrendingContent;
+import com.socialmediatraining.dtoutils.dto.NewContentNotification;
+import com.socialmediatraining.dtoutils.dto.UserLikeNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.kafka.annotation.KafkaHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+//Trending contents: the instances share one consumer group over likes and published contents, both keyed by post,
+//so each instance counts the posts of its partitions in its own TrendingEngine. Every refresh an instance
+//publishes its top K to Redis and merges the top K of the others, requests only read the merged snapshot.
+//Without Redis the snapshot is the local top K.
+@Service
+@Slf4j
+@KafkaListener(topics = {"new-like", "content-published"}, groupId = "content-service-trending")
+public class TrendingService {
+
+    static final String INSTANCES_KEY = "trending:instances";
+    static final String INSTANCE_KEY = "trending:instance:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final TrendingEngine engine;
+    private final int topK;
+    private final double likeWeight;
+    private final double commentWeight;
+    private final double createWeight;
+    private final Duration instanceTimeToLive;
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile List<TrendingContent> snapshot = List.of();
+
+    @Autowired
+    public TrendingService(StringRedisTemplate redisTemplate,
+                           @Value("${trending.window:3600}") long windowSeconds,
+                           @Value("${trending.buckets:12}") int bucketCount,
+                           @Value("${trending.decay:0.9}") double decay,
+                           @Value("${trending.top-k:50}") int topK,
+                           @Value("${trending.sketch.depth:4}") int depth,
+                           @Value("${trending.sketch.width:2048}") int width,
+                           @Value("${trending.weight.like:1}") double likeWeight,
+                           @Value("${trending.weight.comment:3}") double commentWeight,
+                           @Value("${trending.weight.create:1}") double createWeight,
+                           @Value("${trending.refresh-interval:5000}") long refreshIntervalMillis) {
+        this.redisTemplate = redisTemplate;
+        this.engine = new TrendingEngine(Duration.ofSeconds(windowSeconds).toMillis(), bucketCount, decay, topK, depth, width);
+        this.topK = topK;
+        this.likeWeight = likeWeight;
+        this.commentWeight = commentWeight;
+        this.createWeight = createWeight;
+        this.instanceTimeToLive = Duration.ofMillis(refreshIntervalMillis * 3);
+    }
+
+    @KafkaHandler
+    public void onLike(UserLikeNotification like) {
+        record(UUID.fromString(like.contentId()), likeWeight);
+    }
+
+    //A comment is activity on its post
+    @KafkaHandler
+    public void onContentPublished(NewContentNotification newContent) {
+        if (newContent.parentId() != null) {
+            record(UUID.fromString(newContent.parentId()), commentWeight);
+        } else {
+            record(UUID.fromString(newContent.contentId()), createWeight);
+        }
+    }
+
+    public List<TrendingContent> getTrending(int limit) {
+        List<TrendingContent> current = snapshot;
+        return current.subList(0, Math.max(0, Math.min(limit, current.size())));
+    }
+
+    @Scheduled(fixedDelayString = "${trending.refresh-interval:5000}")
+    public void refresh() {
+        List<TrendingContent> local;
+        synchronized (engine) {
+            local = engine.top(System.currentTimeMillis());
+        }
+
+        List<TrendingContent> merged = local;
+        try {
+            publish(local);
+            merged = merge(local, readOtherInstances());
+        } catch (Exception e) {
+            log.error("Error while exchanging trending contents with other instances, serving local ones", e);
+        }
+        snapshot = merged;
+    }
+
+    private void record(UUID contentId, double weight) {
+        synchronized (engine) {
+            engine.record(contentId, weight, System.currentTimeMillis());
+        }
+    }
+
+    private void publish(List<TrendingContent> local) {
+        String key = INSTANCE_KEY + instanceId;
+        Map<String, String> scores = local.stream()
+                .collect(Collectors.toMap(content -> content.id().toString(), content -> Double.toString(content.score())));
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.del(key);
+            if (!scores.isEmpty()) {
+                stringConnection.hMSet(key, scores);
+            }
+            stringConnection.expire(key, instanceTimeToLive.getSeconds());
+            stringConnection.sAdd(INSTANCES_KEY, instanceId);
+            return null;
+        });
+    }
+
+    //Instances whose key expired are dropped from the registry, a live one with an empty top K registers again
+    @SuppressWarnings("unchecked")
+    private List<Map<String, String>> readOtherInstances() {
+        Set<String> instances = redisTemplate.opsForSet().members(INSTANCES_KEY);
+        if (instances == null) {
+            return List.of();
+        }
+        List<String> others = instances.stream().filter(id -> !id.equals(instanceId)).toList();
+        if (others.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            others.forEach(id -> stringConnection.hGetAll(INSTANCE_KEY + id));
+            return null;
+        });
+        List<Map<String, String>> topLists = new ArrayList<>();
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < others.size(); i++) {
+            Map<String, String> topList = (Map<String, String>) results.get(i);
+            if (topList == null || topList.isEmpty()) {
+                expired.add(others.get(i));
+            } else {
+                topLists.add(topList);
+            }
+        }
+        if (!expired.isEmpty()) {
+            redisTemplate.opsForSet().remove(INSTANCES_KEY, expired.toArray());
+        }
+        return topLists;
+    }
+
+    //Scores of a post counted on several instances (after a rebalance) add up, like their sketches would
+    List<TrendingContent> merge(List<TrendingContent> local, List<Map<String, String>> others) {
+        Map<UUID, Double> scores = new HashMap<>();
+        local.forEach(content -> scores.merge(content.id(), content.score(), Double::sum));
+        others.forEach(topList -> topList.forEach((id, score) ->
+                scores.merge(UUID.fromString(id), Double.parseDouble(score), Double::sum)));
+
+        return scores.entrySet().stream()
+                .map(entry -> TrendingContent.create(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingDouble(TrendingContent::score).reversed().thenComparing(TrendingContent::id))
+                .limit(topK)
+                .toList();
+    }
+}
@@ -1,39 +1,66 @@
 package com.socialmediatraining.contentservice.service.user;
 
+import com.socialmediatraining.contentservice.config.TwoLevelCache;
+import com.socialmediatraining.contentservice.config.TwoLevelCacheManager;
 import com.socialmediatraining.contentservice.entity.ExternalUser;
 import com.socialmediatraining.contentservice.repository.ExternalUserRepository;
+import com.socialmediatraining.contentservice.repository.FeedReadRepository;
 import com.socialmediatraining.dtoutils.dto.SimpleUserDataObject;
 import com.socialmediatraining.exceptioncommons.exception.UserDoesntExistsException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.http.HttpStatus;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpServerErrorException;
+import reactor.core.publisher.Mono;
 
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class UserCacheService {
 
+    private static final String USERS_CACHE = "users";
+    private static final String USERS_BY_ID_CACHE = "usersById";
+
     private final ExternalUserRepository externalUserRepository;
+    private final TwoLevelCacheManager cacheManager;
+    private final FeedReadRepository feedReadRepository;
 
     @Autowired
-    public UserCacheService(ExternalUserRepository externalUserRepository) {
+    public UserCacheService(ExternalUserRepository externalUserRepository, TwoLevelCacheManager cacheManager, FeedReadRepository feedReadRepository) {
         this.externalUserRepository = externalUserRepository;
+        this.cacheManager = cacheManager;
+        this.feedReadRepository = feedReadRepository;
     }
 
-    @Cacheable(value = "users", key = "#username", condition = "#result != null", sync = true)
+    @Cacheable(value = USERS_CACHE, key = "#username", condition = "#result != null", sync = true)
     public SimpleUserDataObject getUserDataByUsername(String username) {
         ExternalUser user = externalUserRepository.findExternalUserByUsername(username)
                 .orElseThrow(() -> new UserDoesntExistsException("User not found: " + username));
         return SimpleUserDataObject.create(user.getId().toString(),user.getUsername());
     }
 
-    @Cacheable(value = "users", key = "#username", condition = "#result != null",sync = true)
+    //Feed path: the L1 entry or an r2dbc query, Redis (L2) is skipped so no thread waits for the lookup
+    public Mono<UUID> findUserId(String username) {
+        TwoLevelCache cache = cacheManager.getCache(USERS_CACHE);
+        return Mono.justOrEmpty(cache.getLocal(username))
+                .cast(SimpleUserDataObject.class)
+                .switchIfEmpty(Mono.defer(() -> feedReadRepository.findUserIdByUsername(username)
+                        .map(id -> SimpleUserDataObject.create(id.toString(), username))
+                        .doOnNext(user -> cache.putLocal(username, user))))
+                .map(user -> UUID.fromString(user.userId()))
+                .switchIfEmpty(Mono.error(() -> new UserDoesntExistsException("User not found: " + username)));
+    }
+
+    @Cacheable(value = USERS_CACHE, key = "#username", condition = "#result != null",sync = true)
     public SimpleUserDataObject getOrCreatNewExternalUserIfNotExists(String subId, String username){
         if(subId == null || username == null){
             throw new UserDoesntExistsException("Impossible to create a user without user id, the user account probably doesn't exists");
@@ -51,8 +78,9 @@ public class UserCacheService {
         return SimpleUserDataObject.create(externalUser.getId().toString(),externalUser.getUsername());
     }
 
+    //Put rather than cacheable, the key is only known from the result and the L1 of the other instances is invalidated
     @KafkaListener(topics = "created-new-user", groupId = "content-service" )
-    @Cacheable(value = "users", key = "#result.username", condition = "#result != null",sync = true)
+    @CachePut(value = USERS_CACHE, key = "#result.username()", unless = "#result == null")
     public SimpleUserDataObject createNewUser(SimpleUserDataObject simpleUserData) {
         if(simpleUserData == null){
             throw new HttpServerErrorException(HttpStatus.BAD_REQUEST,"User data cannot be null when creating user");
@@ -77,7 +105,10 @@ public class UserCacheService {
                 .orElseThrow(() -> new UserDoesntExistsException("User not found: " + username));
     }
 
-    @CacheEvict(value = "users", key = "#simpleUserData.username()")
+    @Caching(evict = {
+            @CacheEvict(value = USERS_CACHE, key = "#simpleUserData.username()"),
+            @CacheEvict(value = USERS_BY_ID_CACHE, key = "#simpleUserData.userId()")
+    })
     @KafkaListener(topics = "user-deleted", groupId = "user-service" )
     public void deleteUser(SimpleUserDataObject simpleUserData){
         externalUserRepository.deleteById(UUID.fromString(simpleUserData.userId()));
@@ -87,4 +118,25 @@ public class UserCacheService {
     public void saveExternalUser(ExternalUser user){
         externalUserRepository.save(user);
     }
+
+    //Resolves many users with at most one Redis MGET and one IN query, unknown ids are absent from the result
+    public Map<UUID, SimpleUserDataObject> getUserDataByIds(Collection<UUID> userIds){
+        if(userIds == null || userIds.isEmpty()){
+            return Map.of();
+        }
+
+        Map<String, SimpleUserDataObject> users = cacheManager.getCache(USERS_BY_ID_CACHE).getAll(
+                userIds.stream().map(UUID::toString).toList(),
+                missingIds -> toUserDataMap(
+                        externalUserRepository.findAllById(missingIds.stream().map(UUID::fromString).toList()),
+                        SimpleUserDataObject::userId));
+        return users.values().stream()
+                .collect(Collectors.toMap(user -> UUID.fromString(user.userId()), Function.identity()));
+    }
+
+    private Map<String, SimpleUserDataObject> toUserDataMap(List<ExternalUser> users, Function<SimpleUserDataObject, String> keyExtractor){
+        return users.stream()
+                .map(user -> SimpleUserDataObject.create(user.getId().toString(), user.getUsername()))
+                .collect(Collectors.toMap(keyExtractor, Function.identity(), (first, second) -> first));
+    }
 }
@@ -0,0 +1,48 @@
+package com.socialmediatraining.contentservice.unittests.config;
+
+import com.socialmediatraining.dtoutils.datasource.DataSourceRoutingAutoConfiguration;
+import com.socialmediatraining.dtoutils.datasource.ReplicaRoutingConnectionFactory;
+import com.socialmediatraining.dtoutils.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataSourceRoutingAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceRoutingAutoConfiguration.class, R2dbcAutoConfiguration.class,
+                    R2dbcDataAutoConfiguration.class))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withPropertyValues(
+                    "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+                    "spring.r2dbc.url=r2dbc:h2:mem:///routing;DB_CLOSE_DELAY=-1",
+                    "datasource.replicas.urls=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+                    "datasource.replicas.lag-check-interval=0");
+
+    @Test
+    void withR2dbcReplicas_ShouldRouteTheDatabaseClient() {
+        contextRunner.withPropertyValues("datasource.replicas.r2dbc-urls=r2dbc:h2:mem:///replica;DB_CLOSE_DELAY=-1")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(ReplicaRoutingDataSource.class);
+                    assertThat(context.getBean(DatabaseClient.class).getConnectionFactory())
+                            .isInstanceOf(ReplicaRoutingConnectionFactory.class);
+                });
+    }
+
+    @Test
+    void withoutR2dbcReplicas_ShouldKeepTheR2dbcReadsOnThePrimary() {
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(HikariDataSource.class);
+            assertThat(context).hasSingleBean(ReplicaRoutingDataSource.class);
+            assertThat(context).doesNotHaveBean(ReplicaRoutingConnectionFactory.class);
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.socialmediatraining.contentservice.unittests.config;
+
+import com.socialmediatraining.dtoutils.datasource.InMemoryReadYourWritesStore;
+import com.socialmediatraining.dtoutils.datasource.ReadYourWritesUser;
+import com.socialmediatraining.dtoutils.datasource.ReplicaRoutingConnectionFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReplicaRoutingConnectionFactoryTest {
+    @Mock
+    private ConnectionFactory primary;
+    @Mock
+    private Connection primaryConnection;
+
+    private final Set<String> healthyReplicas = new HashSet<>(Set.of("replica-0", "replica-1"));
+    private InMemoryReadYourWritesStore readYourWritesStore;
+    private SimpleMeterRegistry meterRegistry;
+    private Map<String, ConnectionFactory> replicas;
+    private Map<String, Connection> replicaConnections;
+    private ReplicaRoutingConnectionFactory connectionFactory;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(Mono.just(primaryConnection)).when(primary).create();
+        replicas = new LinkedHashMap<>();
+        replicaConnections = new LinkedHashMap<>();
+        for (String name : new String[]{"replica-0", "replica-1"}) {
+            ConnectionFactory replica = mock(ConnectionFactory.class);
+            Connection connection = mock(Connection.class);
+            doReturn(Mono.just(connection)).when(replica).create();
+            replicas.put(name, replica);
+            replicaConnections.put(name, connection);
+        }
+        readYourWritesStore = new InMemoryReadYourWritesStore(Duration.ofSeconds(10));
+        meterRegistry = new SimpleMeterRegistry();
+        connectionFactory = new ReplicaRoutingConnectionFactory(primary, replicas, healthyReplicas::contains,
+                readYourWritesStore, meterRegistry);
+    }
+
+    @Test
+    void create_ShouldUseReplicasInTurn() {
+        StepVerifier.create(connectionFactory.create()).expectNext(replicaConnections.get("replica-0")).verifyComplete();
+        StepVerifier.create(connectionFactory.create()).expectNext(replicaConnections.get("replica-1")).verifyComplete();
+        StepVerifier.create(connectionFactory.create()).expectNext(replicaConnections.get("replica-0")).verifyComplete();
+        assertThat(routes("replica-0", "read-only")).isEqualTo(2.0);
+    }
+
+    @Test
+    void create_WhenReplicaLagsBehind_ShouldSkipIt() {
+        healthyReplicas.remove("replica-0");
+
+        StepVerifier.create(connectionFactory.create()).expectNext(replicaConnections.get("replica-1")).verifyComplete();
+        StepVerifier.create(connectionFactory.create()).expectNext(replicaConnections.get("replica-1")).verifyComplete();
+    }
+
+    @Test
+    void create_WhenNoReplicaIsHealthy_ShouldUsePrimary() {
+        healthyReplicas.clear();
+
+        StepVerifier.create(connectionFactory.create()).expectNext(primaryConnection).verifyComplete();
+        assertThat(routes("primary", "no-healthy-replica")).isEqualTo(1.0);
+    }
+
+    @Test
+    void create_WhenReplicasFail_ShouldFallBackToPrimary() {
+        doReturn(Mono.error(new IllegalStateException("connection refused"))).when(replicas.get("replica-0")).create();
+        doReturn(Mono.error(new IllegalStateException("connection refused"))).when(replicas.get("replica-1")).create();
+
+        StepVerifier.create(connectionFactory.create()).expectNext(primaryConnection).verifyComplete();
+        assertThat(meterRegistry.get("datasource.r2dbc.replica.errors").tag("replica", "replica-0").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void create_AfterUserWrite_ShouldReadFromPrimaryForThatUserOnly() throws Exception {
+        readYourWritesStore.recordWrite("writer");
+
+        Mono<Connection> writer = ReadYourWritesUser.callAs("writer",
+                () -> connectionFactory.create().contextWrite(ReadYourWritesUser.capture()));
+        Mono<Connection> reader = ReadYourWritesUser.callAs("reader",
+                () -> connectionFactory.create().contextWrite(ReadYourWritesUser.capture()));
+
+        StepVerifier.create(writer).expectNext(primaryConnection).verifyComplete();
+        StepVerifier.create(reader).expectNext(replicaConnections.get("replica-0")).verifyComplete();
+        assertThat(routes("primary", "read-your-writes")).isEqualTo(1.0);
+    }
+
+    private double routes(String target, String reason) {
+        return meterRegistry.get("datasource.r2dbc.routing").tag("target", target).tag("reason", reason).counter().count();
+    }
+}
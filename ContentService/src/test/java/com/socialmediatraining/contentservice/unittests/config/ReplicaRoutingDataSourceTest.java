@@ -0,0 +1,213 @@
+package com.socialmediatraining.contentservice.unittests.config;
+
+import com.socialmediatraining.dtoutils.datasource.InMemoryReadYourWritesStore;
+import com.socialmediatraining.dtoutils.datasource.RedisReadYourWritesStore;
+import com.socialmediatraining.dtoutils.datasource.ReadYourWritesUser;
+import com.socialmediatraining.dtoutils.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReplicaRoutingDataSourceTest {
+    @Mock
+    private DataSource primary;
+    @Mock
+    private Connection primaryConnection;
+
+    private final AtomicReference<String> currentUser = new AtomicReference<>();
+    private SimpleMeterRegistry meterRegistry;
+    private Map<String, DataSource> replicas;
+    private Map<String, Connection> replicaConnections;
+    private Map<String, ResultSet> lagResults;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        meterRegistry = new SimpleMeterRegistry();
+        replicas = new LinkedHashMap<>();
+        replicaConnections = new LinkedHashMap<>();
+        lagResults = new LinkedHashMap<>();
+        for (String name : new String[]{"replica-0", "replica-1"}) {
+            DataSource replica = mock(DataSource.class);
+            Connection connection = mock(Connection.class);
+            Statement statement = mock(Statement.class);
+            ResultSet resultSet = mock(ResultSet.class);
+            when(replica.getConnection()).thenReturn(connection);
+            when(connection.createStatement()).thenReturn(statement);
+            when(statement.executeQuery(anyString())).thenReturn(resultSet);
+            when(resultSet.next()).thenReturn(true);
+            when(resultSet.getDouble(1)).thenReturn(0.0);
+            replicas.put(name, replica);
+            replicaConnections.put(name, connection);
+            lagResults.put(name, resultSet);
+        }
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, currentUser::get,
+                new InMemoryReadYourWritesStore(Duration.ofSeconds(10)), meterRegistry, Duration.ofSeconds(5), Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void getConnection_InReadWriteTransaction_ShouldUsePrimary() throws SQLException {
+        routingDataSource.checkReplicas();
+        inTransaction(false);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(routes("primary", "read-write")).isEqualTo(1.0);
+    }
+
+    @Test
+    void getConnection_InReadOnlyTransaction_ShouldUseReplicasInTurn() throws SQLException {
+        routingDataSource.checkReplicas();
+        inTransaction(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(replicaConnections.get("replica-0"));
+        assertThat(routingDataSource.getConnection()).isSameAs(replicaConnections.get("replica-1"));
+        assertThat(routingDataSource.getConnection()).isSameAs(replicaConnections.get("replica-0"));
+        assertThat(routes("replica-0", "read-only")).isEqualTo(2.0);
+    }
+
+    @Test
+    void getConnection_BeforeFirstLagCheck_ShouldUsePrimary() throws SQLException {
+        inTransaction(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(routes("primary", "no-healthy-replica")).isEqualTo(1.0);
+    }
+
+    @Test
+    void getConnection_WhenReplicaLagsBehind_ShouldSkipIt() throws SQLException {
+        when(lagResults.get("replica-0").getDouble(1)).thenReturn(30.0);
+        routingDataSource.checkReplicas();
+        inTransaction(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(replicaConnections.get("replica-1"));
+        assertThat(routingDataSource.getConnection()).isSameAs(replicaConnections.get("replica-1"));
+        assertThat(meterRegistry.get("datasource.replica.lag").tag("replica", "replica-0").gauge().value()).isEqualTo(30.0);
+        assertThat(meterRegistry.get("datasource.replica.healthy").tag("replica", "replica-0").gauge().value()).isZero();
+    }
+
+    @Test
+    void getConnection_WhenReplicaFails_ShouldFallBackAndSkipIt() throws SQLException {
+        routingDataSource.checkReplicas();
+        when(replicas.get("replica-0").getConnection()).thenThrow(new SQLException("connection refused"));
+        when(replicas.get("replica-1").getConnection()).thenThrow(new SQLException("connection refused"));
+        inTransaction(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        verify(replicas.get("replica-0"), times(2)).getConnection();
+        assertThat(meterRegistry.get("datasource.replica.errors").tag("replica", "replica-0").counter().count()).isEqualTo(1.0);
+        assertThat(routes("primary", "no-healthy-replica")).isEqualTo(2.0);
+    }
+
+    @Test
+    void getConnection_AfterUserWrite_ShouldReadFromPrimaryForThatUserOnly() throws SQLException {
+        routingDataSource.checkReplicas();
+        currentUser.set("writer");
+        inTransaction(false);
+        routingDataSource.getConnection();
+
+        inTransaction(true);
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        currentUser.set("reader");
+        assertThat(routingDataSource.getConnection()).isSameAs(replicaConnections.get("replica-0"));
+        assertThat(routes("primary", "read-your-writes")).isEqualTo(1.0);
+    }
+
+    @Test
+    void getConnection_AfterWriteWindow_ShouldReadFromReplica() throws SQLException {
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, currentUser::get,
+                new InMemoryReadYourWritesStore(Duration.ZERO), meterRegistry, Duration.ofSeconds(5), Duration.ZERO);
+        routingDataSource.checkReplicas();
+        currentUser.set("writer");
+        inTransaction(false);
+        routingDataSource.getConnection();
+
+        inTransaction(true);
+        assertThat(routingDataSource.getConnection()).isSameAs(replicaConnections.get("replica-0"));
+    }
+
+    @Test
+    void getConnection_AfterWriteOnAnotherInstance_ShouldReadFromPrimary() throws SQLException {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.hasKey("content-service:last-write:writer")).thenReturn(true);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, currentUser::get,
+                new RedisReadYourWritesStore(redisTemplate, "content-service:last-write:", Duration.ofSeconds(10)),
+                meterRegistry, Duration.ofSeconds(5), Duration.ZERO);
+        routingDataSource.checkReplicas();
+        inTransaction(true);
+
+        currentUser.set("writer");
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        currentUser.set("reader");
+        assertThat(routingDataSource.getConnection()).isSameAs(replicaConnections.get("replica-0"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisStore_ShouldShareWritesAndKeepLocalOnesWhenRedisFails() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.hasKey(anyString())).thenThrow(new RuntimeException("Redis down"));
+        RedisReadYourWritesStore store = new RedisReadYourWritesStore(redisTemplate, "content-service:last-write:", Duration.ofSeconds(10));
+
+        store.recordWrite("writer");
+
+        verify(valueOperations).set("content-service:last-write:writer", "1", Duration.ofSeconds(10));
+        assertThat(store.hasRecentWrite("writer")).isTrue();
+        assertThat(store.hasRecentWrite("reader")).isFalse();
+    }
+
+    @Test
+    void readYourWritesUser_ShouldFollowTheReactorContextToOtherThreads() throws Exception {
+        Mono<String> blockingCall = ReadYourWritesUser.fromCallable(ReadYourWritesUser::current)
+                .subscribeOn(Schedulers.boundedElastic());
+
+        Mono<String> captured = ReadYourWritesUser.callAs("writer", () -> blockingCall.contextWrite(ReadYourWritesUser.capture()));
+
+        StepVerifier.create(captured).expectNext("writer").verifyComplete();
+        StepVerifier.create(blockingCall).verifyComplete();
+        assertThat(ReadYourWritesUser.current()).isNull();
+    }
+
+    private void inTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private double routes(String target, String reason) {
+        return meterRegistry.get("datasource.routing").tag("target", target).tag("reason", reason).counter().count();
+    }
+}
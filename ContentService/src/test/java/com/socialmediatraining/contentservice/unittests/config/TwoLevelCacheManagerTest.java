@@ -0,0 +1,216 @@
+package com.socialmediatraining.contentservice.unittests.config;
+
+import com.socialmediatraining.contentservice.config.TwoLevelCacheManager;
+import com.socialmediatraining.dtoutils.dto.SimpleUserDataObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TwoLevelCacheManagerTest {
+    @Mock
+    private RedisCacheManager redisCacheManager;
+    @Mock
+    private RedisCache redisCache;
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private RedisConnection connection;
+    @Mock
+    private RedisStringCommands stringCommands;
+
+    private TwoLevelCacheManager cacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private SimpleUserDataObject testUserData;
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+
+    @BeforeEach
+    void setUp() {
+        when(redisCacheManager.getCache("users")).thenReturn(redisCache);
+        when(redisCache.getCacheConfiguration()).thenReturn(RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofMinutes(5))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer)));
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(stringRedisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            return List.of();
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, meterRegistry,
+                100, Duration.ofMinutes(1));
+        testUserData = SimpleUserDataObject.create("550e8400-e29b-41d4-a716-446655440000", "testuser");
+    }
+
+    private double count(String level, String result) {
+        return meterRegistry.get("cache.gets").tag("level", level).tag("result", result).counter().count();
+    }
+
+    private DefaultMessage message(String body) {
+        return new DefaultMessage(TwoLevelCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void get_WhenValueInRedis_ShouldReadRedisOnlyOnce() {
+        when(redisCache.get("testuser")).thenReturn(new SimpleValueWrapper(testUserData));
+        Cache cache = cacheManager.getCache("users");
+
+        assertThat(cache.get("testuser").get()).isEqualTo(testUserData);
+        assertThat(cache.get("testuser").get()).isEqualTo(testUserData);
+
+        verify(redisCache, times(1)).get("testuser");
+        assertThat(count("l1", "hit")).isEqualTo(1.0);
+        assertThat(count("l1", "miss")).isEqualTo(1.0);
+        assertThat(count("l2", "hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getWithLoader_WhenMissingInBothLevels_ShouldLoadOnceAndCountL2Miss() throws Exception {
+        when(redisCache.get(eq("testuser"), any(Callable.class)))
+                .thenAnswer(invocation -> invocation.<Callable<Object>>getArgument(1).call());
+        Callable<SimpleUserDataObject> loader = mock(Callable.class);
+        when(loader.call()).thenReturn(testUserData);
+        Cache cache = cacheManager.getCache("users");
+
+        assertThat(cache.get("testuser", loader)).isEqualTo(testUserData);
+        assertThat(cache.get("testuser", loader)).isEqualTo(testUserData);
+
+        verify(loader, times(1)).call();
+        assertThat(count("l2", "miss")).isEqualTo(1.0);
+        assertThat(count("l1", "hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void evict_ShouldEvictBothLevelsAndPublishInvalidation() {
+        when(redisCache.get("testuser")).thenReturn(new SimpleValueWrapper(testUserData));
+        Cache cache = cacheManager.getCache("users");
+        cache.get("testuser");
+
+        cache.evict("testuser");
+        when(redisCache.get("testuser")).thenReturn(null);
+
+        assertThat(cache.get("testuser")).isNull();
+        verify(redisCache).evict("testuser");
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), message.capture());
+        assertThat(message.getValue()).endsWith("|users|testuser");
+    }
+
+    @Test
+    void onMessage_FromOtherInstance_ShouldInvalidateLocalEntry() {
+        when(redisCache.get("testuser")).thenReturn(new SimpleValueWrapper(testUserData));
+        Cache cache = cacheManager.getCache("users");
+        cache.get("testuser");
+
+        cacheManager.onMessage(message("other-instance|users|testuser"), null);
+        cache.get("testuser");
+
+        verify(redisCache, times(2)).get("testuser");
+    }
+
+    @Test
+    void onMessage_FromSameInstance_ShouldKeepLocalEntry() {
+        Cache cache = cacheManager.getCache("users");
+        cache.put("testuser", testUserData);
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), message.capture());
+
+        cacheManager.onMessage(message(message.getValue()), null);
+
+        assertThat(cache.get("testuser").get()).isEqualTo(testUserData);
+        verify(redisCache, never()).get("testuser");
+    }
+
+    @Test
+    void put_WhenPublishFails_ShouldStillCacheValue() {
+        doThrow(new RuntimeException("Redis down")).when(stringRedisTemplate).convertAndSend(anyString(), anyString());
+        Cache cache = cacheManager.getCache("users");
+
+        cache.put("testuser", testUserData);
+
+        verify(redisCache).put("testuser", testUserData);
+        assertThat(cache.get("testuser").get()).isEqualTo(testUserData);
+    }
+
+    @Test
+    void getAll_ShouldReadL1ThenRedisThenLoadOnlyRemainingKeys() {
+        SimpleUserDataObject redisUser = SimpleUserDataObject.create("2", "redisuser");
+        SimpleUserDataObject databaseUser = SimpleUserDataObject.create("3", "databaseuser");
+        cacheManager.getCache("users").put("testuser", testUserData);
+        when(stringCommands.mGet(any(byte[][].class))).thenAnswer(invocation -> Arrays.stream(invocation.getArguments())
+                .map(key -> new String((byte[]) key, StandardCharsets.UTF_8).equals("users::redisuser")
+                        ? serializer.serialize(redisUser)
+                        : null)
+                .toList());
+
+        Map<String, SimpleUserDataObject> result = cacheManager.getCache("users")
+                .getAll(List.of("testuser", "redisuser", "databaseuser", "unknown"), missing -> {
+                    assertThat(missing).containsExactlyInAnyOrder("databaseuser", "unknown");
+                    return Map.of("databaseuser", databaseUser);
+                });
+
+        assertThat(result).containsOnlyKeys("testuser", "redisuser", "databaseuser");
+        assertThat(result.get("redisuser")).isEqualTo(redisUser);
+        verify(stringCommands, times(1)).mGet(any(byte[][].class));
+        verify(stringCommands).set(eq("users::databaseuser".getBytes(StandardCharsets.UTF_8)), eq(serializer.serialize(databaseUser)),
+                eq(Expiration.from(Duration.ofMinutes(5))), eq(RedisStringCommands.SetOption.upsert()));
+        assertThat(count("l1", "hit")).isEqualTo(1.0);
+        assertThat(count("l2", "hit")).isEqualTo(1.0);
+        assertThat(count("l2", "miss")).isEqualTo(2.0);
+    }
+
+    @Test
+    void getAll_WhenRedisFails_ShouldLoadAllMissingKeys() {
+        when(stringCommands.mGet(any(byte[][].class))).thenThrow(new RuntimeException("Redis down"));
+
+        Map<String, SimpleUserDataObject> result = cacheManager.getCache("users")
+                .getAll(List.of("testuser"), missing -> Map.of("testuser", testUserData));
+
+        assertThat(result).containsEntry("testuser", testUserData);
+    }
+
+    @Test
+    void getAll_WhenAllKeysInL1_ShouldNotCallRedis() {
+        cacheManager.getCache("users").put("testuser", testUserData);
+
+        Map<String, SimpleUserDataObject> result = cacheManager.getCache("users")
+                .getAll(List.of("testuser"), missing -> Map.of());
+
+        assertThat(result).containsEntry("testuser", testUserData);
+        verify(stringCommands, never()).mGet(any(byte[][].class));
+    }
+}
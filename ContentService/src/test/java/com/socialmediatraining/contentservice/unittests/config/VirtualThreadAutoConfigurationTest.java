@@ -0,0 +1,29 @@
+package com.socialmediatraining.contentservice.unittests.config;
+
+import com.socialmediatraining.dtoutils.threads.VirtualThreadAutoConfiguration;
+import com.socialmediatraining.dtoutils.threads.VirtualThreadPinningMonitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(VirtualThreadAutoConfiguration.class))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+    @Test
+    void withVirtualThreads_ShouldMonitorPinning() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true")
+                .run(context -> assertThat(context).hasSingleBean(VirtualThreadPinningMonitor.class));
+    }
+
+    @Test
+    void withPlatformThreads_ShouldNotMonitorPinning() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(VirtualThreadPinningMonitor.class));
+    }
+}
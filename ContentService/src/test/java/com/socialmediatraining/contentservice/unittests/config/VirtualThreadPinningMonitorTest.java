@@ -0,0 +1,74 @@
+package com.socialmediatraining.contentservice.unittests.config;
+
+import com.socialmediatraining.dtoutils.threads.VirtualThreadPinningMonitor;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final Object lock = new Object();
+    private SimpleMeterRegistry meterRegistry;
+    private VirtualThreadPinningMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+    }
+
+    @Test
+    void blockingInsideSynchronized_ShouldBeTimedUnderTheHoldingClass() throws InterruptedException {
+        Thread.ofVirtual().start(this::sleepHoldingLock).join();
+
+        Timer pinned = awaitPinnedTimer();
+        assertThat(pinned).isNotNull();
+        assertThat(pinned.getId().getTag("class")).isEqualTo(getClass().getName());
+        assertThat(pinned.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(10);
+    }
+
+    @Test
+    void blockingOutsideSynchronized_ShouldNotBeReported() throws InterruptedException {
+        Thread.ofVirtual().start(() -> sleep(50)).join();
+
+        assertThat(awaitPinnedTimer()).isNull();
+    }
+
+    private void sleepHoldingLock() {
+        synchronized (lock) {
+            sleep(50);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //JFR streams its events about once a second
+    private Timer awaitPinnedTimer() throws InterruptedException {
+        for (int attempt = 0; attempt < 30; attempt++) {
+            Timer timer = meterRegistry.find("jvm.threads.virtual.pinned").timer();
+            if (timer != null) {
+                return timer;
+            }
+            Thread.sleep(100);
+        }
+        return null;
+    }
+}
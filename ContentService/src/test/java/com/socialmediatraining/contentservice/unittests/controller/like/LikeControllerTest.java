@@ -1,13 +1,14 @@
 package com.socialmediatraining.contentservice.unittests.controller.like;
 
 import com.socialmediatraining.contentservice.controller.like.LikeController;
+import com.socialmediatraining.contentservice.dto.like.LikeResult;
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
 import com.socialmediatraining.contentservice.dto.post.ContentResponse;
 import com.socialmediatraining.contentservice.entity.Content;
 import com.socialmediatraining.contentservice.entity.ExternalUser;
 import com.socialmediatraining.contentservice.service.like.LikeService;
 import com.socialmediatraining.dtoutils.dto.PageResponse;
 import com.socialmediatraining.exceptioncommons.exception.PostNotFoundException;
-import com.socialmediatraining.exceptioncommons.exception.UserActionForbiddenException;
 import com.socialmediatraining.exceptioncommons.exception.UserDoesntExistsException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -68,7 +69,7 @@ class LikeControllerTest {
     void likePost_WhenValidRequest_ReturnsCreated() throws Exception {
         String expectedResponse = "User " + user.getId() + " liked post with userId " + contentTest.getId();
 
-        given(likeService.likeContent(anyString(),any(UUID.class))).willReturn(expectedResponse);
+        given(likeService.likeContent(anyString(),any(UUID.class))).willReturn(LikeResult.create(true, expectedResponse));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/like/" + contentTest.getId())
                         .header("Authorization", VALID_HEADER)
@@ -119,19 +120,17 @@ class LikeControllerTest {
     }
 
     @Test
-    void likePost_WhenPostAlreadyLiked_ReturnsUserActionForbidden() throws Exception{
-        String expectedResponse = "User " + user.getUsername() + " already liked post with id " + contentTest.getId();
+    void likePost_WhenPostAlreadyLiked_ReturnsOk() throws Exception{
+        String expectedResponse = "User " + user.getUsername() + " already liked post with userId " + contentTest.getId();
 
-        given(likeService.likeContent(anyString(),any(UUID.class)))
-                .willThrow(new UserActionForbiddenException(expectedResponse));
+        given(likeService.likeContent(anyString(),any(UUID.class))).willReturn(LikeResult.create(false, expectedResponse));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/like/" + contentTest.getId())
                         .header("Authorization", VALID_HEADER)
                         .accept(MediaType.APPLICATION_JSON))
                 .andDo(MockMvcResultHandlers.print())
-                .andExpect(status().isForbidden())
-                .andExpect(content().string(containsString(expectedResponse)))
-                .andExpect(content().string(containsString("HttpStatus: \":\"403 FORBIDDEN")));
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(expectedResponse)));
     }
 
     @Test
@@ -156,6 +155,26 @@ class LikeControllerTest {
                 .andExpect(jsonPath("$.content[0].id", is(contentTest.getId().toString())));
     }
 
+    @Test
+    void getAllLikedPosts_WithCursor_UsesKeysetPagination() throws Exception {
+        PageResponse<ContentResponse> pageResponse = new PageResponse<>(
+                Collections.singletonList(ContentResponse.fromEntity(contentTest)), 0, -1, -1, 10, "next");
+
+        given(likeService.getAllLikedContentsByUser(eq("username"), eq(ContentCursor.START), eq(10), eq(true)))
+                .willReturn(pageResponse);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/like/profile/username")
+                        .header("Authorization", VALID_HEADER)
+                        .param("cursor", "")
+                        .param("size", "10")
+                        .param("count", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(contentTest.getId().toString())))
+                .andExpect(jsonPath("$.next_cursor", is("next")));
+    }
+
     @Test
     void getAllLikedPosts_WhenInvalidUsername_ReturnsUserDoesntExists() throws Exception {
         String expectedResponse = "User not found with id: " + user.getId();
@@ -211,7 +230,7 @@ class LikeControllerTest {
     void deleteLike_WhenValidRequest_ReturnsOk() throws Exception {
         String expectedResponse = "User " + user.getId() + " unliked post with id " + contentTest.getId();
 
-        given(likeService.deleteLike(anyString(), any(UUID.class))).willReturn(expectedResponse);
+        given(likeService.deleteLike(anyString(), any(UUID.class))).willReturn(LikeResult.create(true, expectedResponse));
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/like/" + contentTest.getId())
                         .header("Authorization", VALID_HEADER)
@@ -256,19 +275,17 @@ class LikeControllerTest {
     }
 
     @Test
-    void deleteLike_WhenPostIsNotLiked_ReturnsUserActionForbidden() throws Exception {
-        String expectedResponse = "User " + user.getUsername() + " has not liked post with id " + contentTest.getId();
+    void deleteLike_WhenPostIsNotLiked_ReturnsOk() throws Exception {
+        String expectedResponse = "User " + user.getUsername() + " didn't like post with userId " + contentTest.getId();
 
-        given(likeService.deleteLike(anyString(), any(UUID.class)))
-                .willThrow(new UserActionForbiddenException(expectedResponse));
+        given(likeService.deleteLike(anyString(), any(UUID.class))).willReturn(LikeResult.create(false, expectedResponse));
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/like/" + contentTest.getId())
                         .header("Authorization", VALID_HEADER)
                         .accept(MediaType.APPLICATION_JSON))
                 .andDo(MockMvcResultHandlers.print())
-                .andExpect(status().isForbidden())
-                .andExpect(content().string(containsString(expectedResponse)))
-                .andExpect(content().string(containsString("HttpStatus: \":\"403 FORBIDDEN")));
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(expectedResponse)));
     }
 
 
@@ -279,4 +296,38 @@ class LikeControllerTest {
                 .andDo(MockMvcResultHandlers.print())
                 .andExpect(status().isUnauthorized());
     }
+
+    @Test
+    void getLikeStatus_WhenValidRequest_ReturnsStatusPerContent() throws Exception {
+        UUID otherContentId = UUID.randomUUID();
+        Map<UUID, Boolean> status = new LinkedHashMap<>();
+        status.put(contentTest.getId(), true);
+        status.put(otherContentId, false);
+
+        given(likeService.getLikeStatus(anyString(), eq(List.of(contentTest.getId(), otherContentId)))).willReturn(status);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/like/status")
+                        .param("ids", contentTest.getId().toString(), otherContentId.toString())
+                        .header("Authorization", VALID_HEADER)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + contentTest.getId() + "']", is(true)))
+                .andExpect(jsonPath("$['" + otherContentId + "']", is(false)));
+    }
+
+    @Test
+    void getLikeStatus_WithTooManyIds_Returns400() throws Exception {
+        String[] ids = new String[101];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/like/status")
+                        .param("ids", ids)
+                        .header("Authorization", VALID_HEADER)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isBadRequest());
+    }
 }
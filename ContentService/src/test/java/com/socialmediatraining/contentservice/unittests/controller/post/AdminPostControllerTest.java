@@ -1,9 +1,11 @@
 package com.socialmediatraining.contentservice.unittests.controller.post;
 
+import com.socialmediatraining.contentservice.dto.post.ContentImportReport;
 import com.socialmediatraining.contentservice.dto.post.ContentResponse;
 import com.socialmediatraining.contentservice.dto.post.ContentResponseAdmin;
 import com.socialmediatraining.contentservice.entity.Content;
 import com.socialmediatraining.contentservice.entity.ExternalUser;
+import com.socialmediatraining.contentservice.service.post.ContentImportService;
 import com.socialmediatraining.contentservice.service.post.ContentService;
 import com.socialmediatraining.dtoutils.dto.PageResponse;
 import com.socialmediatraining.exceptioncommons.exception.PostNotFoundException;
@@ -14,15 +16,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.is;
@@ -38,6 +43,8 @@ class AdminPostControllerTest {
     private MockMvc mockMvc;
     @MockitoBean
     private ContentService contentService;
+    @MockitoBean
+    private ContentImportService contentImportService;
 
     private final static String VALID_HEADER = "Bearer eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.eyJzdWIiOiIxMjM0NTY3ODkwIiwibm" +
             "FtZSI6IkpvaG4gRG9lIiwiYWRtaW4iOnRydWUsImlhdCI6MTUxNjIzOTAyMiwicHJlZmVycmVkX3VzZXJuYW1lIjoidXNlci5zb2NpY" +
@@ -68,7 +75,7 @@ class AdminPostControllerTest {
                 Collections.emptyList(), 0, 1, 0, 0
         );
 
-        given(contentService.getAllContentFromUser(anyString(), any(Pageable.class),anyString())).willReturn(mockResponse);
+        given(contentService.getAllContentFromUser(anyString(), any(Pageable.class), anyString(), eq(true))).willReturn(mockResponse);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/posts/admin/profile/" + user.getUsername())
                         .header("Authorization", VALID_HEADER)
@@ -95,7 +102,7 @@ class AdminPostControllerTest {
 
     @Test
     void getAllPostsFromUsername_WhenInvalidUsername_ReturnsUserDoesntExists() throws Exception {
-        given(contentService.getAllContentFromUser(anyString(), any(Pageable.class), anyString()))
+        given(contentService.getAllContentFromUser(anyString(), any(Pageable.class), anyString(), eq(true)))
                 .willThrow(new UserDoesntExistsException("User not found: " + user.getUsername()));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/posts/admin/profile/" + user.getUsername())
@@ -120,7 +127,7 @@ class AdminPostControllerTest {
                 Collections.singletonList(ContentResponseAdmin.fromEntity(contentTest)),
                 1, 1, 1, 1);
 
-        given(contentService.getAllContentFromUser(anyString(), any(Pageable.class), eq("post")))
+        given(contentService.getAllContentFromUser(anyString(), any(Pageable.class), eq("post"), eq(true)))
                 .willReturn(mockResponse);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/posts/admin/profile/" + user.getUsername())
@@ -138,7 +145,7 @@ class AdminPostControllerTest {
                 Collections.singletonList(ContentResponseAdmin.fromEntity(contentTest)),
                 1, 1, 1, 1);
 
-        given(contentService.getAllContentFromUser(anyString(), any(Pageable.class), eq("comment")))
+        given(contentService.getAllContentFromUser(anyString(), any(Pageable.class), eq("comment"), eq(true)))
                 .willReturn(mockResponse);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/posts/admin/profile/" + user.getUsername())
@@ -156,7 +163,7 @@ class AdminPostControllerTest {
                 Collections.emptyList(), 0, 2, 15, 10
         );
 
-        given(contentService.getAllContentFromUser(anyString(), any(Pageable.class), anyString()))
+        given(contentService.getAllContentFromUser(anyString(), any(Pageable.class), anyString(), eq(true)))
                 .willReturn(mockResponse);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/posts/admin/profile/" + user.getUsername())
@@ -207,4 +214,41 @@ class AdminPostControllerTest {
                 .andExpect(jsonPath("$.postResponse.id", is(contentTest.getId().toString())))
                 .andExpect(jsonPath("$.deletedAt").exists());
     }
-}
\ No newline at end of file
+
+    @Test
+    void importContents_WithNdjsonBody_ReturnsReport() throws Exception {
+        given(contentImportService.importContents(eq("import-1"), any())).willReturn(
+                ContentImportReport.create("import-1", "COMPLETED", 2, 1, 0, 1, List.of("line 2: invalid JSON")));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/posts/admin/import/import-1")
+                        .header("Authorization", VALID_HEADER)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"creator_id\":\"" + user.getId() + "\",\"text\":\"text\"}\nnot json\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.inserted", is(1)))
+                .andExpect(jsonPath("$.errors[0]", is("line 2: invalid JSON")));
+    }
+
+    @Test
+    void importContents_WhenImportIsRunning_ReturnsConflict() throws Exception {
+        given(contentImportService.importContents(eq("import-1"), any()))
+                .willThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Import import-1 is already running"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/posts/admin/import/import-1")
+                        .header("Authorization", VALID_HEADER)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(""))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void getImportProgress_WithUnknownImport_ReturnsNotFound() throws Exception {
+        given(contentImportService.getProgress("missing"))
+                .willThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Cannot find import missing"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/posts/admin/import/missing")
+                        .header("Authorization", VALID_HEADER))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
@@ -182,4 +183,23 @@ class ContentControllerFluxTest {
                 .exchange()
                 .expectStatus().is5xxServerError();
     }
-}
\ No newline at end of file
+
+    @Test
+    void streamUserFeed_AsNdjson_ReturnsEachContentAsLine() {
+        given(contentService.streamUserFeed(anyString(), anyString(), eq(10)))
+                .willReturn(Flux.just(testResponse1, testResponse2));
+
+        webTestClient.get()
+                .uri(BASE_URI + "/stream")
+                .header("Authorization", VALID_HEADER)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(ContentResponse.class)
+                .value(result -> {
+                    assertThat(result.size()).isEqualTo(2);
+                    assertThat(result.getFirst().id()).isEqualTo(testResponse1.id());
+                });
+    }
+}
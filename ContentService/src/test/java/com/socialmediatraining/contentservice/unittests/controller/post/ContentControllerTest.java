@@ -2,6 +2,7 @@ package com.socialmediatraining.contentservice.unittests.controller.post;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.socialmediatraining.contentservice.controller.post.ContentController;
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
 import com.socialmediatraining.contentservice.dto.post.ContentRequest;
 import com.socialmediatraining.contentservice.dto.post.ContentResponse;
 import com.socialmediatraining.contentservice.entity.Content;
@@ -15,17 +16,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 
+import reactor.core.publisher.Flux;
+
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
@@ -355,6 +362,33 @@ class ContentControllerTest {
     //endregion
 
     //region<getAllPostsFromUsername>
+    @Test
+    void getAllPostsFromUsername_WithCursor_ReturnsNextCursor() throws Exception {
+        ContentCursor cursor = ContentCursor.create(java.time.LocalDateTime.parse("2024-03-01T10:00:00"), UUID.randomUUID());
+        PageResponse<ContentResponse> pageResponse = new PageResponse<>(
+                List.of(testResponse), 0, -1, -1, 1, "next"
+        );
+
+        given(contentService.getAllVisibleContentFromUser(eq("testuser"), eq(cursor), eq(1), eq("all"), any()))
+                .willReturn(pageResponse);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/profile/testuser/posts")
+                        .param("size", "1")
+                        .param("cursor", cursor.encode()))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(testContent.getId().toString()))
+                .andExpect(jsonPath("$.next_cursor").value("next"));
+    }
+
+    @Test
+    void getAllPostsFromUsername_WithInvalidCursor_Returns400() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/profile/testuser/posts")
+                        .param("cursor", "%%%"))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getAllPostsFromUsername_WithValidRequest_Returns200() throws Exception {
         List<ContentResponse> contentList = List.of(testResponse);
@@ -366,7 +400,7 @@ class ContentControllerTest {
                 contentList.size()
         );
 
-        given(contentService.getAllVisibleContentFromUser(eq("testuser"), any(Pageable.class), eq("all")))
+        given(contentService.getAllVisibleContentFromUser(eq("testuser"), any(Pageable.class), eq("all"), eq(true), any()))
                 .willReturn(pageResponse);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/profile/testuser/posts")
@@ -392,7 +426,7 @@ class ContentControllerTest {
                 contentList.size()
         );
 
-        given(contentService.getAllVisibleContentFromUser(eq("testuser"), any(Pageable.class), eq("post")))
+        given(contentService.getAllVisibleContentFromUser(eq("testuser"), any(Pageable.class), eq("post"), eq(true), any()))
                 .willReturn(pageResponse);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/profile/testuser/posts")
@@ -415,7 +449,7 @@ class ContentControllerTest {
                 contentList.size()
         );
 
-        given(contentService.getAllVisibleContentFromUser(eq("testuser"), any(Pageable.class), eq("comment")))
+        given(contentService.getAllVisibleContentFromUser(eq("testuser"), any(Pageable.class), eq("comment"), eq(true), any()))
                 .willReturn(pageResponse);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/profile/testuser/posts")
@@ -438,7 +472,7 @@ class ContentControllerTest {
                 10
         );
 
-        given(contentService.getAllVisibleContentFromUser(eq("testuser"), any(Pageable.class), eq("all")))
+        given(contentService.getAllVisibleContentFromUser(eq("testuser"), any(Pageable.class), eq("all"), eq(true), any()))
                 .willReturn(pageResponse);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/profile/testuser/posts")
@@ -452,6 +486,23 @@ class ContentControllerTest {
                 .andExpect(jsonPath("$.totalItems").value(20));
     }
 
+    @Test
+    void getAllPostsFromUsername_WithoutCount_ReturnsHasNextWithoutTotals() throws Exception {
+        PageResponse<ContentResponse> pageResponse = PageResponse.from(
+                new SliceImpl<>(List.<ContentResponse>of(), PageRequest.of(0, 10), true));
+
+        given(contentService.getAllVisibleContentFromUser(eq("testuser"), any(Pageable.class), eq("all"), eq(false), any()))
+                .willReturn(pageResponse);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/profile/testuser/posts")
+                        .param("type", "all")
+                        .param("count", "false"))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.has_next").value(true))
+                .andExpect(jsonPath("$.totalItems").value(-1));
+    }
+
     @Test
     void getAllPostsFromUsername_WithInvalidType_Returns400() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/profile/testuser/posts")
@@ -467,7 +518,7 @@ class ContentControllerTest {
         String username = "nonexistent";
         String errorMessage = "User not found: " + username;
 
-        given(contentService.getAllVisibleContentFromUser(eq(username), any(Pageable.class), anyString()))
+        given(contentService.getAllVisibleContentFromUser(eq(username), any(Pageable.class), anyString(), eq(true), any()))
                 .willThrow(new UserDoesntExistsException(errorMessage));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/profile/{username}/posts", username)
@@ -480,6 +531,23 @@ class ContentControllerTest {
     //endregion
 
     //region<getUserFeed>
+    @Test
+    void streamUserFeed_ShouldNotTimeOutWhileOtherAsyncRequestsKeepTheDefault() throws Exception {
+        given(contentService.streamUserFeed(anyString(), anyString(), eq(10))).willReturn(Flux.never());
+        given(contentService.getUserFeed(anyString(), anyString(), any(Pageable.class))).willReturn(Flux.never());
 
+        MvcResult stream = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/feed/stream")
+                        .header("Authorization", VALID_HEADER)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult feed = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/feed")
+                        .header("Authorization", VALID_HEADER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(stream.getRequest().getAsyncContext().getTimeout()).isEqualTo(-1);
+        assertThat(feed.getRequest().getAsyncContext().getTimeout()).isPositive();
+    }
     //endregion
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.socialmediatraining.contentservice.unittests.controller.thread;
+
+import com.socialmediatraining.contentservice.controller.thread.ThreadController;
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.contentservice.dto.thread.ContentThread;
+import com.socialmediatraining.contentservice.dto.thread.ThreadReply;
+import com.socialmediatraining.contentservice.service.thread.ThreadService;
+import com.socialmediatraining.dtoutils.dto.PageResponse;
+import com.socialmediatraining.exceptioncommons.exception.PostNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ThreadController.class)
+class ThreadControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockitoBean
+    private ThreadService threadService;
+
+    @Test
+    void getThread_WithoutCursor_ReturnsFirstPage() throws Exception {
+        UUID postId = UUID.randomUUID();
+        ContentResponse post = ContentResponse.create(postId, UUID.randomUUID(), null, LocalDateTime.now(), LocalDateTime.now(), "post", Map.of());
+        ContentResponse reply = ContentResponse.create(UUID.randomUUID(), UUID.randomUUID(), postId, LocalDateTime.now(), LocalDateTime.now(), "reply", Map.of());
+        ContentThread thread = ContentThread.create(post,
+                new PageResponse<>(List.of(ThreadReply.create(reply, List.of())), 0, -1, -1, 10, null));
+        given(threadService.getThread(postId, ContentCursor.START, 10, 2)).willReturn(thread);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/posts/" + postId + "/thread")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.text", is("post")))
+                .andExpect(jsonPath("$.replies.content", hasSize(1)))
+                .andExpect(jsonPath("$.replies.content[0].content.text", is("reply")));
+    }
+
+    @Test
+    void getThread_WhenPostNotFound_ReturnsNotFound() throws Exception {
+        UUID postId = UUID.randomUUID();
+        given(threadService.getThread(eq(postId), any(), anyInt(), anyInt()))
+                .willThrow(new PostNotFoundException("Cannot find post with id " + postId));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/posts/" + postId + "/thread")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+}
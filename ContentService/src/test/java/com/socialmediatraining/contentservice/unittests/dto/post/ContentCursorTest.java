@@ -0,0 +1,41 @@
+package com.socialmediatraining.contentservice.unittests.dto.post;
+
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
+import com.socialmediatraining.contentservice.entity.Content;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContentCursorTest {
+
+    @Test
+    void encode_ShouldRoundTripThroughDecode() {
+        Content content = new Content();
+        content.setId(UUID.randomUUID());
+        content.setCreatedAt(LocalDateTime.parse("2024-03-01T10:15:30.123456"));
+
+        ContentCursor cursor = ContentCursor.decode(ContentCursor.fromContent(content).encode());
+
+        assertThat(cursor.createdAt()).isEqualTo(content.getCreatedAt());
+        assertThat(cursor.id()).isEqualTo(content.getId());
+    }
+
+    @Test
+    void decode_WhenCursorIsBlank_ShouldReturnStart() {
+        assertThat(ContentCursor.decode("")).isEqualTo(ContentCursor.START);
+        assertThat(ContentCursor.decode(null)).isEqualTo(ContentCursor.START);
+    }
+
+    @Test
+    void decode_WhenCursorIsInvalid_ShouldThrowBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> ContentCursor.decode("not-a-cursor"));
+
+        assertThat(exception.getStatusCode().value()).isEqualTo(400);
+    }
+}
@@ -20,6 +20,7 @@ class ContentResponseAdminTest {
                 UUID.randomUUID(),
                 UUID.randomUUID(),
                 UUID.randomUUID(),
+                null,
                 LocalDateTime.now(),
                 null,
                 "This is a test content text",
@@ -29,6 +30,8 @@ class ContentResponseAdminTest {
                         put("media2", "https://example2.com/image.png");
                     }},
                 LocalDateTime.now(),
+                0,
+                0,
                 new LinkedHashSet<>() {},
                 new LinkedHashSet<>() {}
         );
@@ -39,11 +42,14 @@ class ContentResponseAdminTest {
                 UUID.randomUUID(),
                 UUID.randomUUID(),
                 null,
+                null,
                 LocalDateTime.now(),
                 null,
                 "test",
                 null,
                 null,
+                0,
+                0,
                 null,
                 null
         );
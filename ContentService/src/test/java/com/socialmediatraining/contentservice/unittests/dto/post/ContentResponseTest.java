@@ -18,6 +18,7 @@ class ContentResponseTest {
                 UUID.randomUUID(),
                 UUID.randomUUID(),
                 UUID.randomUUID(),
+                null,
                 LocalDateTime.now(),
                 null,
                 "This is a test content text",
@@ -27,6 +28,8 @@ class ContentResponseTest {
                         put("media2", "https://example2.com/image.png");
                     }},
                 null,
+                0,
+                0,
                 new LinkedHashSet<>() {},
                 new LinkedHashSet<>() {}
         );
@@ -37,11 +40,14 @@ class ContentResponseTest {
                 UUID.randomUUID(),
                 UUID.randomUUID(),
                 null,
+                null,
                 LocalDateTime.now(),
                 null,
                 "test",
                 null,
                 null,
+                0,
+                0,
                 null,
                 null
         );
@@ -1,18 +1,44 @@
 package com.socialmediatraining.contentservice.unittests.entity;
 
+import com.socialmediatraining.contentservice.dto.post.ContentResponseAdmin;
 import com.socialmediatraining.contentservice.entity.Content;
+import com.socialmediatraining.contentservice.repository.ContentRepository;
+import com.socialmediatraining.contentservice.service.like.LikeCounterService;
+import com.socialmediatraining.contentservice.service.post.PostCache;
+import com.socialmediatraining.contentservice.service.thread.ThreadPageCache;
+import com.socialmediatraining.contentservice.service.thread.ThreadRepairJob;
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -26,6 +52,12 @@ public class ContentJpaTest {
     private Content contentTest;
     @Autowired
     private TestEntityManager entityManager;
+    @Autowired
+    private ContentRepository contentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @BeforeEach
     void setupVariables(){
@@ -67,4 +99,176 @@ public class ContentJpaTest {
         assertThat(contentTest.getText()).isEqualTo("Updated text");
         assertThat(contentTest.getUpdatedAt()).isNotNull().isAfterOrEqualTo(contentTest.getCreatedAt().plusSeconds(1));
     }
+
+    @Test
+    void profileQueries_ShouldProjectTheFilteredContentsNewestFirst() {
+        mediaUrls.put("image", "https://media/image.png");
+        Content post = entityManager.persist(Content.builder().creatorId(creatorId).text("post").mediaUrls(mediaUrls).build());
+        Content reply = entityManager.persist(Content.builder().creatorId(creatorId).parentId(post.getId()).rootId(post.getId())
+                .text("reply").mediaUrls(new HashMap<>()).build());
+        Content deleted = entityManager.persist(Content.builder().creatorId(creatorId).text("deleted").mediaUrls(new HashMap<>())
+                .deletedAt(LocalDateTime.now()).build());
+        entityManager.persist(Content.builder().creatorId(UUID.randomUUID()).text(text).mediaUrls(new HashMap<>()).build());
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE content SET like_count = 3 WHERE id = ?", post.getId());
+        jdbcTemplate.update("UPDATE content SET created_at = ? WHERE id = ?", LocalDateTime.now().minusMinutes(1), post.getId());
+        entityManager.clear();
+
+        Slice<ContentResponseAdmin> visible = contentRepository.findProfileSlice(creatorId, true, true, false, PageRequest.of(0, 1));
+        Slice<ContentResponseAdmin> secondPage = contentRepository.findProfileSlice(creatorId, true, true, false, PageRequest.of(1, 1));
+        Page<ContentResponseAdmin> posts = contentRepository.findProfilePage(creatorId, true, false, true, PageRequest.of(0, 5));
+
+        assertThat(visible.getContent()).extracting(row -> row.postResponse().id()).containsExactly(reply.getId());
+        assertThat(visible.getContent().getFirst().postResponse().root_id()).isEqualTo(post.getId());
+        assertThat(visible.hasNext()).isTrue();
+        assertThat(secondPage.getContent()).extracting(row -> row.postResponse().id()).containsExactly(post.getId());
+        assertThat(secondPage.getContent().getFirst().postResponse().like_count()).isEqualTo(3);
+        assertThat(secondPage.getContent().getFirst().postResponse().media_urls()).isEqualTo(mediaUrls);
+        assertThat(secondPage.hasNext()).isFalse();
+        assertThat(posts.getContent()).extracting(row -> row.postResponse().id()).containsExactly(deleted.getId(), post.getId());
+        assertThat(posts.getContent().getFirst().deletedAt()).isNotNull();
+        assertThat(posts.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void likeCount_ShouldOnlyBeChangedByLikeCounterUpdates() {
+        contentTest = entityManager.persistAndFlush(Content.builder()
+                .creatorId(creatorId)
+                .text(text)
+                .mediaUrls(mediaUrls)
+                .build());
+        //Redis is unavailable, the deltas are written to the database right away
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForHash()).thenThrow(new RuntimeException("Redis down"));
+        LikeCounterService likeCounterService = new LikeCounterService(redisTemplate, jdbcTemplate, transactionManager, 500, 30);
+
+        likeCounterService.increment(contentTest.getId());
+        likeCounterService.increment(contentTest.getId());
+        likeCounterService.decrement(contentTest.getId());
+        contentTest.setText("Updated text");
+        entityManager.persistAndFlush(contentTest);
+        entityManager.clear();
+
+        assertThat(contentRepository.findById(contentTest.getId()).orElseThrow().getLikeCount()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void likeCounterFlush_WhenBatchIsRetried_ShouldApplyItOnce() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS like_count_flush (batch_id UUID PRIMARY KEY, applied_at TIMESTAMP NOT NULL)");
+        contentTest = entityManager.persistAndFlush(Content.builder()
+                .creatorId(creatorId)
+                .text(text)
+                .mediaUrls(mediaUrls)
+                .build());
+        //The hash of the batch is never deleted, as when Redis fails right after the database commit
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(redisTemplate.hasKey("likes:flushing")).thenReturn(true);
+        when(hashOperations.entries("likes:flushing")).thenReturn(Map.of(
+                contentTest.getId().toString(), "2", "batch-id", UUID.randomUUID().toString()));
+        when(redisTemplate.delete("likes:flushing")).thenThrow(new RuntimeException("Redis down"));
+        LikeCounterService likeCounterService = new LikeCounterService(redisTemplate, jdbcTemplate, transactionManager, 500, 30);
+
+        likeCounterService.flush();
+        likeCounterService.flush();
+        entityManager.clear();
+
+        assertThat(contentRepository.findById(contentTest.getId()).orElseThrow().getLikeCount()).isEqualTo(2);
+    }
+
+    @Test
+    void recursiveQueries_ShouldWalkRepliesDownAndAncestorsUp() {
+        Content post = entityManager.persist(Content.builder().creatorId(creatorId).text("post").mediaUrls(mediaUrls).build());
+        Content reply = entityManager.persist(Content.builder().creatorId(creatorId).parentId(post.getId()).text("reply").mediaUrls(mediaUrls).build());
+        Content nested = entityManager.persist(Content.builder().creatorId(creatorId).parentId(reply.getId()).text("nested").mediaUrls(mediaUrls).build());
+        Content deeper = entityManager.persist(Content.builder().creatorId(creatorId).parentId(nested.getId()).text("deeper").mediaUrls(mediaUrls).build());
+        Content deleted = entityManager.persist(Content.builder().creatorId(creatorId).parentId(reply.getId()).text("Deleted")
+                .mediaUrls(mediaUrls).deletedAt(LocalDateTime.now()).build());
+        entityManager.persist(Content.builder().creatorId(creatorId).parentId(deleted.getId()).text("hidden").mediaUrls(mediaUrls).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(contentRepository.findNestedReplies(List.of(reply.getId()), 1, 100))
+                .extracting(Content::getId).containsExactly(nested.getId());
+        assertThat(contentRepository.findNestedReplies(List.of(reply.getId()), 5, 100))
+                .extracting(Content::getId).containsExactly(nested.getId(), deeper.getId());
+        assertThat(contentRepository.findNestedReplies(List.of(reply.getId()), 5, 1)).hasSize(1);
+        assertThat(contentRepository.findAncestors(deeper.getId(), 3)).extracting(Content::getId)
+                .containsExactlyInAnyOrder(deeper.getId(), nested.getId(), reply.getId());
+        assertThat(contentRepository.findAncestors(deeper.getId(), 10)).extracting(Content::getId)
+                .containsExactlyInAnyOrder(deeper.getId(), nested.getId(), reply.getId(), post.getId());
+    }
+
+    @Test
+    void replyCount_ShouldOnlyBeChangedByCounterUpdates() {
+        contentTest = entityManager.persistAndFlush(Content.builder()
+                .creatorId(creatorId)
+                .text(text)
+                .mediaUrls(mediaUrls)
+                .build());
+
+        contentRepository.incrementReplyCount(contentTest.getId());
+        contentRepository.incrementReplyCount(contentTest.getId());
+        contentRepository.decrementReplyCount(contentTest.getId());
+        contentTest.setText("Updated text");
+        entityManager.persistAndFlush(contentTest);
+        entityManager.clear();
+        contentRepository.decrementReplyCount(contentTest.getId());
+        contentRepository.decrementReplyCount(contentTest.getId());
+
+        assertThat(contentRepository.findById(contentTest.getId()).orElseThrow().getReplyCount()).isZero();
+    }
+
+    @Test
+    void threadRepair_ShouldFillRootIdsAndRecountReplies() {
+        Content post = entityManager.persist(Content.builder().creatorId(creatorId).text("post").mediaUrls(mediaUrls).build());
+        Content reply = entityManager.persist(Content.builder().creatorId(creatorId).parentId(post.getId()).text("reply").mediaUrls(mediaUrls).build());
+        Content nested = entityManager.persist(Content.builder().creatorId(creatorId).parentId(reply.getId()).text("nested").mediaUrls(mediaUrls).build());
+        entityManager.persist(Content.builder().creatorId(creatorId).parentId(post.getId()).text("Deleted")
+                .mediaUrls(mediaUrls).deletedAt(LocalDateTime.now()).build());
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE content SET reply_count = 7 WHERE id = ?", nested.getId());
+        entityManager.clear();
+
+        PostCache postCache = mock(PostCache.class);
+        ThreadPageCache threadPageCache = mock(ThreadPageCache.class);
+
+        new ThreadRepairJob(jdbcTemplate, mock(StringRedisTemplate.class), postCache, threadPageCache, 2, 60).repair();
+
+        assertThat(contentRepository.findById(post.getId()).orElseThrow())
+                .extracting(Content::getReplyCount, Content::getRootId).containsExactly(1L, null);
+        assertThat(contentRepository.findById(reply.getId()).orElseThrow())
+                .extracting(Content::getReplyCount, Content::getRootId).containsExactly(1L, post.getId());
+        assertThat(contentRepository.findById(nested.getId()).orElseThrow())
+                .extracting(Content::getReplyCount, Content::getRootId).containsExactly(0L, post.getId());
+        //Only the drifted counts are evicted, with the threads of their parents
+        ArgumentCaptor<List<UUID>> evictedPosts = ArgumentCaptor.captor();
+        verify(postCache, atLeastOnce()).evict(evictedPosts.capture());
+        assertThat(evictedPosts.getAllValues().stream().flatMap(List::stream))
+                .containsExactlyInAnyOrder(post.getId(), reply.getId(), nested.getId());
+        ArgumentCaptor<Collection<UUID>> evictedThreads = ArgumentCaptor.captor();
+        verify(threadPageCache, atLeastOnce()).evict(evictedThreads.capture());
+        assertThat(evictedThreads.getAllValues().stream().flatMap(Collection::stream))
+                .containsOnly(post.getId(), reply.getId(), nested.getId());
+    }
+
+    @Test
+    void generatedIds_ShouldBeVersion7AndFollowInsertOrder() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(entityManager.persist(Content.builder().creatorId(creatorId).text(text).mediaUrls(mediaUrls).build()).getId());
+        }
+        entityManager.flush();
+
+        assertThat(ids).allSatisfy(id -> {
+            assertThat(id.version()).isEqualTo(7);
+            assertThat(UuidV7Generator.timestampOf(id)).isCloseTo(Instant.now(), within(1, ChronoUnit.MINUTES));
+        });
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM content ORDER BY id", UUID.class)).containsExactlyElementsOf(ids);
+    }
 }
@@ -0,0 +1,130 @@
+package com.socialmediatraining.contentservice.unittests.entity;
+
+import com.socialmediatraining.contentservice.dto.like.LikedContent;
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
+import com.socialmediatraining.contentservice.entity.Content;
+import com.socialmediatraining.contentservice.entity.ExternalUser;
+import com.socialmediatraining.contentservice.entity.UserContentLike;
+import com.socialmediatraining.contentservice.repository.UserContentLikeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class UserContentLikeJpaTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private UserContentLikeRepository userContentLikeRepository;
+    private ExternalUser user;
+    private Content content;
+
+    @BeforeEach
+    void setup(){
+        user = entityManager.persist(ExternalUser.builder()
+                .id(UUID.randomUUID())
+                .username("liker" + UUID.randomUUID())
+                .build());
+        content = entityManager.persistAndFlush(Content.builder()
+                .creatorId(user.getId())
+                .text("Liked content")
+                .build());
+    }
+
+    @Test
+    void insertIfAbsent_ShouldOnlyInsertFirstLike() {
+        int first = userContentLikeRepository.insertIfAbsent(UUID.randomUUID(), user.getId(), content.getId());
+        int second = userContentLikeRepository.insertIfAbsent(UUID.randomUUID(), user.getId(), content.getId());
+
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(userContentLikeRepository.existsByUserIdAndContentId(user.getId(), content.getId())).isTrue();
+    }
+
+    @Test
+    void insertIfAbsent_WhenContentDeletedOrMissing_ShouldInsertNothing() {
+        content.setDeletedAt(LocalDateTime.now());
+        entityManager.persistAndFlush(content);
+
+        assertThat(userContentLikeRepository.insertIfAbsent(UUID.randomUUID(), user.getId(), content.getId())).isZero();
+        assertThat(userContentLikeRepository.insertIfAbsent(UUID.randomUUID(), user.getId(), UUID.randomUUID())).isZero();
+    }
+
+    @Test
+    void deleteByUserIdAndContentId_ShouldReportWhetherLikeExisted() {
+        userContentLikeRepository.insertIfAbsent(UUID.randomUUID(), user.getId(), content.getId());
+
+        assertThat(userContentLikeRepository.deleteByUserIdAndContentId(user.getId(), content.getId())).isEqualTo(1);
+        assertThat(userContentLikeRepository.deleteByUserIdAndContentId(user.getId(), content.getId())).isZero();
+    }
+
+    @Test
+    void findContentIds_ShouldOnlyReturnContentsLikedByUser() {
+        Content other = entityManager.persistAndFlush(Content.builder()
+                .creatorId(user.getId())
+                .text("Not liked content")
+                .build());
+        userContentLikeRepository.insertIfAbsent(UUID.randomUUID(), user.getId(), content.getId());
+
+        assertThat(userContentLikeRepository.findContentIdsByUserId(user.getId(), Limit.of(10)))
+                .containsExactly(content.getId());
+        assertThat(userContentLikeRepository.findContentIdsByUserIdAndContentIdIn(user.getId(), List.of(content.getId(), other.getId())))
+                .containsExactly(content.getId());
+    }
+
+    @Test
+    void findLikedContents_ShouldPageByLikeTimeAndSkipDeletedContents() {
+        Content second = entityManager.persistAndFlush(Content.builder()
+                .creatorId(user.getId())
+                .text("Second liked content")
+                .build());
+        Content deleted = entityManager.persistAndFlush(Content.builder()
+                .creatorId(user.getId())
+                .text("Deleted liked content")
+                .build());
+        LocalDateTime now = LocalDateTime.now();
+        likeAt(content, now.minusMinutes(2));
+        likeAt(second, now.minusMinutes(1));
+        likeAt(deleted, now);
+        deleted.setDeletedAt(now);
+        entityManager.persistAndFlush(deleted);
+        entityManager.clear();
+
+        List<LikedContent> firstPage = userContentLikeRepository.findLikedContentsByUserIdAfter(user.getId(),
+                ContentCursor.START.createdAt(), ContentCursor.START.id(), PageRequest.of(0, 1));
+        List<LikedContent> secondPage = userContentLikeRepository.findLikedContentsByUserIdAfter(user.getId(),
+                firstPage.getLast().likedAt(), firstPage.getLast().likeId(), PageRequest.of(0, 1));
+        Page<LikedContent> offsetPage = userContentLikeRepository.findLikedContentsByUserId(user.getId(), PageRequest.of(0, 1));
+
+        assertThat(firstPage).extracting(LikedContent::id).containsExactly(second.getId());
+        assertThat(secondPage).extracting(LikedContent::id).containsExactly(content.getId());
+        assertThat(offsetPage.getTotalElements()).isEqualTo(2);
+        assertThat(userContentLikeRepository.countLikedContentsByUserId(user.getId())).isEqualTo(2);
+    }
+
+    //created_at is a creation timestamp, it is moved afterwards to get a deterministic like order
+    private void likeAt(Content likedContent, LocalDateTime likedAt) {
+        UserContentLike like = entityManager.persistAndFlush(UserContentLike.builder().user(user).content(likedContent).build());
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE user_content_like SET created_at = :likedAt WHERE id = :id")
+                .setParameter("likedAt", likedAt)
+                .setParameter("id", like.getId())
+                .executeUpdate();
+    }
+}
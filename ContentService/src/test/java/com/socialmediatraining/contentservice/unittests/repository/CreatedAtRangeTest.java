@@ -0,0 +1,47 @@
+package com.socialmediatraining.contentservice.unittests.repository;
+
+import com.socialmediatraining.contentservice.repository.CreatedAtRange;
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CreatedAtRangeTest {
+
+    private static UUID idAt(LocalDateTime createdAt) {
+        return UuidV7Generator.fromName(createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), new byte[]{1});
+    }
+
+    @Test
+    void of_WithVersion7Id_ShouldBoundAroundTheIdTime() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 10, 12, 0);
+
+        CreatedAtRange range = CreatedAtRange.of(idAt(createdAt));
+
+        assertThat(range.from()).isEqualTo(createdAt.minus(CreatedAtRange.SLACK));
+        assertThat(range.to()).isEqualTo(createdAt.plus(CreatedAtRange.SLACK));
+    }
+
+    @Test
+    void of_WithOtherIdVersion_ShouldNotBound() {
+        assertThat(CreatedAtRange.of(UUID.randomUUID())).isSameAs(CreatedAtRange.ANY);
+        assertThat(CreatedAtRange.of((UUID) null)).isSameAs(CreatedAtRange.ANY);
+    }
+
+    @Test
+    void of_WithSeveralIds_ShouldCoverEveryId() {
+        LocalDateTime oldest = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime newest = LocalDateTime.of(2025, 6, 1, 0, 0);
+
+        CreatedAtRange range = CreatedAtRange.of(List.of(idAt(newest), idAt(oldest), idAt(LocalDateTime.of(2024, 8, 1, 0, 0))));
+
+        assertThat(range).isEqualTo(new CreatedAtRange(oldest.minus(CreatedAtRange.SLACK), newest.plus(CreatedAtRange.SLACK)));
+        assertThat(CreatedAtRange.of(List.of(idAt(oldest), UUID.randomUUID()))).isSameAs(CreatedAtRange.ANY);
+        assertThat(CreatedAtRange.of(List.of())).isSameAs(CreatedAtRange.ANY);
+    }
+}
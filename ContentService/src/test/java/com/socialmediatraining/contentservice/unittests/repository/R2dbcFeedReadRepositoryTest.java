@@ -0,0 +1,178 @@
+package com.socialmediatraining.contentservice.unittests.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialmediatraining.contentservice.entity.Content;
+import com.socialmediatraining.contentservice.entity.ExternalUser;
+import com.socialmediatraining.contentservice.entity.UserFollow;
+import com.socialmediatraining.contentservice.repository.ContentRepository;
+import com.socialmediatraining.contentservice.repository.ExternalUserRepository;
+import com.socialmediatraining.contentservice.repository.R2dbcFeedReadRepository;
+import com.socialmediatraining.contentservice.repository.UserFollowRepository;
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Runs the feed queries on the r2dbc-h2 driver against the schema Hibernate creates. Rows are committed through JPA
+//(no test transaction) so the r2dbc connections see them
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class R2dbcFeedReadRepositoryTest {
+
+    private static final LocalDateTime START_CREATED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final UUID START_ID = new UUID(-1L, -1L);
+
+    @Autowired
+    private ContentRepository contentRepository;
+    @Autowired
+    private ExternalUserRepository externalUserRepository;
+    @Autowired
+    private UserFollowRepository userFollowRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Value("${spring.r2dbc.url}")
+    private String r2dbcUrl;
+    @Value("${spring.r2dbc.username}")
+    private String r2dbcUsername;
+    @Value("${spring.r2dbc.password}")
+    private String r2dbcPassword;
+
+    private R2dbcFeedReadRepository feedReadRepository;
+    private UUID creatorId;
+    private LocalDateTime since;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(r2dbcUrl).mutate()
+                .option(ConnectionFactoryOptions.USER, r2dbcUsername)
+                .option(ConnectionFactoryOptions.PASSWORD, r2dbcPassword)
+                .build();
+        feedReadRepository = new R2dbcFeedReadRepository(DatabaseClient.create(ConnectionFactories.get(options)), new ObjectMapper());
+        creatorId = externalUserRepository.save(ExternalUser.builder().id(UUID.randomUUID()).username("creator").build()).getId();
+        since = LocalDateTime.now().minusDays(180);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM user_content_like");
+        jdbcTemplate.update("DELETE FROM user_follow");
+        jdbcTemplate.update("DELETE FROM content");
+        jdbcTemplate.update("DELETE FROM external_user");
+    }
+
+    private Content saveContent(String text) {
+        return contentRepository.save(Content.builder().creatorId(creatorId).text(text)
+                .mediaUrls(new HashMap<>(Map.of("image", "https://media/" + text + ".png"))).build());
+    }
+
+    @Test
+    void findFeedPageAfter_ShouldWalkEveryContentOnceInCreatedAtThenIdOrder() {
+        for (int i = 0; i < 5; i++) {
+            saveContent("content" + i);
+        }
+        List<Content> saved = new ArrayList<>(contentRepository.findAll());
+        saved.sort(Comparator.comparing(Content::getCreatedAt)
+                .thenComparing((Content content) -> content.getId().toString())
+                .reversed());
+
+        List<UUID> walked = new ArrayList<>();
+        LocalDateTime createdAt = START_CREATED_AT;
+        UUID id = START_ID;
+        List<Content> page;
+        do {
+            page = feedReadRepository.findFeedPageAfter(List.of(creatorId), since, createdAt, id, 2).block();
+            page.forEach(content -> walked.add(content.getId()));
+            if (!page.isEmpty()) {
+                createdAt = page.getLast().getCreatedAt();
+                id = page.getLast().getId();
+            }
+        } while (page.size() == 2);
+
+        assertThat(walked).containsExactlyElementsOf(saved.stream().map(Content::getId).toList());
+    }
+
+    @Test
+    void feedQueries_ShouldExcludeDeletedContentAndContentOlderThanSince() {
+        Content recent = saveContent("recent");
+        Content old = saveContent("old");
+        Content deleted = saveContent("deleted");
+        //Moved a year back with an id of that time, as imported rows are
+        LocalDateTime oldCreatedAt = LocalDateTime.now().minusYears(1);
+        UUID oldId = UuidV7Generator.fromName(oldCreatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), new byte[]{1});
+        jdbcTemplate.update("UPDATE content SET created_at = ?, id = ? WHERE id = ?", oldCreatedAt, oldId, old.getId());
+        jdbcTemplate.update("UPDATE content SET deleted_at = ? WHERE id = ?", LocalDateTime.now(), deleted.getId());
+
+        StepVerifier.create(feedReadRepository.findFeedPageAfter(List.of(creatorId), since, START_CREATED_AT, START_ID, 10))
+                .assertNext(contents -> assertThat(contents).extracting(Content::getId).containsExactly(recent.getId()))
+                .verifyComplete();
+        StepVerifier.create(feedReadRepository.findFeedPage(List.of(creatorId), since, PageRequest.of(0, 10)))
+                .assertNext(page -> {
+                    assertThat(page.getContent()).extracting(Content::getId).containsExactly(recent.getId());
+                    assertThat(page.getTotalElements()).isEqualTo(1);
+                })
+                .verifyComplete();
+        StepVerifier.create(feedReadRepository.findVisibleByIds(List.of(recent.getId(), oldId, deleted.getId())))
+                .assertNext(contents -> assertThat(contents).extracting(Content::getId)
+                        .containsExactlyInAnyOrder(recent.getId(), oldId))
+                .verifyComplete();
+    }
+
+    @Test
+    void findFeedPage_ShouldReadEveryColumnOfTheRequestedPage() {
+        Content older = saveContent("older");
+        Content newer = saveContent("newer");
+        jdbcTemplate.update("UPDATE content SET created_at = ?, like_count = 4 WHERE id = ?", LocalDateTime.now().minusMinutes(1), older.getId());
+
+        StepVerifier.create(feedReadRepository.findFeedPage(List.of(creatorId, UUID.randomUUID()), since, PageRequest.of(1, 1)))
+                .assertNext(page -> {
+                    assertThat(page.getTotalElements()).isEqualTo(2);
+                    Content content = page.getContent().getFirst();
+                    assertThat(content.getId()).isEqualTo(older.getId());
+                    assertThat(content.getCreatorId()).isEqualTo(creatorId);
+                    assertThat(content.getText()).isEqualTo("older");
+                    assertThat(content.getLikeCount()).isEqualTo(4);
+                    assertThat(content.getMediaUrls()).containsEntry("image", "https://media/older.png");
+                })
+                .verifyComplete();
+        assertThat(newer.getId()).isNotEqualTo(older.getId());
+    }
+
+    @Test
+    void userQueries_ShouldReadUsersFollowsAndLikes() {
+        UUID followedId = UUID.randomUUID();
+        userFollowRepository.save(UserFollow.builder().followerId(creatorId).followedId(followedId).build());
+        Content liked = saveContent("liked");
+        Content notLiked = saveContent("notLiked");
+        jdbcTemplate.update("INSERT INTO user_content_like (id, user_id, content_id, created_at) VALUES (?, ?, ?, ?)",
+                UUID.randomUUID(), creatorId, liked.getId(), LocalDateTime.now());
+
+        StepVerifier.create(feedReadRepository.findUserIdByUsername("creator")).expectNext(creatorId).verifyComplete();
+        StepVerifier.create(feedReadRepository.findUserIdByUsername("unknown")).verifyComplete();
+        StepVerifier.create(feedReadRepository.findFollowedIds(creatorId)).expectNext(List.of(followedId)).verifyComplete();
+        StepVerifier.create(feedReadRepository.findLikedContentIds(creatorId, 10)).expectNext(List.of(liked.getId())).verifyComplete();
+        StepVerifier.create(feedReadRepository.findLikedContentIds(creatorId, List.of(liked.getId(), notLiked.getId())))
+                .expectNext(List.of(liked.getId()))
+                .verifyComplete();
+    }
+}
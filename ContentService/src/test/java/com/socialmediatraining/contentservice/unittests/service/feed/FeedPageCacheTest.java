@@ -0,0 +1,126 @@
+package com.socialmediatraining.contentservice.unittests.service.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.contentservice.service.feed.FeedPageCache;
+import com.socialmediatraining.dtoutils.dto.PageResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class FeedPageCacheTest {
+    @Mock
+    private ReactiveStringRedisTemplate reactiveRedisTemplate;
+    @Mock
+    private ReactiveHashOperations<String, Object, Object> hashOperations;
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private SimpleMeterRegistry meterRegistry;
+    private FeedPageCache feedPageCache;
+    private UUID userId;
+    private PageResponse<ContentResponse> page;
+
+    @BeforeEach
+    void setUp() {
+        when(reactiveRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(reactiveRedisTemplate.expire(anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        meterRegistry = new SimpleMeterRegistry();
+        feedPageCache = new FeedPageCache(reactiveRedisTemplate, redisTemplate, objectMapper, meterRegistry, 60);
+
+        userId = UUID.randomUUID();
+        page = new PageResponse<>(List.of(ContentResponse.create(UUID.randomUUID(), UUID.randomUUID(), null,
+                LocalDateTime.parse("2024-03-01T10:00:00"), LocalDateTime.parse("2024-03-01T10:00:00"),
+                "Cached content", null)), 0, 1, 1, 10);
+    }
+
+    @Test
+    void getOrLoad_WhenPageIsCached_ShouldNotCallLoader() throws Exception {
+        when(hashOperations.get("feed:pages:" + userId, "page:0:10"))
+                .thenReturn(Mono.just(objectMapper.writeValueAsString(page)));
+        AtomicInteger loads = new AtomicInteger();
+
+        StepVerifier.create(feedPageCache.getOrLoad(userId, "page:0:10", () -> {
+                    loads.incrementAndGet();
+                    return Flux.just(page);
+                }))
+                .expectNextMatches(cached -> "Cached content".equals(cached.content().getFirst().text()))
+                .verifyComplete();
+
+        assertThat(loads.get()).isZero();
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void getOrLoad_WhenPageIsMissing_ShouldLoadAndStorePage() {
+        when(hashOperations.get("feed:pages:" + userId, "page:0:10")).thenReturn(Mono.empty());
+        when(hashOperations.put(eq("feed:pages:" + userId), eq("page:0:10"), anyString())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(feedPageCache.getOrLoad(userId, "page:0:10", () -> Flux.just(page)))
+                .expectNext(page)
+                .verifyComplete();
+
+        verify(hashOperations).put(eq("feed:pages:" + userId), eq("page:0:10"), contains("Cached content"));
+        verify(reactiveRedisTemplate).expire("feed:pages:" + userId, Duration.ofSeconds(60));
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void getOrLoad_WhenRedisFails_ShouldStillReturnLoadedPage() {
+        when(hashOperations.get(anyString(), anyString())).thenReturn(Mono.error(new RuntimeException("Redis down")));
+        when(hashOperations.put(anyString(), anyString(), anyString())).thenReturn(Mono.error(new RuntimeException("Redis down")));
+
+        StepVerifier.create(feedPageCache.getOrLoad(userId, "page:0:10", () -> Flux.just(page)))
+                .expectNext(page)
+                .verifyComplete();
+    }
+
+    @Test
+    void evict_ShouldDeleteEveryReaderHash() {
+        String otherUserId = UUID.randomUUID().toString();
+
+        feedPageCache.evict(List.of(userId.toString(), otherUserId));
+
+        verify(redisTemplate).delete(List.of("feed:pages:" + userId, "feed:pages:" + otherUserId));
+    }
+
+    @Test
+    void evict_InTransaction_ShouldDeleteAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            feedPageCache.evict(List.of(userId.toString()));
+
+            verifyNoInteractions(redisTemplate);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(redisTemplate).delete(List.of("feed:pages:" + userId));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.socialmediatraining.contentservice.unittests.service.feed;
+
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.contentservice.entity.Content;
+import com.socialmediatraining.contentservice.repository.ContentRepository;
+import com.socialmediatraining.contentservice.service.feed.FeedStreamService;
+import com.socialmediatraining.contentservice.service.follow.FollowGraphService;
+import com.socialmediatraining.dtoutils.dto.NewContentNotification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class FeedStreamServiceTest {
+    @Mock
+    private ContentRepository contentRepository;
+    @Mock
+    private FollowGraphService followGraphService;
+
+    private FeedStreamService feedStreamService;
+    private UUID userId;
+    private UUID followedId;
+
+    @BeforeEach
+    void setUp() {
+        feedStreamService = new FeedStreamService(contentRepository, followGraphService, 16);
+        userId = UUID.randomUUID();
+        followedId = UUID.randomUUID();
+        when(followGraphService.findFollowedUserIds(userId)).thenReturn(Mono.just(List.of(followedId)));
+    }
+
+    private Content createContent(UUID creatorId) {
+        Content content = new Content();
+        content.setId(UUID.randomUUID());
+        content.setCreatorId(creatorId);
+        content.setText("Live content");
+        content.setCreatedAt(LocalDateTime.now());
+        when(contentRepository.findByIdAndDeletedAtIsNull(content.getId())).thenReturn(Optional.of(content));
+        return content;
+    }
+
+    private void publish(Content content) {
+        feedStreamService.onContentPublished(NewContentNotification.create(
+                content.getId().toString(), null, content.getCreatorId().toString(), "creator",
+                null, content.getCreatedAt().toString(), content.getText(), null));
+    }
+
+    @Test
+    void streamFeed_ShouldSendCurrentFeedThenNewContentsOfFollowedUsers() {
+        Content current = createContent(followedId);
+        Content live = createContent(followedId);
+
+        StepVerifier.create(feedStreamService.streamFeed(userId, Flux.just(ContentResponse.fromEntity(current))))
+                .expectNextMatches(content -> content.id().equals(current.getId()))
+                .then(() -> publish(live))
+                .expectNextMatches(content -> content.id().equals(live.getId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void streamFeed_ShouldIgnoreContentsOfUsersNotFollowed() {
+        Content other = createContent(UUID.randomUUID());
+        Content live = createContent(followedId);
+
+        StepVerifier.create(feedStreamService.streamFeed(userId, Flux.empty()))
+                .then(() -> {
+                    publish(other);
+                    publish(live);
+                })
+                .expectNextMatches(content -> content.id().equals(live.getId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void streamFeed_WhenContentPublishedDuringCurrentFeed_ShouldNotSendItTwice() {
+        Content live = createContent(followedId);
+        Flux<ContentResponse> currentFeed = Flux.defer(() -> {
+            publish(live);
+            return Flux.just(ContentResponse.fromEntity(live));
+        });
+
+        StepVerifier.create(feedStreamService.streamFeed(userId, currentFeed))
+                .expectNextMatches(content -> content.id().equals(live.getId()))
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void streamFeed_ShouldBuildLiveContentsFromEventsAndReadFolloweesOnce() {
+        Content first = createContent(followedId);
+        Content second = createContent(followedId);
+
+        StepVerifier.create(feedStreamService.streamFeed(userId, Flux.empty()))
+                .then(() -> {
+                    publish(first);
+                    publish(second);
+                })
+                .expectNextMatches(content -> content.id().equals(first.getId()) && content.text().equals("Live content"))
+                .expectNextMatches(content -> content.id().equals(second.getId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        verify(contentRepository, never()).findByIdAndDeletedAtIsNull(any());
+        verify(followGraphService, times(1)).findFollowedUserIds(userId);
+    }
+
+    @Test
+    void streamFeed_WhenEventHasNoContent_ShouldLoadIt() {
+        Content live = createContent(followedId);
+
+        StepVerifier.create(feedStreamService.streamFeed(userId, Flux.empty()))
+                .then(() -> feedStreamService.onContentPublished(NewContentNotification.create(
+                        live.getId().toString(), null, followedId.toString(), "creator")))
+                .expectNextMatches(content -> content.id().equals(live.getId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void onContentPublished_WhenNoStreamIsOpen_ShouldNotLoadContent() {
+        feedStreamService.onContentPublished(NewContentNotification.create(
+                UUID.randomUUID().toString(), null, followedId.toString(), "creator"));
+
+        verify(contentRepository, never()).findByIdAndDeletedAtIsNull(any());
+    }
+}
@@ -0,0 +1,315 @@
+package com.socialmediatraining.contentservice.unittests.service.feed;
+
+import com.socialmediatraining.contentservice.entity.Content;
+import com.socialmediatraining.contentservice.repository.FeedReadRepository;
+import com.socialmediatraining.contentservice.service.partition.ContentPartitionService;
+import com.socialmediatraining.contentservice.service.feed.FeedPageCache;
+import com.socialmediatraining.contentservice.service.feed.HomeTimelineService;
+import com.socialmediatraining.dtoutils.dto.UserFollowNotification;
+import com.socialmediatraining.dtoutils.dto.UserFollowerCount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.core.ReactiveSetOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HomeTimelineServiceTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+    @Mock
+    private SetOperations<String, String> setOperations;
+    @Mock
+    private ReactiveStringRedisTemplate reactiveRedisTemplate;
+    @Mock
+    private ReactiveZSetOperations<String, String> reactiveZSetOperations;
+    @Mock
+    private ReactiveSetOperations<String, String> reactiveSetOperations;
+    @Mock
+    private FeedReadRepository feedReadRepository;
+    @Mock
+    private FeedPageCache feedPageCache;
+    @Mock
+    private ContentPartitionService contentPartitionService;
+
+    private HomeTimelineService homeTimelineService;
+    private SimpleMeterRegistry meterRegistry;
+    private UUID userId;
+    private Content testContent;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(reactiveRedisTemplate.opsForZSet()).thenReturn(reactiveZSetOperations);
+        when(reactiveRedisTemplate.opsForSet()).thenReturn(reactiveSetOperations);
+        when(reactiveSetOperations.members(anyString())).thenReturn(Flux.empty());
+        when(reactiveRedisTemplate.expire(anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        meterRegistry = new SimpleMeterRegistry();
+        homeTimelineService = new HomeTimelineService(redisTemplate, reactiveRedisTemplate, feedReadRepository, feedPageCache, contentPartitionService, meterRegistry,
+                800, 86400, "hybrid", 10000);
+
+        userId = UUID.randomUUID();
+        testContent = new Content();
+        testContent.setId(UUID.randomUUID());
+        testContent.setCreatorId(UUID.randomUUID());
+        testContent.setCreatedAt(LocalDateTime.now());
+    }
+
+    @Test
+    void readHomeTimeline_WhenTimelineIsCold_ShouldReturnEmpty() {
+        when(reactiveZSetOperations.size("timeline:home:" + userId)).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(homeTimelineService.readHomeTimeline(userId, PageRequest.of(0, 10)))
+                .verifyComplete();
+        verify(reactiveZSetOperations, never()).reverseRange(anyString(), any());
+    }
+
+    @Test
+    void readHomeTimeline_WhenTimelineIsWarm_ShouldReturnRequestedRange() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(reactiveZSetOperations.size("timeline:home:" + userId)).thenReturn(Mono.just(42L));
+        when(reactiveZSetOperations.reverseRange("timeline:home:" + userId, Range.closed(20L, 29L)))
+                .thenReturn(Flux.just(first.toString(), second.toString()));
+
+        StepVerifier.create(homeTimelineService.readHomeTimeline(userId, PageRequest.of(2, 10)))
+                .assertNext(slice -> {
+                    assertThat(slice.contentIds()).containsExactly(first, second);
+                    assertThat(slice.totalItems()).isEqualTo(42L);
+                })
+                .verifyComplete();
+        assertThat(meterRegistry.get("timeline.read").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void fanOut_ShouldWriteAuthorTimelineAndPushToFollowers() {
+        when(setOperations.members("timeline:followers:" + testContent.getCreatorId()))
+                .thenReturn(Set.of(userId.toString()));
+
+        homeTimelineService.fanOut(testContent);
+
+        verify(zSetOperations).add(eq("timeline:author:" + testContent.getCreatorId()), eq(testContent.getId().toString()), anyDouble());
+        verify(redisTemplate).expire("timeline:author:" + testContent.getCreatorId(), Duration.ofSeconds(86400));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("timeline:home:" + userId)),
+                anyString(), eq(testContent.getId().toString()), eq("800"));
+        verify(feedPageCache).evict(Set.of(userId.toString()));
+    }
+
+    @Test
+    void fanOut_WhenAuthorIsCelebrity_ShouldOnlyWriteAuthorTimeline() {
+        when(setOperations.isMember("timeline:celebrities", testContent.getCreatorId().toString())).thenReturn(true);
+
+        homeTimelineService.fanOut(testContent);
+
+        verify(zSetOperations).add(eq("timeline:author:" + testContent.getCreatorId()), eq(testContent.getId().toString()), anyDouble());
+        verify(setOperations, never()).members("timeline:followers:" + testContent.getCreatorId());
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        assertThat(meterRegistry.get("timeline.fanout.writes").summary().totalAmount()).isEqualTo(1.0);
+    }
+
+    @Test
+    void fanOut_WhenPushMode_ShouldIgnoreCelebrityStatus() {
+        HomeTimelineService pushTimelineService = new HomeTimelineService(redisTemplate, reactiveRedisTemplate, feedReadRepository, feedPageCache,
+                contentPartitionService, meterRegistry, 800, 86400, "push", 10000);
+        when(setOperations.members("timeline:followers:" + testContent.getCreatorId()))
+                .thenReturn(Set.of(userId.toString()));
+
+        pushTimelineService.fanOut(testContent);
+
+        verify(setOperations, never()).isMember(anyString(), any());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("timeline:home:" + userId)),
+                anyString(), eq(testContent.getId().toString()), eq("800"));
+    }
+
+    @Test
+    void readHomeTimeline_WhenFollowingCelebrity_ShouldMergeAuthorTimelineByScore() {
+        String celebrityId = UUID.randomUUID().toString();
+        UUID newest = UUID.randomUUID();
+        UUID middle = UUID.randomUUID();
+        UUID oldest = UUID.randomUUID();
+        when(reactiveZSetOperations.size("timeline:home:" + userId)).thenReturn(Mono.just(2L));
+        when(reactiveZSetOperations.size("timeline:author:" + celebrityId)).thenReturn(Mono.just(1L));
+        when(reactiveSetOperations.members("timeline:followed-celebrities:" + userId)).thenReturn(Flux.just(celebrityId));
+        when(reactiveZSetOperations.reverseRangeWithScores("timeline:home:" + userId, Range.closed(0L, 1L))).thenReturn(Flux.just(
+                ZSetOperations.TypedTuple.of(middle.toString(), 20.0),
+                ZSetOperations.TypedTuple.of(oldest.toString(), 10.0)));
+        when(reactiveZSetOperations.reverseRangeWithScores("timeline:author:" + celebrityId, Range.closed(0L, 1L))).thenReturn(Flux.just(
+                ZSetOperations.TypedTuple.of(newest.toString(), 30.0)));
+
+        StepVerifier.create(homeTimelineService.readHomeTimeline(userId, PageRequest.of(0, 2)))
+                .assertNext(slice -> {
+                    assertThat(slice.contentIds()).containsExactly(newest, middle);
+                    assertThat(slice.totalItems()).isEqualTo(3L);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void readHomeTimeline_WhenCelebrityTimelineExpired_ShouldReloadItThroughFeedRepository() {
+        String celebrityId = UUID.randomUUID().toString();
+        Content celebrityPost = new Content();
+        celebrityPost.setId(UUID.randomUUID());
+        celebrityPost.setCreatedAt(LocalDateTime.now());
+        when(reactiveZSetOperations.size("timeline:home:" + userId)).thenReturn(Mono.just(1L));
+        when(reactiveZSetOperations.size("timeline:author:" + celebrityId)).thenReturn(Mono.just(1L));
+        when(reactiveSetOperations.members("timeline:followed-celebrities:" + userId)).thenReturn(Flux.just(celebrityId));
+        when(reactiveZSetOperations.reverseRangeWithScores(eq("timeline:home:" + userId), any())).thenReturn(Flux.empty());
+        when(reactiveZSetOperations.reverseRangeWithScores(eq("timeline:author:" + celebrityId), any())).thenReturn(Flux.empty());
+        when(feedReadRepository.findFeedPageAfter(eq(List.of(UUID.fromString(celebrityId))), any(), any(), any(), eq(800)))
+                .thenReturn(Mono.just(List.of(celebrityPost)));
+        when(reactiveZSetOperations.addAll(eq("timeline:author:" + celebrityId), anyCollection())).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(homeTimelineService.readHomeTimeline(userId, PageRequest.of(0, 10)))
+                .assertNext(slice -> assertThat(slice.contentIds()).containsExactly(celebrityPost.getId()))
+                .verifyComplete();
+        verify(reactiveRedisTemplate).expire("timeline:author:" + celebrityId, Duration.ofSeconds(86400));
+    }
+
+    @Test
+    void readHomeTimelineAfter_ShouldSkipEntriesAtOrBeforeCursor() {
+        LocalDateTime createdAt = LocalDateTime.parse("2024-03-01T10:00:00");
+        double score = createdAt.toInstant(java.time.ZoneOffset.UTC).toEpochMilli();
+        String cursorId = "50000000-0000-0000-0000-000000000000";
+        String tieBefore = "40000000-0000-0000-0000-000000000000";
+        String tieAfter = "60000000-0000-0000-0000-000000000000";
+        String older = UUID.randomUUID().toString();
+        when(reactiveZSetOperations.size("timeline:home:" + userId)).thenReturn(Mono.just(10L));
+        when(reactiveZSetOperations.reverseRangeByScoreWithScores("timeline:home:" + userId, Range.closed(score, score))).thenReturn(Flux.just(
+                ZSetOperations.TypedTuple.of(tieAfter, score),
+                ZSetOperations.TypedTuple.of(cursorId, score),
+                ZSetOperations.TypedTuple.of(tieBefore, score)));
+        when(reactiveZSetOperations.reverseRangeByScoreWithScores(eq("timeline:home:" + userId),
+                eq(Range.leftUnbounded(Range.Bound.inclusive(Math.nextDown(score)))), any(Limit.class))).thenReturn(Flux.just(
+                ZSetOperations.TypedTuple.of(older, score - 1000)));
+
+        StepVerifier.create(homeTimelineService.readHomeTimelineAfter(userId, createdAt, UUID.fromString(cursorId), 3))
+                .assertNext(slice -> assertThat(slice.contentIds()).containsExactly(UUID.fromString(tieBefore), UUID.fromString(older)))
+                .verifyComplete();
+    }
+
+    @Test
+    void rebuildHomeTimeline_ShouldLoadPushedAuthorsThroughFeedRepositoryAndSkipCelebrities() {
+        String authorId = testContent.getCreatorId().toString();
+        String celebrityId = UUID.randomUUID().toString();
+        when(reactiveSetOperations.isMember("timeline:celebrities", authorId, celebrityId))
+                .thenReturn(Mono.just(java.util.Map.of(authorId, false, celebrityId, true)));
+        when(feedReadRepository.findFeedPageAfter(eq(List.of(testContent.getCreatorId())), any(), any(), any(), eq(800)))
+                .thenReturn(Mono.just(List.of(testContent)));
+        when(reactiveSetOperations.add(anyString(), any(String[].class))).thenReturn(Mono.just(1L));
+        when(reactiveRedisTemplate.delete(any(String[].class))).thenReturn(Mono.just(1L));
+        when(reactiveZSetOperations.addAll(anyString(), anyCollection())).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(homeTimelineService.rebuildHomeTimeline(userId, List.of(authorId, celebrityId)))
+                .verifyComplete();
+
+        verify(reactiveZSetOperations).addAll(eq("timeline:home:" + userId), argThat(entries -> entries.size() == 1));
+        verify(reactiveSetOperations).add("timeline:followed-celebrities:" + userId, celebrityId);
+        verify(reactiveRedisTemplate).expire("timeline:followers:" + authorId, Duration.ofSeconds(86400));
+    }
+
+    @Test
+    void onFollowerCountChanged_WhenCrossingThreshold_ShouldPromoteToCelebrity() {
+        String authorId = UUID.randomUUID().toString();
+        when(setOperations.isMember("timeline:celebrities", authorId)).thenReturn(false);
+
+        homeTimelineService.onFollowerCountChanged(UserFollowerCount.create(authorId, "celebrity", 10000));
+
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void onFollowerCountChanged_WhenStillBelowThreshold_ShouldDoNothing() {
+        String authorId = UUID.randomUUID().toString();
+        when(setOperations.isMember("timeline:celebrities", authorId)).thenReturn(false);
+
+        homeTimelineService.onFollowerCountChanged(UserFollowerCount.create(authorId, "regular", 9999));
+
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void fanOut_WhenRedisFails_ShouldNotPropagateException() {
+        when(zSetOperations.add(anyString(), anyString(), anyDouble())).thenThrow(new RuntimeException("Redis down"));
+
+        homeTimelineService.fanOut(testContent);
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void onNewFollower_WhenFollowerTimelineIsCold_ShouldOnlyRegisterFollower() {
+        UUID followedId = UUID.randomUUID();
+        when(redisTemplate.hasKey("timeline:home:" + userId)).thenReturn(false);
+
+        homeTimelineService.onNewFollower(UserFollowNotification.create(
+                followedId.toString(), "followed", userId.toString(), "follower"));
+
+        verify(setOperations).add("timeline:followers:" + followedId, userId.toString());
+        verify(redisTemplate).expire("timeline:followers:" + followedId, Duration.ofSeconds(86400));
+        verify(zSetOperations, never()).add(anyString(), anySet());
+        verify(feedPageCache).evict(List.of(userId.toString()));
+    }
+
+    @Test
+    void onUnfollow_WhenFollowerTimelineIsWarm_ShouldRemoveAuthorPosts() {
+        UUID followedId = UUID.randomUUID();
+        when(redisTemplate.hasKey("timeline:home:" + userId)).thenReturn(true);
+        when(zSetOperations.rangeWithScores("timeline:author:" + followedId, 0, -1))
+                .thenReturn(Set.of(ZSetOperations.TypedTuple.of(testContent.getId().toString(), 1.0)));
+
+        homeTimelineService.onUnfollow(UserFollowNotification.create(
+                followedId.toString(), "followed", userId.toString(), "follower"));
+
+        verify(setOperations).remove("timeline:followers:" + followedId, userId.toString());
+        verify(zSetOperations).remove("timeline:home:" + userId, testContent.getId().toString());
+    }
+
+    @Test
+    void onNewFollower_WhenAuthorTimelineExpired_ShouldReloadItWithinTheFeedHorizon() {
+        UUID followedId = UUID.randomUUID();
+        LocalDateTime horizon = LocalDateTime.now().minusDays(30);
+        when(redisTemplate.hasKey("timeline:home:" + userId)).thenReturn(true);
+        when(zSetOperations.rangeWithScores("timeline:author:" + followedId, 0, -1)).thenReturn(Set.of());
+        when(contentPartitionService.feedHorizon()).thenReturn(horizon);
+        when(feedReadRepository.findFeedPageAfter(eq(List.of(followedId)), eq(horizon), any(), any(), eq(800)))
+                .thenReturn(Mono.just(List.of(testContent)));
+        when(reactiveZSetOperations.addAll(eq("timeline:author:" + followedId), anyCollection())).thenReturn(Mono.just(1L));
+
+        homeTimelineService.onNewFollower(UserFollowNotification.create(
+                followedId.toString(), "followed", userId.toString(), "follower"));
+
+        verify(zSetOperations).add(eq("timeline:home:" + userId), argThat(entries -> entries.size() == 1));
+        verify(reactiveRedisTemplate).expire("timeline:author:" + followedId, Duration.ofSeconds(86400));
+    }
+}
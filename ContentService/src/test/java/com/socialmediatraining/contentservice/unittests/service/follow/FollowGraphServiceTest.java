@@ -0,0 +1,143 @@
+package com.socialmediatraining.contentservice.unittests.service.follow;
+
+import com.socialmediatraining.contentservice.entity.UserFollow;
+import com.socialmediatraining.contentservice.repository.FeedReadRepository;
+import com.socialmediatraining.contentservice.repository.UserFollowRepository;
+import com.socialmediatraining.contentservice.service.feed.HomeTimelineService;
+import com.socialmediatraining.contentservice.service.follow.FollowGraphService;
+import com.socialmediatraining.dtoutils.dto.UserFollowNotification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class FollowGraphServiceTest {
+    @Mock
+    private UserFollowRepository userFollowRepository;
+    @Mock
+    private HomeTimelineService homeTimelineService;
+    @Mock
+    private FeedReadRepository feedReadRepository;
+
+    private FollowGraphService followGraphService;
+    private UUID followerId;
+    private UUID followedId;
+    private UserFollowNotification notification;
+
+    @BeforeEach
+    void setUp() {
+        followGraphService = new FollowGraphService(userFollowRepository, homeTimelineService, feedReadRepository, 1000, 300);
+        followerId = UUID.randomUUID();
+        followedId = UUID.randomUUID();
+        notification = UserFollowNotification.create(followedId.toString(), "followed", followerId.toString(), "follower");
+    }
+
+    @Test
+    void getFollowedUserIds_ShouldLoadFromTableOnlyOnce() {
+        when(userFollowRepository.findFollowedIdsByFollowerId(followerId)).thenReturn(List.of(followedId));
+
+        followGraphService.getFollowedUserIds(followerId);
+        List<UUID> result = followGraphService.getFollowedUserIds(followerId);
+
+        assertThat(result).containsExactly(followedId);
+        verify(userFollowRepository, times(1)).findFollowedIdsByFollowerId(followerId);
+    }
+
+    @Test
+    void findFollowedUserIds_ShouldLoadThroughFeedRepositoryOnlyOnce() {
+        when(feedReadRepository.findFollowedIds(followerId)).thenReturn(Mono.just(List.of(followedId)));
+
+        StepVerifier.create(followGraphService.findFollowedUserIds(followerId)).expectNext(List.of(followedId)).verifyComplete();
+        StepVerifier.create(followGraphService.findFollowedUserIds(followerId)).expectNext(List.of(followedId)).verifyComplete();
+
+        verify(feedReadRepository, times(1)).findFollowedIds(followerId);
+        verifyNoInteractions(userFollowRepository);
+    }
+
+    @Test
+    void onNewFollower_ShouldPersistEdgeUpdateAdjacencyThenTimeline() {
+        when(userFollowRepository.findFollowedIdsByFollowerId(followerId)).thenReturn(List.of());
+        followGraphService.getFollowedUserIds(followerId);
+        when(userFollowRepository.existsByFollowerIdAndFollowedId(followerId, followedId)).thenReturn(false);
+
+        followGraphService.onNewFollower(notification);
+
+        InOrder inOrder = inOrder(userFollowRepository, homeTimelineService);
+        inOrder.verify(userFollowRepository).save(any(UserFollow.class));
+        inOrder.verify(homeTimelineService).onNewFollower(notification);
+        assertThat(followGraphService.getFollowedUserIds(followerId)).containsExactly(followedId);
+    }
+
+    @Test
+    void onNewFollower_WhenEventIsReplayed_ShouldNotDuplicateEdge() {
+        when(userFollowRepository.findFollowedIdsByFollowerId(followerId)).thenReturn(List.of(followedId));
+        followGraphService.getFollowedUserIds(followerId);
+        when(userFollowRepository.existsByFollowerIdAndFollowedId(followerId, followedId)).thenReturn(true);
+
+        followGraphService.onNewFollower(notification);
+
+        verify(userFollowRepository, never()).save(any(UserFollow.class));
+        assertThat(followGraphService.getFollowedUserIds(followerId)).containsExactly(followedId);
+    }
+
+    @Test
+    void onUnfollow_ShouldRemoveEdgeFromTableAndAdjacency() {
+        UUID otherFollowedId = UUID.randomUUID();
+        when(userFollowRepository.findFollowedIdsByFollowerId(followerId)).thenReturn(List.of(followedId, otherFollowedId));
+        followGraphService.getFollowedUserIds(followerId);
+
+        followGraphService.onUnfollow(notification);
+
+        verify(userFollowRepository).deleteByFollowerIdAndFollowedId(followerId, followedId);
+        verify(homeTimelineService).onUnfollow(notification);
+        assertThat(followGraphService.getFollowedUserIds(followerId)).containsExactly(otherFollowedId);
+    }
+
+    @Test
+    void onFollowBroadcasts_ShouldOnlyUpdateLoadedAdjacency() {
+        UUID otherFollowedId = UUID.randomUUID();
+        UserFollowNotification otherNotification = UserFollowNotification.create(
+                otherFollowedId.toString(), "other", followerId.toString(), "follower");
+        when(userFollowRepository.findFollowedIdsByFollowerId(followerId)).thenReturn(List.of(followedId));
+        followGraphService.getFollowedUserIds(followerId);
+
+        followGraphService.onNewFollowerBroadcast(otherNotification);
+        followGraphService.onUnfollowBroadcast(notification);
+        followGraphService.onNewFollowerBroadcast(UserFollowNotification.create(
+                followedId.toString(), "followed", UUID.randomUUID().toString(), "not loaded"));
+
+        assertThat(followGraphService.getFollowedUserIds(followerId)).containsExactly(otherFollowedId);
+        verify(userFollowRepository, never()).save(any(UserFollow.class));
+        verify(userFollowRepository, never()).deleteByFollowerIdAndFollowedId(any(), any());
+        verifyNoInteractions(homeTimelineService);
+    }
+
+    @Test
+    void shouldBootstrap_ShouldOnlyBeTrueOncePerUser() {
+        assertThat(followGraphService.shouldBootstrap(followerId)).isTrue();
+        assertThat(followGraphService.shouldBootstrap(followerId)).isFalse();
+    }
+
+    @Test
+    void shouldBootstrap_AfterTimeToLive_ShouldBeTrueAgain() {
+        followGraphService = new FollowGraphService(userFollowRepository, homeTimelineService, feedReadRepository, 1000, 0);
+
+        assertThat(followGraphService.shouldBootstrap(followerId)).isTrue();
+        assertThat(followGraphService.shouldBootstrap(followerId)).isTrue();
+    }
+}
@@ -0,0 +1,151 @@
+package com.socialmediatraining.contentservice.unittests.service.like;
+
+import com.socialmediatraining.contentservice.repository.CreatedAtRange;
+import com.socialmediatraining.contentservice.service.like.LikeCounterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LikeCounterServiceTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LikeCounterService likeCounterService;
+    private UUID contentId;
+    private String batchId;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("likes:flush-lock"), anyString(), any(Duration.class))).thenReturn(true);
+        likeCounterService = new LikeCounterService(redisTemplate, jdbcTemplate, transactionManager, 2, 30);
+        contentId = UUID.randomUUID();
+        batchId = UUID.randomUUID().toString();
+    }
+
+    @Test
+    void increment_ShouldOnlyIncrementRedisCounter() {
+        likeCounterService.increment(contentId);
+
+        verify(hashOperations).increment("likes:pending", contentId.toString(), 1L);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void decrement_WhenRedisFails_ShouldUpdateDatabaseDirectly() {
+        when(hashOperations.increment(anyString(), any(), anyLong())).thenThrow(new RuntimeException("Redis down"));
+
+        likeCounterService.decrement(contentId);
+
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+        CreatedAtRange range = CreatedAtRange.of(contentId);
+        assertThat(updates.getValue()).containsExactly(new Object[]{-1L, contentId, range.from(), range.to()});
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldApplyPendingDeltasInBatchesAndSkipZeroDeltas() {
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(redisTemplate.hasKey("likes:flushing")).thenReturn(false);
+        when(redisTemplate.hasKey("likes:pending")).thenReturn(true);
+        when(hashOperations.entries("likes:flushing")).thenReturn(Map.of(
+                contentId.toString(), "3",
+                second.toString(), "0",
+                third.toString(), "-1",
+                UUID.randomUUID().toString(), "5",
+                "batch-id", batchId));
+
+        likeCounterService.flush();
+
+        verify(redisTemplate).rename("likes:pending", "likes:flushing");
+        verify(hashOperations).putIfAbsent(eq("likes:flushing"), eq("batch-id"), anyString());
+        verify(jdbcTemplate).update(startsWith("INSERT INTO like_count_flush"), eq(UUID.fromString(batchId)), any(LocalDateTime.class));
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), updates.capture());
+        assertThat(updates.getAllValues().stream().mapToInt(List::size).sum()).isEqualTo(3);
+        verify(redisTemplate).delete("likes:flushing");
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("likes:flush-lock")), anyString());
+    }
+
+    @Test
+    void flush_WhenPreviousFlushFailed_ShouldApplyLeftoverDeltasFirst() {
+        when(redisTemplate.hasKey("likes:flushing")).thenReturn(true);
+        when(hashOperations.entries("likes:flushing")).thenReturn(Map.of(contentId.toString(), "2", "batch-id", batchId));
+
+        likeCounterService.flush();
+
+        verify(redisTemplate, never()).rename(anyString(), anyString());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void flush_WhenDatabaseFails_ShouldKeepDeltasForNextFlush() {
+        when(redisTemplate.hasKey("likes:flushing")).thenReturn(true);
+        when(hashOperations.entries("likes:flushing")).thenReturn(Map.of(contentId.toString(), "2", "batch-id", batchId));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("Database down"));
+
+        likeCounterService.flush();
+
+        verify(redisTemplate, never()).delete("likes:flushing");
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("likes:flush-lock")), anyString());
+        verify(redisTemplate, never()).delete("likes:flush-lock");
+    }
+
+    @Test
+    void flush_WhenBatchWasAlreadyApplied_ShouldOnlyDropTheHash() {
+        when(redisTemplate.hasKey("likes:flushing")).thenReturn(true);
+        when(hashOperations.entries("likes:flushing")).thenReturn(Map.of(contentId.toString(), "2", "batch-id", batchId));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(UUID.fromString(batchId)))).thenReturn(1);
+
+        likeCounterService.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verify(redisTemplate).delete("likes:flushing");
+    }
+
+    @Test
+    void flush_WhenAnotherInstanceHoldsLock_ShouldDoNothing() {
+        when(valueOperations.setIfAbsent(eq("likes:flush-lock"), anyString(), any(Duration.class))).thenReturn(false);
+
+        likeCounterService.flush();
+
+        verify(redisTemplate, never()).hasKey(anyString());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
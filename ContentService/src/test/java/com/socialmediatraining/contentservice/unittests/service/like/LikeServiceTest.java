@@ -1,17 +1,22 @@
 package com.socialmediatraining.contentservice.unittests.service.like;
 
+import com.socialmediatraining.contentservice.dto.like.LikeResult;
+import com.socialmediatraining.contentservice.dto.like.LikedContent;
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
 import com.socialmediatraining.contentservice.dto.post.ContentResponse;
 import com.socialmediatraining.contentservice.entity.Content;
 import com.socialmediatraining.contentservice.entity.ExternalUser;
-import com.socialmediatraining.contentservice.entity.UserContentLike;
 import com.socialmediatraining.contentservice.repository.ContentRepository;
 import com.socialmediatraining.contentservice.repository.UserContentLikeRepository;
+import com.socialmediatraining.contentservice.service.like.LikeCounterService;
 import com.socialmediatraining.contentservice.service.like.LikeService;
+import com.socialmediatraining.contentservice.service.like.LikedContentService;
+import com.socialmediatraining.contentservice.service.post.PostCache;
 import com.socialmediatraining.contentservice.service.user.UserCacheService;
 import com.socialmediatraining.dtoutils.dto.PageResponse;
 import com.socialmediatraining.dtoutils.dto.SimpleUserDataObject;
+import com.socialmediatraining.dtoutils.dto.UserLikeNotification;
 import com.socialmediatraining.exceptioncommons.exception.PostNotFoundException;
-import com.socialmediatraining.exceptioncommons.exception.UserActionForbiddenException;
 import com.socialmediatraining.exceptioncommons.exception.UserDoesntExistsException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,9 +25,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
+import org.springframework.kafka.core.KafkaTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -42,6 +49,14 @@ class LikeServiceTest {
     private UserContentLikeRepository userContentLikeRepository;
     @Mock
     private UserCacheService userCacheService;
+    @Mock
+    private LikeCounterService likeCounterService;
+    @Mock
+    private LikedContentService likedContentService;
+    @Mock
+    private KafkaTemplate<String, UserLikeNotification> userLikeKafkaTemplate;
+    @Mock
+    private PostCache postCache;
     @InjectMocks
     private LikeService likeService;
 
@@ -64,60 +79,103 @@ class LikeServiceTest {
     }
 
     @Test
-    void likeContent_WhenValidInput_ShouldReturnSuccessMessage() {
-        when(userCacheService.getExternalUserByUsername(anyString())).thenReturn(testUser);
-        when(contentRepository.findByIdAndDeletedAtIsNull(any(UUID.class))).thenReturn(Optional.of(testContent));
-        when(userContentLikeRepository.existsByUserIdAndContentId(any(UUID.class), any(UUID.class))).thenReturn(false);
-        when(userContentLikeRepository.save(any(UserContentLike.class))).thenReturn(new UserContentLike());
+    void likeContent_WhenValidInput_ShouldInsertLikeAndCountIt() {
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(userContentLikeRepository.insertIfAbsent(any(UUID.class), eq(testUser.getId()), eq(testContent.getId()))).thenReturn(1);
+
+        LikeResult result = likeService.likeContent(VALID_HEADER, testContent.getId());
+
+        assertThat(result.changed()).isTrue();
+        assertThat(result.message()).contains("liked post with userId");
+        verify(contentRepository, never()).existsByIdAndDeletedAtIsNull(any(UUID.class));
+        verify(likeCounterService).increment(testContent.getId());
+        verify(likedContentService).onLiked(testUser.getId(), testContent.getId());
+    }
+
+    @Test
+    void likeContent_WhenLiked_ShouldPublishLikeKeyedByContent() {
+        UUID creatorId = UUID.randomUUID();
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(userContentLikeRepository.insertIfAbsent(any(UUID.class), eq(testUser.getId()), eq(testContent.getId()))).thenReturn(1);
+        when(contentRepository.findCreatorIdById(testContent.getId())).thenReturn(Optional.of(creatorId));
+
+        likeService.likeContent(VALID_HEADER, testContent.getId());
+
+        verify(userLikeKafkaTemplate).send("new-like", testContent.getId().toString(), UserLikeNotification.create(
+                creatorId.toString(), testContent.getId().toString(), testUser.getId().toString(), testUser.getUsername()));
+    }
+
+    @Test
+    void likeContent_WhenPostIsCached_ShouldPublishLikeWithoutReadingTheCreator() {
+        UUID creatorId = UUID.randomUUID();
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(userContentLikeRepository.insertIfAbsent(any(UUID.class), eq(testUser.getId()), eq(testContent.getId()))).thenReturn(1);
+        when(postCache.getLocal(testContent.getId())).thenReturn(Optional.of(ContentResponse.create(testContent.getId(), creatorId,
+                null, testContent.getCreatedAt(), testContent.getCreatedAt(), "text", Map.of())));
+
+        likeService.likeContent(VALID_HEADER, testContent.getId());
+
+        verify(contentRepository, never()).findCreatorIdById(any(UUID.class));
+        verify(userLikeKafkaTemplate).send("new-like", testContent.getId().toString(), UserLikeNotification.create(
+                creatorId.toString(), testContent.getId().toString(), testUser.getId().toString(), testUser.getUsername()));
+    }
 
-        String result = likeService.likeContent(VALID_HEADER, testContent.getId());
+    @Test
+    void likeContent_WhenLikingOwnContent_ShouldNotPublishLike() {
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(userContentLikeRepository.insertIfAbsent(any(UUID.class), eq(testUser.getId()), eq(testContent.getId()))).thenReturn(1);
+        when(contentRepository.findCreatorIdById(testContent.getId())).thenReturn(Optional.of(testUser.getId()));
 
-        assertThat(result).contains("liked post with userId");
-        verify(userContentLikeRepository).save(any(UserContentLike.class));
+        likeService.likeContent(VALID_HEADER, testContent.getId());
+
+        verify(userLikeKafkaTemplate, never()).send(anyString(), anyString(), any(UserLikeNotification.class));
     }
 
     @Test
     void likeContent_WhenPostNotFound_ShouldThrowException() {
-        when(userCacheService.getExternalUserByUsername(anyString())).thenReturn(testUser);
-        when(contentRepository.findByIdAndDeletedAtIsNull(any(UUID.class))).thenReturn(Optional.empty());
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(userContentLikeRepository.insertIfAbsent(any(UUID.class), any(UUID.class), any(UUID.class))).thenReturn(0);
+        when(contentRepository.existsByIdAndDeletedAtIsNull(testContent.getId())).thenReturn(false);
 
         assertThrows(PostNotFoundException.class, () ->
                 likeService.likeContent(VALID_HEADER, testContent.getId())
         );
+        verify(likeCounterService, never()).increment(any(UUID.class));
     }
 
     @Test
-    void likeContent_WhenAlreadyLiked_ShouldThrowException() {
-        when(userCacheService.getExternalUserByUsername(anyString())).thenReturn(testUser);
-        when(contentRepository.findByIdAndDeletedAtIsNull(any(UUID.class))).thenReturn(Optional.of(testContent));
-        when(userContentLikeRepository.existsByUserIdAndContentId(any(UUID.class), any(UUID.class))).thenReturn(true);
+    void likeContent_WhenAlreadyLiked_ShouldReturnUnchanged() {
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(userContentLikeRepository.insertIfAbsent(any(UUID.class), any(UUID.class), any(UUID.class))).thenReturn(0);
+        when(contentRepository.existsByIdAndDeletedAtIsNull(testContent.getId())).thenReturn(true);
 
-        assertThrows(UserActionForbiddenException.class, () ->
-                likeService.likeContent(VALID_HEADER, testContent.getId())
-        );
+        LikeResult result = likeService.likeContent(VALID_HEADER, testContent.getId());
+
+        assertThat(result.changed()).isFalse();
+        assertThat(result.message()).contains("already liked");
+        verify(likeCounterService, never()).increment(any(UUID.class));
+        verify(userLikeKafkaTemplate, never()).send(anyString(), anyString(), any(UserLikeNotification.class));
+        verify(likedContentService, never()).onLiked(any(UUID.class), any(UUID.class));
     }
 
     @Test
-    void deleteLike_WhenValidInput_ShouldReturnSuccessMessage() {
-        UserContentLike testLike = new UserContentLike();
-        testLike.setUser(testUser);
-        testLike.setContent(testContent);
-
-        when(userCacheService.getExternalUserByUsername(anyString())).thenReturn(testUser);
-        when(contentRepository.findByIdAndDeletedAtIsNull(any(UUID.class))).thenReturn(Optional.of(testContent));
-        when(userContentLikeRepository.findByContentAndUser_Id(any(Content.class), any(UUID.class)))
-                .thenReturn(Optional.of(testLike));
+    void deleteLike_WhenValidInput_ShouldDeleteLikeAndCountIt() {
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(userContentLikeRepository.deleteByUserIdAndContentId(testUser.getId(), testContent.getId())).thenReturn(1);
 
-        String result = likeService.deleteLike(VALID_HEADER, testContent.getId());
+        LikeResult result = likeService.deleteLike(VALID_HEADER, testContent.getId());
 
-        assertThat(result).contains("unliked post with userId");
-        verify(userCacheService).saveExternalUser(any(ExternalUser.class));
+        assertThat(result.changed()).isTrue();
+        assertThat(result.message()).contains("unliked post with userId");
+        verify(likeCounterService).decrement(testContent.getId());
+        verify(likedContentService).onUnliked(testUser.getId(), testContent.getId());
     }
 
     @Test
     void deleteLike_WhenPostNotFound_ShouldThrowException() {
-        when(userCacheService.getExternalUserByUsername(anyString())).thenReturn(testUser);
-        when(contentRepository.findByIdAndDeletedAtIsNull(any(UUID.class))).thenReturn(Optional.empty());
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(userContentLikeRepository.deleteByUserIdAndContentId(any(UUID.class), any(UUID.class))).thenReturn(0);
+        when(contentRepository.existsByIdAndDeletedAtIsNull(testContent.getId())).thenReturn(false);
 
         assertThrows(PostNotFoundException.class, () ->
                 likeService.deleteLike(VALID_HEADER, testContent.getId())
@@ -125,36 +183,42 @@ class LikeServiceTest {
     }
 
     @Test
-    void deleteLike_WhenLikeNotFound_ShouldThrowException() {
-        when(userCacheService.getExternalUserByUsername(anyString())).thenReturn(testUser);
-        when(contentRepository.findByIdAndDeletedAtIsNull(any(UUID.class))).thenReturn(Optional.of(testContent));
-        when(userContentLikeRepository.findByContentAndUser_Id(any(Content.class), any(UUID.class)))
-                .thenReturn(Optional.empty());
+    void deleteLike_WhenLikeNotFound_ShouldReturnUnchanged() {
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(userContentLikeRepository.deleteByUserIdAndContentId(any(UUID.class), any(UUID.class))).thenReturn(0);
+        when(contentRepository.existsByIdAndDeletedAtIsNull(testContent.getId())).thenReturn(true);
+
+        LikeResult result = likeService.deleteLike(VALID_HEADER, testContent.getId());
+
+        assertThat(result.changed()).isFalse();
+        verify(likeCounterService, never()).decrement(any(UUID.class));
+    }
+
+    @Test
+    void getLikeStatus_ShouldAskLikedContentsOfAuthenticatedUser() {
+        UUID otherContentId = UUID.randomUUID();
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(likedContentService.hasLiked(testUser.getId(), List.of(testContent.getId(), otherContentId)))
+                .thenReturn(Map.of(testContent.getId(), true, otherContentId, false));
 
-        assertThrows(UserActionForbiddenException.class, () ->
-                likeService.deleteLike(VALID_HEADER, testContent.getId())
-        );
+        Map<UUID, Boolean> result = likeService.getLikeStatus(VALID_HEADER, List.of(testContent.getId(), otherContentId));
+
+        assertThat(result).containsEntry(testContent.getId(), true).containsEntry(otherContentId, false);
     }
 
     @Test
-    void getAllLikedContentsByUser_WhenUserHasLikes_ShouldReturnLikedContents() {
-        Pageable pageable = PageRequest.of(0, 10);
+    void getAllLikedContentsByUser_WhenUserHasLikes_ShouldReturnLikedContentsWithRealTotal() {
+        Pageable pageable = PageRequest.of(0, 1);
 
         when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
-        when(userContentLikeRepository.findAllByUser_Id(any(UUID.class), any(Pageable.class)))
-                .thenReturn(Optional.of(new PageImpl<>(List.of(createTestLike()))));
+        when(userContentLikeRepository.findLikedContentsByUserId(testUser.getId(), pageable))
+                .thenReturn(new PageImpl<>(List.of(createLikedContent(LocalDateTime.now())), pageable, 3));
 
         PageResponse<ContentResponse> result = likeService.getAllLikedContentsByUser(testUser.getUsername(), pageable);
 
-        assertThat(result.content()).hasSize(1);
-    }
-
-    private UserContentLike createTestLike() {
-        UserContentLike like = new UserContentLike();
-        like.setId(UUID.randomUUID());
-        like.setUser(testUser);
-        like.setContent(testContent);
-        return like;
+        assertThat(result.content()).extracting(ContentResponse::id).containsExactly(testContent.getId());
+        assertThat(result.totalItems()).isEqualTo(3);
+        assertThat(result.totalPages()).isEqualTo(3);
     }
 
     @Test
@@ -162,17 +226,55 @@ class LikeServiceTest {
         Pageable pageable = PageRequest.of(0, 10);
 
         when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
-        when(userContentLikeRepository.findAllByUser_Id(any(UUID.class), any(Pageable.class)))
-                .thenReturn(Optional.empty());
+        when(userContentLikeRepository.findLikedContentsByUserId(any(UUID.class), any(Pageable.class)))
+                .thenReturn(Page.empty(pageable));
 
         PageResponse<ContentResponse> result = likeService.getAllLikedContentsByUser(testUser.getUsername(), pageable);
 
         assertThat(result.content()).isEmpty();
+        assertThat(result.totalItems()).isZero();
+    }
+
+    @Test
+    void getAllLikedContentsByUser_WithCursor_ShouldReturnNextCursorFromLastLike() {
+        LikedContent newest = createLikedContent(LocalDateTime.now());
+        LikedContent older = createLikedContent(LocalDateTime.now().minusMinutes(1));
+
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(userContentLikeRepository.findLikedContentsByUserIdAfter(testUser.getId(),
+                ContentCursor.START.createdAt(), ContentCursor.START.id(), PageRequest.of(0, 2)))
+                .thenReturn(List.of(newest, older));
+
+        PageResponse<ContentResponse> result = likeService.getAllLikedContentsByUser(testUser.getUsername(), ContentCursor.START, 1, false);
+
+        assertThat(result.content()).hasSize(1);
+        assertThat(result.totalItems()).isEqualTo(-1);
+        assertThat(ContentCursor.decode(result.next_cursor())).isEqualTo(newest.toCursor());
+        verify(userContentLikeRepository, never()).countLikedContentsByUserId(any(UUID.class));
+    }
+
+    @Test
+    void getAllLikedContentsByUser_WithCursorAndCount_ShouldCountLikedContents() {
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
+        when(userContentLikeRepository.findLikedContentsByUserIdAfter(any(UUID.class), any(LocalDateTime.class), any(UUID.class), any(Pageable.class)))
+                .thenReturn(List.of(createLikedContent(LocalDateTime.now())));
+        when(userContentLikeRepository.countLikedContentsByUserId(testUser.getId())).thenReturn(11L);
+
+        PageResponse<ContentResponse> result = likeService.getAllLikedContentsByUser(testUser.getUsername(), ContentCursor.START, 5, true);
+
+        assertThat(result.next_cursor()).isNull();
+        assertThat(result.totalItems()).isEqualTo(11);
+        assertThat(result.totalPages()).isEqualTo(3);
+    }
+
+    private LikedContent createLikedContent(LocalDateTime likedAt) {
+        return new LikedContent(UUID.randomUUID(), likedAt, testContent.getId(), testUser.getId(), null,
+                testContent.getCreatedAt(), null, "Liked content", Map.of(), 2, 0, null);
     }
 
     @Test
     void likeContent_WhenUserNotFound_ShouldThrowException() {
-        when(userCacheService.getExternalUserByUsername(anyString()))
+        when(userCacheService.getUserDataByUsername(anyString()))
                 .thenThrow(new UserDoesntExistsException("User not found: " + testUser.getUsername()));
 
         assertThrows(UserDoesntExistsException.class, () ->
@@ -182,7 +284,7 @@ class LikeServiceTest {
 
     @Test
     void deleteLike_WhenUserNotFound_ShouldThrowException() {
-        when(userCacheService.getExternalUserByUsername(anyString()))
+        when(userCacheService.getUserDataByUsername(anyString()))
                 .thenThrow(new UserDoesntExistsException("User not found: " + testUser.getUsername()));
 
         assertThrows(UserDoesntExistsException.class, () ->
@@ -229,6 +331,7 @@ class LikeServiceTest {
                 likeService.likeContent(null, null)
         );
 
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(userData);
         assertThrows(PostNotFoundException.class, () ->
                 likeService.likeContent(VALID_HEADER, null)
         );
@@ -0,0 +1,256 @@
+package com.socialmediatraining.contentservice.unittests.service.like;
+
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.contentservice.repository.FeedReadRepository;
+import com.socialmediatraining.contentservice.repository.UserContentLikeRepository;
+import com.socialmediatraining.contentservice.service.like.LikedContentService;
+import com.socialmediatraining.dtoutils.dto.PageResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.ReactiveSetOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LikedContentServiceTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private SetOperations<String, String> setOperations;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private ReactiveStringRedisTemplate reactiveRedisTemplate;
+    @Mock
+    private ReactiveValueOperations<String, String> reactiveValueOperations;
+    @Mock
+    private ReactiveSetOperations<String, String> reactiveSetOperations;
+    @Mock
+    private UserContentLikeRepository userContentLikeRepository;
+    @Mock
+    private FeedReadRepository feedReadRepository;
+
+    private LikedContentService likedContentService;
+    private UUID userId;
+    private UUID likedId;
+    private UUID notLikedId;
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(reactiveRedisTemplate.opsForSet()).thenReturn(reactiveSetOperations);
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(reactiveValueOperations);
+        when(reactiveValueOperations.get(anyString())).thenReturn(Mono.empty());
+        likedContentService = new LikedContentService(redisTemplate, reactiveRedisTemplate, userContentLikeRepository,
+                feedReadRepository, 86400, 2);
+
+        userId = UUID.randomUUID();
+        likedId = UUID.randomUUID();
+        notLikedId = UUID.randomUUID();
+        key = "likes:user:" + userId;
+    }
+
+    @Test
+    void hasLiked_WhenSetIsLoaded_ShouldAnswerFromRedisOnly() {
+        when(setOperations.isMember(key, "loaded", "too-large", likedId.toString(), notLikedId.toString())).thenReturn(Map.of(
+                "loaded", true, likedId.toString(), true, notLikedId.toString(), false));
+
+        Map<UUID, Boolean> result = likedContentService.hasLiked(userId, List.of(likedId, notLikedId));
+
+        assertThat(result).containsExactly(Map.entry(likedId, true), Map.entry(notLikedId, false));
+        verifyNoInteractions(userContentLikeRepository);
+    }
+
+    @Test
+    void hasLiked_WhenSetIsNotLoaded_ShouldLoadItFromDatabase() {
+        when(setOperations.isMember(key, "loaded", "too-large", likedId.toString(), notLikedId.toString())).thenReturn(Map.of(
+                "loaded", false, likedId.toString(), false, notLikedId.toString(), false));
+        when(userContentLikeRepository.findContentIdsByUserId(userId, Limit.of(3))).thenReturn(List.of(likedId));
+
+        Map<UUID, Boolean> result = likedContentService.hasLiked(userId, List.of(likedId, notLikedId));
+
+        assertThat(result).containsExactly(Map.entry(likedId, true), Map.entry(notLikedId, false));
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+        verify(redisTemplate).execute(any(RedisScript.class),
+                argThat(keys -> keys.size() == 3 && keys.get(0).toString().startsWith(key + ":load:")
+                        && keys.get(1).equals(key) && keys.get(2).equals(key + ":version")),
+                eq(""), eq("86400"));
+        verify(userContentLikeRepository, never()).findContentIdsByUserIdAndContentIdIn(any(UUID.class), anyCollection());
+    }
+
+    @Test
+    void hasLiked_WhenLoading_ShouldOnlyPublishTheSetIfTheVersionReadBeforeTheLoadIsUnchanged() {
+        when(setOperations.isMember(key, "loaded", "too-large", likedId.toString(), notLikedId.toString())).thenReturn(Map.of(
+                "loaded", false, likedId.toString(), false, notLikedId.toString(), false));
+        when(valueOperations.get(key + ":version")).thenReturn("7");
+        when(userContentLikeRepository.findContentIdsByUserId(userId, Limit.of(3))).thenReturn(List.of(likedId));
+
+        likedContentService.hasLiked(userId, List.of(likedId, notLikedId));
+
+        InOrder inOrder = inOrder(valueOperations, userContentLikeRepository, redisTemplate);
+        inOrder.verify(valueOperations).get(key + ":version");
+        inOrder.verify(userContentLikeRepository).findContentIdsByUserId(userId, Limit.of(3));
+        inOrder.verify(redisTemplate).execute(any(RedisScript.class), anyList(), eq("7"), eq("86400"));
+    }
+
+    @Test
+    void hasLiked_WhenUserHasTooManyLikes_ShouldQueryRequestedIdsOnly() {
+        when(setOperations.isMember(key, "loaded", "too-large", likedId.toString(), notLikedId.toString())).thenReturn(Map.of(
+                "loaded", false, likedId.toString(), false, notLikedId.toString(), false));
+        when(userContentLikeRepository.findContentIdsByUserId(userId, Limit.of(3)))
+                .thenReturn(List.of(likedId, UUID.randomUUID(), UUID.randomUUID()));
+        when(userContentLikeRepository.findContentIdsByUserIdAndContentIdIn(userId, List.of(likedId, notLikedId)))
+                .thenReturn(List.of(likedId));
+
+        Map<UUID, Boolean> result = likedContentService.hasLiked(userId, List.of(likedId, notLikedId));
+
+        assertThat(result).containsExactly(Map.entry(likedId, true), Map.entry(notLikedId, false));
+        //Only the too-large marker is written
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void hasLiked_WhenSetIsMarkedTooLarge_ShouldQueryRequestedIdsWithoutLoading() {
+        when(setOperations.isMember(key, "loaded", "too-large", likedId.toString(), notLikedId.toString())).thenReturn(Map.of(
+                "loaded", false, "too-large", true, likedId.toString(), true, notLikedId.toString(), false));
+        when(userContentLikeRepository.findContentIdsByUserIdAndContentIdIn(userId, List.of(likedId, notLikedId)))
+                .thenReturn(List.of(likedId));
+
+        Map<UUID, Boolean> result = likedContentService.hasLiked(userId, List.of(likedId, notLikedId));
+
+        assertThat(result).containsExactly(Map.entry(likedId, true), Map.entry(notLikedId, false));
+        verify(userContentLikeRepository, never()).findContentIdsByUserId(any(UUID.class), any(Limit.class));
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void hasLiked_WhenRedisFails_ShouldFallBackToDatabase() {
+        when(setOperations.isMember(anyString(), any(Object[].class))).thenThrow(new RuntimeException("Redis down"));
+        when(userContentLikeRepository.findContentIdsByUserIdAndContentIdIn(userId, List.of(likedId, notLikedId)))
+                .thenReturn(List.of(notLikedId));
+
+        Map<UUID, Boolean> result = likedContentService.hasLiked(userId, List.of(likedId, notLikedId));
+
+        assertThat(result).containsExactly(Map.entry(likedId, false), Map.entry(notLikedId, true));
+    }
+
+    @Test
+    void withLikedByViewer_ShouldSetFlagOnEveryContent() {
+        when(setOperations.isMember(key, "loaded", "too-large", likedId.toString(), notLikedId.toString())).thenReturn(Map.of(
+                "loaded", true, likedId.toString(), true, notLikedId.toString(), false));
+        PageResponse<ContentResponse> page = new PageResponse<>(List.of(
+                ContentResponse.create(likedId, UUID.randomUUID(), null, LocalDateTime.now(), LocalDateTime.now(), "liked", null),
+                ContentResponse.create(notLikedId, UUID.randomUUID(), null, LocalDateTime.now(), LocalDateTime.now(), "not liked", null)),
+                0, -1, -1, 2, "cursor");
+
+        PageResponse<ContentResponse> result = likedContentService.withLikedByViewer(userId, page);
+
+        assertThat(result.content()).extracting(ContentResponse::liked_by_viewer).containsExactly(true, false);
+        assertThat(result.next_cursor()).isEqualTo("cursor");
+    }
+
+    @Test
+    void hasLikedReactive_WhenSetIsLoaded_ShouldAnswerFromRedisOnly() {
+        when(reactiveSetOperations.isMember(key, "loaded", "too-large", likedId.toString(), notLikedId.toString())).thenReturn(Mono.just(Map.of(
+                "loaded", true, likedId.toString(), true, notLikedId.toString(), false)));
+
+        StepVerifier.create(likedContentService.hasLikedReactive(userId, List.of(likedId, notLikedId)))
+                .assertNext(result -> assertThat(result).containsExactly(Map.entry(likedId, true), Map.entry(notLikedId, false)))
+                .verifyComplete();
+        verifyNoInteractions(feedReadRepository, userContentLikeRepository);
+    }
+
+    @Test
+    void hasLikedReactive_WhenSetIsNotLoaded_ShouldLoadItThroughFeedRepository() {
+        when(reactiveSetOperations.isMember(key, "loaded", "too-large", likedId.toString(), notLikedId.toString())).thenReturn(Mono.just(Map.of(
+                "loaded", false, likedId.toString(), false, notLikedId.toString(), false)));
+        when(feedReadRepository.findLikedContentIds(userId, 3)).thenReturn(Mono.just(List.of(likedId)));
+        when(reactiveValueOperations.get(key + ":version")).thenReturn(Mono.just("7"));
+        when(reactiveSetOperations.add(anyString(), any(String[].class))).thenReturn(Mono.just(2L));
+        when(reactiveRedisTemplate.expire(anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(reactiveRedisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        StepVerifier.create(likedContentService.hasLikedReactive(userId, List.of(likedId, notLikedId)))
+                .assertNext(result -> assertThat(result).containsExactly(Map.entry(likedId, true), Map.entry(notLikedId, false)))
+                .verifyComplete();
+        verify(reactiveSetOperations).add(startsWith(key + ":load:"), eq("loaded"), eq(likedId.toString()));
+        verify(reactiveRedisTemplate).execute(any(RedisScript.class), argThat(keys -> keys.get(1).equals(key)),
+                eq(List.of("7", "86400")));
+        verifyNoInteractions(userContentLikeRepository);
+    }
+
+    @Test
+    void hasLikedReactive_WhenUserHasTooManyLikes_ShouldMarkTheSetAndQueryRequestedIds() {
+        when(reactiveSetOperations.isMember(key, "loaded", "too-large", likedId.toString(), notLikedId.toString())).thenReturn(Mono.just(Map.of(
+                "loaded", false, "too-large", false, likedId.toString(), false, notLikedId.toString(), false)));
+        when(feedReadRepository.findLikedContentIds(userId, 3)).thenReturn(Mono.just(List.of(likedId, UUID.randomUUID(), UUID.randomUUID())));
+        when(reactiveSetOperations.add(eq(key), any(String[].class))).thenReturn(Mono.just(1L));
+        when(reactiveRedisTemplate.expire(eq(key), any(Duration.class))).thenReturn(Mono.just(true));
+        when(feedReadRepository.findLikedContentIds(userId, List.of(likedId, notLikedId))).thenReturn(Mono.just(List.of(likedId)));
+
+        StepVerifier.create(likedContentService.hasLikedReactive(userId, List.of(likedId, notLikedId)))
+                .assertNext(result -> assertThat(result).containsExactly(Map.entry(likedId, true), Map.entry(notLikedId, false)))
+                .verifyComplete();
+        verify(reactiveSetOperations).add(key, "too-large");
+    }
+
+    @Test
+    void hasLikedReactive_WhenSetIsMarkedTooLarge_ShouldQueryRequestedIdsWithoutLoading() {
+        when(reactiveSetOperations.isMember(key, "loaded", "too-large", likedId.toString(), notLikedId.toString())).thenReturn(Mono.just(Map.of(
+                "loaded", false, "too-large", true, likedId.toString(), false, notLikedId.toString(), false)));
+        when(feedReadRepository.findLikedContentIds(userId, List.of(likedId, notLikedId))).thenReturn(Mono.just(List.of(notLikedId)));
+
+        StepVerifier.create(likedContentService.hasLikedReactive(userId, List.of(likedId, notLikedId)))
+                .assertNext(result -> assertThat(result).containsExactly(Map.entry(likedId, false), Map.entry(notLikedId, true)))
+                .verifyComplete();
+        verify(feedReadRepository, never()).findLikedContentIds(any(UUID.class), anyInt());
+    }
+
+    @Test
+    void hasLikedReactive_WhenRedisFails_ShouldQueryRequestedIdsThroughFeedRepository() {
+        when(reactiveSetOperations.isMember(anyString(), any(Object[].class))).thenReturn(Mono.error(new RuntimeException("Redis down")));
+        when(feedReadRepository.findLikedContentIds(userId, List.of(likedId, notLikedId))).thenReturn(Mono.just(List.of(notLikedId)));
+
+        StepVerifier.create(likedContentService.hasLikedReactive(userId, List.of(likedId, notLikedId)))
+                .assertNext(result -> assertThat(result).containsExactly(Map.entry(likedId, false), Map.entry(notLikedId, true)))
+                .verifyComplete();
+        verifyNoInteractions(userContentLikeRepository);
+    }
+
+    @Test
+    void onUnliked_WhenRedisFails_ShouldDropTheSet() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenThrow(new RuntimeException("Redis down"));
+
+        likedContentService.onUnliked(userId, likedId);
+
+        verify(redisTemplate).delete(key);
+    }
+}
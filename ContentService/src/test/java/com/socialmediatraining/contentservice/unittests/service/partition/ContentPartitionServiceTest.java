@@ -0,0 +1,121 @@
+package com.socialmediatraining.contentservice.unittests.service.partition;
+
+import com.socialmediatraining.contentservice.service.partition.ContentPartitionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ContentPartitionServiceTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private ContentPartitionService contentPartitionService;
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(true);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any())).thenReturn(true);
+        contentPartitionService = new ContentPartitionService(jdbcTemplate, redisTemplate, 3, 6, 180, 600);
+    }
+
+    @Test
+    void partitionName_ShouldUseYearAndMonth() {
+        assertThat(ContentPartitionService.partitionName(YearMonth.of(2025, 3))).isEqualTo("content_p2025_03");
+    }
+
+    @Test
+    void feedHorizon_ShouldBeHorizonDaysAgo() {
+        assertThat(contentPartitionService.feedHorizon()).isCloseTo(LocalDateTime.now().minusDays(180), within(1, ChronoUnit.SECONDS));
+    }
+
+    @Test
+    void createUpcomingPartitions_ShouldCreateFromPreviousMonthToMonthsAheadOnce() {
+        YearMonth current = YearMonth.now();
+
+        contentPartitionService.createUpcomingPartitions();
+        contentPartitionService.createUpcomingPartitions();
+
+        verify(jdbcTemplate, times(5)).execute(startsWith("CREATE TABLE IF NOT EXISTS"));
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS " + ContentPartitionService.partitionName(current) +
+                " PARTITION OF content FOR VALUES FROM ('" + current.atDay(1) + "') TO ('" + current.plusMonths(1).atDay(1) + "')");
+        verify(jdbcTemplate).execute(contains(ContentPartitionService.partitionName(current.plusMonths(3))));
+    }
+
+    @Test
+    void ensurePartitions_ShouldFillTheMonthsBetweenTheGivenOnes() {
+        contentPartitionService.ensurePartitions(List.of(YearMonth.of(2020, 11), YearMonth.of(2021, 2)));
+
+        verify(jdbcTemplate, times(4)).execute(startsWith("CREATE TABLE IF NOT EXISTS"));
+        verify(jdbcTemplate).execute(contains("content_p2020_12"));
+    }
+
+    @Test
+    void ensurePartitions_WhenNotPostgres_ShouldDoNothing() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(false);
+
+        contentPartitionService.createUpcomingPartitions();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Boolean.class));
+    }
+
+    @Test
+    void detachExpiredPartitions_ShouldOnlyDetachPartitionsOlderThanRetention() {
+        String expired = ContentPartitionService.partitionName(YearMonth.now().minusMonths(7));
+        String kept = ContentPartitionService.partitionName(YearMonth.now().minusMonths(6));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(expired, kept, "content_default"));
+
+        List<String> detached = contentPartitionService.detachExpiredPartitions();
+
+        assertThat(detached).containsExactly(expired);
+        verify(jdbcTemplate).execute("ALTER TABLE content DETACH PARTITION " + expired + " CONCURRENTLY");
+        verify(jdbcTemplate).execute("ALTER TABLE " + expired + " RENAME TO archived_" + expired);
+        verify(jdbcTemplate).execute("DELETE FROM user_content_like r USING archived_" + expired + " a WHERE r.content_id = a.id");
+        verify(jdbcTemplate).execute("DELETE FROM user_content_favorite r USING archived_" + expired + " a WHERE r.content_id = a.id");
+        verify(jdbcTemplate, never()).execute(contains(kept));
+    }
+
+    @Test
+    void detachExpiredPartitions_WithoutRetention_ShouldKeepEveryPartition() {
+        contentPartitionService = new ContentPartitionService(jdbcTemplate, redisTemplate, 3, 0, 180, 600);
+
+        assertThat(contentPartitionService.detachExpiredPartitions()).isEmpty();
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class));
+    }
+
+    @Test
+    void scheduledMaintenance_WhenLockIsHeld_ShouldDoNothing() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any())).thenReturn(false);
+
+        contentPartitionService.scheduledMaintenance();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(redisTemplate, never()).delete(anyString());
+    }
+}
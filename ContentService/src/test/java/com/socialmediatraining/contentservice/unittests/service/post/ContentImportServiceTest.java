@@ -0,0 +1,265 @@
+package com.socialmediatraining.contentservice.unittests.service.post;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialmediatraining.contentservice.dto.post.ContentImportReport;
+import com.socialmediatraining.contentservice.entity.Content;
+import com.socialmediatraining.contentservice.repository.ContentRepository;
+import com.socialmediatraining.contentservice.service.partition.ContentPartitionService;
+import com.socialmediatraining.contentservice.service.post.ContentImportService;
+import com.socialmediatraining.contentservice.service.post.PostCache;
+import com.socialmediatraining.contentservice.service.thread.ThreadPageCache;
+import com.socialmediatraining.contentservice.service.user.UserCacheService;
+import com.socialmediatraining.dtoutils.dto.ContentImportedNotification;
+import com.socialmediatraining.dtoutils.dto.SimpleUserDataObject;
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+//Runs against H2 so the batch inserts, ON CONFLICT and JSON binding are exercised for real
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class ContentImportServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private ContentRepository contentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UserCacheService userCacheService;
+    private StringRedisTemplate redisTemplate;
+    private HashOperations<String, Object, Object> hashOperations;
+    private ValueOperations<String, String> valueOperations;
+    private KafkaTemplate<String, ContentImportedNotification> kafkaTemplate;
+    private ContentPartitionService contentPartitionService;
+    private PostCache postCache;
+    private ThreadPageCache threadPageCache;
+    private ContentImportService contentImportService;
+    private UUID creatorId;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        creatorId = UUID.randomUUID();
+        userCacheService = mock(UserCacheService.class);
+        when(userCacheService.getUserDataByIds(any())).thenReturn(
+                Map.of(creatorId, SimpleUserDataObject.create(creatorId.toString(), "username")));
+        redisTemplate = mock(StringRedisTemplate.class);
+        hashOperations = mock(HashOperations.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any())).thenReturn(true);
+        when(hashOperations.entries(anyString())).thenReturn(Map.of());
+        kafkaTemplate = mock(KafkaTemplate.class);
+        contentPartitionService = mock(ContentPartitionService.class);
+        postCache = mock(PostCache.class);
+        threadPageCache = mock(ThreadPageCache.class);
+        contentImportService = new ContentImportService(jdbcTemplate, transactionManager, contentRepository, userCacheService,
+                redisTemplate, new ObjectMapper().findAndRegisterModules(), kafkaTemplate, contentPartitionService, postCache,
+                threadPageCache, 2, 60, 30, 10);
+    }
+
+    @Test
+    void importContents_ShouldInsertPostsAndRepliesWithRootsAndReplyCounts() {
+        UUID postId = UUID.randomUUID();
+        UUID replyId = UUID.randomUUID();
+        String ndjson = line(postId, null, "2025-01-01T10:00:00", "post", "{\"image\":\"url\"}") +
+                line(replyId, postId, "2025-01-01T11:00:00", "reply", null) +
+                line(null, replyId, "2025-01-01T12:00:00", "nested", null);
+
+        ContentImportReport report = contentImportService.importContents("import-1", stream(ndjson));
+
+        assertThat(report.status()).isEqualTo("COMPLETED");
+        assertThat(report.inserted()).isEqualTo(3);
+        assertThat(report.last_line()).isEqualTo(3);
+        entityManager.clear();
+        Content post = contentRepository.findById(postId).orElseThrow();
+        assertThat(post.getReplyCount()).isEqualTo(1);
+        assertThat(post.getMediaUrls()).containsEntry("image", "url");
+        assertThat(post.getCreatedAt()).isEqualTo(LocalDateTime.of(2025, 1, 1, 10, 0));
+        assertThat(contentRepository.findById(replyId).orElseThrow())
+                .extracting(Content::getReplyCount, Content::getRootId).containsExactly(1L, postId);
+        Content nested = contentRepository.findAll().stream().filter(content -> "nested".equals(content.getText())).findFirst().orElseThrow();
+        assertThat(nested.getRootId()).isEqualTo(postId);
+        //Generated from created_at, so the same line of the import always gets the same time-ordered id
+        assertThat(nested.getId().version()).isEqualTo(7);
+        assertThat(UuidV7Generator.timestampOf(nested.getId()))
+                .isEqualTo(LocalDateTime.of(2025, 1, 1, 12, 0).atZone(ZoneId.systemDefault()).toInstant());
+        verify(kafkaTemplate).send("content-imported", creatorId.toString(),
+                ContentImportedNotification.create(creatorId.toString(), 3, "2025-01-01T12:00"));
+        verify(contentPartitionService, atLeastOnce()).ensurePartitions(Set.of(YearMonth.of(2025, 1)));
+        //Parents whose reply count was bumped, with the threads they are shown in
+        verify(postCache).evict(List.of(postId));
+        verify(threadPageCache).evict(Set.of(postId));
+        verify(postCache).evict(List.of(replyId));
+        verify(threadPageCache).evict(Set.of(replyId, postId));
+    }
+
+    @Test
+    void importContents_WhenARowIsInsertedByAConcurrentRun_ShouldNotCountItsReplyAgain() {
+        UUID postId = UUID.randomUUID();
+        UUID replyId = UUID.randomUUID();
+        String ndjson = line(postId, null, "2025-01-01T10:00:00", "post", null) +
+                line(replyId, postId, "2025-01-01T11:00:00", "reply", null);
+        //The other run inserts the reply between the existing ids check and the insert of this batch
+        doAnswer(invocation -> {
+            jdbcTemplate.update("INSERT INTO content (id, creator_id, parent_id, root_id, created_at, updated_at, text, like_count, reply_count) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, 'reply', 0, 0)", replyId, creatorId, postId, postId,
+                    LocalDateTime.of(2025, 1, 1, 11, 0), LocalDateTime.of(2025, 1, 1, 11, 0));
+            return null;
+        }).when(contentPartitionService).ensurePartitions(any());
+
+        ContentImportReport report = contentImportService.importContents("import-6", stream(ndjson));
+
+        assertThat(report.inserted()).isEqualTo(1);
+        assertThat(report.duplicates()).isEqualTo(1);
+        entityManager.clear();
+        assertThat(contentRepository.findById(postId).orElseThrow().getReplyCount()).isZero();
+        verify(postCache, never()).evict(anyList());
+        verify(kafkaTemplate).send("content-imported", creatorId.toString(),
+                ContentImportedNotification.create(creatorId.toString(), 1, "2025-01-01T10:00"));
+    }
+
+    @Test
+    void importContents_ShouldRejectInvalidRowsAndSkipDuplicates() {
+        UUID postId = UUID.randomUUID();
+        String ndjson = line(postId, null, null, "post", null) +
+                "not json\n" +
+                line(null, null, null, " ", null) +
+                "{\"creator_id\":\"" + UUID.randomUUID() + "\",\"text\":\"stranger\"}\n" +
+                line(null, UUID.randomUUID(), null, "orphan", null) +
+                line(postId, null, null, "post again", null);
+
+        ContentImportReport report = contentImportService.importContents("import-2", stream(ndjson));
+
+        assertThat(report.inserted()).isEqualTo(1);
+        assertThat(report.duplicates()).isEqualTo(1);
+        assertThat(report.rejected()).isEqualTo(4);
+        assertThat(report.errors()).hasSize(4).first().asString().startsWith("line 2: ");
+        entityManager.clear();
+        assertThat(contentRepository.findById(postId).orElseThrow().getText()).isEqualTo("post");
+    }
+
+    @Test
+    void importContents_ShouldRejectRowsOutsideTheCreatedAtRangeOfTheirIdOrParent() {
+        UUID postId = UuidV7Generator.fromName(
+                LocalDateTime.of(2025, 1, 1, 10, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), new byte[]{1});
+        String ndjson = line(postId, null, null, "post", null) +
+                line(UuidV7Generator.next(), null, "2025-01-01T10:00:00", "misdated", null) +
+                line(null, postId, "2024-12-31T10:00:00", "early reply", null);
+
+        ContentImportReport report = contentImportService.importContents("import-5", stream(ndjson));
+
+        assertThat(report.inserted()).isEqualTo(1);
+        assertThat(report.rejected()).isEqualTo(2);
+        assertThat(report.errors()).containsExactly(
+                "line 2: created_at does not match the time of the id",
+                "line 3: created_at is before the parent " + postId);
+        entityManager.clear();
+        //Dated by its id when created_at is missing, found by the bounded lookups
+        assertThat(contentRepository.findByIdAndDeletedAtIsNull(postId).orElseThrow().getCreatedAt())
+                .isEqualTo(LocalDateTime.of(2025, 1, 1, 10, 0));
+    }
+
+    @Test
+    void importContents_WhenResumed_ShouldSkipCommittedLines() {
+        Map<Object, Object> progress = new HashMap<>(Map.of("status", "FAILED", "last_line", "1",
+                "inserted", "1", "duplicates", "0", "rejected", "0"));
+        when(hashOperations.entries("content:import:import-3")).thenReturn(progress);
+        String ndjson = line(null, null, null, "already imported", null) + line(null, null, null, "new", null);
+
+        ContentImportReport report = contentImportService.importContents("import-3", stream(ndjson));
+
+        assertThat(report.inserted()).isEqualTo(2);
+        assertThat(report.last_line()).isEqualTo(2);
+        assertThat(contentRepository.findAll()).extracting(Content::getText).containsExactly("new");
+        verify(hashOperations).putAll(eq("content:import:import-3"), argThat(map -> "COMPLETED".equals(map.get("status"))));
+    }
+
+    @Test
+    void importContents_WhenABatchFails_ShouldNotSaveItsRejections() {
+        doThrow(new IllegalStateException("cannot create partition")).when(contentPartitionService).ensurePartitions(any());
+        String ndjson = "not json\n" + line(null, null, null, "post", null);
+
+        assertThrows(IllegalStateException.class, () -> contentImportService.importContents("import-7", stream(ndjson)));
+
+        //The resumed run reads line 1 again and rejects it then
+        verify(hashOperations).putAll(eq("content:import:import-7"), argThat(map -> "FAILED".equals(map.get("status"))
+                && "0".equals(map.get("last_line")) && "0".equals(map.get("rejected"))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importContents_ShouldHoldAShortLockRenewedByEveryBatch() {
+        String ndjson = line(null, null, null, "first", null) + line(null, null, null, "second", null) +
+                line(null, null, null, "third", null);
+
+        contentImportService.importContents("import-8", stream(ndjson));
+
+        verify(valueOperations).setIfAbsent(eq("content:import:import-8:lock"), anyString(), eq(Duration.ofSeconds(30)));
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), eq(List.of("content:import:import-8:lock")),
+                anyString(), eq("30000"));
+        verify(redisTemplate, never()).delete(anyString());
+    }
+
+    @Test
+    void importContents_WhenAlreadyRunning_ShouldThrowConflict() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any())).thenReturn(false);
+
+        assertThrows(ResponseStatusException.class, () -> contentImportService.importContents("import-4", stream("")));
+        verify(hashOperations, never()).putAll(anyString(), anyMap());
+    }
+
+    @Test
+    void importContents_WithInvalidImportId_ShouldThrowBadRequest() {
+        assertThrows(ResponseStatusException.class, () -> contentImportService.importContents("../import", stream("")));
+    }
+
+    private String line(UUID id, UUID parentId, String createdAt, String text, String mediaUrls) {
+        return "{" + (id != null ? "\"id\":\"" + id + "\"," : "") +
+                "\"creator_id\":\"" + creatorId + "\"," +
+                (parentId != null ? "\"parent_id\":\"" + parentId + "\"," : "") +
+                (createdAt != null ? "\"created_at\":\"" + createdAt + "\"," : "") +
+                (mediaUrls != null ? "\"media_urls\":" + mediaUrls + "," : "") +
+                "\"text\":\"" + text + "\"}\n";
+    }
+
+    private ByteArrayInputStream stream(String ndjson) {
+        return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,11 +1,21 @@
 package com.socialmediatraining.contentservice.unittests.service.post;
 
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
 import com.socialmediatraining.contentservice.dto.post.ContentRequest;
 import com.socialmediatraining.contentservice.dto.post.ContentResponse;
 import com.socialmediatraining.contentservice.dto.post.ContentResponseAdmin;
 import com.socialmediatraining.contentservice.entity.Content;
 import com.socialmediatraining.contentservice.repository.ContentRepository;
+import com.socialmediatraining.contentservice.repository.FeedReadRepository;
+import com.socialmediatraining.contentservice.service.feed.FeedPageCache;
+import com.socialmediatraining.contentservice.service.feed.FeedStreamService;
+import com.socialmediatraining.contentservice.service.feed.HomeTimelineService;
+import com.socialmediatraining.contentservice.service.follow.FollowGraphService;
+import com.socialmediatraining.contentservice.service.like.LikedContentService;
+import com.socialmediatraining.contentservice.service.thread.ThreadService;
 import com.socialmediatraining.contentservice.service.post.ContentService;
+import com.socialmediatraining.contentservice.service.partition.ContentPartitionService;
+import com.socialmediatraining.contentservice.service.post.PostCache;
 import com.socialmediatraining.contentservice.service.user.UserCacheService;
 import com.socialmediatraining.dtoutils.dto.PageResponse;
 import com.socialmediatraining.dtoutils.dto.SimpleUserDataObject;
@@ -22,8 +32,11 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.data.domain.*;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.client.HttpServerErrorException;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.LocalDateTime;
@@ -31,6 +44,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -52,6 +66,24 @@ class ContentServiceTest {
     private UserCacheService userCacheService;
     @Mock
     private KafkaTemplate<String, SimpleUserDataObject> userDataKafkaTemplate;
+    @Mock
+    private HomeTimelineService homeTimelineService;
+    @Mock
+    private FeedPageCache feedPageCache;
+    @Mock
+    private FollowGraphService followGraphService;
+    @Mock
+    private FeedStreamService feedStreamService;
+    @Mock
+    private LikedContentService likedContentService;
+    @Mock
+    private ThreadService threadService;
+    @Mock
+    private PostCache postCache;
+    @Mock
+    private ContentPartitionService contentPartitionService;
+    @Mock
+    private FeedReadRepository feedReadRepository;
     @InjectMocks
     @Spy
     private ContentService contentService;
@@ -73,6 +105,15 @@ class ContentServiceTest {
 
         testUserData = new SimpleUserDataObject(USER_ID, USERNAME);
         testMediaUrls = Map.of("image1", "http://example.com/image1.jpg");
+        when(feedPageCache.getOrLoad(any(UUID.class), anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Flux<PageResponse<ContentResponse>>>>getArgument(2).get());
+        when(likedContentService.withLikedByViewer(any(UUID.class), any()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        when(likedContentService.withLikedByViewerReactive(any(UUID.class), any()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+        when(homeTimelineService.rebuildHomeTimeline(any(UUID.class), anyList())).thenReturn(Mono.empty());
+        when(postCache.getOrLoad(any(UUID.class), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<ContentResponse>>getArgument(1).get());
     }
 
     @Test
@@ -88,16 +129,80 @@ class ContentServiceTest {
         verify(contentRepository).save(any(Content.class));
     }
 
+    @Test
+    void createContent_ShouldPublishContentForFeedStreams() {
+        ContentRequest request = new ContentRequest(null, "Test content", testMediaUrls);
+        given(userCacheService.getOrCreatNewExternalUserIfNotExists(anyString(), anyString())).willReturn(testUserData);
+        given(contentRepository.save(any(Content.class))).willReturn(testContent);
+
+        contentService.createContent(VALID_HEADER, request);
+
+        verify(userDataKafkaTemplate).send(eq("content-published"), eq(testContent.getId().toString()), any());
+    }
+
     @Test
     void createContent_WhenParentIdNotExists_ShouldThrowException() {
         UUID parentId = UUID.randomUUID();
         ContentRequest request = new ContentRequest(parentId, "Test content", testMediaUrls);
         when(userCacheService.getOrCreatNewExternalUserIfNotExists(anyString(), anyString())).thenReturn(testUserData);
-        when(contentRepository.existsByIdAndDeletedAtIsNull(parentId)).thenReturn(false);
+        when(contentRepository.findByIdAndDeletedAtIsNull(parentId)).thenReturn(Optional.empty());
 
         assertThrows(PostNotFoundException.class, () -> contentService.createContent(VALID_HEADER, request));
     }
 
+    @Test
+    void createContent_WhenReply_ShouldEvictThreadsAboveIt() {
+        UUID parentId = UUID.randomUUID();
+        testContent.setParentId(parentId);
+        ContentRequest request = new ContentRequest(parentId, "Test content", testMediaUrls);
+        given(userCacheService.getOrCreatNewExternalUserIfNotExists(anyString(), anyString())).willReturn(testUserData);
+        given(contentRepository.findByIdAndDeletedAtIsNull(parentId)).willReturn(Optional.of(parent(parentId, null)));
+        given(contentRepository.save(any(Content.class))).willReturn(testContent);
+
+        contentService.createContent(VALID_HEADER, request);
+
+        verify(threadService).evictThreadsOf(testContent.getId());
+    }
+
+    @Test
+    void createContent_WhenReply_ShouldPointToThreadRootAndCountReply() {
+        UUID rootId = UUID.randomUUID();
+        UUID parentId = UUID.randomUUID();
+        ContentRequest request = new ContentRequest(parentId, "Test content", testMediaUrls);
+        given(userCacheService.getOrCreatNewExternalUserIfNotExists(anyString(), anyString())).willReturn(testUserData);
+        given(contentRepository.findByIdAndDeletedAtIsNull(parentId)).willReturn(Optional.of(parent(parentId, rootId)));
+        given(contentRepository.save(any(Content.class))).willReturn(testContent);
+
+        contentService.createContent(VALID_HEADER, request);
+
+        verify(contentRepository).save(argThat(content -> rootId.equals(content.getRootId())));
+        verify(contentRepository).incrementReplyCount(parentId);
+        verify(contentRepository, times(1)).findByIdAndDeletedAtIsNull(parentId);
+        verify(postCache).evict(List.of(parentId));
+    }
+
+    @Test
+    void createContent_WhenReplyToPost_ShouldUsePostAsRoot() {
+        UUID parentId = UUID.randomUUID();
+        ContentRequest request = new ContentRequest(parentId, "Test content", testMediaUrls);
+        given(userCacheService.getOrCreatNewExternalUserIfNotExists(anyString(), anyString())).willReturn(testUserData);
+        given(contentRepository.findByIdAndDeletedAtIsNull(parentId)).willReturn(Optional.of(parent(parentId, null)));
+        given(contentRepository.save(any(Content.class))).willReturn(testContent);
+
+        contentService.createContent(VALID_HEADER, request);
+
+        verify(contentRepository).save(argThat(content -> parentId.equals(content.getRootId())));
+    }
+
+    private Content parent(UUID parentId, UUID rootId) {
+        return Content.builder()
+                .id(parentId)
+                .creatorId(UUID.randomUUID())
+                .rootId(rootId)
+                .text("Parent text")
+                .build();
+    }
+
     @Test
     void updateContent_WhenUserIsCreator_ShouldUpdateContent() {
         UUID contentId = UUID.randomUUID();
@@ -113,6 +218,7 @@ class ContentServiceTest {
         assertThat(response).isNotNull();
         assertThat("Updated content").isEqualTo(response.text());
         verify(contentRepository).save(testContent);
+        verify(postCache).evict(List.of(contentId));
     }
 
     @Test
@@ -143,6 +249,23 @@ class ContentServiceTest {
         assertThat(testContent.getDeletedAt()).isNotNull();
         assertThat(testContent.getText()).isEqualTo("Deleted");
         verify(contentRepository).save(testContent);
+        verify(threadService).evictThreadsOf(contentId);
+        verify(contentRepository, never()).decrementReplyCount(any());
+        verify(postCache).evict(List.of(contentId));
+    }
+
+    @Test
+    void softDeleteContent_WhenReply_ShouldDecrementAndEvictParent() {
+        UUID parentId = UUID.randomUUID();
+        testContent.setParentId(parentId);
+
+        when(userCacheService.getOrCreatNewExternalUserIfNotExists(anyString(), anyString())).thenReturn(testUserData);
+        when(contentRepository.findByIdAndDeletedAtIsNull(testContent.getId())).thenReturn(Optional.of(testContent));
+
+        contentService.softDeleteContent(testContent.getId(), VALID_HEADER);
+
+        verify(contentRepository).decrementReplyCount(parentId);
+        verify(postCache).evict(List.of(testContent.getId(), parentId));
     }
 
     @Test
@@ -156,6 +279,17 @@ class ContentServiceTest {
 
         assertThat(response).isNotNull();
         assertThat(response.id()).isEqualTo(contentId);
+        verify(postCache).getOrLoad(eq(contentId), any());
+    }
+
+    @Test
+    void getVisibleContentById_WhenCached_ShouldNotQueryRepository() {
+        UUID contentId = UUID.randomUUID();
+        ContentResponse cached = ContentResponse.create(contentId, UUID.randomUUID(), null, LocalDateTime.now(), LocalDateTime.now(), "cached", Map.of());
+        when(postCache.getOrLoad(eq(contentId), any())).thenReturn(cached);
+
+        assertThat(contentService.getVisibleContentById(contentId)).isEqualTo(cached);
+        verify(contentRepository, never()).findByIdAndDeletedAtIsNull(any());
     }
 
     @Test
@@ -172,7 +306,7 @@ class ContentServiceTest {
         testContent.setId(contentId);
         testContent.setDeletedAt(LocalDateTime.now());
 
-        when(contentRepository.findById(contentId)).thenReturn(Optional.of(testContent));
+        when(contentRepository.findAnyById(contentId)).thenReturn(Optional.of(testContent));
 
         ContentResponseAdmin response = contentService.getContentByIdWithDeleted(contentId);
 
@@ -183,30 +317,174 @@ class ContentServiceTest {
     @Test
     void getAllVisibleContentFromUser_WhenUserExists_ShouldReturnContent() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Content> contentPage = new PageImpl<>(List.of(testContent), pageable, 1);
+        Page<ContentResponseAdmin> contentPage = new PageImpl<>(List.of(ContentResponseAdmin.fromEntity(testContent)), pageable, 1);
 
         when(userCacheService.getUserDataByUsername(anyString())).thenReturn(testUserData);
-        when(contentRepository.findAllByCreatorIdAndDeletedAtIsNull(any(UUID.class), any(Pageable.class)))
-                .thenReturn(Optional.of(contentPage));
+        when(contentRepository.findProfilePage(any(UUID.class), eq(true), eq(true), eq(false), any(Pageable.class)))
+                .thenReturn(contentPage);
 
         PageResponse<ContentResponse> response =
-                contentService.getAllVisibleContentFromUser(USERNAME, pageable, "all");
+                contentService.getAllVisibleContentFromUser(USERNAME, pageable, "all", true, null);
 
         assertThat(response).isNotNull();
         assertThat(response.content().size()).isEqualTo(1);
     }
 
+    @Test
+    void getAllVisibleContentFromUser_WithViewer_ShouldHydrateLikedByViewer() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(testUserData);
+        when(contentRepository.findProfilePage(any(UUID.class), eq(true), eq(true), eq(false), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(ContentResponseAdmin.fromEntity(testContent)), pageable, 1));
+        when(likedContentService.withLikedByViewer(eq(UUID.fromString(USER_ID)), any()))
+                .thenAnswer(invocation -> {
+                    PageResponse<ContentResponse> page = invocation.getArgument(1);
+                    return PageResponse.from(new PageImpl<>(
+                            page.content().stream().map(content -> content.withLikedByViewer(true)).toList(), pageable, 1));
+                });
+
+        PageResponse<ContentResponse> response =
+                contentService.getAllVisibleContentFromUser(USERNAME, pageable, "all", true, VALID_HEADER);
+
+        assertThat(response.content().getFirst().liked_by_viewer()).isTrue();
+    }
+
+    @Test
+    void getAllVisibleContentFromUser_WithoutViewer_ShouldNotHydrateLikedByViewer() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(testUserData);
+        when(contentRepository.findProfilePage(any(UUID.class), eq(true), eq(true), eq(false), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(ContentResponseAdmin.fromEntity(testContent)), pageable, 1));
+
+        PageResponse<ContentResponse> response =
+                contentService.getAllVisibleContentFromUser(USERNAME, pageable, "all", true, null);
+
+        assertThat(response.content().getFirst().liked_by_viewer()).isNull();
+        verify(likedContentService, never()).withLikedByViewer(any(UUID.class), any());
+    }
+
+    @Test
+    void getAllVisibleContentFromUser_WithoutCount_ShouldReturnSliceWithHasNext() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(testUserData);
+        when(contentRepository.findProfileSlice(any(UUID.class), eq(false), eq(true), eq(false), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of(ContentResponseAdmin.fromEntity(testContent)), pageable, true));
+
+        PageResponse<ContentResponse> response =
+                contentService.getAllVisibleContentFromUser(USERNAME, pageable, "comment", false, null);
+
+        assertThat(response.content()).extracting(ContentResponse::id).containsExactly(testContent.getId());
+        assertThat(response.has_next()).isTrue();
+        assertThat(response.totalItems()).isEqualTo(-1);
+        verify(contentRepository, never()).findProfilePage(any(), anyBoolean(), anyBoolean(), anyBoolean(), any());
+    }
+
+    @Test
+    void getAllContentFromUser_ShouldIncludeDeletedContentsAndCountThem() {
+        Pageable pageable = PageRequest.of(0, 1);
+        testContent.setDeletedAt(LocalDateTime.now());
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(testUserData);
+        when(contentRepository.findProfilePage(any(UUID.class), eq(true), eq(false), eq(true), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(ContentResponseAdmin.fromEntity(testContent)), pageable, 3));
+
+        PageResponse<ContentResponseAdmin> response = contentService.getAllContentFromUser(USERNAME, pageable, "post", true);
+
+        assertThat(response.content().getFirst().deletedAt()).isNotNull();
+        assertThat(response.totalItems()).isEqualTo(3);
+        assertThat(response.totalPages()).isEqualTo(3);
+        assertThat(response.has_next()).isTrue();
+    }
+
+    @Test
+    void getAllVisibleContentFromUser_WithCursor_ShouldReturnNextCursorFromLastContent() {
+        Content olderContent = new Content();
+        olderContent.setId(UUID.randomUUID());
+        olderContent.setCreatedAt(testContent.getCreatedAt().minusMinutes(1));
+        olderContent.setText("Older content");
+
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(testUserData);
+        when(contentRepository.findAllByCreatorIdAndDeletedAtIsNullAfter(any(UUID.class), eq(true), eq(false),
+                any(LocalDateTime.class), any(UUID.class), eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(testContent, olderContent));
+
+        PageResponse<ContentResponse> response =
+                contentService.getAllVisibleContentFromUser(USERNAME, ContentCursor.START, 1, "post", null);
+
+        assertThat(response.content()).hasSize(1);
+        assertThat(response.content().getFirst().id()).isEqualTo(testContent.getId());
+        assertThat(response.totalItems()).isEqualTo(-1);
+        assertThat(ContentCursor.decode(response.next_cursor())).isEqualTo(ContentCursor.fromContent(testContent));
+    }
+
+    @Test
+    void getAllVisibleContentFromUser_WithCursorOnLastPage_ShouldNotReturnNextCursor() {
+        when(userCacheService.getUserDataByUsername(anyString())).thenReturn(testUserData);
+        when(contentRepository.findAllByCreatorIdAndDeletedAtIsNullAfter(any(UUID.class), eq(true), eq(true),
+                any(LocalDateTime.class), any(UUID.class), any(Pageable.class)))
+                .thenReturn(List.of(testContent));
+
+        PageResponse<ContentResponse> response =
+                contentService.getAllVisibleContentFromUser(USERNAME, ContentCursor.START, 5, "all", null);
+
+        assertThat(response.content()).hasSize(1);
+        assertThat(response.next_cursor()).isNull();
+    }
+
+    @Test
+    void getUserFeed_WithCursorAndWarmTimeline_ShouldReadTimelineAfterCursor() {
+        Content olderContent = new Content();
+        olderContent.setId(UUID.randomUUID());
+        olderContent.setCreatedAt(testContent.getCreatedAt().minusMinutes(1));
+        ContentCursor cursor = ContentCursor.create(testContent.getCreatedAt().plusMinutes(1), UUID.randomUUID());
+        when(userCacheService.findUserId("testuser")).thenReturn(Mono.just(UUID.fromString(USER_ID)));
+        when(homeTimelineService.readHomeTimelineAfter(any(UUID.class), eq(cursor.createdAt()), eq(cursor.id()), eq(2)))
+                .thenReturn(Mono.just(HomeTimelineService.TimelineSlice.create(
+                        List.of(testContent.getId(), olderContent.getId()), 12)));
+        when(feedReadRepository.findVisibleByIds(List.of(testContent.getId()))).thenReturn(Mono.just(List.of(testContent)));
+
+        Flux<PageResponse<ContentResponse>> result = contentService.getUserFeed("testuser", "Bearer token", cursor, 1);
+
+        StepVerifier.create(result)
+                .expectNextMatches(page ->
+                        page.content().size() == 1 &&
+                                page.content().getFirst().id().equals(testContent.getId()) &&
+                                ContentCursor.decode(page.next_cursor()).equals(ContentCursor.fromContent(testContent))
+                )
+                .verifyComplete();
+        verify(contentService, never()).getListOfFollowedUser(anyString(), anyString());
+        verify(likedContentService).withLikedByViewerReactive(eq(UUID.fromString(USER_ID)), any());
+    }
+
+    @Test
+    void getUserFeed_WithCursorAndColdTimeline_ShouldUseKeysetQuery() {
+        when(userCacheService.findUserId("testuser")).thenReturn(Mono.just(UUID.fromString(USER_ID)));
+        when(homeTimelineService.readHomeTimelineAfter(any(UUID.class), any(LocalDateTime.class), any(UUID.class), anyInt()))
+                .thenReturn(Mono.empty());
+        when(followGraphService.findFollowedUserIds(UUID.fromString(USER_ID))).thenReturn(Mono.just(List.of(UUID.randomUUID())));
+        when(feedReadRepository.findFeedPageAfter(anyList(), any(), eq(ContentCursor.START.createdAt()),
+                eq(ContentCursor.START.id()), eq(11)))
+                .thenReturn(Mono.just(List.of(testContent)));
+
+        Flux<PageResponse<ContentResponse>> result = contentService.getUserFeed("testuser", "Bearer token", ContentCursor.START, 10);
+
+        StepVerifier.create(result)
+                .expectNextMatches(page -> page.content().size() == 1 && page.next_cursor() == null)
+                .verifyComplete();
+        verify(feedReadRepository, never()).findFeedPage(anyList(), any(), any());
+    }
+
     @Test
     void getUserFeed_WhenUserHasFollowedUsers_ShouldReturnFeed() {
-        doReturn(Flux.just(
-                new SimpleUserDataObject("user1", "testuser1"),
-                new SimpleUserDataObject("user2", "testuser2")
-        )).when(contentService).getListOfFollowedUser(anyString(), anyString());
+        when(userCacheService.findUserId("testuser")).thenReturn(Mono.just(UUID.fromString(USER_ID)));
+        when(homeTimelineService.readHomeTimeline(any(UUID.class), any(Pageable.class))).thenReturn(Mono.empty());
+        UUID firstFollowed = UUID.randomUUID();
+        UUID secondFollowed = UUID.randomUUID();
+        when(followGraphService.findFollowedUserIds(UUID.fromString(USER_ID))).thenReturn(Mono.just(List.of(firstFollowed, secondFollowed)));
 
         Content testContent = new Content();
         testContent.setText("Test content");
-        when(contentRepository.findAllByCreatorIdInAndDeletedAtIsNull(anyList(), any()))
-                .thenReturn(Optional.of(new PageImpl<>(List.of(testContent))));
+        when(feedReadRepository.findFeedPage(eq(List.of(firstFollowed, secondFollowed)), any(), any()))
+                .thenReturn(Mono.just(new PageImpl<>(List.of(testContent))));
 
         Flux<PageResponse<ContentResponse>> result = contentService.getUserFeed(
                 "testuser",
@@ -220,6 +498,125 @@ class ContentServiceTest {
                                 "Test content".equals(page.content().getFirst().text())
                 )
                 .verifyComplete();
+        verify(contentService, never()).getListOfFollowedUser(anyString(), anyString());
+    }
+
+    @Test
+    void getUserFeed_WhenFollowGraphHasNoFollowees_ShouldBootstrapFromUserServiceOnce() {
+        UUID followedId = UUID.randomUUID();
+        when(userCacheService.findUserId("testuser")).thenReturn(Mono.just(UUID.fromString(USER_ID)));
+        when(homeTimelineService.readHomeTimeline(any(UUID.class), any(Pageable.class))).thenReturn(Mono.empty());
+        when(followGraphService.findFollowedUserIds(UUID.fromString(USER_ID))).thenReturn(Mono.just(List.of()));
+        when(followGraphService.shouldBootstrap(UUID.fromString(USER_ID))).thenReturn(true);
+        doReturn(Flux.just(new SimpleUserDataObject(followedId.toString(), "testuser1")))
+                .when(contentService).getListOfFollowedUser(anyString(), anyString());
+        when(feedReadRepository.findFeedPage(eq(List.of(followedId)), any(), any()))
+                .thenReturn(Mono.just(new PageImpl<>(List.of(testContent))));
+
+        Flux<PageResponse<ContentResponse>> result = contentService.getUserFeed(
+                "testuser",
+                "Bearer token",
+                PageRequest.of(0, 10)
+        );
+
+        StepVerifier.create(result)
+                .expectNextMatches(page -> page.content().size() == 1)
+                .verifyComplete();
+        verify(followGraphService).addFollows(UUID.fromString(USER_ID), List.of(followedId));
+    }
+
+    @Test
+    void getUserFeed_WhenUserFollowsNobody_ShouldReturnEmptyPageWithoutRemoteCall() {
+        when(userCacheService.findUserId("testuser")).thenReturn(Mono.just(UUID.fromString(USER_ID)));
+        when(homeTimelineService.readHomeTimeline(any(UUID.class), any(Pageable.class))).thenReturn(Mono.empty());
+        when(followGraphService.findFollowedUserIds(UUID.fromString(USER_ID))).thenReturn(Mono.just(List.of()));
+        when(followGraphService.shouldBootstrap(UUID.fromString(USER_ID))).thenReturn(false);
+
+        Flux<PageResponse<ContentResponse>> result = contentService.getUserFeed(
+                "testuser",
+                "Bearer token",
+                PageRequest.of(0, 10)
+        );
+
+        StepVerifier.create(result)
+                .expectNextMatches(page -> page.content().isEmpty())
+                .verifyComplete();
+        verify(contentService, never()).getListOfFollowedUser(anyString(), anyString());
+    }
+
+    @Test
+    void getUserFeed_WhenHomeTimelineIsWarm_ShouldHydrateTimelineWithoutCallingUserService() {
+        Content olderContent = new Content();
+        olderContent.setId(UUID.randomUUID());
+        olderContent.setText("Older content");
+        when(userCacheService.findUserId("testuser")).thenReturn(Mono.just(UUID.fromString(USER_ID)));
+        when(homeTimelineService.readHomeTimeline(any(UUID.class), any(Pageable.class))).thenReturn(Mono.just(
+                HomeTimelineService.TimelineSlice.create(List.of(testContent.getId(), olderContent.getId()), 12)));
+        when(feedReadRepository.findVisibleByIds(anyList())).thenReturn(Mono.just(List.of(olderContent, testContent)));
+
+        Flux<PageResponse<ContentResponse>> result = contentService.getUserFeed(
+                "testuser",
+                "Bearer token",
+                PageRequest.of(0, 2)
+        );
+
+        StepVerifier.create(result)
+                .expectNextMatches(page ->
+                        page.content().size() == 2 &&
+                                page.totalItems() == 12 &&
+                                "Test content".equals(page.content().getFirst().text()) &&
+                                "Older content".equals(page.content().getLast().text())
+                )
+                .verifyComplete();
+        verify(contentService, never()).getListOfFollowedUser(anyString(), anyString());
+        verify(feedReadRepository, never()).findFeedPage(anyList(), any(), any());
+    }
+
+    @Test
+    void getUserFeed_WhenPageIsCached_ShouldNotReadTimeline() {
+        PageResponse<ContentResponse> cachedPage = new PageResponse<>(
+                List.of(ContentResponse.fromEntity(testContent)), 0, 1, 1, 10);
+        when(userCacheService.findUserId("testuser")).thenReturn(Mono.just(UUID.fromString(USER_ID)));
+        when(feedPageCache.getOrLoad(eq(UUID.fromString(USER_ID)), eq("page:0:10"), any())).thenReturn(Flux.just(cachedPage));
+
+        Flux<PageResponse<ContentResponse>> result = contentService.getUserFeed(
+                "testuser",
+                "Bearer token",
+                PageRequest.of(0, 10)
+        );
+
+        StepVerifier.create(result)
+                .expectNext(cachedPage)
+                .verifyComplete();
+        verify(homeTimelineService, never()).readHomeTimeline(any(UUID.class), any(Pageable.class));
+    }
+
+    @Test
+    void createContent_WhenValidInput_ShouldFanOutToHomeTimelines() {
+        ContentRequest request = new ContentRequest(null, "Test content", testMediaUrls);
+        given(userCacheService.getOrCreatNewExternalUserIfNotExists(anyString(), anyString())).willReturn(testUserData);
+        given(contentRepository.save(any(Content.class))).willReturn(testContent);
+
+        contentService.createContent(VALID_HEADER, request);
+
+        verify(homeTimelineService).fanOut(testContent);
+    }
+
+    @Test
+    void createContent_InTransaction_ShouldFanOutAfterCommit() {
+        ContentRequest request = new ContentRequest(null, "Test content", testMediaUrls);
+        given(userCacheService.getOrCreatNewExternalUserIfNotExists(anyString(), anyString())).willReturn(testUserData);
+        given(contentRepository.save(any(Content.class))).willReturn(testContent);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            contentService.createContent(VALID_HEADER, request);
+
+            verify(homeTimelineService, never()).fanOut(any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(homeTimelineService).fanOut(testContent);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
@@ -271,5 +668,6 @@ class ContentServiceTest {
         contentService.softDeleteContent(contentId,VALID_HEADER);
 
         assertNotNull(content.getDeletedAt());
+        verify(homeTimelineService).remove(content);
     }
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.socialmediatraining.contentservice.unittests.service.post;
+
+import com.socialmediatraining.contentservice.config.TwoLevelCacheManager;
+import com.socialmediatraining.contentservice.dto.post.ContentResponse;
+import com.socialmediatraining.contentservice.service.post.PostCache;
+import com.socialmediatraining.exceptioncommons.exception.PostNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PostCacheTest {
+    @Mock
+    private RedisCacheManager redisCacheManager;
+    @Mock
+    private RedisCache redisCache;
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private PostCache postCache;
+    private UUID postId;
+    private ContentResponse post;
+
+    @BeforeEach
+    void setUp() {
+        when(redisCacheManager.getCache(PostCache.POSTS_CACHE)).thenReturn(redisCache);
+        when(redisCache.getCacheConfiguration()).thenReturn(RedisCacheConfiguration.defaultCacheConfig());
+        //Behaves like RedisCache on a miss: the loader runs and its exceptions are wrapped
+        when(redisCache.get(any(), any(Callable.class))).thenAnswer(invocation -> {
+            try {
+                return invocation.<Callable<?>>getArgument(1).call();
+            } catch (Exception e) {
+                throw new Cache.ValueRetrievalException(invocation.getArgument(0), invocation.getArgument(1), e);
+            }
+        });
+        postCache = new PostCache(new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate,
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(1)));
+        postId = UUID.randomUUID();
+        post = ContentResponse.create(postId, UUID.randomUUID(), null, LocalDateTime.now(), LocalDateTime.now(), "post", Map.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getOrLoad_WhenConcurrentMisses_ShouldLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ContentResponse>> results = new ArrayList<>();
+            results.add(executor.submit(() -> postCache.getOrLoad(postId, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return post;
+            })));
+            loading.await();
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> postCache.getOrLoad(postId, () -> {
+                    loads.incrementAndGet();
+                    return post;
+                })));
+            }
+            release.countDown();
+
+            for (Future<ContentResponse> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(post);
+            }
+            assertThat(loads).hasValue(1);
+            verify(redisCache, times(1)).get(any(), any(Callable.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getOrLoad_WhenPostIsMissing_ShouldRethrowLoaderException() {
+        assertThrows(PostNotFoundException.class, () -> postCache.getOrLoad(postId, () -> {
+            throw new PostNotFoundException("Cannot find post with userId " + postId);
+        }));
+    }
+
+    @Test
+    void getOrLoad_WhenRedisFails_ShouldLoadFromDatabase() {
+        when(redisCache.get(any(), any(Callable.class))).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(postCache.getOrLoad(postId, () -> post)).isEqualTo(post);
+    }
+
+    @Test
+    void evict_InTransaction_ShouldWaitForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        postCache.evict(List.of(postId));
+
+        verify(redisCache, never()).evict(any());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(redisCache).evict(postId);
+    }
+
+    @Test
+    void evict_OutsideTransaction_ShouldEvictEveryPostEvenIfOneFails() {
+        UUID parentId = UUID.randomUUID();
+        doThrow(new RedisConnectionFailureException("down")).when(redisCache).evict(postId);
+
+        postCache.evict(List.of(postId, parentId));
+
+        verify(redisCache).evict(parentId);
+    }
+}
@@ -0,0 +1,57 @@
+package com.socialmediatraining.contentservice.unittests.service.thread;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialmediatraining.contentservice.service.thread.ThreadPageCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ThreadPageCacheTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private ThreadPageCache threadPageCache;
+    private UUID contentId;
+
+    @BeforeEach
+    void setUp() {
+        threadPageCache = new ThreadPageCache(redisTemplate, new ObjectMapper(), new SimpleMeterRegistry(), 30);
+        contentId = UUID.randomUUID();
+    }
+
+    @Test
+    void evict_WithoutTransaction_ShouldDeleteRightAway() {
+        threadPageCache.evict(List.of(contentId));
+
+        verify(redisTemplate).delete(List.of("thread:pages:" + contentId));
+    }
+
+    @Test
+    void evict_InTransaction_ShouldDeleteAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            threadPageCache.evict(List.of(contentId));
+
+            verifyNoInteractions(redisTemplate);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(redisTemplate).delete(List.of("thread:pages:" + contentId));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.socialmediatraining.contentservice.unittests.service.thread;
+
+import com.socialmediatraining.contentservice.dto.post.ContentCursor;
+import com.socialmediatraining.contentservice.dto.thread.ContentThread;
+import com.socialmediatraining.contentservice.dto.thread.ThreadReply;
+import com.socialmediatraining.contentservice.entity.Content;
+import com.socialmediatraining.contentservice.repository.ContentRepository;
+import com.socialmediatraining.contentservice.service.thread.ThreadPageCache;
+import com.socialmediatraining.contentservice.service.thread.ThreadService;
+import com.socialmediatraining.exceptioncommons.exception.PostNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ThreadServiceTest {
+    @Mock
+    private ContentRepository contentRepository;
+    @Mock
+    private ThreadPageCache threadPageCache;
+
+    private ThreadService threadService;
+    private Content post;
+
+    @BeforeEach
+    void setUp() {
+        threadService = new ThreadService(contentRepository, threadPageCache, 3, 200);
+        post = content(null, 0);
+        when(contentRepository.findByIdAndDeletedAtIsNull(post.getId())).thenReturn(Optional.of(post));
+        when(threadPageCache.getOrLoad(any(UUID.class), anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<ContentThread>>getArgument(2).get());
+    }
+
+    @Test
+    void getThread_ShouldPageDirectRepliesAndNestTheirReplies() {
+        Content newest = content(post.getId(), 3);
+        Content older = content(post.getId(), 2);
+        Content oldest = content(post.getId(), 1);
+        Content nested = content(newest.getId(), 4);
+        Content deeper = content(nested.getId(), 5);
+        when(contentRepository.findRepliesByParentIdAfter(eq(post.getId()), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(newest, older, oldest));
+        when(contentRepository.findNestedReplies(List.of(newest.getId(), older.getId()), 2, 200))
+                .thenReturn(List.of(nested, deeper));
+
+        ContentThread thread = threadService.getThread(post.getId(), ContentCursor.START, 2, 3);
+
+        assertThat(thread.content().id()).isEqualTo(post.getId());
+        assertThat(thread.replies().content()).extracting(reply -> reply.content().id())
+                .containsExactly(newest.getId(), older.getId());
+        assertThat(thread.replies().next_cursor()).isEqualTo(ContentCursor.fromContent(older).encode());
+        ThreadReply first = thread.replies().content().getFirst();
+        assertThat(first.replies()).extracting(reply -> reply.content().id()).containsExactly(nested.getId());
+        assertThat(first.replies().getFirst().replies()).extracting(reply -> reply.content().id()).containsExactly(deeper.getId());
+        assertThat(thread.replies().content().getLast().replies()).isEmpty();
+    }
+
+    @Test
+    void getThread_WhenDepthIsOne_ShouldNotQueryNestedReplies() {
+        when(contentRepository.findRepliesByParentIdAfter(eq(post.getId()), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(content(post.getId(), 1)));
+
+        ContentThread thread = threadService.getThread(post.getId(), ContentCursor.START, 10, 1);
+
+        assertThat(thread.replies().content()).hasSize(1);
+        assertThat(thread.replies().next_cursor()).isNull();
+        verify(contentRepository, never()).findNestedReplies(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getThread_ShouldCapDepthAndKeyCacheByIt() {
+        when(contentRepository.findRepliesByParentIdAfter(eq(post.getId()), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(content(post.getId(), 1)));
+
+        threadService.getThread(post.getId(), ContentCursor.START, 10, 50);
+
+        verify(threadPageCache).getOrLoad(eq(post.getId()), eq(ThreadPageCache.pageKey(ContentCursor.START, 10, 3)), any());
+        verify(contentRepository).findNestedReplies(any(), eq(2), eq(200));
+    }
+
+    @Test
+    void getThread_WhenContentDoesNotExist_ShouldThrow() {
+        UUID missingId = UUID.randomUUID();
+        when(contentRepository.findByIdAndDeletedAtIsNull(missingId)).thenReturn(Optional.empty());
+
+        assertThrows(PostNotFoundException.class, () -> threadService.getThread(missingId, ContentCursor.START, 10, 2));
+    }
+
+    @Test
+    void evictThreadsOf_ShouldEvictContentAndAncestorsUpToMaxDepth() {
+        Content reply = content(post.getId(), 1);
+        when(contentRepository.findAncestors(reply.getId(), 4)).thenReturn(List.of(reply, post));
+
+        threadService.evictThreadsOf(reply.getId());
+
+        verify(threadPageCache).evict(List.of(reply.getId(), post.getId()));
+    }
+
+    private Content content(UUID parentId, int minutes) {
+        return Content.builder()
+                .id(UUID.randomUUID())
+                .creatorId(UUID.randomUUID())
+                .parentId(parentId)
+                .text("text")
+                .createdAt(LocalDateTime.of(2025, 1, 1, 0, minutes))
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.socialmediatraining.contentservice.unittests.service.trending;
+
+import com.socialmediatraining.contentservice.dto.trending.TrendingContent;
+import com.socialmediatraining.contentservice.service.trending.CountMinSketch;
+import com.socialmediatraining.contentservice.service.trending.TrendingEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class TrendingEngineTest {
+
+    private static final long WINDOW = 60_000;
+    private static final long BUCKET = 10_000;
+
+    @Test
+    void countMinSketch_ShouldNeverUnderestimate_AndMergeWithWeight() {
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        CountMinSketch other = new CountMinSketch(4, 64);
+        long hash = CountMinSketch.hash(UUID.randomUUID());
+        for (int i = 0; i < 200; i++) {
+            sketch.add(CountMinSketch.hash(UUID.randomUUID()), 1);
+        }
+        sketch.add(hash, 5);
+        other.add(hash, 10);
+
+        assertThat(sketch.estimate(hash)).isGreaterThanOrEqualTo(5);
+        sketch.merge(other, 0.5);
+        assertThat(sketch.estimate(hash)).isGreaterThanOrEqualTo(10);
+        assertThatThrownBy(() -> sketch.merge(new CountMinSketch(2, 64), 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void top_ShouldRankByRecordedWeight() {
+        TrendingEngine engine = new TrendingEngine(WINDOW, 6, 1, 10, 4, 1024);
+        UUID hot = UUID.randomUUID();
+        UUID warm = UUID.randomUUID();
+        engine.record(warm, 1, 0);
+        engine.record(hot, 1, 0);
+        engine.record(hot, 3, 0);
+
+        List<TrendingContent> top = engine.top(0);
+
+        assertThat(top).extracting(TrendingContent::id).containsExactly(hot, warm);
+        assertThat(top.getFirst().score()).isEqualTo(4);
+    }
+
+    @Test
+    void top_ShouldKeepOnlyTopK() {
+        TrendingEngine engine = new TrendingEngine(WINDOW, 6, 1, 2, 4, 1024);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        engine.record(first, 1, 0);
+        engine.record(second, 2, 0);
+        engine.record(third, 3, 0);
+
+        assertThat(engine.top(0)).extracting(TrendingContent::id).containsExactly(third, second);
+    }
+
+    @Test
+    void top_ShouldDecayOlderBuckets() {
+        TrendingEngine engine = new TrendingEngine(WINDOW, 6, 0.5, 10, 4, 1024);
+        UUID old = UUID.randomUUID();
+        UUID recent = UUID.randomUUID();
+        engine.record(old, 4, 0);
+        engine.record(recent, 3, 2 * BUCKET);
+
+        List<TrendingContent> top = engine.top(2 * BUCKET);
+
+        assertThat(top).extracting(TrendingContent::id).containsExactly(recent, old);
+        assertThat(top.getLast().score()).isCloseTo(1, within(1e-9));
+    }
+
+    @Test
+    void top_ShouldForgetContentsOutsideTheWindow() {
+        TrendingEngine engine = new TrendingEngine(WINDOW, 6, 1, 10, 4, 1024);
+        UUID content = UUID.randomUUID();
+        engine.record(content, 1, 0);
+
+        assertThat(engine.top(WINDOW - 1)).hasSize(1);
+        assertThat(engine.top(WINDOW)).isEmpty();
+    }
+
+    @Test
+    void constructor_WhenInvalidConfiguration_ShouldThrow() {
+        assertThatThrownBy(() -> new TrendingEngine(WINDOW, 0, 1, 10, 4, 1024)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TrendingEngine(WINDOW, 6, 1.5, 10, 4, 1024)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,98 @@
+package com.socialmediatraining.contentservice.unittests.service.trending;
+
+import com.socialmediatraining.contentservice.dto.trending.TrendingContent;
+import com.socialmediatraining.contentservice.service.trending.TrendingService;
+import com.socialmediatraining.dtoutils.dto.NewContentNotification;
+import com.socialmediatraining.dtoutils.dto.UserLikeNotification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TrendingServiceTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    private TrendingService trendingService;
+    private UUID postId;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        trendingService = new TrendingService(redisTemplate, 3600, 12, 0.9, 50, 4, 1024, 1, 3, 1, 5000);
+        postId = UUID.randomUUID();
+    }
+
+    @Test
+    void refresh_ShouldWeighLikesCommentsAndCreations() {
+        UUID otherPostId = UUID.randomUUID();
+        when(setOperations.members("trending:instances")).thenReturn(Set.of());
+
+        trendingService.onContentPublished(NewContentNotification.create(postId.toString(), null, "creator", "creatorname"));
+        trendingService.onLike(UserLikeNotification.create("creator", postId.toString(), "liker", "likername"));
+        trendingService.onContentPublished(NewContentNotification.create(UUID.randomUUID().toString(), otherPostId.toString(), "commenter", "commentername"));
+        trendingService.refresh();
+
+        List<TrendingContent> trending = trendingService.getTrending(20);
+        assertThat(trending).extracting(TrendingContent::id).containsExactly(otherPostId, postId);
+        assertThat(trending).extracting(TrendingContent::score).containsExactly(3.0, 2.0);
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void refresh_ShouldMergeTopOfOtherInstances_AndDropExpiredOnes() {
+        UUID remotePostId = UUID.randomUUID();
+        when(setOperations.members("trending:instances")).thenReturn(Set.of("remote", "expired"));
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(), List.of(
+                Map.of(remotePostId.toString(), "5.0", postId.toString(), "1.5"), Map.of()));
+
+        trendingService.onLike(UserLikeNotification.create("creator", postId.toString(), "liker", "likername"));
+        trendingService.refresh();
+
+        List<TrendingContent> trending = trendingService.getTrending(20);
+        assertThat(trending).extracting(TrendingContent::id).containsExactlyInAnyOrder(remotePostId, postId);
+        assertThat(trending).extracting(TrendingContent::score).containsExactly(5.0, 2.5);
+        verify(setOperations).remove(eq("trending:instances"), any(Object[].class));
+    }
+
+    @Test
+    void refresh_WhenRedisFails_ShouldServeLocalTop() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenThrow(new RedisConnectionFailureException("down"));
+
+        trendingService.onLike(UserLikeNotification.create("creator", postId.toString(), "liker", "likername"));
+        trendingService.refresh();
+
+        assertThat(trendingService.getTrending(20)).extracting(TrendingContent::id).containsExactly(postId);
+    }
+
+    @Test
+    void getTrending_ShouldLimitSnapshot() {
+        when(setOperations.members("trending:instances")).thenReturn(Set.of());
+        trendingService.onLike(UserLikeNotification.create("creator", postId.toString(), "liker", "likername"));
+        trendingService.onLike(UserLikeNotification.create("creator", UUID.randomUUID().toString(), "liker", "likername"));
+        trendingService.refresh();
+
+        assertThat(trendingService.getTrending(1)).hasSize(1);
+        assertThat(trendingService.getTrending(20)).hasSize(2);
+    }
+}
@@ -1,7 +1,10 @@
 package com.socialmediatraining.contentservice.unittests.service.user;
 
+import com.socialmediatraining.contentservice.config.TwoLevelCache;
+import com.socialmediatraining.contentservice.config.TwoLevelCacheManager;
 import com.socialmediatraining.contentservice.entity.ExternalUser;
 import com.socialmediatraining.contentservice.repository.ExternalUserRepository;
+import com.socialmediatraining.contentservice.repository.FeedReadRepository;
 import com.socialmediatraining.contentservice.service.user.UserCacheService;
 import com.socialmediatraining.dtoutils.dto.SimpleUserDataObject;
 import com.socialmediatraining.exceptioncommons.exception.UserDoesntExistsException;
@@ -12,19 +15,34 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.client.HttpServerErrorException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class UserCacheServiceTest {
     @Mock
     private ExternalUserRepository userRepository;
+    @Mock
+    private TwoLevelCacheManager cacheManager;
+    @Mock
+    private TwoLevelCache cache;
+    @Mock
+    private FeedReadRepository feedReadRepository;
 
     @InjectMocks
     private UserCacheService userCacheService;
@@ -48,6 +66,33 @@ class UserCacheServiceTest {
         assertThat(result.username()).isEqualTo(testUser.getUsername());
     }
 
+    @Test
+    void findUserId_WhenUserIsInLocalCache_ShouldNotQuery() {
+        when(cacheManager.getCache("users")).thenReturn(cache);
+        when(cache.getLocal("testuser")).thenReturn(SimpleUserDataObject.create(testUser.getId().toString(), "testuser"));
+
+        StepVerifier.create(userCacheService.findUserId("testuser")).expectNext(testUser.getId()).verifyComplete();
+        verify(feedReadRepository, never()).findUserIdByUsername(any());
+    }
+
+    @Test
+    void findUserId_WhenLocalCacheMisses_ShouldQueryAndKeepUserLocally() {
+        when(cacheManager.getCache("users")).thenReturn(cache);
+        when(feedReadRepository.findUserIdByUsername("testuser")).thenReturn(Mono.just(testUser.getId()));
+
+        StepVerifier.create(userCacheService.findUserId("testuser")).expectNext(testUser.getId()).verifyComplete();
+        verify(cache).putLocal("testuser", SimpleUserDataObject.create(testUser.getId().toString(), "testuser"));
+        verify(userRepository, never()).findExternalUserByUsername(any());
+    }
+
+    @Test
+    void findUserId_WhenUserNotExists_ShouldError() {
+        when(cacheManager.getCache("users")).thenReturn(cache);
+        when(feedReadRepository.findUserIdByUsername("testuser")).thenReturn(Mono.empty());
+
+        StepVerifier.create(userCacheService.findUserId("testuser")).verifyError(UserDoesntExistsException.class);
+    }
+
     @Test
     void getUserDataByUsername_WhenUserNotExists_ShouldThrowException() {
         when(userRepository.findExternalUserByUsername(testUser.getUsername())).thenReturn(Optional.empty());
@@ -143,4 +188,27 @@ class UserCacheServiceTest {
                 () -> userCacheService.createNewUser(null)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getUserDataByIds_ShouldReturnUsersKeyedById() {
+        when(cacheManager.getCache("usersById")).thenReturn(cache);
+        when(cache.getAll(anyCollection(), any(Function.class))).thenAnswer(invocation ->
+                invocation.<Function<Set<String>, Map<String, SimpleUserDataObject>>>getArgument(1)
+                        .apply(Set.of(testUser.getId().toString())));
+        when(userRepository.findAllById(List.of(testUser.getId()))).thenReturn(List.of(testUser));
+
+        Map<UUID, SimpleUserDataObject> result = userCacheService.getUserDataByIds(List.of(testUser.getId()));
+
+        assertThat(result).containsOnlyKeys(testUser.getId());
+        assertThat(result.get(testUser.getId()).username()).isEqualTo(testUser.getUsername());
+    }
+
+    @Test
+    void getUserDataByIds_WhenEmpty_ShouldNotReadCache() {
+        Map<UUID, SimpleUserDataObject> result = userCacheService.getUserDataByIds(List.of());
+
+        assertThat(result).isEmpty();
+        verify(cacheManager, never()).getCache(any());
+    }
+}
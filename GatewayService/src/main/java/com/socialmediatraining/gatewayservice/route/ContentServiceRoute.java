@@ -12,6 +12,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
 
 import static jakarta.ws.rs.HttpMethod.*;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
 
 @Configuration
 @Slf4j
@@ -57,6 +58,18 @@ public class ContentServiceRoute extends AbstractRoute {
                         )
                         .uri("lb://content-service")
                 )
+                //Streams are long-lived, the response timeout is disabled and the rate limit applies once per connection
+                .route("content-service-feed-stream", route -> route
+                        .order(-1)
+                        .path("/api/v1/feed/stream")
+                        .and().method(GET)
+                        .filters(filter -> filter
+                                .filter(loggingFilter())
+                                .filter(applyRateLimit())
+                        )
+                        .metadata(RESPONSE_TIMEOUT_ATTR, -1)
+                        .uri("lb://content-service")
+                )
                 .route("content-service-feed", route -> route
                         .path("/api/v1/feed/**")
                         .and().method(GET)
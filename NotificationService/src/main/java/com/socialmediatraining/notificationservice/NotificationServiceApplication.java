@@ -3,6 +3,7 @@ package com.socialmediatraining.notificationservice;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {
         "com.socialmediatraining.notificationservice",
@@ -10,6 +11,7 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
         "com.socialmediatraining.authenticationcommons"
 })
 @EnableDiscoveryClient
+@EnableScheduling
 public class NotificationServiceApplication {
 
     public static void main(String[] args) {
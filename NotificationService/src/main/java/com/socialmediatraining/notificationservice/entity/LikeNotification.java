@@ -0,0 +1,25 @@
+package com.socialmediatraining.notificationservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//One unread document per (recipient, content), upserted once per aggregation window
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Document(collection = "notifications")
+@CompoundIndex(name = "like_notification_upsert", def = "{'userId': 1, 'contentId': 1, 'type': 1, 'read': 1}")
+@SuperBuilder
+public class LikeNotification extends Notification {
+    String contentId;
+    long likeCount;
+    List<String> recentLikers;
+    LocalDateTime lastLikedAt;
+}
@@ -0,0 +1,123 @@
+package com.socialmediatraining.notificationservice.service;
+
+import com.socialmediatraining.dtoutils.dto.UserLikeNotification;
+import com.socialmediatraining.notificationservice.entity.LikeNotification;
+import com.socialmediatraining.notificationservice.entity.Notification;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Likes are counted in memory per (recipient, content) and written once per window: a viral post costs one
+//upsert per window instead of one document per like. The unread LIKE document of a post keeps a running count
+//and its most recent likers, once read the next like starts a new one.
+//Likes still in memory when the instance dies are lost, which is acceptable for notifications.
+@Service
+@Slf4j
+public class LikeNotificationAggregator {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final int maxRecentLikers;
+    private final Map<WindowKey, LikeWindow> windows = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LikeNotificationAggregator(ReactiveMongoTemplate mongoTemplate,
+                                      @Value("${notifications.like.recent-likers:3}") int maxRecentLikers) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxRecentLikers = maxRecentLikers;
+    }
+
+    @KafkaListener(topics = "new-like", groupId = "notification-service")
+    public void onLike(UserLikeNotification like) {
+        windows.compute(new WindowKey(like.userId(), like.contentId()), (key, window) -> {
+            LikeWindow current = window == null ? new LikeWindow() : window;
+            current.add(like.likerUsername(), maxRecentLikers);
+            return current;
+        });
+    }
+
+    //The scheduler calls flush() once and subscribes to that Mono on every run, the keys are read per subscription
+    @Scheduled(fixedDelayString = "${notifications.like.window:30000}")
+    public Mono<Void> flush() {
+        return Flux.defer(() -> Flux.fromIterable(List.copyOf(windows.keySet())))
+                .flatMap(key -> Mono.justOrEmpty(windows.remove(key))
+                        .flatMap(window -> upsert(key, window))
+                        .onErrorResume(e -> {
+                            log.error("Error while writing like notification of content {} for user {}", key.contentId(), key.userId(), e);
+                            return Mono.empty();
+                        }), 16)
+                .then();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush().block(Duration.ofSeconds(10));
+    }
+
+    private Mono<Void> upsert(WindowKey key, LikeWindow window) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(Criteria.where("userId").is(key.userId())
+                .and("contentId").is(key.contentId())
+                .and("type").is(Notification.NotificationType.LIKE)
+                .and("read").is(Notification.NotificationStatus.UNREAD));
+        Update update = new Update()
+                .inc("likeCount", window.count)
+                .set("lastLikedAt", now)
+                .setOnInsert("title", "New likes on your post")
+                .setOnInsert("createdAt", now)
+                .setOnInsert("_class", LikeNotification.class.getName());
+        update.push("recentLikers").slice(-maxRecentLikers).each(window.likers.toArray());
+
+        //The running count is only known once $inc is applied, the text is set from the returned document
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().upsert(true).returnNew(true), LikeNotification.class)
+                .flatMap(notification -> mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("_id").is(notification.getId())),
+                        Update.update("content", describe(notification.getLikeCount(), notification.getRecentLikers())),
+                        LikeNotification.class))
+                .then();
+    }
+
+    static String describe(long likeCount, List<String> recentLikers) {
+        String latest = recentLikers.getLast();
+        if (likeCount <= 1) {
+            return String.format("%s liked your post", latest);
+        }
+        long others = likeCount - 1;
+        return String.format("%s and %d %s liked your post", latest, others, others == 1 ? "other" : "others");
+    }
+
+    private record WindowKey(String userId, String contentId) {
+    }
+
+    //Only touched inside ConcurrentHashMap.compute, or after being removed from the map
+    private static class LikeWindow {
+        private long count;
+        private final LinkedHashSet<String> likers = new LinkedHashSet<>();
+
+        private void add(String likerUsername, int maxLikers) {
+            count++;
+            likers.remove(likerUsername);
+            likers.add(likerUsername);
+            if (likers.size() > maxLikers) {
+                likers.removeFirst();
+            }
+        }
+    }
+}
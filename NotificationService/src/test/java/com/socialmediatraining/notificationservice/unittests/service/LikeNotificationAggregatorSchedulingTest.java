@@ -0,0 +1,56 @@
+package com.socialmediatraining.notificationservice.unittests.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.socialmediatraining.dtoutils.dto.UserLikeNotification;
+import com.socialmediatraining.notificationservice.entity.LikeNotification;
+import com.socialmediatraining.notificationservice.service.LikeNotificationAggregator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+//The window is flushed by the scheduler alone, nothing calls flush() here
+@SpringJUnitConfig(classes = {LikeNotificationAggregator.class, LikeNotificationAggregatorSchedulingTest.SchedulingConfig.class})
+@TestPropertySource(properties = "notifications.like.window=50")
+class LikeNotificationAggregatorSchedulingTest {
+
+    @Configuration
+    @EnableScheduling
+    static class SchedulingConfig {
+    }
+
+    @MockitoBean
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private LikeNotificationAggregator aggregator;
+
+    @Test
+    void onLike_ShouldBeWrittenByTheScheduledFlush() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(LikeNotification.builder().id("notification-id").likeCount(2).recentLikers(List.of("alice", "bob")).build()));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+        aggregator.onLike(UserLikeNotification.create("creator-id", "content-1", "alice-id", "alice"));
+        aggregator.onLike(UserLikeNotification.create("creator-id", "content-1", "bob-id", "bob"));
+
+        verify(mongoTemplate, timeout(2000)).updateFirst(any(Query.class),
+                eq(Update.update("content", "bob and 1 other liked your post")), eq(LikeNotification.class));
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(LikeNotification.class));
+    }
+}
@@ -0,0 +1,152 @@
+package com.socialmediatraining.notificationservice.unittests.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.socialmediatraining.dtoutils.dto.UserLikeNotification;
+import com.socialmediatraining.notificationservice.entity.LikeNotification;
+import com.socialmediatraining.notificationservice.entity.Notification;
+import com.socialmediatraining.notificationservice.service.LikeNotificationAggregator;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LikeNotificationAggregatorTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    private LikeNotificationAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new LikeNotificationAggregator(mongoTemplate, 2);
+    }
+
+    private static UserLikeNotification like(String contentId, String likerUsername) {
+        return UserLikeNotification.create("creator-id", contentId, likerUsername + "-id", likerUsername);
+    }
+
+    private static LikeNotification stored(String id, long likeCount, List<String> recentLikers) {
+        return LikeNotification.builder().id(id).likeCount(likeCount).recentLikers(recentLikers).build();
+    }
+
+    private static Query unreadLikeOf(String contentId) {
+        return Query.query(Criteria.where("userId").is("creator-id")
+                .and("contentId").is(contentId)
+                .and("type").is(Notification.NotificationType.LIKE)
+                .and("read").is(Notification.NotificationStatus.UNREAD));
+    }
+
+    @Test
+    void flush_ShouldUpsertOnceForAllLikesOfAPostInTheWindow() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(stored("notification-id", 3, List.of("bob", "carol"))));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        aggregator.onLike(like("content-1", "alice"));
+        aggregator.onLike(like("content-1", "bob"));
+        aggregator.onLike(like("content-1", "carol"));
+
+        StepVerifier.create(aggregator.flush()).verifyComplete();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(eq(unreadLikeOf("content-1")), update.capture(), options.capture(), eq(LikeNotification.class));
+        Document operations = update.getValue().getUpdateObject();
+        assertThat(operations.get("$inc", Document.class).get("likeCount")).isEqualTo(3L);
+        assertThat(operations.get("$setOnInsert", Document.class))
+                .containsEntry("title", "New likes on your post")
+                .containsEntry("_class", LikeNotification.class.getName());
+        assertThat(update.getValue().modifies("recentLikers")).isTrue();
+        assertThat(options.getValue().isUpsert()).isTrue();
+        assertThat(options.getValue().isReturnNew()).isTrue();
+        //The text is written from the running count of the returned document
+        verify(mongoTemplate).updateFirst(Query.query(Criteria.where("_id").is("notification-id")),
+                Update.update("content", "carol and 2 others liked your post"), LikeNotification.class);
+    }
+
+    @Test
+    void flush_ShouldKeepOnlyTheMostRecentDistinctLikers() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(stored("notification-id", 4, List.of("carol", "alice"))));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        aggregator.onLike(like("content-1", "alice"));
+        aggregator.onLike(like("content-1", "bob"));
+        aggregator.onLike(like("content-1", "carol"));
+        aggregator.onLike(like("content-1", "alice"));
+
+        StepVerifier.create(aggregator.flush()).verifyComplete();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(LikeNotification.class));
+        Update expected = new Update();
+        expected.push("recentLikers").slice(-2).each("carol", "alice");
+        assertThat(update.getValue().getUpdateObject().get("$push")).isEqualTo(expected.getUpdateObject().get("$push"));
+        assertThat(update.getValue().getUpdateObject().get("$inc", Document.class).get("likeCount")).isEqualTo(4L);
+    }
+
+    @Test
+    void flush_ShouldUpsertEachPostSeparately() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(stored("notification-id", 1, List.of("alice"))));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        aggregator.onLike(like("content-1", "alice"));
+        aggregator.onLike(like("content-2", "alice"));
+
+        StepVerifier.create(aggregator.flush()).verifyComplete();
+
+        verify(mongoTemplate).findAndModify(eq(unreadLikeOf("content-1")), any(Update.class), any(FindAndModifyOptions.class), eq(LikeNotification.class));
+        verify(mongoTemplate).findAndModify(eq(unreadLikeOf("content-2")), any(Update.class), any(FindAndModifyOptions.class), eq(LikeNotification.class));
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), eq(Update.update("content", "alice liked your post")), eq(LikeNotification.class));
+    }
+
+    @Test
+    void flush_ShouldStartANewWindow() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(stored("notification-id", 1, List.of("alice"))));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        aggregator.onLike(like("content-1", "alice"));
+
+        StepVerifier.create(aggregator.flush()).verifyComplete();
+        StepVerifier.create(aggregator.flush()).verifyComplete();
+
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(LikeNotification.class));
+    }
+
+    @Test
+    void flush_WhenAnUpsertFails_ShouldStillWriteTheOtherPosts() {
+        when(mongoTemplate.findAndModify(eq(unreadLikeOf("content-1")), any(Update.class), any(FindAndModifyOptions.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.error(new IllegalStateException("mongo is down")));
+        when(mongoTemplate.findAndModify(eq(unreadLikeOf("content-2")), any(Update.class), any(FindAndModifyOptions.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(stored("notification-id", 1, List.of("alice"))));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(LikeNotification.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        aggregator.onLike(like("content-1", "alice"));
+        aggregator.onLike(like("content-2", "alice"));
+
+        StepVerifier.create(aggregator.flush()).verifyComplete();
+
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(LikeNotification.class));
+    }
+}
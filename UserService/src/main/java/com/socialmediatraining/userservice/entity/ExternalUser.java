@@ -26,6 +26,10 @@ public class ExternalUser {
     @Column(name = "last_activity_at")
     private LocalDateTime lastActivityAt;
 
+    //Maintained by ExternalUserRepository counter updates, never written by entity updates
+    @Column(name = "follower_count", nullable = false, updatable = false)
+    private long followerCount;
+
     @OneToMany(mappedBy = "followingUserId", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<ExternalUserFollow> following = new HashSet<>();
 
@@ -45,12 +49,14 @@ public class ExternalUser {
         return follow;
     }
 
-    public void unfollow(ExternalUser userToUnfollow) {
+    //False when this user was not following userToUnfollow
+    public boolean unfollow(ExternalUser userToUnfollow) {
         if (userToUnfollow == null) {
-            return;
+            return false;
         }
 
-        following.removeIf(f -> f.getFollowedUserId().equals(userToUnfollow));
+        boolean removed = following.removeIf(f -> f.getFollowedUserId().equals(userToUnfollow));
         userToUnfollow.getFollowers().removeIf(f -> f.getFollowingUserId().equals(this));
+        return removed;
     }
 }
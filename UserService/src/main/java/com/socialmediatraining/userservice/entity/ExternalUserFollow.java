@@ -1,5 +1,6 @@
 package com.socialmediatraining.userservice.entity;
 
+import com.socialmediatraining.dtoutils.id.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -20,7 +21,7 @@ import java.util.UUID;
 public class ExternalUserFollow {
 
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private UUID id;
 
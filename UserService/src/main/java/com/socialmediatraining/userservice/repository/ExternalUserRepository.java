@@ -3,6 +3,8 @@ package com.socialmediatraining.userservice.repository;
 import com.socialmediatraining.userservice.entity.ExternalUser;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,4 +14,21 @@ import java.util.UUID;
 public interface ExternalUserRepository extends JpaRepository<ExternalUser, UUID> {
 
     Optional<ExternalUser> findExternalUserByUsername(String username);
+
+    @Modifying
+    @Query("UPDATE ExternalUser u SET u.followerCount = u.followerCount + 1 WHERE u.id = :id")
+    int incrementFollowerCount(UUID id);
+
+    @Modifying
+    @Query("UPDATE ExternalUser u SET u.followerCount = u.followerCount - 1 WHERE u.id = :id AND u.followerCount > 0")
+    int decrementFollowerCount(UUID id);
+
+    //Users followed by followerId lose a follower, before followerId and its follows are deleted
+    @Modifying
+    @Query("UPDATE ExternalUser u SET u.followerCount = u.followerCount - 1 WHERE u.followerCount > 0 AND u.id IN " +
+            "(SELECT f.followedUserId.id FROM ExternalUserFollow f WHERE f.followingUserId.id = :followerId)")
+    int decrementFollowerCountsOfFollowedBy(UUID followerId);
+
+    @Query("SELECT u.followerCount FROM ExternalUser u WHERE u.id = :id")
+    long findFollowerCountById(UUID id);
 }
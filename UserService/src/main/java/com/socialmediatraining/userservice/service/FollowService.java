@@ -1,8 +1,10 @@
 package com.socialmediatraining.userservice.service;
 
 import com.socialmediatraining.authenticationcommons.JwtUtils;
+import com.socialmediatraining.dtoutils.dto.ContentImportedNotification;
 import com.socialmediatraining.dtoutils.dto.SimpleUserDataObject;
 import com.socialmediatraining.dtoutils.dto.UserFollowNotification;
+import com.socialmediatraining.dtoutils.dto.UserFollowerCount;
 import com.socialmediatraining.exceptioncommons.exception.UserActionForbiddenException;
 import com.socialmediatraining.exceptioncommons.exception.UserDoesntExistsException;
 import com.socialmediatraining.userservice.dto.ExternalUserResponse;
@@ -18,6 +20,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -29,12 +32,14 @@ public class FollowService {
     private final ExternalUserRepository externalUserRepository;
     private final ExternalUserFollowRepository userFollowRepository;
     private final KafkaTemplate<String, UserFollowNotification> kafkaTemplate;
+    private final KafkaTemplate<String, UserFollowerCount> followerCountKafkaTemplate;
 
     @Autowired
-    public FollowService(ExternalUserRepository followRepository, ExternalUserFollowRepository userFollowRepository, KafkaTemplate<String, UserFollowNotification> kafkaTemplate) {
+    public FollowService(ExternalUserRepository followRepository, ExternalUserFollowRepository userFollowRepository, KafkaTemplate<String, UserFollowNotification> kafkaTemplate, KafkaTemplate<String, UserFollowerCount> followerCountKafkaTemplate) {
         this.externalUserRepository = followRepository;
         this.userFollowRepository = userFollowRepository;
         this.kafkaTemplate = kafkaTemplate;
+        this.followerCountKafkaTemplate = followerCountKafkaTemplate;
     }
 
     @KafkaListener(topics = "created-new-content", groupId = "user-service" )
@@ -50,9 +55,29 @@ public class FollowService {
         log.info("Kafka topic caught -> User {} activity updated", simpleUserData);
     }
 
+    //Imported contents are historic, the activity only moves forward to the newest of them
+    @KafkaListener(topics = "content-imported", groupId = "user-service" )
+    public void recordImportedContents(ContentImportedNotification contentImported) {
+        ExternalUser user = externalUserRepository.findById(UUID.fromString(contentImported.userId())).orElse(null);
+        if(user == null){
+            log.error("User {} not in database, cannot record {} imported contents", contentImported.userId(), contentImported.importedCount());
+            return;
+        }
+
+        LocalDateTime lastCreatedAt = LocalDateTime.parse(contentImported.lastCreatedAt());
+        if(user.getLastActivityAt() == null || user.getLastActivityAt().isBefore(lastCreatedAt)){
+            user.setLastActivityAt(lastCreatedAt);
+            externalUserRepository.save(user);
+        }
+        log.info("Kafka topic caught -> {} contents imported for user {}", contentImported.importedCount(), contentImported.userId());
+    }
+
     @KafkaListener(topics = "user-deleted", groupId = "user-service" )
+    @Transactional
     public void deleteUser(SimpleUserDataObject simpleUserData){
-        externalUserRepository.deleteById(UUID.fromString(simpleUserData.userId()));
+        UUID userId = UUID.fromString(simpleUserData.userId());
+        externalUserRepository.decrementFollowerCountsOfFollowedBy(userId);
+        externalUserRepository.deleteById(userId);
         log.info("Kafka topic caught -> User {} deleted", simpleUserData.username());
     }
 
@@ -72,6 +97,7 @@ public class FollowService {
         log.info("Kafka topic caught -> New user created: {}", simpleUserData);
     }
 
+    @Transactional
     public String followUser(String username, String token) {
         String userUsername = JwtUtils.getUsernameFromAuthHeader(token);
         if(userUsername.equals(username)){
@@ -95,14 +121,17 @@ public class FollowService {
 
         ExternalUserFollow userFollow = user.follow(userToFollow);
         userFollowRepository.save(userFollow);
+        externalUserRepository.incrementFollowerCount(userToFollow.getId());
 
         kafkaTemplate.send("new-follower", UserFollowNotification.create(
                 userToFollow.getId().toString(),userToFollow.getUsername(),
                 user.getId().toString(),user.getUsername()));
+        sendFollowerCount(userToFollow);
 
         return String.format("User %s followed user %s successfully", userUsername, username);
     }
 
+    @Transactional
     public String unfollowUser(String username, String token) {
         String userUsername = JwtUtils.getUsernameFromAuthHeader(token);
         if(userUsername.equals(username)){
@@ -119,12 +148,26 @@ public class FollowService {
             throw new UserDoesntExistsException("Logged user " + userUsername + " doesn't exists in database");
         }
 
-        user.unfollow(userToFollow);
-        externalUserRepository.save(user);
+        if (user.unfollow(userToFollow)) {
+            externalUserRepository.save(user);
+            externalUserRepository.decrementFollowerCount(userToFollow.getId());
+        }
+
+        kafkaTemplate.send("user-unfollowed", UserFollowNotification.create(
+                userToFollow.getId().toString(),userToFollow.getUsername(),
+                user.getId().toString(),user.getUsername()));
+        sendFollowerCount(userToFollow);
 
         return String.format("User %s unfollowed user %s successfully", userUsername, username);
     }
 
+    //Read in the transaction that moved the counter, its row lock orders concurrent follows of the same user
+    private void sendFollowerCount(ExternalUser user) {
+        followerCountKafkaTemplate.send("user-follower-count", UserFollowerCount.create(
+                user.getId().toString(), user.getUsername(), externalUserRepository.findFollowerCountById(user.getId())));
+    }
+
+    @Transactional(readOnly = true)
     public Page<ExternalUserResponse> getAllFollowersOfUser(String username, Pageable pageable) {
         ExternalUser user = externalUserRepository.findExternalUserByUsername(username).orElse(null);
         if(user == null){
@@ -141,6 +184,7 @@ public class FollowService {
         return new PageImpl<>(followersList,pageable,followersList.size());
     }
 
+    @Transactional(readOnly = true)
     public List<ExternalUserResponse> getAllFollowOfUser(String username, int limit, String orderBy) {
         ExternalUser user = externalUserRepository.findExternalUserByUsername(username).orElse(null);
         if(user == null){
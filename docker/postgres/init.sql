@@ -5,18 +5,36 @@ CREATE TABLE external_user(
     username varchar(255) NOT NULL UNIQUE
 );
 
+-- Range partitioned by month on created_at, partitions are named content_pYYYY_MM and created ahead of time by the
+-- content service. The primary key has to include the partition key, so id is unique per created_at only and no
+-- foreign key can reference content: the triggers at the end of this file check parent_id and the content_id of likes
+-- and favorites instead, and cascade the deletes like the former foreign keys did. root_id is not enforced
 CREATE TABLE content(
-    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
     creator_id UUID NOT NULL,
     parent_id UUID default NULL,
-    created_at TIMESTAMP DEFAULT NOW(),
+    root_id UUID default NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
     updated_at TIMESTAMP DEFAULT NOW(),
     text VARCHAR(255) NOT NULL,
     media_urls JSONB default NULL,
     deleted_at TIMESTAMP,
-    FOREIGN KEY (parent_id) REFERENCES content(id) ON DELETE CASCADE ,
+    like_count BIGINT NOT NULL DEFAULT 0,
+    reply_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (id, created_at),
     FOREIGN KEY (creator_id) REFERENCES external_user(id) ON DELETE CASCADE
-);
+) PARTITION BY RANGE (created_at);
+
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    FOR i IN -1..3 LOOP
+        month := date_trunc('month', NOW())::DATE + make_interval(months => i);
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF content FOR VALUES FROM (%L) TO (%L)',
+                       'content_p' || to_char(month, 'YYYY_MM'), month, month + INTERVAL '1 month');
+    END LOOP;
+END $$;
 
 CREATE TABLE user_content_like(
     id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
@@ -24,7 +42,6 @@ CREATE TABLE user_content_like(
     content_id UUID NOT NULL,
     created_at TIMESTAMP DEFAULT NOW(),
     FOREIGN KEY (user_id) REFERENCES external_user(id) ON DELETE CASCADE,
-    FOREIGN KEY (content_id) REFERENCES content(id) ON DELETE CASCADE,
     CONSTRAINT uc_user_content_like UNIQUE (user_id, content_id)
 );
 
@@ -34,12 +51,79 @@ CREATE TABLE user_content_favorite(
   content_id UUID NOT NULL,
   created_at TIMESTAMP DEFAULT NOW(),
   FOREIGN KEY (user_id) REFERENCES external_user(id) ON DELETE CASCADE,
-  FOREIGN KEY (content_id) REFERENCES content(id) ON DELETE CASCADE,
   CONSTRAINT uc_user_content_favorite UNIQUE (user_id, content_id)
 );
 
+-- Replica of the user-service follow graph, no foreign keys as follow events can arrive before user events
+CREATE TABLE user_follow(
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    follower_id UUID NOT NULL,
+    followed_id UUID NOT NULL,
+    created_at TIMESTAMP DEFAULT NOW(),
+    CONSTRAINT uc_user_follow UNIQUE (follower_id, followed_id)
+);
+
+-- Like counter batches already added to content.like_count, kept one day by the flusher
+CREATE TABLE like_count_flush(
+    batch_id UUID PRIMARY KEY,
+    applied_at TIMESTAMP NOT NULL
+);
+
 CREATE INDEX idx_content_creator ON content(creator_id);
+CREATE INDEX idx_content_creator_keyset ON content(creator_id, created_at DESC, id DESC);
 CREATE INDEX idx_comments ON content(parent_id) WHERE parent_id IS NOT NULL;
 CREATE INDEX idx_posts ON content(parent_id) WHERE parent_id IS NULL;
 CREATE INDEX idx_user_content_like ON user_content_like(user_id, content_id);
+CREATE INDEX idx_user_content_like_keyset ON user_content_like(user_id, created_at DESC, id DESC);
 CREATE INDEX idx_user_content_favorite ON user_content_favorite(user_id, content_id);
+CREATE INDEX idx_user_content_like_content ON user_content_like(content_id);
+CREATE INDEX idx_user_content_favorite_content ON user_content_favorite(content_id);
+
+-- created_at range a content id can have: version 7 ids hold their creation time in ms in their first 48 bits, created_at
+-- is set within a day of it (CreatedAtRange in the content service). Other ids can have any created_at
+CREATE FUNCTION content_created_at_range(content_id UUID) RETURNS TSRANGE AS $$
+    SELECT CASE WHEN substr(content_id::text, 15, 1) = '7' THEN
+        tsrange(id_time - INTERVAL '1 day', id_time + INTERVAL '1 day', '[]')
+    ELSE tsrange(NULL, NULL) END
+    FROM (SELECT to_timestamp(('x' || substr(replace(content_id::text, '-', ''), 1, 12))::bit(48)::bigint / 1000.0)
+                     ::TIMESTAMP AS id_time) t
+$$ LANGUAGE sql STABLE;
+
+-- Replaces the foreign keys to content: the referenced content (column named by the trigger argument) must exist and is
+-- locked like a foreign key does, so it cannot be deleted before the referencing row commits
+CREATE FUNCTION check_content_reference() RETURNS TRIGGER AS $$
+DECLARE
+    referenced UUID := (to_jsonb(NEW) ->> TG_ARGV[0])::UUID;
+    created TSRANGE := content_created_at_range(referenced);
+BEGIN
+    IF referenced IS NOT NULL THEN
+        PERFORM 1 FROM content
+            WHERE id = referenced
+            AND created_at >= COALESCE(lower(created), '-infinity') AND created_at <= COALESCE(upper(created), 'infinity')
+            FOR KEY SHARE;
+        IF NOT FOUND THEN
+            RAISE EXCEPTION 'content % referenced by %.% does not exist', referenced, TG_TABLE_NAME, TG_ARGV[0]
+                USING ERRCODE = 'foreign_key_violation';
+        END IF;
+    END IF;
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+-- ON DELETE CASCADE of the former foreign keys: likes, favorites and replies go with their content, replies of replies
+-- through this same trigger. Contents are soft deleted by the application, this covers the hard deletes
+CREATE FUNCTION delete_content_references() RETURNS TRIGGER AS $$
+BEGIN
+    DELETE FROM user_content_like WHERE content_id = OLD.id;
+    DELETE FROM user_content_favorite WHERE content_id = OLD.id;
+    DELETE FROM content WHERE parent_id = OLD.id AND created_at >= OLD.created_at;
+    RETURN OLD;
+END $$ LANGUAGE plpgsql;
+
+CREATE TRIGGER content_parent_exists BEFORE INSERT OR UPDATE OF parent_id ON content
+    FOR EACH ROW EXECUTE FUNCTION check_content_reference('parent_id');
+CREATE TRIGGER user_content_like_content_exists BEFORE INSERT OR UPDATE OF content_id ON user_content_like
+    FOR EACH ROW EXECUTE FUNCTION check_content_reference('content_id');
+CREATE TRIGGER user_content_favorite_content_exists BEFORE INSERT OR UPDATE OF content_id ON user_content_favorite
+    FOR EACH ROW EXECUTE FUNCTION check_content_reference('content_id');
+CREATE TRIGGER content_delete_references AFTER DELETE ON content
+    FOR EACH ROW EXECUTE FUNCTION delete_content_references();
@@ -2,7 +2,8 @@
 CREATE TABLE external_user(
       id UUID PRIMARY KEY,
       username varchar(255) NOT NULL UNIQUE,
-      last_activity_at TIMESTAMP DEFAULT NOW()
+      last_activity_at TIMESTAMP DEFAULT NOW(),
+      follower_count BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE user_follow(
@@ -0,0 +1,186 @@
+package com.socialmediatraining.dtoutils.datasource;
+
+import com.socialmediatraining.authenticationcommons.JwtUtils;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//JDBC pool of the services. The primary spring.datasource pool is declared here, Boot does not auto-configure it next to
+//an R2DBC connection factory. With datasource.replicas.urls set, read-only transactions are sent to the replicas and
+//the writes of each user (subject of the request token) are shared in Redis when the service has it. With
+//datasource.replicas.r2dbc-urls set as well, the R2DBC reads go to the same replicas
+@AutoConfiguration(before = DataSourceAutoConfiguration.class, after = {RedisAutoConfiguration.class, R2dbcAutoConfiguration.class})
+@ConditionalOnClass({HikariDataSource.class, LazyConnectionDataSourceProxy.class})
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class DataSourceRoutingAutoConfiguration {
+
+    //The routing beans below are registered first, they wrap this pool and must not replace it
+    @Bean
+    @ConditionalOnMissingBean(value = DataSource.class,
+            ignored = {ReplicaRoutingDataSource.class, LazyConnectionDataSourceProxy.class})
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty("datasource.replicas.urls")
+    static class ReplicaRoutingConfiguration {
+
+        @Value("${datasource.replicas.urls}")
+        private List<String> replicaUrls;
+
+        @Value("${datasource.replicas.max-pool-size:10}")
+        private int replicaMaxPoolSize;
+
+        @Value("${datasource.replicas.max-lag:5}")
+        private long maxLag;
+
+        @Value("${datasource.replicas.lag-check-interval:2}")
+        private long lagCheckInterval;
+
+        @Value("${datasource.read-your-writes-window:10}")
+        private long readYourWritesWindow;
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnClass(StringRedisTemplate.class)
+        @ConditionalOnBean(StringRedisTemplate.class)
+        static class RedisReadYourWritesConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            public ReadYourWritesStore readYourWritesStore(StringRedisTemplate redisTemplate,
+                                                           @Value("${spring.application.name}") String applicationName,
+                                                           @Value("${datasource.read-your-writes-window:10}") long window) {
+                return new RedisReadYourWritesStore(redisTemplate, applicationName + ":last-write:", Duration.ofSeconds(window));
+            }
+        }
+
+        //Services without Redis keep the writes per instance
+        @Bean
+        @ConditionalOnMissingBean
+        public ReadYourWritesStore inMemoryReadYourWritesStore() {
+            return new InMemoryReadYourWritesStore(Duration.ofSeconds(readYourWritesWindow));
+        }
+
+        //Replica pools use the credentials of the primary
+        @Bean
+        public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                                 ReadYourWritesStore readYourWritesStore,
+                                                                 MeterRegistry meterRegistry) {
+            Map<String, DataSource> replicas = new LinkedHashMap<>();
+            for (int i = 0; i < replicaUrls.size(); i++) {
+                HikariDataSource replica = new HikariDataSource();
+                replica.setPoolName("replica-" + i);
+                replica.setJdbcUrl(replicaUrls.get(i));
+                replica.setUsername(primaryDataSource.getUsername());
+                replica.setPassword(primaryDataSource.getPassword());
+                replica.setMaximumPoolSize(replicaMaxPoolSize);
+                replica.setReadOnly(true);
+                replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+                replicas.put(replica.getPoolName(), replica);
+            }
+            return new ReplicaRoutingDataSource(primaryDataSource, replicas, ReadYourWritesUser::current, readYourWritesStore,
+                    meterRegistry, Duration.ofSeconds(maxLag), Duration.ofSeconds(lagCheckInterval));
+        }
+
+        @Bean
+        @Primary
+        public LazyConnectionDataSourceProxy dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+            return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+        }
+
+        //One R2DBC url per JDBC url, in the same order: replica-<i> of both drivers is the same database and shares the
+        //JDBC lag checks. The pools use the credentials of spring.r2dbc
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnClass({ConnectionFactory.class, ConnectionPool.class})
+        @ConditionalOnBean(ConnectionFactory.class)
+        @ConditionalOnProperty("datasource.replicas.r2dbc-urls")
+        static class R2dbcReplicaRoutingConfiguration {
+
+            @Bean
+            @Primary
+            public ReplicaRoutingConnectionFactory replicaRoutingConnectionFactory(ConnectionFactory connectionFactory,
+                                                                                   R2dbcProperties r2dbcProperties,
+                                                                                   ReplicaRoutingDataSource replicaRoutingDataSource,
+                                                                                   ReadYourWritesStore readYourWritesStore,
+                                                                                   MeterRegistry meterRegistry,
+                                                                                   @Value("${datasource.replicas.r2dbc-urls}") List<String> r2dbcUrls,
+                                                                                   @Value("${datasource.replicas.max-pool-size:10}") int maxPoolSize) {
+                Map<String, ConnectionFactory> replicas = new LinkedHashMap<>();
+                for (int i = 0; i < r2dbcUrls.size(); i++) {
+                    ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(r2dbcUrls.get(i)).mutate();
+                    if (r2dbcProperties.getUsername() != null) {
+                        options.option(ConnectionFactoryOptions.USER, r2dbcProperties.getUsername());
+                    }
+                    if (r2dbcProperties.getPassword() != null) {
+                        options.option(ConnectionFactoryOptions.PASSWORD, r2dbcProperties.getPassword());
+                    }
+                    String name = "replica-" + i;
+                    replicas.put(name, new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                            .name(name)
+                            .maxSize(maxPoolSize)
+                            .build()));
+                }
+                return new ReplicaRoutingConnectionFactory(connectionFactory, replicas, replicaRoutingDataSource::isHealthy,
+                        readYourWritesStore, meterRegistry);
+            }
+        }
+
+        //Kafka listeners and scheduled jobs have no user, their writes are not tracked
+        @Bean
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+        public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+            FilterRegistrationBean<ReadYourWritesFilter> registration =
+                    new FilterRegistrationBean<>(new ReadYourWritesFilter(DataSourceRoutingAutoConfiguration::tokenSubject));
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            return registration;
+        }
+    }
+
+    private static String tokenSubject(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null) {
+            return null;
+        }
+        try {
+            return JwtUtils.getSubIdFromAuthHeader(authHeader);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.socialmediatraining.dtoutils.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Writes seen by this instance only, a user served by another instance after a write may read from a replica
+public class InMemoryReadYourWritesStore implements ReadYourWritesStore {
+
+    private final long windowMillis;
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+
+    public InMemoryReadYourWritesStore(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    @Override
+    public void recordWrite(String user) {
+        lastWriteByUser.put(user, System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean hasRecentWrite(String user) {
+        Long writtenAt = lastWriteByUser.get(user);
+        return writtenAt != null && System.currentTimeMillis() - writtenAt < windowMillis;
+    }
+
+    @Override
+    public void evictExpired() {
+        long oldestKept = System.currentTimeMillis() - windowMillis;
+        lastWriteByUser.values().removeIf(writtenAt -> writtenAt < oldestKept);
+    }
+}
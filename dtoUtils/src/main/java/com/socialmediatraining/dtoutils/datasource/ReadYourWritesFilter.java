@@ -0,0 +1,37 @@
+package com.socialmediatraining.dtoutils.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+//Sets the ReadYourWritesUser of the request thread, the user is null when the resolver finds none
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final Function<HttpServletRequest, String> userResolver;
+
+    public ReadYourWritesFilter(Function<HttpServletRequest, String> userResolver) {
+        this.userResolver = userResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ReadYourWritesUser.set(userResolver.apply(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWritesUser.set(null);
+        }
+    }
+
+    //Async dispatches (streamed responses) run on other threads, the user is only needed where the request began
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+}
@@ -0,0 +1,13 @@
+package com.socialmediatraining.dtoutils.datasource;
+
+//Users who ran a read-write transaction in the last read-your-writes window, they read from the primary
+public interface ReadYourWritesStore {
+
+    void recordWrite(String user);
+
+    boolean hasRecentWrite(String user);
+
+    //Drops the writes older than the window, called on every lag check
+    default void evictExpired() {
+    }
+}
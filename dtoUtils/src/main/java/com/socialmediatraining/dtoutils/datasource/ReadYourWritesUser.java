@@ -0,0 +1,56 @@
+package com.socialmediatraining.dtoutils.datasource;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+//User whose writes are tracked by the replica routing, set on the request thread by ReadYourWritesFilter.
+//Reactive pipelines run their blocking calls on other threads: contextWrite(capture()) where the pipeline is assembled,
+//on the request thread, puts the user in the Reactor context and fromCallable(...) sets it back around the blocking call
+public final class ReadYourWritesUser {
+
+    private static final String CONTEXT_KEY = ReadYourWritesUser.class.getName();
+    private static final ThreadLocal<String> USER = new ThreadLocal<>();
+
+    private ReadYourWritesUser() {
+    }
+
+    public static String current() {
+        return USER.get();
+    }
+
+    public static Function<Context, Context> capture() {
+        String user = USER.get();
+        return context -> user != null ? context.put(CONTEXT_KEY, user) : context;
+    }
+
+    public static <T> Mono<T> fromCallable(Callable<T> callable) {
+        return Mono.deferContextual(context ->
+                Mono.fromCallable(() -> callAs(fromContext(context), callable)));
+    }
+
+    static String fromContext(ContextView context) {
+        return context.<String>getOrEmpty(CONTEXT_KEY).orElse(null);
+    }
+
+    public static <T> T callAs(String user, Callable<T> callable) throws Exception {
+        String previous = USER.get();
+        set(user);
+        try {
+            return callable.call();
+        } finally {
+            set(previous);
+        }
+    }
+
+    static void set(String user) {
+        if (user != null) {
+            USER.set(user);
+        } else {
+            USER.remove();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.socialmediatraining.dtoutils.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+//Writes shared by every instance of a service: a Redis key per user expiring with the window. Writes of this instance
+//are also kept in memory, they are answered without Redis and still known while Redis is unavailable
+public class RedisReadYourWritesStore implements ReadYourWritesStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisReadYourWritesStore.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final Duration window;
+    private final InMemoryReadYourWritesStore localWrites;
+
+    //keyPrefix separates the services sharing a Redis, e.g. "content-service:last-write:"
+    public RedisReadYourWritesStore(StringRedisTemplate redisTemplate, String keyPrefix, Duration window) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.window = window;
+        this.localWrites = new InMemoryReadYourWritesStore(window);
+    }
+
+    @Override
+    public void recordWrite(String user) {
+        localWrites.recordWrite(user);
+        try {
+            redisTemplate.opsForValue().set(keyPrefix + user, "1", window);
+        } catch (Exception e) {
+            log.warn("Cannot share the write of {}, only this instance reads it from the primary", user, e);
+        }
+    }
+
+    @Override
+    public boolean hasRecentWrite(String user) {
+        if (localWrites.hasRecentWrite(user)) {
+            return true;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(keyPrefix + user));
+        } catch (Exception e) {
+            log.warn("Cannot read the last write of {}, only writes made on this instance are known", user, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void evictExpired() {
+        localWrites.evictExpired();
+    }
+}
@@ -0,0 +1,102 @@
+package com.socialmediatraining.dtoutils.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+//R2DBC counterpart of ReplicaRoutingDataSource. The R2DBC queries are reads without transactions, every connection goes
+//to the replicas in turn, skipping the replicas the JDBC lag checks found behind (healthy) and those failing to give a
+//connection. Users who wrote in the last read-your-writes window read from the primary: the user is taken from the
+//Reactor context, put there by contextWrite(ReadYourWritesUser.capture()) on the request thread
+public class ReplicaRoutingConnectionFactory implements ConnectionFactory, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingConnectionFactory.class);
+    private static final String PRIMARY = "primary";
+
+    private final ConnectionFactory primary;
+    private final List<Map.Entry<String, ConnectionFactory>> replicas;
+    private final Predicate<String> healthy;
+    private final ReadYourWritesStore readYourWrites;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingConnectionFactory(ConnectionFactory primary, Map<String, ConnectionFactory> replicas,
+                                           Predicate<String> healthy, ReadYourWritesStore readYourWrites,
+                                           MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.entrySet());
+        this.healthy = healthy;
+        this.readYourWrites = readYourWrites;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.deferContextual(context -> {
+            String user = ReadYourWritesUser.fromContext(context);
+            if (user == null) {
+                return replicaConnection(0, nextReplica.getAndIncrement());
+            }
+            //The Redis store blocks, it is read off the driver event loop
+            return Mono.fromCallable(() -> readYourWrites.hasRecentWrite(user))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(recentWrite -> recentWrite
+                            ? primaryConnection("read-your-writes")
+                            : replicaConnection(0, nextReplica.getAndIncrement()));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return primary.getMetadata();
+    }
+
+    //Disposes the replica pools, the primary belongs to the caller
+    @Override
+    public void close() {
+        for (Map.Entry<String, ConnectionFactory> replica : replicas) {
+            if (replica.getValue() instanceof Disposable disposable) {
+                disposable.dispose();
+            }
+        }
+    }
+
+    private Mono<Connection> replicaConnection(int attempt, int start) {
+        for (int i = attempt; i < replicas.size(); i++) {
+            Map.Entry<String, ConnectionFactory> replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (!healthy.test(replica.getKey())) {
+                continue;
+            }
+            int next = i + 1;
+            return Mono.<Connection>from(replica.getValue().create())
+                    .doOnNext(connection -> countRoute(replica.getKey(), "read-only"))
+                    .onErrorResume(e -> {
+                        meterRegistry.counter("datasource.r2dbc.replica.errors", "replica", replica.getKey()).increment();
+                        log.warn("Replica {} failed to give an R2DBC connection, reading from the next one", replica.getKey(), e);
+                        return replicaConnection(next, start);
+                    });
+        }
+        return primaryConnection("no-healthy-replica");
+    }
+
+    private Mono<Connection> primaryConnection(String reason) {
+        return Mono.<Connection>from(primary.create())
+                .doOnNext(connection -> countRoute(PRIMARY, reason));
+    }
+
+    private void countRoute(String target, String reason) {
+        meterRegistry.counter("datasource.r2dbc.routing", "target", target, "reason", reason).increment();
+    }
+}
@@ -0,0 +1,206 @@
+package com.socialmediatraining.dtoutils.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//Connections of read-only transactions (@Transactional(readOnly = true)) go to the replicas in turn, every other
+//connection goes to the primary. A replica is skipped while its replication lag is above maxLag or cannot be read, and
+//after it failed to give a connection, until the next lag check finds it healthy again.
+//Users who ran a read-write transaction in the last read-your-writes window keep reading from the primary to see their
+//own writes. Writes are recorded in the ReadYourWritesStore for the user given by currentUser (null when there is none).
+//Has to be wrapped in a LazyConnectionDataSourceProxy: JPA asks for the connection when the transaction begins, before
+//the transaction is flagged read-only, the proxy only gets it at the first statement.
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    //Seconds since the last replayed transaction, 0 when every received WAL record is replayed or on a primary
+    static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+    private static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Supplier<String> currentUser;
+    private final ReadYourWritesStore readYourWrites;
+    private final MeterRegistry meterRegistry;
+    private final double maxLagSeconds;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker;
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    //Replicas start unhealthy, they are used once a lag check read their lag. A zero lagCheckInterval disables the
+    //scheduled checks, checkReplicas() is then called by the owner
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Supplier<String> currentUser,
+                                    ReadYourWritesStore readYourWrites, MeterRegistry meterRegistry, Duration maxLag,
+                                    Duration lagCheckInterval) {
+        this.primary = primary;
+        this.currentUser = currentUser;
+        this.readYourWrites = readYourWrites;
+        this.meterRegistry = meterRegistry;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+
+        if (lagCheckInterval.isZero() || this.replicas.isEmpty()) {
+            lagChecker = null;
+            return;
+        }
+        lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas, 0, lagCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                recordWrite();
+            }
+            return primaryConnection("read-write");
+        }
+        if (isWithinReadYourWritesWindow()) {
+            return primaryConnection("read-your-writes");
+        }
+
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = nextHealthyReplica();
+            if (replica == null) {
+                break;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                countRoute(replica.name, "read-only");
+                return connection;
+            } catch (SQLException e) {
+                replica.healthy = false;
+                meterRegistry.counter("datasource.replica.errors", "replica", replica.name).increment();
+                log.warn("Replica {} failed to give a connection, reading from the next one", replica.name, e);
+            }
+        }
+        return primaryConnection("no-healthy-replica");
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                replica.lagSeconds = resultSet.getDouble(1);
+                boolean healthy = replica.lagSeconds <= maxLagSeconds;
+                if (replica.healthy && !healthy) {
+                    log.warn("Replica {} is {}s behind, reading from the primary until it catches up", replica.name, replica.lagSeconds);
+                }
+                replica.healthy = healthy;
+            } catch (Exception e) {
+                replica.healthy = false;
+                replica.lagSeconds = Double.NaN;
+                log.warn("Cannot read the lag of replica {}", replica.name, e);
+            }
+        }
+        readYourWrites.evictExpired();
+    }
+
+    //Whether the last lag check of the replica found it within maxLag, shared with ReplicaRoutingConnectionFactory
+    public boolean isHealthy(String replicaName) {
+        for (Replica replica : replicas) {
+            if (replica.name.equals(replicaName)) {
+                return replica.healthy;
+            }
+        }
+        return false;
+    }
+
+    //Shuts the lag checks down and closes the replica pools, the primary belongs to the caller
+    @Override
+    public void close() throws Exception {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Connection primaryConnection(String reason) throws SQLException {
+        Connection connection = primary.getConnection();
+        countRoute(PRIMARY, reason);
+        return connection;
+    }
+
+    private void countRoute(String target, String reason) {
+        meterRegistry.counter("datasource.routing", "target", target, "reason", reason).increment();
+    }
+
+    private void recordWrite() {
+        String user = currentUser.get();
+        if (user != null) {
+            readYourWrites.recordWrite(user);
+        }
+    }
+
+    private boolean isWithinReadYourWritesWindow() {
+        String user = currentUser.get();
+        return user != null && readYourWrites.hasRecentWrite(user);
+    }
+
+    private Replica nextHealthyReplica() {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.socialmediatraining.dtoutils.dto;
+
+//One per author and import run, lastCreatedAt is the creation date (ISO-8601) of the newest imported content
+public record ContentImportedNotification(
+        String userId,
+        long importedCount,
+        String lastCreatedAt
+) {
+    public static ContentImportedNotification create(String userId, long importedCount, String lastCreatedAt) {
+        return new ContentImportedNotification(userId, importedCount, lastCreatedAt);
+    }
+}
@@ -0,0 +1,34 @@
+package com.socialmediatraining.dtoutils.dto;
+
+import java.util.Map;
+
+//parentId and rootId are only set for comments. The content itself (createdAt in ISO-8601, text, mediaUrls) is carried
+//so consumers don't read it back, it is null in events published before these fields existed
+public record NewContentNotification(
+        String contentId,
+        String parentId,
+        String creatorId,
+        String creatorUsername,
+        String rootId,
+        String createdAt,
+        String text,
+        Map<String, String> mediaUrls
+) {
+    public static NewContentNotification create(String contentId, String parentId, String creatorId, String creatorUsername){
+        return create(contentId, parentId, creatorId, creatorUsername, null, null, null, null);
+    }
+
+    public static NewContentNotification create(String contentId, String parentId, String creatorId, String creatorUsername,
+                                                String rootId, String createdAt, String text, Map<String, String> mediaUrls){
+        return new NewContentNotification(
+                contentId,
+                parentId,
+                creatorId,
+                creatorUsername,
+                rootId,
+                createdAt,
+                text,
+                mediaUrls
+        );
+    }
+}
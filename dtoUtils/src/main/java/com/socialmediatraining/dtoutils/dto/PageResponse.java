@@ -1,24 +1,54 @@
 package com.socialmediatraining.dtoutils.dto;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
+//next_cursor is only set in cursor mode. Cursor and slice pages are not counted, their totalPages and totalItems are -1
+//and has_next tells whether another page follows
 public record PageResponse<T>(
         List<T> content,
         int currentPage,
         int totalPages,
         long totalItems,
-        int size
+        int size,
+        String next_cursor,
+        boolean has_next
 ) {
+    public PageResponse(List<T> content, int currentPage, int totalPages, long totalItems, int size) {
+        this(content, currentPage, totalPages, totalItems, size, null);
+    }
+
+    public PageResponse(List<T> content, int currentPage, int totalPages, long totalItems, int size, String next_cursor) {
+        this(content, currentPage, totalPages, totalItems, size, next_cursor, next_cursor != null || currentPage + 1 < totalPages);
+    }
+
     public static <T> PageResponse<T> from(Page<T> page) {
         return new PageResponse<>(
                 page.getContent(),
                 page.getNumber(),
                 page.getTotalPages(),
                 page.getTotalElements(),
-                page.getSize()
+                page.getSize(),
+                null,
+                page.hasNext()
         );
     }
-}
 
+    public static <T> PageResponse<T> from(Slice<T> slice) {
+        return from(slice, null);
+    }
+
+    public static <T> PageResponse<T> from(Slice<T> slice, String nextCursor) {
+        return new PageResponse<>(
+                slice.getContent(),
+                slice.getNumber(),
+                -1,
+                -1,
+                slice.getSize(),
+                nextCursor,
+                slice.hasNext()
+        );
+    }
+}
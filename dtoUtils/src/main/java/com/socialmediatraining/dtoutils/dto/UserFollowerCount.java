@@ -0,0 +1,12 @@
+package com.socialmediatraining.dtoutils.dto;
+
+public record UserFollowerCount(
+        String userId,
+        String username,
+        long followerCount
+) {
+
+    public static UserFollowerCount create(String userId, String username, long followerCount) {
+        return new UserFollowerCount(userId, username, followerCount);
+    }
+}
@@ -0,0 +1,18 @@
+package com.socialmediatraining.dtoutils.dto;
+
+public record UserLikeNotification(
+        String userId,
+        String contentId,
+        String likerId,
+        String likerUsername
+) {
+    public static UserLikeNotification create(String userId, String contentId,
+                                              String likerId, String likerUsername){
+        return new UserLikeNotification(
+                userId,
+                contentId,
+                likerId,
+                likerUsername
+        );
+    }
+}
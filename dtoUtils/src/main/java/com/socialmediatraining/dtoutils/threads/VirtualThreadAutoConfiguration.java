@@ -0,0 +1,29 @@
+package com.socialmediatraining.dtoutils.threads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+
+//With spring.threads.virtual.enabled=true Spring Boot runs the Tomcat requests, the @KafkaListener containers, @Async and
+//@Scheduled work on virtual threads. This adds the pinning diagnostics of that mode to every service using it
+@AutoConfiguration(afterName = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnBean(MeterRegistry.class)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                                                   @Value("${virtual-threads.pinning-threshold-ms:20}") long pinningThresholdMs) {
+        return new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(pinningThresholdMs));
+    }
+}
@@ -0,0 +1,72 @@
+package com.socialmediatraining.dtoutils.threads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+//Reports virtual threads pinned to their carrier for longer than the threshold, mostly a blocking call made while
+//holding a monitor (synchronized) in a driver or client library. Listens to the JFR jdk.VirtualThreadPinned events of
+//this JVM, each one is timed in jvm.threads.virtual.pinned tagged with the first class outside the JDK on the pinned
+//stack. The full stack is logged the first time a class pins, later pins of the same class are only counted
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final Set<String> reportedClasses = ConcurrentHashMap.newKeySet();
+    private final RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry, Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+    }
+
+    @Override
+    public void close() {
+        recordingStream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+        String culprit = frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(frame -> frame.getMethod().getType().getName())
+                .filter(type -> !isJdkClass(type))
+                .findFirst()
+                .orElse(UNKNOWN);
+
+        Timer.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads pinned to their carrier thread above the threshold")
+                .tag("class", culprit)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        if (reportedClasses.add(culprit)) {
+            log.warn("Virtual thread pinned for {} ms in {}, further pins there are only counted:\n\t{}",
+                    event.getDuration().toMillis(), culprit, frames.stream()
+                            .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                            .collect(Collectors.joining("\n\t")));
+        }
+    }
+
+    private static boolean isJdkClass(String type) {
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+}